@@ -0,0 +1,285 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.buffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed capacity, lock-free event buffer shared by the MessageFlowReporter threads (producers) and the
+ * Elasticsearch publisher (consumer).
+ * All the slots are allocated up front. Every slot carries a sequence number which tells producers and
+ * consumers whether the slot is free or holds an event for the current lap, so neither side takes a lock and
+ * the occupancy is known in constant time from the head and tail counters.
+ * Consumers are also allowed to race each other, which is what lets producers evict the oldest event under
+ * the DROP_OLDEST policy.
+ *
+ * @param <E> type of the buffered events
+ */
+public class EventRingBuffer<E> {
+
+    // Sleep time of a producer waiting for a free slot under the BLOCK policy (in nanoseconds)
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeOutNanos;
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+
+    // Next position to be written by producers
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next position to be read by consumers
+    private final AtomicLong head = new AtomicLong();
+
+    // Consumer parked in awaitEvents, unparked by the producer which publishes the next event
+    private volatile Thread waitingConsumer;
+
+    // Enqueue and drop counters, read through JMX
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder droppedOldestCount = new LongAdder();
+    private final LongAdder droppedNewestCount = new LongAdder();
+    private final LongAdder blockTimedOutCount = new LongAdder();
+
+    /**
+     * @param capacity       maximum number of events kept in the buffer
+     * @param overflowPolicy what to do with an incoming event when the buffer is full
+     * @param blockTimeOut   maximum time a producer waits for a free slot under the BLOCK policy (in millis)
+     */
+    public EventRingBuffer(int capacity, OverflowPolicy overflowPolicy, long blockTimeOut) {
+        // With a single slot, a published event and a free slot of the next lap carry the same sequence
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Buffer capacity must be at least 2: " + capacity);
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeOutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeOut);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the event to the buffer, applying the overflow policy if the buffer is full.
+     *
+     * @param event event to be buffered
+     * @return true if the event got buffered, false if it was dropped
+     */
+    public boolean offer(E event) {
+        if (tryOffer(event)) {
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                // Evict until there is a free slot. Another producer can take the slot first, so retry.
+                do {
+                    if (tryPoll() != null) {
+                        droppedOldestCount.increment();
+                    }
+                } while (!tryOffer(event));
+                return true;
+            case BLOCK:
+                long deadline = System.nanoTime() + blockTimeOutNanos;
+                do {
+                    if (System.nanoTime() - deadline >= 0) {
+                        blockTimedOutCount.increment();
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                } while (!tryOffer(event));
+                return true;
+            default:
+                droppedNewestCount.increment();
+                return false;
+        }
+    }
+
+    /**
+     * Takes the oldest event out of the buffer.
+     *
+     * @return the oldest buffered event or null if the buffer is empty
+     */
+    public E poll() {
+        return tryPoll();
+    }
+
+    /**
+     * Parks the calling consumer until an event is available or the time out elapses. Returns immediately if
+     * the buffer is not empty. Only one consumer may wait on a buffer at a time.
+     * The consumer also returns early when it is unparked or interrupted, e.g. on shutdown.
+     *
+     * @param timeOutNanos maximum time to wait (in nanoseconds)
+     * @return true if there are events to poll
+     */
+    public boolean awaitEvents(long timeOutNanos) {
+        if (!isEmpty()) {
+            return true;
+        }
+        if (timeOutNanos <= 0) {
+            return false;
+        }
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            // Check again after registering, an event published in between would not have unparked us
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, timeOutNanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        return !isEmpty();
+    }
+
+    /**
+     * Adds the event only if there is a free slot, without applying the overflow policy.
+     *
+     * @param event event to be buffered
+     * @return true if the event got buffered, false if the buffer is full
+     */
+    public boolean tryOffer(E event) {
+        long position = tail.get();
+        while (true) {
+            int index = index(position);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                // Slot is free for this lap, claim it
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    // Publish the event to consumers
+                    sequences.lazySet(index, position + 1);
+                    enqueuedCount.increment();
+
+                    // The tail CAS above orders this read after the claim, so a consumer which found the buffer
+                    // empty after registering is always seen here
+                    Thread consumer = waitingConsumer;
+                    if (consumer != null) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // Slot still holds the event of the previous lap, buffer is full
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    private E tryPoll() {
+        long position = head.get();
+        while (true) {
+            int index = index(position);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                // Slot holds a published event, claim it
+                if (head.compareAndSet(position, position + 1)) {
+                    E event = slots.get(index);
+                    slots.lazySet(index, null);
+                    // Release the slot to producers of the next lap
+                    sequences.lazySet(index, position + capacity);
+                    return event;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                // Nothing published at this position yet, buffer is empty
+                return null;
+            } else {
+                // Another consumer claimed this position
+                position = head.get();
+            }
+        }
+    }
+
+    private int index(long position) {
+        return (int) (position % capacity);
+    }
+
+    /**
+     * @return number of buffered events, computed in constant time
+     */
+    public int size() {
+        // Read head first, so a concurrent poll can only make the result larger than the real value
+        long currentHead = head.get();
+        long size = tail.get() - currentHead;
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return number of events added to the buffer since it was created
+     */
+    public long getEnqueuedCount() {
+        return enqueuedCount.sum();
+    }
+
+    /**
+     * @return number of buffered events evicted to make room for newer events
+     */
+    public long getDroppedOldestCount() {
+        return droppedOldestCount.sum();
+    }
+
+    /**
+     * @return number of incoming events rejected because the buffer was full
+     */
+    public long getDroppedNewestCount() {
+        return droppedNewestCount.sum();
+    }
+
+    /**
+     * @return number of incoming events rejected after waiting for the block time out
+     */
+    public long getBlockTimedOutCount() {
+        return blockTimedOutCount.sum();
+    }
+
+    /**
+     * @return total number of events lost due to buffer overflow
+     */
+    public long getTotalDroppedCount() {
+        return getDroppedOldestCount() + getDroppedNewestCount() + getBlockTimedOutCount();
+    }
+}
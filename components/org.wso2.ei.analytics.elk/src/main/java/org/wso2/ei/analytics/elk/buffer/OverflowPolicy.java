@@ -0,0 +1,62 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.buffer;
+
+/**
+ * Decides what the event buffer does with an incoming event when it is full.
+ */
+public enum OverflowPolicy {
+
+    // Evict the oldest buffered event to make room for the incoming one
+    DROP_OLDEST("drop-oldest"),
+
+    // Reject the incoming event and keep the buffered ones
+    DROP_NEWEST("drop-newest"),
+
+    // Wait for the publisher to free a slot, rejecting the event after the configured time out
+    BLOCK("block");
+
+    private final String configName;
+
+    OverflowPolicy(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * @return name of the policy as written in carbon.xml
+     */
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Resolves the policy from the value configured in carbon.xml.
+     *
+     * @param configName value of the <BufferOverflowPolicy> element
+     * @return matching policy, or null if the value is not a known policy
+     */
+    public static OverflowPolicy fromConfigName(String configName) {
+        for (OverflowPolicy policy : values()) {
+            if (policy.configName.equalsIgnoreCase(configName.trim())) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
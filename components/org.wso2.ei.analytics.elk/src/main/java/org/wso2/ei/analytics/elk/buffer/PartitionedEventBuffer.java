@@ -0,0 +1,146 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event buffer split into one EventRingBuffer per publisher worker.
+ * Events are routed to a partition by the hash of a key (the message flow id), so all the events of a flow are
+ * drained by the same worker and each worker parks on its own partition.
+ *
+ * @param <E> type of the buffered events
+ */
+public class PartitionedEventBuffer<E> {
+
+    private final List<EventRingBuffer<E>> partitions;
+
+    /**
+     * @param partitionCount number of partitions, one per publisher worker
+     * @param capacity       maximum number of events kept in all the partitions together
+     * @param overflowPolicy what to do with an incoming event when its partition is full
+     * @param blockTimeOut   maximum time a producer waits for a free slot under the BLOCK policy (in millis)
+     */
+    public PartitionedEventBuffer(int partitionCount, int capacity, OverflowPolicy overflowPolicy,
+                                  long blockTimeOut) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Partition count must be at least 1: " + partitionCount);
+        }
+
+        // Round up, so the partitions together hold at least the configured capacity
+        int partitionCapacity = Math.max(2, (capacity + partitionCount - 1) / partitionCount);
+
+        partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new EventRingBuffer<>(partitionCapacity, overflowPolicy, blockTimeOut));
+        }
+    }
+
+    /**
+     * Selects the partition of the given key. Events of equal keys always go to the same partition.
+     *
+     * @param key routing key of the event, null keys go to the first partition
+     * @return partition to offer the event to
+     */
+    public EventRingBuffer<E> partitionFor(Object key) {
+        return partitions.get(partitionIndexFor(key));
+    }
+
+    /**
+     * @param key routing key of the event, null keys go to the first partition
+     * @return index of the partition the key is routed to
+     */
+    public int partitionIndexFor(Object key) {
+        if (key == null || partitions.size() == 1) {
+            return 0;
+        }
+
+        // Spread the high bits, so keys which differ only there still land on different partitions
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % partitions.size();
+    }
+
+    public EventRingBuffer<E> getPartition(int index) {
+        return partitions.get(index);
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * @return number of buffered events in all the partitions
+     */
+    public int size() {
+        int size = 0;
+        for (EventRingBuffer<E> partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return capacity of all the partitions together
+     */
+    public int getCapacity() {
+        return partitions.get(0).getCapacity() * partitions.size();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return partitions.get(0).getOverflowPolicy();
+    }
+
+    public long getEnqueuedCount() {
+        long count = 0;
+        for (EventRingBuffer<E> partition : partitions) {
+            count += partition.getEnqueuedCount();
+        }
+        return count;
+    }
+
+    public long getDroppedOldestCount() {
+        long count = 0;
+        for (EventRingBuffer<E> partition : partitions) {
+            count += partition.getDroppedOldestCount();
+        }
+        return count;
+    }
+
+    public long getDroppedNewestCount() {
+        long count = 0;
+        for (EventRingBuffer<E> partition : partitions) {
+            count += partition.getDroppedNewestCount();
+        }
+        return count;
+    }
+
+    public long getBlockTimedOutCount() {
+        long count = 0;
+        for (EventRingBuffer<E> partition : partitions) {
+            count += partition.getBlockTimedOutCount();
+        }
+        return count;
+    }
+
+    public long getTotalDroppedCount() {
+        return getDroppedOldestCount() + getDroppedNewestCount() + getBlockTimedOutCount();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which components of a flow are published, from the include/exclude rules configured in carbon.xml.
+ * The rules are compiled once into hash sets, so a decision is a few constant time lookups whatever the number
+ * of rules.
+ */
+public class ComponentFilter {
+
+    private final Set<String> includedTypes;
+    private final Set<String> includedNames;
+    private final Set<String> excludedNames;
+
+    /**
+     * @param includedTypes component types to publish
+     * @param includedNames component names to publish, empty publishes every name which is not excluded
+     * @param excludedNames component names never published
+     */
+    public ComponentFilter(Collection<String> includedTypes, Collection<String> includedNames,
+                           Collection<String> excludedNames) {
+        this.includedTypes = Collections.unmodifiableSet(new HashSet<>(includedTypes));
+        this.includedNames = Collections.unmodifiableSet(new HashSet<>(includedNames));
+        this.excludedNames = Collections.unmodifiableSet(new HashSet<>(excludedNames));
+    }
+
+    /**
+     * @param componentType type of the component
+     * @param componentName name of the component
+     * @return true if statistics of the component are published
+     */
+    public boolean accept(String componentType, String componentName) {
+        return includedTypes.contains(componentType) && !excludedNames.contains(componentName) &&
+                (includedNames.isEmpty() || includedNames.contains(componentName));
+    }
+
+    public Set<String> getIncludedTypes() {
+        return includedTypes;
+    }
+
+    public Set<String> getIncludedNames() {
+        return includedNames;
+    }
+
+    public Set<String> getExcludedNames() {
+        return excludedNames;
+    }
+
+    /**
+     * Splits a comma separated rule list of carbon.xml.
+     *
+     * @param rules comma separated values
+     * @return trimmed, non empty values
+     */
+    public static List<String> parseRules(String rules) {
+        List<String> values = new ArrayList<>();
+        for (String value : rules.split(",")) {
+            String trimmed = value.trim();
+            if (!trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+        return values;
+    }
+}
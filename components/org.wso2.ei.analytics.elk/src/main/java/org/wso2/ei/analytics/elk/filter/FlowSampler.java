@@ -0,0 +1,108 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.filter;
+
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Head based sampling of message flows. Whether a flow is kept depends only on its message flow id, so all the
+ * components of a flow are kept or dropped together, and every server of a cluster keeps the same flows.
+ * Flows with a faulty component can be kept regardless of the sampling percentage.
+ */
+public class FlowSampler {
+
+    // Hashes are compared as unsigned 32 bit values
+    private static final long HASH_RANGE = 1L << 32;
+
+    private final double percentage;
+    private final long threshold;
+    private final boolean keepFaults;
+
+    // Flows dropped by sampling, read through JMX
+    private final LongAdder sampledOutCount = new LongAdder();
+
+    /**
+     * @param percentage percentage of the flows to keep, between 0 and 100
+     * @param keepFaults whether flows with a faulty component are always kept
+     */
+    public FlowSampler(double percentage, boolean keepFaults) {
+        this.percentage = percentage;
+        this.threshold = (long) Math.ceil(percentage / 100 * HASH_RANGE);
+        this.keepFaults = keepFaults;
+    }
+
+    /**
+     * @param flowId message flow id
+     * @param events events of the flow, only scanned for faults when the flow id is not sampled
+     * @return true if the flow is published
+     */
+    public boolean sample(String flowId, List<PublishingEvent> events) {
+        if (isSampled(flowId)) {
+            return true;
+        }
+        if (keepFaults) {
+            for (int i = 0; i < events.size(); i++) {
+                if (events.get(i).getFaultCount() > 0) {
+                    return true;
+                }
+            }
+        }
+        sampledOutCount.increment();
+        return false;
+    }
+
+    /**
+     * @param flowId message flow id
+     * @return true if the flow id falls in the sampled percentage
+     */
+    public boolean isSampled(String flowId) {
+        if (flowId == null) {
+            return true;
+        }
+        return (mix(flowId.hashCode()) & 0xFFFFFFFFL) < threshold;
+    }
+
+    // Finalizer of murmur3, spreads the string hash codes of similar flow ids over the whole range
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+
+    public boolean isKeepingFaults() {
+        return keepFaults;
+    }
+
+    /**
+     * @return number of flows dropped by sampling
+     */
+    public long getSampledOutCount() {
+        return sampledOutCount.sum();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.journal;
+
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed size, memory-mapped segment file of the spill journal.
+ * Records are appended as [int payload length][payload]. The length is written after the payload, so a record
+ * which was not completely written reads as the zero filled end of the segment.
+ * Not thread safe, SpillJournal guards all access.
+ */
+final class JournalSegment {
+
+    static final String FILE_PREFIX = "spill-";
+    static final String FILE_SUFFIX = ".journal";
+
+    // Length prefix of a record
+    static final int LENGTH_SIZE = 4;
+
+    private final long sequence;
+    private final Path path;
+    private final int size;
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private int readPosition;
+
+    // Records written to / read from this segment
+    private int recordCount;
+    private int readCount;
+
+    // No more records are appended to a sealed segment
+    private boolean sealed;
+
+    private JournalSegment(long sequence, Path path, int size, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.size = size;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates and maps a new segment file.
+     *
+     * @param directory journal directory
+     * @param sequence  sequence number of the segment, segments are replayed in sequence order
+     * @param size      size of the segment file (in bytes)
+     * @return new empty segment
+     * @throws IOException if the file can not be created or mapped
+     */
+    static JournalSegment create(Path directory, long sequence, int size) throws IOException {
+        Path path = directory.resolve(FILE_PREFIX + sequence + FILE_SUFFIX);
+        return new JournalSegment(sequence, path, size, map(path, size));
+    }
+
+    /**
+     * Maps a segment file left by an earlier run and finds the records written to it. The segment is sealed, new
+     * records go to a new segment.
+     *
+     * @param path     segment file
+     * @param sequence sequence number parsed from the file name
+     * @return sealed segment with all its records unread
+     * @throws IOException if the file can not be mapped
+     */
+    static JournalSegment open(Path path, long sequence) throws IOException {
+        long fileSize = Files.size(path);
+        int size = (int) Math.min(fileSize, Integer.MAX_VALUE);
+        JournalSegment segment = new JournalSegment(sequence, path, size, map(path, size));
+
+        int position = 0;
+        while (position + LENGTH_SIZE <= size) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + LENGTH_SIZE + length > size) {
+                break;
+            }
+            segment.recordCount++;
+            position += LENGTH_SIZE + length;
+        }
+        segment.writePosition = position;
+        segment.sealed = true;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Appends the encoded event.
+     *
+     * @param payload event encoded by encode
+     * @return false if the segment is sealed or has no room for the record
+     */
+    boolean append(byte[] payload) {
+        if (sealed || writePosition + LENGTH_SIZE + payload.length > size) {
+            return false;
+        }
+        int position = writePosition;
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + LENGTH_SIZE);
+        view.put(payload);
+
+        // Mark the record complete
+        buffer.putInt(position, payload.length);
+        writePosition = position + LENGTH_SIZE + payload.length;
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * @return next unread event, or null if all the written records have been read
+     */
+    StatisticsEvent read() {
+        if (readPosition >= writePosition) {
+            return null;
+        }
+        int length = buffer.getInt(readPosition);
+        ByteBuffer view = buffer.duplicate();
+        view.position(readPosition + LENGTH_SIZE);
+        view.limit(readPosition + LENGTH_SIZE + length);
+        readPosition += LENGTH_SIZE + length;
+        readCount++;
+        return decode(view);
+    }
+
+    /**
+     * Encodes the event as [success][start time][duration][component type][component name][flow id], strings as
+     * UTF-8 with an int length, -1 for null.
+     *
+     * @param event event to be spilled
+     * @return record payload
+     */
+    static byte[] encode(StatisticsEvent event) {
+        byte[] componentType = bytes(event.getComponentType());
+        byte[] componentName = bytes(event.getComponentName());
+        byte[] flowId = bytes(event.getFlowId());
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 8 + length(componentType) + length(componentName) +
+                length(flowId));
+        payload.put(event.isSuccess() ? (byte) 1 : (byte) 0);
+        payload.putLong(event.getStartTime());
+        payload.putLong(event.getDuration());
+        putString(payload, componentType);
+        putString(payload, componentName);
+        putString(payload, flowId);
+        return payload.array();
+    }
+
+    private static StatisticsEvent decode(ByteBuffer payload) {
+        boolean success = payload.get() != 0;
+        long startTime = payload.getLong();
+        long duration = payload.getLong();
+        String componentType = getString(payload);
+        String componentName = getString(payload);
+        String flowId = getString(payload);
+        return new StatisticsEvent(componentType, componentName, flowId, startTime, duration, success);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer payload, byte[] value) {
+        if (value == null) {
+            payload.putInt(-1);
+        } else {
+            payload.putInt(value.length);
+            payload.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        payload.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Flushes the written records to the file and stops appending.
+     */
+    void seal() {
+        if (!sealed) {
+            buffer.force();
+            sealed = true;
+        }
+    }
+
+    /**
+     * Flushes the written records to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    int getUnreadCount() {
+        return recordCount - readCount;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.journal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only, disk-backed overflow of the event buffer, used while Elasticsearch can not keep up or is down.
+ * Events are written to memory-mapped segment files of a fixed size. A new segment is started when the current
+ * one is full, and the oldest segment is evicted when the journal reaches its size cap.
+ * Segments left by an earlier run are replayed after a restart; a segment which was partly replayed before the
+ * restart is replayed again from its start.
+ * Spilling only happens under pressure, so all the operations take the journal lock.
+ */
+public class SpillJournal {
+
+    private static final Log log = LogFactory.getLog(SpillJournal.class);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    // Oldest segment first, the last segment is the one being appended to
+    private final Deque<JournalSegment> segments = new ArrayDeque<>();
+
+    // Replayed events the event buffer could not take, handed out again before the segments
+    private final Deque<StatisticsEvent> heldEvents = new ArrayDeque<>();
+    private long nextSequence;
+    private boolean closed;
+
+    // Events in the journal not yet replayed, read without the lock
+    private final AtomicLong pendingCount = new AtomicLong();
+
+    // Counters, read through JMX
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * Opens the journal in the given directory, picking up the segments of an earlier run.
+     *
+     * @param directory   directory of the segment files, created if missing
+     * @param segmentSize size of a segment file (in bytes)
+     * @param maxSize     maximum size of all the segment files together (in bytes)
+     * @throws IOException if the directory or the existing segments can not be opened
+     */
+    public SpillJournal(Path directory, int segmentSize, long maxSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxSize / segmentSize));
+
+        Files.createDirectories(directory);
+
+        List<JournalSegment> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                JournalSegment.FILE_PREFIX + "*" + JournalSegment.FILE_SUFFIX)) {
+            for (Path file : files) {
+                long sequence = parseSequence(file);
+                if (sequence < 0) {
+                    continue;
+                }
+                JournalSegment segment = JournalSegment.open(file, sequence);
+                if (segment.getUnreadCount() == 0) {
+                    segment.delete();
+                } else {
+                    existing.add(segment);
+                }
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            }
+        }
+        existing.sort((first, second) -> Long.compare(first.getSequence(), second.getSequence()));
+        for (JournalSegment segment : existing) {
+            segments.addLast(segment);
+            pendingCount.addAndGet(segment.getUnreadCount());
+        }
+        evictOverCap();
+
+        if (!segments.isEmpty()) {
+            log.info("Found " + pendingCount.get() + " spilled statistics events to be published from " +
+                    directory);
+        }
+    }
+
+    private static long parseSequence(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(JournalSegment.FILE_PREFIX.length(),
+                    name.length() - JournalSegment.FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the event to the journal.
+     *
+     * @param event event which does not fit into the event buffer
+     * @return false if the event could not be written and has to be handled by the event buffer
+     */
+    public boolean append(StatisticsEvent event) {
+        if (write(event)) {
+            spilledCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts back replayed events which the event buffer could not take. They are held in memory and returned
+     * first by the next poll, so the replay stays oldest first.
+     *
+     * @param events events taken by poll, in the order they were taken
+     */
+    public synchronized void requeue(Collection<StatisticsEvent> events) {
+        if (closed) {
+            evictedCount.addAndGet(events.size());
+            return;
+        }
+        List<StatisticsEvent> requeued = new ArrayList<>(events);
+        for (int i = requeued.size() - 1; i >= 0; i--) {
+            heldEvents.addFirst(requeued.get(i));
+        }
+        pendingCount.addAndGet(requeued.size());
+        replayedCount.addAndGet(-requeued.size());
+    }
+
+    private synchronized boolean write(StatisticsEvent event) {
+        if (closed) {
+            return false;
+        }
+        byte[] payload = JournalSegment.encode(event);
+        if (JournalSegment.LENGTH_SIZE + payload.length > segmentSize) {
+            return false;
+        }
+
+        try {
+            JournalSegment active = segments.peekLast();
+            if (active == null || !active.append(payload)) {
+                active = rotate(active);
+                active.append(payload);
+            }
+        } catch (IOException e) {
+            log.error("Could not create a new spill journal segment in " + directory, e);
+            return false;
+        }
+        pendingCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Seals the full segment and starts a new one, evicting the oldest segments over the size cap.
+     */
+    private JournalSegment rotate(JournalSegment active) throws IOException {
+        if (active != null) {
+            active.seal();
+        }
+        JournalSegment segment = JournalSegment.create(directory, nextSequence++, segmentSize);
+        segments.addLast(segment);
+        evictOverCap();
+        return segment;
+    }
+
+    private void evictOverCap() {
+        while (segments.size() > maxSegments) {
+            JournalSegment oldest = segments.removeFirst();
+            int unread = oldest.getUnreadCount();
+            pendingCount.addAndGet(-unread);
+            evictedCount.addAndGet(unread);
+            log.warn("Spill journal size limit reached. Evicted " + unread + " statistics events.");
+            deleteSegment(oldest);
+        }
+    }
+
+    /**
+     * Takes the oldest events out of the journal. Fully replayed segments are deleted.
+     *
+     * @param maxEvents maximum number of events to take
+     * @param events    list the events are added to
+     * @return number of events taken
+     */
+    public synchronized int poll(int maxEvents, List<StatisticsEvent> events) {
+        int count = 0;
+        while (count < maxEvents && !closed && !heldEvents.isEmpty()) {
+            events.add(heldEvents.removeFirst());
+            count++;
+        }
+        while (count < maxEvents && !closed && !segments.isEmpty()) {
+            JournalSegment oldest = segments.peekFirst();
+            StatisticsEvent event = oldest.read();
+            if (event != null) {
+                events.add(event);
+                count++;
+            } else if (oldest.isSealed()) {
+                segments.removeFirst();
+                deleteSegment(oldest);
+            } else {
+                // Caught up with the segment being appended to
+                break;
+            }
+        }
+        pendingCount.addAndGet(-count);
+        replayedCount.addAndGet(count);
+        return count;
+    }
+
+    private void deleteSegment(JournalSegment segment) {
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            log.warn("Could not delete the spill journal segment " + segment.getSequence(), e);
+        }
+    }
+
+    /**
+     * Flushes the segment being appended to and stops the journal. Events not yet replayed stay on disk for
+     * the next start, the held events are written after the other events.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        while (!heldEvents.isEmpty()) {
+            // Counted as pending while held, write counts them again
+            pendingCount.decrementAndGet();
+            if (!write(heldEvents.removeFirst())) {
+                evictedCount.incrementAndGet();
+            }
+        }
+        closed = true;
+        JournalSegment active = segments.peekLast();
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    public boolean isEmpty() {
+        return pendingCount.get() == 0;
+    }
+
+    /**
+     * @return number of events in the journal waiting to be replayed
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return disk space taken by the segment files (in bytes)
+     */
+    public synchronized long getSizeInBytes() {
+        long size = 0;
+        for (JournalSegment segment : segments) {
+            size += segment.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * @return number of events written to the journal because the event buffer was over its high-water mark
+     */
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * @return number of events handed back to the event buffer
+     */
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    /**
+     * @return number of events lost because the journal reached its size cap
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+}
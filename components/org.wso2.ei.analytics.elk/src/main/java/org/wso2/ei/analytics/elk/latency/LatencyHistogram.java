@@ -0,0 +1,118 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.latency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Log-linear histogram of durations, in the layout of an HdrHistogram with two significant digits.
+ * Values below 32 get a bucket each. Above that, every power of two range is split into 32 equal buckets, so the
+ * value reported for a bucket is never more than about 3% above the recorded value.
+ * Values up to 2^41 millis are tracked, larger values are counted in the last bucket.
+ * All the buckets are allocated up front and recording is a single atomic increment, so it neither allocates nor
+ * takes a lock. Draining swaps every bucket with zero, so an increment racing with a drain is counted in exactly
+ * one of the windows.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    // Number of buckets of a histogram
+    public static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param value duration to record (in millis), negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        max.accumulate(value);
+    }
+
+    /**
+     * Copies the bucket counts into the snapshot and resets them.
+     *
+     * @param snapshot array of at least BUCKET_COUNT elements receiving the counts
+     * @return largest value recorded since the previous drain
+     */
+    public long drainTo(long[] snapshot) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            // Skip the write for empty buckets, most of them are empty for a given component
+            snapshot[i] = counts.get(i) == 0 ? 0 : counts.getAndSet(i, 0);
+        }
+        return max.getThenReset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT * (shift + 1) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * @param index index of a bucket
+     * @return largest value counted in the bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Computes a percentile from a drained snapshot.
+     *
+     * @param snapshot   bucket counts
+     * @param totalCount sum of the bucket counts
+     * @param percentile percentile to compute, between 0 and 100
+     * @param max        largest recorded value, caps the result since a bucket can reach past it
+     * @return value at the percentile, 0 if the snapshot is empty
+     */
+    public static long valueAtPercentile(long[] snapshot, long totalCount, double percentile, long max) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+}
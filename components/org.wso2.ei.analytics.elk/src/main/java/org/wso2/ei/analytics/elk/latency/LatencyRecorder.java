@@ -0,0 +1,89 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.latency;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a latency histogram of the mediation duration per (component type, component name).
+ * The histogram of a component is created on its first event and reused for every flush interval, so recording
+ * does not allocate once all the components of the server have been seen.
+ * Drained by a single thread.
+ */
+public class LatencyRecorder {
+
+    // Component type -> component name -> histogram
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>> histograms =
+            new ConcurrentHashMap<>();
+
+    // Reused by every drain
+    private final long[] snapshot = new long[LatencyHistogram.BUCKET_COUNT];
+
+    /**
+     * Records the duration into the histogram of the component.
+     *
+     * @param componentType type of the component
+     * @param componentName name of the component
+     * @param duration      mediation time of the component (in millis)
+     */
+    public void record(String componentType, String componentName, long duration) {
+        // get first, computeIfAbsent locks the bin even if the key is present
+        ConcurrentHashMap<String, LatencyHistogram> byName = histograms.get(componentType);
+        if (byName == null) {
+            byName = histograms.computeIfAbsent(componentType, type -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = byName.get(componentName);
+        if (histogram == null) {
+            histogram = byName.computeIfAbsent(componentName, name -> new LatencyHistogram());
+        }
+        histogram.record(duration);
+    }
+
+    /**
+     * Computes the percentiles of every component and resets the histograms, for the interval which just ended.
+     *
+     * @param summaries list the summaries of the components with events in the interval are added to
+     * @return number of summaries added
+     */
+    public int drain(List<LatencySummary> summaries) {
+        int added = 0;
+        for (Map.Entry<String, ConcurrentHashMap<String, LatencyHistogram>> byType : histograms.entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> byName : byType.getValue().entrySet()) {
+                long max = byName.getValue().drainTo(snapshot);
+                long count = 0;
+                for (long bucketCount : snapshot) {
+                    count += bucketCount;
+                }
+                if (count == 0) {
+                    continue;
+                }
+                summaries.add(new LatencySummary(byType.getKey(), byName.getKey(), count,
+                        LatencyHistogram.valueAtPercentile(snapshot, count, 50, max),
+                        LatencyHistogram.valueAtPercentile(snapshot, count, 90, max),
+                        LatencyHistogram.valueAtPercentile(snapshot, count, 99, max),
+                        LatencyHistogram.valueAtPercentile(snapshot, count, 99.9, max),
+                        max));
+                added++;
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of a value over fixed buckets, e.g. the number of documents per bulk request or the bulk latency.
+ * Every bucket is a striped counter, so recording from many threads does not contend and the buckets can be
+ * exported as they are, as a cumulative Prometheus histogram.
+ * Percentiles are resolved to the upper bound of the bucket they fall in.
+ */
+public class BucketHistogram {
+
+    // Upper bounds of the buckets in ascending order, values above the last bound go to the overflow bucket
+    private final long[] upperBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param upperBounds inclusive upper bounds of the buckets in ascending order
+     */
+    public BucketHistogram(long... upperBounds) {
+        for (int i = 1; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be in ascending order");
+            }
+        }
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param value value to be recorded, negative values are recorded as 0
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        buckets[bucketIndex(recorded)].increment();
+        count.increment();
+        sum.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    private int bucketIndex(long value) {
+        // Few buckets, a linear scan beats a binary search
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (value <= upperBounds[i]) {
+                return i;
+            }
+        }
+        return upperBounds.length;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) sum.sum() / values;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket the percentile falls in, never above the largest recorded value
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBounds[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return inclusive upper bounds of the buckets, without the overflow bucket
+     */
+    public long[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * @return number of values in each bucket, the last one being the overflow bucket
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+import org.wso2.ei.analytics.elk.filter.FlowSampler;
+import org.wso2.ei.analytics.elk.journal.SpillJournal;
+import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.services.ClusterCircuitBreaker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the state of the event buffer of the Elasticsearch observer through JMX.
+ * Values are read on demand, so the publishing path does not pay for the MBean.
+ */
+public class ElasticObserverStatistics implements ElasticObserverStatisticsMBean {
+
+    private final PublisherMetrics publisherMetrics;
+    private final ClusterCircuitBreaker circuitBreaker;
+
+    // Enqueued count and time of the previous enqueue rate read
+    private long lastEnqueuedCount;
+    private long lastEnqueueRateTime = System.nanoTime();
+
+    public ElasticObserverStatistics(PublisherMetrics publisherMetrics, ClusterCircuitBreaker circuitBreaker) {
+        this.publisherMetrics = publisherMetrics;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public int getWorkerCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getPartitionCount();
+    }
+
+    @Override
+    public int getBufferCapacity() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getCapacity();
+    }
+
+    @Override
+    public int getBufferedEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().size();
+    }
+
+    @Override
+    public String getBufferOverflowPolicy() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getOverflowPolicy().getConfigName();
+    }
+
+    @Override
+    public long getEnqueuedEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getEnqueuedCount();
+    }
+
+    @Override
+    public synchronized double getEnqueueRate() {
+        long enqueuedCount = getEnqueuedEventCount();
+        long now = System.nanoTime();
+        long elapsed = now - lastEnqueueRateTime;
+        double rate = elapsed <= 0 ? 0 : (double) (enqueuedCount - lastEnqueuedCount) * TimeUnit.SECONDS.toNanos(1)
+                / elapsed;
+        lastEnqueuedCount = enqueuedCount;
+        lastEnqueueRateTime = now;
+        return rate;
+    }
+
+    @Override
+    public long getDroppedOldestEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getDroppedOldestCount();
+    }
+
+    @Override
+    public long getDroppedNewestEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getDroppedNewestCount();
+    }
+
+    @Override
+    public long getBlockTimedOutEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getBlockTimedOutCount();
+    }
+
+    @Override
+    public long getTotalDroppedEventCount() {
+        return ElasticStatisticsPublisher.getAllMappingsQueue().getTotalDroppedCount();
+    }
+
+    @Override
+    public long getSampledOutFlowCount() {
+        FlowSampler flowSampler = ElasticStatisticsPublisher.getFlowSampler();
+        return flowSampler == null ? 0 : flowSampler.getSampledOutCount();
+    }
+
+    @Override
+    public long getSpilledEventCount() {
+        SpillJournal spillJournal = ElasticStatisticsPublisher.getSpillJournal();
+        return spillJournal == null ? 0 : spillJournal.getSpilledCount();
+    }
+
+    @Override
+    public long getReplayedEventCount() {
+        SpillJournal spillJournal = ElasticStatisticsPublisher.getSpillJournal();
+        return spillJournal == null ? 0 : spillJournal.getReplayedCount();
+    }
+
+    @Override
+    public long getEvictedSpilledEventCount() {
+        SpillJournal spillJournal = ElasticStatisticsPublisher.getSpillJournal();
+        return spillJournal == null ? 0 : spillJournal.getEvictedCount();
+    }
+
+    @Override
+    public long getSpillJournalEventCount() {
+        SpillJournal spillJournal = ElasticStatisticsPublisher.getSpillJournal();
+        return spillJournal == null ? 0 : spillJournal.getPendingCount();
+    }
+
+    @Override
+    public long getSpillJournalSize() {
+        SpillJournal spillJournal = ElasticStatisticsPublisher.getSpillJournal();
+        return spillJournal == null ? 0 : spillJournal.getSizeInBytes();
+    }
+
+    @Override
+    public String getClusterHealthState() {
+        return circuitBreaker.getState().name();
+    }
+
+    @Override
+    public long getCircuitOpenedCount() {
+        return circuitBreaker.getOpenedCount();
+    }
+
+    @Override
+    public long getHealthProbeBackoff() {
+        return circuitBreaker.getBackoff();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return publisherMetrics.getBatchCount();
+    }
+
+    @Override
+    public double getAverageBatchFillRatio() {
+        return publisherMetrics.getAverageBatchFillRatio();
+    }
+
+    @Override
+    public double getAverageTimeToFlush() {
+        return publisherMetrics.getAverageTimeToFlush();
+    }
+
+    @Override
+    public double getMaxTimeToFlush() {
+        return publisherMetrics.getMaxTimeToFlush();
+    }
+
+    @Override
+    public long getRetriedDocumentCount() {
+        return publisherMetrics.getRetriedDocumentCount();
+    }
+
+    @Override
+    public long getFailedDocumentCount() {
+        return publisherMetrics.getFailedDocumentCount();
+    }
+
+    @Override
+    public long getRejectedDocumentCount() {
+        return publisherMetrics.getRejectedDocumentCount();
+    }
+
+    @Override
+    public long getFailedBulkCount() {
+        return publisherMetrics.getFailedBulkCount();
+    }
+
+    @Override
+    public double getAverageBulkSize() {
+        return publisherMetrics.getBulkSizes().getMean();
+    }
+
+    @Override
+    public long getBulkSizeP99() {
+        return publisherMetrics.getBulkSizes().valueAtPercentile(99);
+    }
+
+    @Override
+    public double getAverageBulkLatency() {
+        return publisherMetrics.getBulkLatencies().getMean();
+    }
+
+    @Override
+    public long getBulkLatencyP99() {
+        return publisherMetrics.getBulkLatencies().valueAtPercentile(99);
+    }
+
+    @Override
+    public long getMaxBulkLatency() {
+        return publisherMetrics.getBulkLatencies().getMax();
+    }
+
+    @Override
+    public long getTimeSinceLastSuccessfulBulk() {
+        return publisherMetrics.getTimeSinceLastSuccessfulBulk();
+    }
+
+    @Override
+    public double getAverageEncodingTimePerEvent() {
+        return publisherMetrics.getAverageEncodingTime();
+    }
+
+    public PublisherMetrics getPublisherMetrics() {
+        return publisherMetrics;
+    }
+}
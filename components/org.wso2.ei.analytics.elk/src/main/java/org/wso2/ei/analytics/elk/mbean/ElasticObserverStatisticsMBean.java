@@ -0,0 +1,195 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+/**
+ * JMX view of the Elasticsearch mediation statistics observer.
+ */
+public interface ElasticObserverStatisticsMBean {
+
+    /**
+     * @return number of publisher workers, each draining its own buffer partition
+     */
+    int getWorkerCount();
+
+    /**
+     * @return maximum number of events the buffer can hold
+     */
+    int getBufferCapacity();
+
+    /**
+     * @return number of events currently waiting in the buffer
+     */
+    int getBufferedEventCount();
+
+    /**
+     * @return configured buffer overflow policy
+     */
+    String getBufferOverflowPolicy();
+
+    /**
+     * @return number of events added to the buffer since the observer started
+     */
+    long getEnqueuedEventCount();
+
+    /**
+     * @return events added to the buffer per second since the previous read of this attribute
+     */
+    double getEnqueueRate();
+
+    /**
+     * @return number of buffered events evicted to make room for newer events (drop-oldest policy)
+     */
+    long getDroppedOldestEventCount();
+
+    /**
+     * @return number of incoming events rejected because the buffer was full (drop-newest policy)
+     */
+    long getDroppedNewestEventCount();
+
+    /**
+     * @return number of incoming events rejected after waiting for a free slot (block policy)
+     */
+    long getBlockTimedOutEventCount();
+
+    /**
+     * @return total number of events lost due to buffer overflow
+     */
+    long getTotalDroppedEventCount();
+
+    /**
+     * @return number of message flows not published because they were not sampled
+     */
+    long getSampledOutFlowCount();
+
+    /**
+     * @return number of events written to the spill journal, 0 if spilling is disabled
+     */
+    long getSpilledEventCount();
+
+    /**
+     * @return number of spilled events moved back into the event buffer
+     */
+    long getReplayedEventCount();
+
+    /**
+     * @return number of spilled events lost because the spill journal reached its size cap
+     */
+    long getEvictedSpilledEventCount();
+
+    /**
+     * @return number of events waiting in the spill journal
+     */
+    long getSpillJournalEventCount();
+
+    /**
+     * @return disk space taken by the spill journal (in bytes)
+     */
+    long getSpillJournalSize();
+
+    /**
+     * @return state of the Elasticsearch cluster circuit: CLOSED (healthy), OPEN (down) or HALF_OPEN (recovering)
+     */
+    String getClusterHealthState();
+
+    /**
+     * @return number of times the cluster was found down
+     */
+    long getCircuitOpenedCount();
+
+    /**
+     * @return current time between pings while the cluster is down (in millis)
+     */
+    long getHealthProbeBackoff();
+
+    /**
+     * @return number of event batches handed over to the bulk processor
+     */
+    long getBatchCount();
+
+    /**
+     * @return events per batch over the configured bulk size, averaged over all batches
+     */
+    double getAverageBatchFillRatio();
+
+    /**
+     * @return average time from taking the first event of a batch until it is handed over (in millis)
+     */
+    double getAverageTimeToFlush();
+
+    /**
+     * @return longest time from taking the first event of a batch until it is handed over (in millis)
+     */
+    double getMaxTimeToFlush();
+
+    /**
+     * @return number of documents sent again after failing with a transient error, e.g. a 429 rejection
+     */
+    long getRetriedDocumentCount();
+
+    /**
+     * @return number of documents not indexed, rejected by the cluster or dropped after the last retry
+     */
+    long getFailedDocumentCount();
+
+    /**
+     * @return number of documents rejected by the cluster with 429 (Too Many Requests), including retried ones
+     */
+    long getRejectedDocumentCount();
+
+    /**
+     * @return number of bulk requests which failed as a whole, e.g. the cluster could not be reached
+     */
+    long getFailedBulkCount();
+
+    /**
+     * @return documents per bulk request, averaged over all bulk requests
+     */
+    double getAverageBulkSize();
+
+    /**
+     * @return 99th percentile of the documents per bulk request, resolved to the upper bound of its bucket
+     */
+    long getBulkSizeP99();
+
+    /**
+     * @return time from sending a bulk request until the response, averaged over all bulk requests (in millis)
+     */
+    double getAverageBulkLatency();
+
+    /**
+     * @return 99th percentile of the bulk request latency, resolved to the upper bound of its bucket (in millis)
+     */
+    long getBulkLatencyP99();
+
+    /**
+     * @return longest bulk request latency (in millis)
+     */
+    long getMaxBulkLatency();
+
+    /**
+     * @return time since the cluster last answered a bulk request (in millis), -1 if it never did
+     */
+    long getTimeSinceLastSuccessfulBulk();
+
+    /**
+     * @return time spent encoding an event into bulk request bytes, averaged over all events (in nanoseconds)
+     */
+    double getAverageEncodingTimePerEvent();
+}
@@ -0,0 +1,128 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+/**
+ * Renders the statistics of the Elasticsearch observer in the Prometheus text exposition format (version 0.0.4).
+ * Counters keep growing for the lifetime of the observer, Prometheus derives the rates from them.
+ */
+public final class PrometheusTextFormatter {
+
+    // Prefix of all the metric names
+    static final String PREFIX = "wso2ei_elk_";
+
+    private PrometheusTextFormatter() {
+    }
+
+    /**
+     * @param statistics statistics of the observer
+     * @return metrics in the Prometheus text format
+     */
+    public static String format(ElasticObserverStatistics statistics) {
+        PublisherMetrics publisherMetrics = statistics.getPublisherMetrics();
+        StringBuilder builder = new StringBuilder(4096);
+
+        gauge(builder, "buffer_capacity", "Maximum number of events the buffer can hold",
+                statistics.getBufferCapacity());
+        gauge(builder, "buffered_events", "Number of events waiting in the buffer",
+                statistics.getBufferedEventCount());
+        counter(builder, "enqueued_events_total", "Events added to the buffer",
+                statistics.getEnqueuedEventCount());
+
+        header(builder, "dropped_events_total", "Events lost due to buffer overflow", "counter");
+        sample(builder, "dropped_events_total", "reason", "drop_oldest", statistics.getDroppedOldestEventCount());
+        sample(builder, "dropped_events_total", "reason", "drop_newest", statistics.getDroppedNewestEventCount());
+        sample(builder, "dropped_events_total", "reason", "block_timeout", statistics.getBlockTimedOutEventCount());
+        sample(builder, "dropped_events_total", "reason", "sampled_out", statistics.getSampledOutFlowCount());
+        sample(builder, "dropped_events_total", "reason", "spill_evicted", statistics.getEvictedSpilledEventCount());
+
+        gauge(builder, "circuit_open", "1 if the Elasticsearch cluster is considered down",
+                "CLOSED".equals(statistics.getClusterHealthState()) ? 0 : 1);
+        counter(builder, "circuit_opened_total", "Times the cluster was found down",
+                statistics.getCircuitOpenedCount());
+
+        counter(builder, "retried_documents_total", "Documents sent again after a transient error",
+                statistics.getRetriedDocumentCount());
+        counter(builder, "failed_documents_total", "Documents not indexed", statistics.getFailedDocumentCount());
+        counter(builder, "rejected_documents_total", "Documents rejected with 429 Too Many Requests",
+                statistics.getRejectedDocumentCount());
+        counter(builder, "failed_bulks_total", "Bulk requests which failed as a whole",
+                statistics.getFailedBulkCount());
+        gauge(builder, "time_since_last_successful_bulk_milliseconds",
+                "Time since the cluster last answered a bulk request, -1 if it never did",
+                statistics.getTimeSinceLastSuccessfulBulk());
+
+        counter(builder, "encoded_events_total", "Events encoded into bulk request bytes",
+                publisherMetrics.getEncodedEventCount());
+        gauge(builder, "encoding_time_per_event_nanoseconds", "Average time spent encoding an event",
+                statistics.getAverageEncodingTimePerEvent());
+
+        histogram(builder, "bulk_size_documents", "Documents per bulk request", publisherMetrics.getBulkSizes());
+        histogram(builder, "bulk_latency_milliseconds", "Time from sending a bulk request until the response",
+                publisherMetrics.getBulkLatencies());
+        return builder.toString();
+    }
+
+    private static void gauge(StringBuilder builder, String name, String help, double value) {
+        header(builder, name, help, "gauge");
+        sample(builder, name, null, null, value);
+    }
+
+    private static void counter(StringBuilder builder, String name, String help, long value) {
+        header(builder, name, help, "counter");
+        sample(builder, name, null, null, value);
+    }
+
+    private static void histogram(StringBuilder builder, String name, String help, BucketHistogram histogram) {
+        header(builder, name, help, "histogram");
+        long[] upperBounds = histogram.getUpperBounds();
+        long[] counts = histogram.getBucketCounts();
+
+        // Prometheus buckets are cumulative
+        long cumulativeCount = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            cumulativeCount += counts[i];
+            sample(builder, name + "_bucket", "le", Long.toString(upperBounds[i]), cumulativeCount);
+        }
+        cumulativeCount += counts[upperBounds.length];
+        sample(builder, name + "_bucket", "le", "+Inf", cumulativeCount);
+        sample(builder, name + "_sum", null, null, histogram.getSum());
+        // Same value as the +Inf bucket, the buckets and the count are not read atomically
+        sample(builder, name + "_count", null, null, cumulativeCount);
+    }
+
+    private static void header(StringBuilder builder, String name, String help, String type) {
+        builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, String label, String labelValue, double value) {
+        builder.append(PREFIX).append(name);
+        if (label != null) {
+            builder.append('{').append(label).append("=\"").append(labelValue).append("\"}");
+        }
+        builder.append(' ');
+        if (value == (long) value) {
+            builder.append((long) value);
+        } else {
+            builder.append(value);
+        }
+        builder.append('\n');
+    }
+}
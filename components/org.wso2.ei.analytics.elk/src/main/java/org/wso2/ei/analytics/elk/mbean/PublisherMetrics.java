@@ -0,0 +1,212 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters updated by the Elasticsearch publisher threads and their bulk processors, read through the statistics
+ * MBean.
+ */
+public class PublisherMetrics {
+
+    // Bucket bounds of the documents per bulk request
+    private static final long[] BULK_SIZE_BOUNDS = {1, 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // Bucket bounds of the bulk request latency (in millis)
+    private static final long[] BULK_LATENCY_BOUNDS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder batchedEventCount = new LongAdder();
+    private final LongAdder batchCapacity = new LongAdder();
+    private final LongAdder timeToFlushNanos = new LongAdder();
+    private final LongAccumulator maxTimeToFlushNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder retriedDocumentCount = new LongAdder();
+    private final LongAdder failedDocumentCount = new LongAdder();
+    private final LongAdder rejectedDocumentCount = new LongAdder();
+    private final LongAdder failedBulkCount = new LongAdder();
+    private final LongAdder encodedEventCount = new LongAdder();
+    private final LongAdder encodingTimeNanos = new LongAdder();
+    private final BucketHistogram bulkSizes = new BucketHistogram(BULK_SIZE_BOUNDS);
+    private final BucketHistogram bulkLatencies = new BucketHistogram(BULK_LATENCY_BOUNDS);
+
+    // Wall clock time of the last bulk request answered by the cluster, 0 until the first one
+    private volatile long lastSuccessfulBulkTime;
+
+    /**
+     * Records a batch handed over to the bulk processor.
+     *
+     * @param eventCount      number of events in the batch
+     * @param bulkSize        maximum number of events of a batch
+     * @param timeToFlushNanos time from taking the first event of the batch until the hand over (in nanoseconds)
+     */
+    public void recordBatch(int eventCount, int bulkSize, long timeToFlushNanos) {
+        batchCount.increment();
+        batchedEventCount.add(eventCount);
+        batchCapacity.add(bulkSize);
+        this.timeToFlushNanos.add(timeToFlushNanos);
+        maxTimeToFlushNanos.accumulate(timeToFlushNanos);
+    }
+
+    /**
+     * Records documents of a bulk request which failed with a transient error and are sent again.
+     *
+     * @param documents number of retried documents
+     */
+    public void recordRetriedDocuments(int documents) {
+        retriedDocumentCount.add(documents);
+    }
+
+    /**
+     * Records documents which are not indexed, either rejected by the cluster or out of retries.
+     *
+     * @param documents number of failed documents
+     */
+    public void recordFailedDocuments(int documents) {
+        failedDocumentCount.add(documents);
+    }
+
+    /**
+     * Records the time taken to encode a batch of events into bulk request bytes.
+     *
+     * @param eventCount        number of encoded events
+     * @param encodingTimeNanos time spent in the encoder (in nanoseconds)
+     */
+    public void recordEncoding(int eventCount, long encodingTimeNanos) {
+        encodedEventCount.add(eventCount);
+        this.encodingTimeNanos.add(encodingTimeNanos);
+    }
+
+    /**
+     * Records a bulk request sent to the cluster.
+     *
+     * @param documents number of documents in the bulk request
+     */
+    public void recordBulkStarted(int documents) {
+        bulkSizes.record(documents);
+    }
+
+    /**
+     * Records a bulk request answered by the cluster, including the ones with failed items.
+     *
+     * @param latencyNanos time from sending the bulk request until the response (in nanoseconds)
+     */
+    public void recordBulkCompleted(long latencyNanos) {
+        bulkLatencies.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        lastSuccessfulBulkTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Records a bulk request which failed as a whole, e.g. the cluster could not be reached.
+     *
+     * @param latencyNanos time from sending the bulk request until the failure (in nanoseconds)
+     */
+    public void recordBulkFailed(long latencyNanos) {
+        bulkLatencies.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        failedBulkCount.increment();
+    }
+
+    /**
+     * Records documents rejected by the cluster with 429 (Too Many Requests).
+     *
+     * @param documents number of rejected documents
+     */
+    public void recordRejectedDocuments(int documents) {
+        rejectedDocumentCount.add(documents);
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * @return events per batch over the configured bulk size, averaged over all batches
+     */
+    public double getAverageBatchFillRatio() {
+        long capacity = batchCapacity.sum();
+        return capacity == 0 ? 0 : (double) batchedEventCount.sum() / capacity;
+    }
+
+    /**
+     * @return average time from taking the first event of a batch until it is handed over (in millis)
+     */
+    public double getAverageTimeToFlush() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) timeToFlushNanos.sum() / batches / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return longest time from taking the first event of a batch until it is handed over (in millis)
+     */
+    public double getMaxTimeToFlush() {
+        return (double) maxTimeToFlushNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getRetriedDocumentCount() {
+        return retriedDocumentCount.sum();
+    }
+
+    public long getFailedDocumentCount() {
+        return failedDocumentCount.sum();
+    }
+
+    public long getRejectedDocumentCount() {
+        return rejectedDocumentCount.sum();
+    }
+
+    public long getFailedBulkCount() {
+        return failedBulkCount.sum();
+    }
+
+    public long getEncodedEventCount() {
+        return encodedEventCount.sum();
+    }
+
+    /**
+     * @return time spent in the encoder per event, averaged over all encoded events (in nanoseconds)
+     */
+    public double getAverageEncodingTime() {
+        long events = encodedEventCount.sum();
+        return events == 0 ? 0 : (double) encodingTimeNanos.sum() / events;
+    }
+
+    /**
+     * @return time since the cluster last answered a bulk request (in millis), -1 if it never did
+     */
+    public long getTimeSinceLastSuccessfulBulk() {
+        long lastTime = lastSuccessfulBulkTime;
+        return lastTime == 0 ? -1 : Math.max(0, System.currentTimeMillis() - lastTime);
+    }
+
+    /**
+     * @return documents per bulk request
+     */
+    public BucketHistogram getBulkSizes() {
+        return bulkSizes;
+    }
+
+    /**
+     * @return bulk request latency (in millis)
+     */
+    public BucketHistogram getBulkLatencies() {
+        return bulkLatencies;
+    }
+}
@@ -20,15 +20,26 @@ package org.wso2.ei.analytics.elk.observer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,11 +51,17 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.NodeSelector;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
 import org.elasticsearch.common.xcontent.XContentType;
 
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
@@ -57,8 +74,28 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import org.wso2.ei.analytics.elk.buffer.EventRingBuffer;
+import org.wso2.ei.analytics.elk.buffer.OverflowPolicy;
+import org.wso2.ei.analytics.elk.buffer.PartitionedEventBuffer;
+import org.wso2.ei.analytics.elk.filter.ComponentFilter;
+import org.wso2.ei.analytics.elk.filter.FlowSampler;
+import org.wso2.ei.analytics.elk.journal.SpillJournal;
+import org.wso2.ei.analytics.elk.latency.LatencyRecorder;
+import org.wso2.ei.analytics.elk.mbean.ElasticObserverStatistics;
+import org.wso2.ei.analytics.elk.mbean.PublisherMetrics;
+import org.wso2.ei.analytics.elk.mbean.PrometheusEndpoint;
+import org.wso2.ei.analytics.elk.publisher.BulkRetryScheduler;
 import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.IndexPartitioning;
+import org.wso2.ei.analytics.elk.publisher.IndexRouter;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+import org.wso2.ei.analytics.elk.rollup.RollupAggregator;
+import org.wso2.ei.analytics.elk.services.ClusterCircuitBreaker;
 import org.wso2.ei.analytics.elk.services.ElasticsearchPublisherThread;
+import org.wso2.ei.analytics.elk.services.IndexTemplateInstaller;
+import org.wso2.ei.analytics.elk.services.LatencyPublisherThread;
+import org.wso2.ei.analytics.elk.services.RollupPublisherThread;
+import org.wso2.ei.analytics.elk.services.SpillJournalReplayerThread;
 import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
 
 /**
@@ -71,13 +108,53 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
 
     // Defines elasticsearch RestHighLevelClient as client
     private RestHighLevelClient client = null;
-    private HttpHost elasticHost = null;
+    private HttpHost[] elasticHosts = null;
+
+    // Refreshes the nodes of the client from the cluster, null if sniffing is disabled
+    private Sniffer sniffer = null;
+
+    // Worker threads to publish json strings to Elasticsearch, one per event buffer partition
+    private List<ElasticsearchPublisherThread> publisherThreads = null;
+
+    // Health of the Elasticsearch cluster, fed by the bulk responses of the workers
+    private ClusterCircuitBreaker circuitBreaker = null;
+
+    // Sends the documents which failed with a transient error again
+    private BulkRetryScheduler bulkRetryScheduler = null;
+
+    // Disk overflow of the event buffer and the thread moving its events back, null if spilling is disabled
+    private SpillJournal spillJournal = null;
+    private SpillJournalReplayerThread spillJournalReplayer = null;
+
+    // Publishes the summary documents in rollup mode, null in raw mode
+    private RollupPublisherThread rollupPublisher = null;
+    private boolean rollupPublishing = false;
+
+    // Publishes the per component latency percentiles, null if latency histograms are disabled
+    private LatencyPublisherThread latencyPublisher = null;
+
+    // Installs the index template before the first document is written, null if the template is not managed
+    private IndexTemplateInstaller indexTemplateInstaller = null;
 
-    // Thread to publish json strings to Elasticsearch
-    private ElasticsearchPublisherThread publisherThread = null;
+    // Whether the access privileges were verified by the health probe, only accessed by the probe thread
+    private boolean clusterVerified = false;
+    private boolean accessErrorLogged = false;
+    private boolean templateErrorLogged = false;
 
-    // Whether the event queue exceeded or not, accessed by MessageFlowReporter threads
-    private volatile boolean bufferExceeded = false;
+    // Whether the publisher workers are running, accessed by MessageFlowReporter threads
+    private volatile boolean publishing = false;
+
+    // Whether each partition of the event queue exceeded or not (1 = exceeded), accessed by MessageFlowReporter threads
+    private AtomicIntegerArray bufferExceeded = null;
+
+    // Name of the registered statistics MBean, null if not registered
+    private ObjectName statisticsMBeanName = null;
+
+    // Serves the statistics to Prometheus, null if the endpoint is disabled
+    private PrometheusEndpoint prometheusEndpoint = null;
+
+    // Metrics of the batches published by the publisher thread
+    private final PublisherMetrics publisherMetrics = new PublisherMetrics();
 
     // ServerConfiguration
     private ServerConfiguration serverConf = ServerConfiguration.getInstance();
@@ -98,100 +175,269 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
             String trustStorePath = (String) configurations.get(ElasticObserverConstants.TRUST_STORE_PATH);
             String trustStoreType = (String) configurations.get(ElasticObserverConstants.TRUST_STORE_TYPE);
             String trustStorePassword = (String) configurations.get(ElasticObserverConstants.TRUST_STORE_PASSWORD);
-            String host = (String) configurations.get(ElasticObserverConstants.HOST);
+            String hosts = (String) configurations.get(ElasticObserverConstants.HOSTS);
             int port = (int) configurations.get(ElasticObserverConstants.PORT);
             boolean sslEnabled = (boolean) configurations.get(ElasticObserverConstants.SSL_ENABLED);
+            int maxConnectionsPerRoute = (int) configurations.get(ElasticObserverConstants.MAX_CONNECTIONS_PER_ROUTE);
+            int maxConnectionsTotal = (int) configurations.get(ElasticObserverConstants.MAX_CONNECTIONS_TOTAL);
+            long keepAlive = (long) configurations.get(ElasticObserverConstants.KEEP_ALIVE);
+            boolean sniffingEnabled = (boolean) configurations.get(ElasticObserverConstants.SNIFFING_ENABLED);
 
+            String scheme;
             if (sslEnabled) {
                 if (trustStorePath != null && trustStoreType != null && trustStorePassword != null) {
-                    elasticHost = new HttpHost(host, port, ElasticObserverConstants.HTTPS_PROTOCOL);
+                    scheme = ElasticObserverConstants.HTTPS_PROTOCOL;
                 } else {
                     throw new IOException("SSL is enabled, trustStore can not be found. Please provide trustStore details.");
                 }
             } else {
-                elasticHost = new HttpHost(host, port, ElasticObserverConstants.HTTP_PROTOCOL);
+                scheme = ElasticObserverConstants.HTTP_PROTOCOL;
             }
 
-            if (username != null && password != null) {
-                // Can use password without ssl
-                final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-                credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
-                client = new RestHighLevelClient(RestClient.builder(elasticHost).
-                        setHttpClientConfigCallback(httpClientBuilder -> {
-                            if (sslEnabled) {
-                                try {
-                                    KeyStore trustStore = KeyStore.getInstance(trustStoreType);
-                                    InputStream is = Files.newInputStream(Paths.get(trustStorePath));
-                                    trustStore.load(is, trustStorePassword.toCharArray());
-                                    SSLContextBuilder sslBuilder = SSLContexts.custom().loadTrustMaterial(trustStore, null);
-                                    httpClientBuilder.setSSLContext(sslBuilder.build());
-                                } catch (IOException e) {
-                                    log.error("The trustStore password = " + trustStorePassword + " or trustStore path "
-                                            + trustStorePath + " defined is incorrect while creating " + "sslContext");
-                                } catch (CertificateException e) {
-                                    log.error("Any of the certificates in the keystore could not be loaded " +
-                                            "when loading trustStore" + e);
-                                } catch (NoSuchAlgorithmException e) {
-                                    log.error("\"Algorithm used to check the integrity of the trustStore cannot " +
-                                            "be found for when loading trustStore", e);
-                                } catch (KeyStoreException e) {
-                                    log.error("The trustStore type truststore.type = " + "" + trustStoreType
-                                            + " defined is incorrect", e);
-                                } catch (KeyManagementException e) {
-                                    log.error("Error occurred while builing sslContext", e);
-                                }
-                                if (log.isDebugEnabled()) {
-                                    log.debug("SSL is configured with given truststore.");
-                                }
+            // The rest client sends requests to the hosts in round robin, skipping the nodes which failed
+            elasticHosts = parseHosts(hosts, port, scheme);
+
+            RestClientBuilder clientBuilder = RestClient.builder(elasticHosts).
+                    setHttpClientConfigCallback(httpClientBuilder -> {
+                        if (sslEnabled) {
+                            try {
+                                KeyStore trustStore = KeyStore.getInstance(trustStoreType);
+                                InputStream is = Files.newInputStream(Paths.get(trustStorePath));
+                                trustStore.load(is, trustStorePassword.toCharArray());
+                                SSLContextBuilder sslBuilder = SSLContexts.custom().loadTrustMaterial(trustStore, null);
+                                httpClientBuilder.setSSLContext(sslBuilder.build());
+                            } catch (IOException e) {
+                                log.error("The trustStore password = " + trustStorePassword + " or trustStore path "
+                                        + trustStorePath + " defined is incorrect while creating " + "sslContext");
+                            } catch (CertificateException e) {
+                                log.error("Any of the certificates in the keystore could not be loaded " +
+                                        "when loading trustStore" + e);
+                            } catch (NoSuchAlgorithmException e) {
+                                log.error("\"Algorithm used to check the integrity of the trustStore cannot " +
+                                        "be found for when loading trustStore", e);
+                            } catch (KeyStoreException e) {
+                                log.error("The trustStore type truststore.type = " + "" + trustStoreType
+                                        + " defined is incorrect", e);
+                            } catch (KeyManagementException e) {
+                                log.error("Error occurred while builing sslContext", e);
                             }
-                            return httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
-                        }));
-            } else {
-                client = new RestHighLevelClient(RestClient.builder(elasticHost));
+                            if (log.isDebugEnabled()) {
+                                log.debug("SSL is configured with given truststore.");
+                            }
+                        }
+
+                        if (username != null && password != null) {
+                            // Can use password without ssl
+                            final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                            credentialsProvider.setCredentials(AuthScope.ANY,
+                                    new UsernamePasswordCredentials(username, password));
+                            httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+                        }
+
+                        // Bulk requests of all the workers share this pool
+                        httpClientBuilder.setMaxConnPerRoute(maxConnectionsPerRoute)
+                                .setMaxConnTotal(maxConnectionsTotal);
+
+                        // Idle connections are dropped before a load balancer or firewall drops them silently
+                        if (keepAlive > 0) {
+                            httpClientBuilder.setKeepAliveStrategy((response, context) -> keepAlive);
+                        }
+                        return httpClientBuilder;
+                    });
+
+            SniffOnFailureListener sniffOnFailureListener = null;
+            if (sniffingEnabled) {
+                // A failed node triggers a sniff right away instead of waiting for the sniff interval
+                sniffOnFailureListener = new SniffOnFailureListener();
+                clientBuilder.setFailureListener(sniffOnFailureListener);
+
+                // Sniffed nodes include the dedicated master nodes, which should not take the ingest
+                clientBuilder.setNodeSelector(NodeSelector.SKIP_DEDICATED_MASTERS);
+            }
+
+            client = new RestHighLevelClient(clientBuilder);
+
+            if (sniffingEnabled) {
+                // The first sniff runs in the background, the configured hosts are used until it completes
+                sniffer = Sniffer.builder(client.getLowLevelClient())
+                        .setSniffIntervalMillis((int) configurations.get(ElasticObserverConstants.SNIFFING_INTERVAL))
+                        .setSniffAfterFailureDelayMillis(
+                                (int) configurations.get(ElasticObserverConstants.SNIFFING_AFTER_FAILURE_DELAY))
+                        .setNodesSniffer(new ElasticsearchNodesSniffer(client.getLowLevelClient(),
+                                ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT,
+                                sslEnabled ? ElasticsearchNodesSniffer.Scheme.HTTPS :
+                                        ElasticsearchNodesSniffer.Scheme.HTTP))
+                        .build();
+                sniffOnFailureListener.setSniffer(sniffer);
             }
 
+            ElasticStatisticsPublisher.setBulkCompression(
+                    (boolean) configurations.get(ElasticObserverConstants.COMPRESSION_ENABLED));
+
             if (log.isDebugEnabled()) {
                 log.debug("RestHighLevelClient is built with host and port number");
             }
 
-            // Wrong cluster name provided or given cluster is down or wrong access credentials
-            if (!client.ping(RequestOptions.DEFAULT)) {
-                log.error("Can not connect to any Elasticsearch nodes. Please give correct configurations, " +
-                        "run Elasticsearch and restart WSO2-EI.");
-                client.close();
+            /*
+            Publishing starts buffering right away, with the circuit open. The cluster is reached and the access
+            privileges are verified by the health probe in the background, so a slow or stopped cluster neither
+            delays the server startup nor disables the statistics until the next restart.
+             */
+            startPublishing();
+            log.info("Elasticsearch mediation statistic publishing enabled. Events are buffered until " +
+                    "Elasticsearch is reachable.");
+        } catch (IOException e) {
+            log.error("Elasticsearch connection error.", e);
+        }
+    }
 
-                if (log.isDebugEnabled()) {
-                    log.debug("No nodes connected. Reasons:cluster is down/ " + "Wrong access credentials");
+    /**
+     * Parses the configured hosts.
+     *
+     * @param hosts       comma separated host[:port] values
+     * @param defaultPort port of the hosts without one
+     * @param scheme      http or https
+     * @return hosts of the rest client
+     */
+    private static HttpHost[] parseHosts(String hosts, int defaultPort, String scheme) {
+        List<HttpHost> httpHosts = new ArrayList<>();
+        for (String value : hosts.split(",")) {
+            String host = value.trim();
+            if (host.isEmpty()) {
+                continue;
+            }
+            int port = defaultPort;
+            int portSeparator = host.lastIndexOf(':');
+            if (host.startsWith("[")) {
+                // IPv6 address, optionally followed by a port: [::1]:9200
+                int addressEnd = host.indexOf(']');
+                if (portSeparator == addressEnd + 1) {
+                    port = Integer.parseInt(host.substring(portSeparator + 1));
                 }
-            } else {
-                /*
-                    Client needs access rights to read and write to Elasticsearch cluster as described in the article.
-                    If the given user credential has no access to write, it only can be identified when the first bulk
-                    of events are published.
-                    So, to check the access privileges before hand, here put a test json string and delete it.
-                */
-                IndexRequest request = new IndexRequest("eidata").id("1");
+                host = host.substring(1, addressEnd);
+            } else if (portSeparator > 0 && host.indexOf(':') == portSeparator) {
+                port = Integer.parseInt(host.substring(portSeparator + 1));
+                host = host.substring(0, portSeparator);
+            }
+            httpHosts.add(new HttpHost(host, port, scheme));
+        }
+        return httpHosts.toArray(new HttpHost[0]);
+    }
+
+    /**
+     * Health probe of the circuit breaker. Until the cluster is verified once, a successful ping is followed by the
+     * installation of the index template and a test index and delete, since the lack of write access would
+     * otherwise only surface with the first bulk request. Afterwards a ping is enough.
+     *
+     * @return true if the workers can publish to the cluster
+     * @throws IOException if the cluster can not be reached
+     */
+    private boolean probeCluster() throws IOException {
+        // Wrong cluster name provided or given cluster is down or wrong access credentials
+        if (!client.ping(RequestOptions.DEFAULT)) {
+            if (log.isDebugEnabled()) {
+                log.debug("No nodes connected. Reasons:cluster is down/ " + "Wrong access credentials");
+            }
+            return false;
+        }
+        if (clusterVerified) {
+            return true;
+        }
 
-                String jsonString = "{" +
-                        "\"test_att\":\"test\"" +
-                        "}";
+        // The template must be in place before the test document creates the first index
+        if (indexTemplateInstaller != null && !installIndexTemplate()) {
+            return false;
+        }
 
-                request.source(jsonString, XContentType.JSON);
+        String indexName = ElasticStatisticsPublisher.getIndexRouter().indexName(System.currentTimeMillis());
 
-                client.index(request, RequestOptions.DEFAULT);
+        /*
+            Client needs access rights to read and write to Elasticsearch cluster as described in the article.
+            If the given user credential has no access to write, it only can be identified when the first bulk
+            of events are published.
+            So, to check the access privileges before hand, here put a test json string and delete it.
+        */
+        try {
+            IndexRequest request = new IndexRequest(indexName).id("1");
 
-                DeleteRequest requestDel = new DeleteRequest("eidata", "1");
-                client.delete(requestDel, RequestOptions.DEFAULT);
+            String jsonString = "{" +
+                    "\"test_att\":\"test\"" +
+                    "}";
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Access privileges for given user is sufficient.");
-                }
+            request.source(jsonString, XContentType.JSON);
+
+            client.index(request, RequestOptions.DEFAULT);
 
-                startPublishing();
-                log.info("Elasticsearch mediation statistic publishing enabled.");
+            DeleteRequest requestDel = new DeleteRequest(indexName, "1");
+            client.delete(requestDel, RequestOptions.DEFAULT);
+        } catch (ElasticsearchException e) {
+            // Retried with the probe backoff, the privileges may be granted without restarting the server. Log once.
+            if (!accessErrorLogged) {
+                log.error("Access privileges for given user are not sufficient to write to the " + indexName +
+                        " index. Events are buffered until access is granted.", e);
+                accessErrorLogged = true;
             }
+            return false;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Access privileges for given user is sufficient.");
+        }
+        clusterVerified = true;
+        return true;
+    }
+
+    /**
+     * Installs the index template and lifecycle policy. Publishing goes on with the dynamic mappings of the cluster
+     * if they can not be installed, except in rollover mode, where the first document would create a plain index
+     * in place of the write alias.
+     *
+     * @return true if the workers can publish to the cluster
+     */
+    private boolean installIndexTemplate() {
+        try {
+            indexTemplateInstaller.install();
+            indexTemplateInstaller = null;
+            return true;
         } catch (IOException e) {
-            log.error("Elasticsearch connection error.", e);
+            boolean rollover = ElasticStatisticsPublisher.getIndexRouter().getPartitioning() ==
+                    IndexPartitioning.ROLLOVER;
+            // Log once
+            if (!templateErrorLogged) {
+                log.warn("Failed to install the index template of the statistics indices." + (rollover ?
+                        " Events are buffered until the write alias is created." :
+                        " Indices are created with the default mappings."), e);
+                templateErrorLogged = true;
+            }
+            if (rollover) {
+                return false;
+            }
+            indexTemplateInstaller = null;
+            return true;
+        }
+    }
+
+    /**
+     * Waits for a thread which was asked to stop, at most until the deadline shared by all the threads.
+     *
+     * @param thread   thread to wait for, null if it was not started
+     * @param deadline System.nanoTime after which the thread is left running
+     */
+    private static void join(Thread thread, long deadline) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining > 0) {
+                thread.join(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn(thread.getName() + " did not stop before the observer was destroyed, its last events may be " +
+                    "lost.");
         }
     }
 
@@ -200,7 +446,60 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
      */
     @Override
     public void destroy() {
-        publisherThread.shutdown();
+        publishing = false;
+        if (publisherThreads != null) {
+            for (ElasticsearchPublisherThread publisherThread : publisherThreads) {
+                publisherThread.shutdown();
+            }
+        }
+
+        if (spillJournalReplayer != null) {
+            spillJournalReplayer.shutdown();
+        }
+
+        if (rollupPublisher != null) {
+            rollupPublisher.shutdown();
+        }
+
+        if (latencyPublisher != null) {
+            latencyPublisher.shutdown();
+        }
+
+        // Wait for the last bulk and the last windows to be sent before the client is closed
+        long joinDeadline = System.nanoTime() +
+                TimeUnit.MILLISECONDS.toNanos(ElasticObserverConstants.PUBLISHER_THREAD_JOIN_TIME_OUT);
+        if (publisherThreads != null) {
+            for (ElasticsearchPublisherThread publisherThread : publisherThreads) {
+                join(publisherThread, joinDeadline);
+            }
+        }
+        join(spillJournalReplayer, joinDeadline);
+        join(rollupPublisher, joinDeadline);
+        join(latencyPublisher, joinDeadline);
+
+        // Documents waiting for a retry are dropped, the bulk processors are closed
+        if (bulkRetryScheduler != null) {
+            bulkRetryScheduler.shutdown();
+        }
+
+        if (circuitBreaker != null) {
+            circuitBreaker.shutdown();
+        }
+
+        // Events not yet replayed stay on disk for the next start
+        if (spillJournal != null) {
+            spillJournal.close();
+        }
+
+        unregisterStatisticsMBean();
+
+        if (prometheusEndpoint != null) {
+            prometheusEndpoint.stop();
+        }
+
+        if (sniffer != null) {
+            sniffer.close();
+        }
 
         if (client != null) {
             try {
@@ -217,35 +516,45 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
 
     /**
      * Method is called when this observer is notified.
-     * Invokes the process method considering about the queue size.
+     * Invokes the process method, the event buffer applies the configured overflow policy when it is full.
      *
      * @param publishingFlow PublishingFlow object is passed when notified.
      */
     @Override
     public void updateStatistics(PublishingFlow publishingFlow) {
-        if (publisherThread != null) {
-            int bufferSize = (int) configurations.get(ElasticObserverConstants.BUFFER_SIZE);
-            if (bufferExceeded) {
-                // If the queue has exceeded before, check the queue is not exceeded now
-                if (ElasticStatisticsPublisher.getAllMappingsQueue().size() < bufferSize) {
-                    // Log only once
-                    log.info("Event buffering started.");
-                    bufferExceeded = false;
+        if (publishing && rollupPublishing) {
+            // Events only update in memory counters, nothing is buffered
+            try {
+                ElasticStatisticsPublisher.process(publishingFlow);
+            } catch (Exception e) {
+                log.error("Failed to update statistics from Elasticsearch publisher", e);
+            }
+        } else if (publishing) {
+            // The flow is processed into the partition of its message flow id
+            PartitionedEventBuffer<StatisticsEvent> allMappingsQueue = ElasticStatisticsPublisher.getAllMappingsQueue();
+            int partition = allMappingsQueue.partitionIndexFor(publishingFlow.getMessageFlowId());
+            EventRingBuffer<StatisticsEvent> eventBuffer = allMappingsQueue.getPartition(partition);
+
+            // size() of the ring buffer is constant time, so it is fine to check on every notification
+            boolean exceeded = eventBuffer.size() >= eventBuffer.getCapacity();
+            if (exceeded) {
+                // If the queue has not exceeded before, log only once
+                if (bufferExceeded.compareAndSet(partition, 0, 1)) {
+                    log.warn("Maximum buffer size reached. Applying the " +
+                            eventBuffer.getOverflowPolicy().getConfigName() + " overflow policy to incoming events.");
                 }
             } else {
-                // If the queue has not exceeded before, check the queue is exceeded now
-                if (ElasticStatisticsPublisher.getAllMappingsQueue().size() >= bufferSize) {
-                    // Log only once
-                    log.warn("Maximum buffer size reached. Dropping incoming events.");
-                    bufferExceeded = true;
+                // If the queue has exceeded before, log only once
+                if (bufferExceeded.compareAndSet(partition, 1, 0)) {
+                    log.info("Event buffering started.");
                 }
             }
 
-            if (!bufferExceeded) {
+            // With the drop-newest policy every event of the flow would be rejected, so skip processing unless
+            // the events can be spilled to disk
+            if (!exceeded || eventBuffer.getOverflowPolicy() != OverflowPolicy.DROP_NEWEST || spillJournal != null) {
                 try {
-                    if (!(publisherThread.getShutdown())) {
-                        ElasticStatisticsPublisher.process(publishingFlow);
-                    }
+                    ElasticStatisticsPublisher.process(publishingFlow);
                 } catch (Exception e) {
                     log.error("Failed to update statistics from Elasticsearch publisher", e);
                 }
@@ -254,19 +563,261 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
     }
 
     /**
-     * Instantiates the publisher thread, passes the RestHighLevelClient and starts.
+     * Instantiates the publisher threads of the configured publishing mode, passes the RestHighLevelClient and
+     * starts them. The threads buffer until the health probe reaches the cluster.
      */
     private void startPublishing() {
-        publisherThread = new ElasticsearchPublisherThread();
-        publisherThread.setName("ElasticsearchPublisherThread");
-        publisherThread.init(
+        // Encoders take the router when the publisher threads are created
+        IndexRouter indexRouter = new IndexRouter(
+                (String) configurations.get(ElasticObserverConstants.INDEX_NAME),
+                (IndexPartitioning) configurations.get(ElasticObserverConstants.INDEX_PARTITIONING)
+        );
+        ElasticStatisticsPublisher.setIndexRouter(indexRouter);
+        if ((boolean) configurations.get(ElasticObserverConstants.INDEX_MANAGE_TEMPLATE)) {
+            indexTemplateInstaller = new IndexTemplateInstaller(
+                    client.getLowLevelClient(),
+                    indexRouter,
+                    (int) configurations.get(ElasticObserverConstants.INDEX_SHARDS),
+                    (int) configurations.get(ElasticObserverConstants.INDEX_REPLICAS),
+                    (String) configurations.get(ElasticObserverConstants.INDEX_RETENTION),
+                    (String) configurations.get(ElasticObserverConstants.INDEX_ROLLOVER_MAX_SIZE),
+                    (String) configurations.get(ElasticObserverConstants.INDEX_ROLLOVER_MAX_AGE)
+            );
+        }
+
+        // The cluster is only probed while the circuit is open
+        circuitBreaker = new ClusterCircuitBreaker(
+                this::probeCluster,
+                (int) configurations.get(ElasticObserverConstants.CIRCUIT_FAILURE_THRESHOLD),
+                (long) configurations.get(ElasticObserverConstants.NO_NODES_SLEEP),
+                (long) configurations.get(ElasticObserverConstants.NO_NODES_MAX_SLEEP)
+        );
+
+        // Opened before any worker starts, so nothing is sent before the probe verified the cluster
+        circuitBreaker.startOpen();
+        ElasticObserverStatistics statistics = new ElasticObserverStatistics(publisherMetrics, circuitBreaker);
+        registerStatisticsMBean(statistics);
+        if ((boolean) configurations.get(ElasticObserverConstants.METRICS_PROMETHEUS_ENABLED)) {
+            startPrometheusEndpoint(statistics);
+        }
+
+        // Shared by the bulk processors of all the publisher threads
+        bulkRetryScheduler = new BulkRetryScheduler(
+                (long) configurations.get(ElasticObserverConstants.BULK_BACKOFF_INITIAL_DELAY),
+                (long) configurations.get(ElasticObserverConstants.BULK_BACKOFF_MAX_DELAY),
+                (int) configurations.get(ElasticObserverConstants.BULK_BACKOFF_MAX_RETRIES)
+        );
+
+        ElasticStatisticsPublisher.setComponentFilter(new ComponentFilter(
+                ComponentFilter.parseRules((String) configurations.get(
+                        ElasticObserverConstants.INCLUDE_COMPONENT_TYPES)),
+                ComponentFilter.parseRules((String) configurations.get(
+                        ElasticObserverConstants.INCLUDE_COMPONENT_NAMES)),
+                ComponentFilter.parseRules((String) configurations.get(
+                        ElasticObserverConstants.EXCLUDE_COMPONENT_NAMES))
+        ));
+
+        // Sampling every flow is the same as not sampling, so the sampler is only installed below 100%
+        double samplingPercentage = (double) configurations.get(ElasticObserverConstants.SAMPLING_PERCENTAGE);
+        if (samplingPercentage < 100) {
+            ElasticStatisticsPublisher.setFlowSampler(new FlowSampler(samplingPercentage,
+                    (boolean) configurations.get(ElasticObserverConstants.SAMPLING_KEEP_FAULTS)));
+        }
+
+        // Durations are recorded by process, so the recorder must be in place before events are processed
+        if ((boolean) configurations.get(ElasticObserverConstants.LATENCY_HISTOGRAMS_ENABLED)) {
+            startLatencyPublishing();
+        }
+
+        if ((boolean) configurations.get(ElasticObserverConstants.ROLLUP_ENABLED)) {
+            startRollupPublishing();
+        } else {
+            startEventPublishing();
+        }
+    }
+
+    /**
+     * Instantiates the latency publisher, which publishes the duration percentiles of every component once per
+     * flush interval in both publishing modes.
+     */
+    private void startLatencyPublishing() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ElasticStatisticsPublisher.setLatencyRecorder(recorder);
+
+        latencyPublisher = new LatencyPublisherThread(recorder,
+                (long) configurations.get(ElasticObserverConstants.LATENCY_HISTOGRAMS_FLUSH_INTERVAL), circuitBreaker);
+        latencyPublisher.initBulkProcessor(
+                client,
+                (int) configurations.get(ElasticObserverConstants.BULK_ACTIONS),
+                (long) configurations.get(ElasticObserverConstants.BULK_BYTE_SIZE),
+                (long) configurations.get(ElasticObserverConstants.BULK_FLUSH_INTERVAL),
+                (int) configurations.get(ElasticObserverConstants.BULK_CONCURRENT_REQUESTS),
+                bulkRetryScheduler,
+                publisherMetrics
+        );
+        latencyPublisher.start();
+    }
+
+    /**
+     * Instantiates the rollup publisher. Events are aggregated per component and one summary document per
+     * component is published per window, the event buffer is not used.
+     */
+    private void startRollupPublishing() {
+        RollupAggregator aggregator = new RollupAggregator();
+        ElasticStatisticsPublisher.setRollupAggregator(aggregator);
+
+        rollupPublisher = new RollupPublisherThread(aggregator,
+                (long) configurations.get(ElasticObserverConstants.ROLLUP_WINDOW), circuitBreaker);
+        rollupPublisher.initBulkProcessor(
                 client,
-                (int) configurations.get(ElasticObserverConstants.BULK_SIZE),
-                (long) configurations.get(ElasticObserverConstants.BULK_TIME_OUT),
-                (long) configurations.get(ElasticObserverConstants.BUFFER_EMPTY_SLEEP),
-                (long) configurations.get(ElasticObserverConstants.NO_NODES_SLEEP)
+                (int) configurations.get(ElasticObserverConstants.BULK_ACTIONS),
+                (long) configurations.get(ElasticObserverConstants.BULK_BYTE_SIZE),
+                (long) configurations.get(ElasticObserverConstants.BULK_FLUSH_INTERVAL),
+                (int) configurations.get(ElasticObserverConstants.BULK_CONCURRENT_REQUESTS),
+                bulkRetryScheduler,
+                publisherMetrics
+        );
+
+        rollupPublishing = true;
+        publishing = true;
+        rollupPublisher.start();
+    }
+
+    /**
+     * Instantiates the publisher workers, one per event buffer partition, which publish a document per event.
+     */
+    private void startEventPublishing() {
+        int workers = (int) configurations.get(ElasticObserverConstants.WORKERS);
+
+        PartitionedEventBuffer<StatisticsEvent> allMappingsQueue = new PartitionedEventBuffer<>(
+                workers,
+                (int) configurations.get(ElasticObserverConstants.BUFFER_SIZE),
+                (OverflowPolicy) configurations.get(ElasticObserverConstants.BUFFER_OVERFLOW_POLICY),
+                (long) configurations.get(ElasticObserverConstants.BUFFER_BLOCK_TIME_OUT)
         );
-        publisherThread.start();
+        ElasticStatisticsPublisher.setAllMappingsQueue(allMappingsQueue);
+        bufferExceeded = new AtomicIntegerArray(workers);
+
+        if ((boolean) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_ENABLED)) {
+            startSpillJournal(allMappingsQueue.getPartition(0).getCapacity());
+        }
+
+        publisherThreads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            ElasticsearchPublisherThread publisherThread = new ElasticsearchPublisherThread();
+            publisherThread.setName("ElasticsearchPublisherThread-" + i);
+            publisherThread.init(
+                    client,
+                    allMappingsQueue.getPartition(i),
+                    (int) configurations.get(ElasticObserverConstants.BULK_SIZE),
+                    (long) configurations.get(ElasticObserverConstants.BULK_TIME_OUT),
+                    (long) configurations.get(ElasticObserverConstants.BUFFER_EMPTY_SLEEP),
+                    circuitBreaker,
+                    publisherMetrics
+            );
+            publisherThread.initBulkProcessor(
+                    (int) configurations.get(ElasticObserverConstants.BULK_ACTIONS),
+                    (long) configurations.get(ElasticObserverConstants.BULK_BYTE_SIZE),
+                    (long) configurations.get(ElasticObserverConstants.BULK_FLUSH_INTERVAL),
+                    (int) configurations.get(ElasticObserverConstants.BULK_CONCURRENT_REQUESTS),
+                    bulkRetryScheduler
+            );
+            publisherThreads.add(publisherThread);
+        }
+
+        publishing = true;
+        for (ElasticsearchPublisherThread publisherThread : publisherThreads) {
+            publisherThread.start();
+        }
+        if (spillJournalReplayer != null) {
+            spillJournalReplayer.start();
+        }
+    }
+
+    /**
+     * Opens the spill journal and creates its replayer. Events of the buffer partitions above the high-water mark
+     * are spilled to the journal. Spilling stays disabled if the journal can not be opened.
+     *
+     * @param partitionCapacity capacity of a buffer partition
+     */
+    private void startSpillJournal(int partitionCapacity) {
+        Path directory = Paths.get((String) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_DIRECTORY));
+        if (!directory.isAbsolute()) {
+            directory = Paths.get(System.getProperty(ElasticObserverConstants.CARBON_HOME, ".")).resolve(directory);
+        }
+
+        try {
+            spillJournal = new SpillJournal(
+                    directory,
+                    (int) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_SEGMENT_SIZE),
+                    (long) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_MAX_SIZE)
+            );
+        } catch (IOException e) {
+            log.error("Could not open the spill journal in " + directory + ". Spilling events to disk is disabled.",
+                    e);
+            return;
+        }
+
+        int highWaterMark = (int) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_HIGH_WATER_MARK);
+        ElasticStatisticsPublisher.setSpillJournal(spillJournal,
+                Math.max(1, (int) ((long) partitionCapacity * highWaterMark / 100)));
+
+        spillJournalReplayer = new SpillJournalReplayerThread(spillJournal, circuitBreaker,
+                (int) configurations.get(ElasticObserverConstants.SPILL_JOURNAL_REPLAY_RATE));
+
+        if (log.isDebugEnabled()) {
+            log.debug("Spilling events to disk is enabled: " + directory);
+        }
+    }
+
+    /**
+     * Registers the MBean which exposes the buffer occupancy, drop counters and publisher metrics.
+     *
+     * @param statistics statistics of the observer, read on demand
+     */
+    private void registerStatisticsMBean(ElasticObserverStatistics statistics) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(ElasticObserverConstants.MBEAN_OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(statistics, objectName);
+            statisticsMBeanName = objectName;
+        } catch (JMException e) {
+            log.warn("Could not register the Elasticsearch observer statistics MBean.", e);
+        }
+    }
+
+    /**
+     * Starts serving the statistics to Prometheus. The observer keeps publishing if the port cannot be bound.
+     *
+     * @param statistics statistics of the observer, also registered as the MBean
+     */
+    private void startPrometheusEndpoint(ElasticObserverStatistics statistics) {
+        String host = (String) configurations.get(ElasticObserverConstants.METRICS_PROMETHEUS_HOST);
+        int port = (int) configurations.get(ElasticObserverConstants.METRICS_PROMETHEUS_PORT);
+        PrometheusEndpoint endpoint = new PrometheusEndpoint(host, port, statistics);
+        try {
+            endpoint.start();
+            prometheusEndpoint = endpoint;
+        } catch (IOException e) {
+            log.warn("Could not start the Prometheus metrics endpoint at " + host + ":" + port, e);
+        }
+    }
+
+    /**
+     * Unregisters the statistics MBean if it has been registered.
+     */
+    private void unregisterStatisticsMBean() {
+        if (statisticsMBeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(statisticsMBeanName);
+            } catch (JMException e) {
+                log.warn("Could not unregister the Elasticsearch observer statistics MBean.", e);
+            }
+            statisticsMBeanName = null;
+        }
     }
 
     /**
@@ -278,6 +829,23 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
     private void getConfigurations() {
         String host = ElasticObserverConstants.DEFAULT_HOSTNAME;
         int port = ElasticObserverConstants.DEFAULT_PORT;
+
+        // Comma separated host[:port] values, the single Host and Port when not configured
+        String hosts = null;
+
+        // Connection pool of the rest client = 10 connections per host, 30 in total, kept alive as the server allows
+        int maxConnectionsPerRoute = ElasticObserverConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        int maxConnectionsTotal = ElasticObserverConstants.DEFAULT_MAX_CONNECTIONS_TOTAL;
+        long keepAlive = ElasticObserverConstants.DEFAULT_KEEP_ALIVE;
+
+        // gzip bulk bodies = false
+        boolean compressionEnabled = ElasticObserverConstants.DEFAULT_COMPRESSION_ENABLED;
+
+        // Sniffing the nodes of the cluster, disabled by default
+        boolean sniffingEnabled = ElasticObserverConstants.DEFAULT_SNIFFING_ENABLED;
+        int sniffingInterval = ElasticObserverConstants.DEFAULT_SNIFFING_INTERVAL;
+        int sniffingAfterFailureDelay = ElasticObserverConstants.DEFAULT_SNIFFING_AFTER_FAILURE_DELAY;
+
         String username = ElasticObserverConstants.DEFAULT_USERNAME;
         String password = ElasticObserverConstants.DEFAULT_PASSWORD;
         boolean sslEnabled = ElasticObserverConstants.DEFAULT_SSL_ENABLED;
@@ -286,6 +854,15 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
         // Event buffering queue size = 5000
         int bufferSize = ElasticObserverConstants.DEFAULT_BUFFER_SIZE;
 
+        // Action on a full buffer = drop-newest
+        OverflowPolicy bufferOverflowPolicy = ElasticObserverConstants.DEFAULT_BUFFER_OVERFLOW_POLICY;
+
+        // Time a reporter thread waits for a free slot with the block policy = 100 (in millis)
+        long bufferBlockTimeOut = ElasticObserverConstants.DEFAULT_BUFFER_BLOCK_TIME_OUT;
+
+        // Publisher workers, each with its own buffer partition and bulk pipeline = 1
+        int workers = ElasticObserverConstants.DEFAULT_WORKERS;
+
         // Size of the event publishing bulk = 500
         int bulkSize = ElasticObserverConstants.DEFAULT_PUBLISHING_BULK_SIZE;
 
@@ -295,19 +872,157 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
         // PublisherThread sleep time when the buffer is empty = 1000 (in millis)
         long bufferEmptySleep = ElasticObserverConstants.DEFAULT_BUFFER_EMPTY_SLEEP_TIME;
 
-        // PublisherThread sleep time when the Elasticsearch server is down = 5000 (in millis)
+        // Time before the first ping when the Elasticsearch server is down = 5000, doubling up to 60000 (in millis)
         long noNodesSleep = ElasticObserverConstants.DEFAULT_NO_NODES_SLEEP_TIME;
+        long noNodesMaxSleep = ElasticObserverConstants.DEFAULT_NO_NODES_MAX_SLEEP_TIME;
+
+        // Failed bulk requests in a row after which the Elasticsearch server is considered down = 3
+        int circuitFailureThreshold = ElasticObserverConstants.DEFAULT_CIRCUIT_FAILURE_THRESHOLD;
+
+        // BulkProcessor limits, a bulk request is sent when any of them is reached
+        int bulkActions = ElasticObserverConstants.DEFAULT_BULK_ACTIONS;
+        long bulkByteSize = ElasticObserverConstants.DEFAULT_BULK_BYTE_SIZE;
+        long bulkFlushInterval = ElasticObserverConstants.DEFAULT_BULK_FLUSH_INTERVAL;
+
+        // Bulk requests allowed in flight = 1
+        int bulkConcurrentRequests = ElasticObserverConstants.DEFAULT_BULK_CONCURRENT_REQUESTS;
+
+        // Exponential backoff for rejected bulk requests = 50 millis initial delay, 8 retries
+        long bulkBackoffInitialDelay = ElasticObserverConstants.DEFAULT_BULK_BACKOFF_INITIAL_DELAY;
+        long bulkBackoffMaxDelay = ElasticObserverConstants.DEFAULT_BULK_BACKOFF_MAX_DELAY;
+        int bulkBackoffMaxRetries = ElasticObserverConstants.DEFAULT_BULK_BACKOFF_MAX_RETRIES;
+
+        // Publishing a document per event (raw) or a summary document per component and window (rollup) = raw
+        boolean rollupEnabled = ElasticObserverConstants.DEFAULT_ROLLUP_ENABLED;
+
+        // Length of a rollup window = 60000 (in millis)
+        long rollupWindow = ElasticObserverConstants.DEFAULT_ROLLUP_WINDOW;
+
+        // Components published, comma separated type and name rules
+        String includeComponentTypes = ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_TYPES;
+        String includeComponentNames = ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_NAMES;
+        String excludeComponentNames = ElasticObserverConstants.DEFAULT_EXCLUDED_COMPONENT_NAMES;
+
+        // Percentage of the message flows published = 100, flows with faults are always kept
+        double samplingPercentage = ElasticObserverConstants.DEFAULT_SAMPLING_PERCENTAGE;
+        boolean samplingKeepFaults = ElasticObserverConstants.DEFAULT_SAMPLING_KEEP_FAULTS;
+
+        // Per component latency histograms published every 60000 millis, disabled by default
+        boolean latencyHistogramsEnabled = ElasticObserverConstants.DEFAULT_LATENCY_HISTOGRAMS_ENABLED;
+        long latencyHistogramsFlushInterval = ElasticObserverConstants.DEFAULT_LATENCY_HISTOGRAMS_FLUSH_INTERVAL;
+
+        // Spill journal for events above the high-water mark of the buffer, disabled by default
+        boolean spillJournalEnabled = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_ENABLED;
+        String spillJournalDirectory = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_DIRECTORY;
+        int spillJournalSegmentSize = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_SEGMENT_SIZE;
+        long spillJournalMaxSize = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_MAX_SIZE;
+        int spillJournalHighWaterMark = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_HIGH_WATER_MARK;
+        int spillJournalReplayRate = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_REPLAY_RATE;
+
+        // Index of the statistics, a single index with a managed template by default
+        String indexName = ElasticObserverConstants.DEFAULT_INDEX_NAME;
+        IndexPartitioning indexPartitioning = ElasticObserverConstants.DEFAULT_INDEX_PARTITIONING;
+        boolean indexManageTemplate = ElasticObserverConstants.DEFAULT_INDEX_MANAGE_TEMPLATE;
+        int indexShards = ElasticObserverConstants.DEFAULT_INDEX_SHARDS;
+        int indexReplicas = ElasticObserverConstants.DEFAULT_INDEX_REPLICAS;
+        String indexRetention = ElasticObserverConstants.DEFAULT_INDEX_RETENTION;
+        String indexRolloverMaxSize = ElasticObserverConstants.DEFAULT_INDEX_ROLLOVER_MAX_SIZE;
+        String indexRolloverMaxAge = ElasticObserverConstants.DEFAULT_INDEX_ROLLOVER_MAX_AGE;
+
+        // Statistics are exposed through JMX only, unless the Prometheus endpoint is enabled
+        boolean metricsPrometheusEnabled = ElasticObserverConstants.DEFAULT_METRICS_PROMETHEUS_ENABLED;
+        String metricsPrometheusHost = ElasticObserverConstants.DEFAULT_METRICS_PROMETHEUS_HOST;
+        int metricsPrometheusPort = ElasticObserverConstants.DEFAULT_METRICS_PROMETHEUS_PORT;
 
         // Takes configuration details form carbon.xml
         String hostInConfig = serverConf.getFirstProperty(ElasticObserverConstants.HOST_CONFIG);
         String portString = serverConf.getFirstProperty(ElasticObserverConstants.PORT_CONFIG);
+        String hostsString = serverConf.getFirstProperty(ElasticObserverConstants.HOSTS_CONFIG);
+        String maxConnectionsPerRouteString = serverConf.getFirstProperty(
+                ElasticObserverConstants.MAX_CONNECTIONS_PER_ROUTE_CONFIG);
+        String maxConnectionsTotalString = serverConf.getFirstProperty(
+                ElasticObserverConstants.MAX_CONNECTIONS_TOTAL_CONFIG);
+        String keepAliveString = serverConf.getFirstProperty(ElasticObserverConstants.KEEP_ALIVE_CONFIG);
+        String compressionString = serverConf.getFirstProperty(ElasticObserverConstants.COMPRESSION_CONFIG);
+        String sniffingEnabledString = serverConf.getFirstProperty(ElasticObserverConstants.SNIFFING_ENABLED_CONFIG);
+        String sniffingIntervalString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SNIFFING_INTERVAL_CONFIG);
+        String sniffingAfterFailureDelayString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SNIFFING_AFTER_FAILURE_DELAY_CONFIG);
         String bufferSizeString = serverConf.getFirstProperty(ElasticObserverConstants.BUFFER_SIZE_CONFIG);
+        String bufferOverflowPolicyString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BUFFER_OVERFLOW_POLICY_CONFIG);
+        String bufferBlockTimeOutString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BUFFER_BLOCK_TIME_OUT_CONFIG);
+        String workersString = serverConf.getFirstProperty(ElasticObserverConstants.WORKERS_CONFIG);
         String bulkSizeString = serverConf.getFirstProperty(ElasticObserverConstants.BULK_SIZE_CONFIG);
         String bulkCollectingTimeOutString = serverConf.getFirstProperty(
                 ElasticObserverConstants.BULK_COLLECTING_TIME_OUT_CONFIG);
         String bufferEmptySleepString = serverConf.getFirstProperty(
                 ElasticObserverConstants.BUFFER_EMPTY_SLEEP_TIME_CONFIG);
         String noNodesSleepString = serverConf.getFirstProperty(ElasticObserverConstants.NO_NODES_SLEEP_TIME_CONFIG);
+        String noNodesMaxSleepString = serverConf.getFirstProperty(
+                ElasticObserverConstants.NO_NODES_MAX_SLEEP_TIME_CONFIG);
+        String circuitFailureThresholdString = serverConf.getFirstProperty(
+                ElasticObserverConstants.CIRCUIT_FAILURE_THRESHOLD_CONFIG);
+        String bulkActionsString = serverConf.getFirstProperty(ElasticObserverConstants.BULK_ACTIONS_CONFIG);
+        String bulkByteSizeString = serverConf.getFirstProperty(ElasticObserverConstants.BULK_BYTE_SIZE_CONFIG);
+        String bulkFlushIntervalString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BULK_FLUSH_INTERVAL_CONFIG);
+        String bulkConcurrentRequestsString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BULK_CONCURRENT_REQUESTS_CONFIG);
+        String bulkBackoffInitialDelayString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BULK_BACKOFF_INITIAL_DELAY_CONFIG);
+        String bulkBackoffMaxDelayString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BULK_BACKOFF_MAX_DELAY_CONFIG);
+        String bulkBackoffMaxRetriesString = serverConf.getFirstProperty(
+                ElasticObserverConstants.BULK_BACKOFF_MAX_RETRIES_CONFIG);
+        String publishingModeString = serverConf.getFirstProperty(ElasticObserverConstants.PUBLISHING_MODE_CONFIG);
+        String rollupWindowString = serverConf.getFirstProperty(ElasticObserverConstants.ROLLUP_WINDOW_CONFIG);
+        String includeComponentTypesString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INCLUDE_COMPONENT_TYPES_CONFIG);
+        String includeComponentNamesString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INCLUDE_COMPONENT_NAMES_CONFIG);
+        String excludeComponentNamesString = serverConf.getFirstProperty(
+                ElasticObserverConstants.EXCLUDE_COMPONENT_NAMES_CONFIG);
+        String samplingPercentageString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SAMPLING_PERCENTAGE_CONFIG);
+        String samplingKeepFaultsString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SAMPLING_KEEP_FAULTS_CONFIG);
+        String latencyHistogramsEnabledString = serverConf.getFirstProperty(
+                ElasticObserverConstants.LATENCY_HISTOGRAMS_ENABLED_CONFIG);
+        String latencyHistogramsFlushIntervalString = serverConf.getFirstProperty(
+                ElasticObserverConstants.LATENCY_HISTOGRAMS_FLUSH_INTERVAL_CONFIG);
+        String spillJournalEnabledString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_ENABLED_CONFIG);
+        String spillJournalDirectoryString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_DIRECTORY_CONFIG);
+        String spillJournalSegmentSizeString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_SEGMENT_SIZE_CONFIG);
+        String spillJournalMaxSizeString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_MAX_SIZE_CONFIG);
+        String spillJournalHighWaterMarkString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_HIGH_WATER_MARK_CONFIG);
+        String spillJournalReplayRateString = serverConf.getFirstProperty(
+                ElasticObserverConstants.SPILL_JOURNAL_REPLAY_RATE_CONFIG);
+        String indexNameString = serverConf.getFirstProperty(ElasticObserverConstants.INDEX_NAME_CONFIG);
+        String indexPartitioningString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INDEX_PARTITIONING_CONFIG);
+        String indexManageTemplateString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INDEX_MANAGE_TEMPLATE_CONFIG);
+        String indexShardsString = serverConf.getFirstProperty(ElasticObserverConstants.INDEX_SHARDS_CONFIG);
+        String indexReplicasString = serverConf.getFirstProperty(ElasticObserverConstants.INDEX_REPLICAS_CONFIG);
+        String indexRetentionString = serverConf.getFirstProperty(ElasticObserverConstants.INDEX_RETENTION_CONFIG);
+        String indexRolloverMaxSizeString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INDEX_ROLLOVER_MAX_SIZE_CONFIG);
+        String indexRolloverMaxAgeString = serverConf.getFirstProperty(
+                ElasticObserverConstants.INDEX_ROLLOVER_MAX_AGE_CONFIG);
+        String metricsPrometheusEnabledString = serverConf.getFirstProperty(
+                ElasticObserverConstants.METRICS_PROMETHEUS_ENABLED_CONFIG);
+        String metricsPrometheusHostString = serverConf.getFirstProperty(
+                ElasticObserverConstants.METRICS_PROMETHEUS_HOST_CONFIG);
+        String metricsPrometheusPortString = serverConf.getFirstProperty(
+                ElasticObserverConstants.METRICS_PROMETHEUS_PORT_CONFIG);
         String usernameInConfig = serverConf.getFirstProperty(ElasticObserverConstants.USERNAME_CONFIG);
         String passwordInConfig = serverConf.getFirstProperty(ElasticObserverConstants.PASSWORD_CONFIG);
         String trustStorePath = serverConf.getFirstProperty(ElasticObserverConstants.TRUST_STORE_PATH_CONFIG);
@@ -328,6 +1043,40 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
             port = Integer.parseInt(portString);
         }
 
+        if (hostsString != null && !hostsString.trim().isEmpty()) {
+            hosts = hostsString;
+        } else {
+            hosts = host;
+        }
+
+        if (maxConnectionsPerRouteString != null && !maxConnectionsPerRouteString.isEmpty()) {
+            maxConnectionsPerRoute = Integer.parseInt(maxConnectionsPerRouteString);
+        }
+
+        if (maxConnectionsTotalString != null && !maxConnectionsTotalString.isEmpty()) {
+            maxConnectionsTotal = Integer.parseInt(maxConnectionsTotalString);
+        }
+
+        if (keepAliveString != null && !keepAliveString.isEmpty()) {
+            keepAlive = Long.parseLong(keepAliveString);
+        }
+
+        if (compressionString != null && !compressionString.isEmpty()) {
+            compressionEnabled = Boolean.parseBoolean(compressionString);
+        }
+
+        if (sniffingEnabledString != null && !sniffingEnabledString.isEmpty()) {
+            sniffingEnabled = Boolean.parseBoolean(sniffingEnabledString);
+        }
+
+        if (sniffingIntervalString != null && !sniffingIntervalString.isEmpty()) {
+            sniffingInterval = Integer.parseInt(sniffingIntervalString);
+        }
+
+        if (sniffingAfterFailureDelayString != null && !sniffingAfterFailureDelayString.isEmpty()) {
+            sniffingAfterFailureDelay = Integer.parseInt(sniffingAfterFailureDelayString);
+        }
+
         if (usernameInConfig != null && !usernameInConfig.isEmpty()) {
             username = usernameInConfig;
         }
@@ -350,6 +1099,34 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
 
         if (bufferSizeString != null && !bufferSizeString.isEmpty()) {
             bufferSize = Integer.parseInt(bufferSizeString);
+            if (bufferSize < 2) {
+                log.warn("Buffer size must be at least 2 events. Using default buffer size: " +
+                        ElasticObserverConstants.DEFAULT_BUFFER_SIZE);
+                bufferSize = ElasticObserverConstants.DEFAULT_BUFFER_SIZE;
+            }
+        }
+
+        if (bufferOverflowPolicyString != null && !bufferOverflowPolicyString.isEmpty()) {
+            OverflowPolicy policyInConfig = OverflowPolicy.fromConfigName(bufferOverflowPolicyString);
+            if (policyInConfig != null) {
+                bufferOverflowPolicy = policyInConfig;
+            } else {
+                log.warn("Unknown buffer overflow policy: " + bufferOverflowPolicyString + ". Using " +
+                        bufferOverflowPolicy.getConfigName() + " policy.");
+            }
+        }
+
+        if (bufferBlockTimeOutString != null && !bufferBlockTimeOutString.isEmpty()) {
+            bufferBlockTimeOut = Long.parseLong(bufferBlockTimeOutString);
+        }
+
+        if (workersString != null && !workersString.isEmpty()) {
+            workers = Integer.parseInt(workersString);
+            if (workers < 1) {
+                log.warn("At least one publisher worker is needed. Using default worker count: " +
+                        ElasticObserverConstants.DEFAULT_WORKERS);
+                workers = ElasticObserverConstants.DEFAULT_WORKERS;
+            }
         }
 
         if (bulkSizeString != null && !bulkSizeString.isEmpty()) {
@@ -368,14 +1145,244 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
             noNodesSleep = Integer.parseInt(noNodesSleepString);
         }
 
+        if (noNodesMaxSleepString != null && !noNodesMaxSleepString.isEmpty()) {
+            noNodesMaxSleep = Long.parseLong(noNodesMaxSleepString);
+        }
+
+        if (circuitFailureThresholdString != null && !circuitFailureThresholdString.isEmpty()) {
+            circuitFailureThreshold = Integer.parseInt(circuitFailureThresholdString);
+        }
+
+        if (bulkActionsString != null && !bulkActionsString.isEmpty()) {
+            bulkActions = Integer.parseInt(bulkActionsString);
+        }
+
+        if (bulkByteSizeString != null && !bulkByteSizeString.isEmpty()) {
+            bulkByteSize = Long.parseLong(bulkByteSizeString);
+        }
+
+        if (bulkFlushIntervalString != null && !bulkFlushIntervalString.isEmpty()) {
+            bulkFlushInterval = Long.parseLong(bulkFlushIntervalString);
+        }
+
+        if (bulkConcurrentRequestsString != null && !bulkConcurrentRequestsString.isEmpty()) {
+            bulkConcurrentRequests = Integer.parseInt(bulkConcurrentRequestsString);
+        }
+
+        if (bulkBackoffInitialDelayString != null && !bulkBackoffInitialDelayString.isEmpty()) {
+            bulkBackoffInitialDelay = Long.parseLong(bulkBackoffInitialDelayString);
+        }
+
+        if (bulkBackoffMaxDelayString != null && !bulkBackoffMaxDelayString.isEmpty()) {
+            bulkBackoffMaxDelay = Long.parseLong(bulkBackoffMaxDelayString);
+        }
+
+        if (bulkBackoffMaxRetriesString != null && !bulkBackoffMaxRetriesString.isEmpty()) {
+            bulkBackoffMaxRetries = Integer.parseInt(bulkBackoffMaxRetriesString);
+        }
+
+        if (publishingModeString != null && !publishingModeString.isEmpty()) {
+            if (ElasticObserverConstants.PUBLISHING_MODE_ROLLUP.equalsIgnoreCase(publishingModeString.trim())) {
+                rollupEnabled = true;
+            } else if (ElasticObserverConstants.PUBLISHING_MODE_RAW.equalsIgnoreCase(publishingModeString.trim())) {
+                rollupEnabled = false;
+            } else {
+                log.warn("Unknown publishing mode: " + publishingModeString + ". Using " +
+                        (rollupEnabled ? ElasticObserverConstants.PUBLISHING_MODE_ROLLUP :
+                                ElasticObserverConstants.PUBLISHING_MODE_RAW) + " mode.");
+            }
+        }
+
+        if (rollupWindowString != null && !rollupWindowString.isEmpty()) {
+            rollupWindow = Long.parseLong(rollupWindowString);
+            if (rollupWindow < 1) {
+                log.warn("Rollup window must be a positive number of millis. Using default rollup window: " +
+                        ElasticObserverConstants.DEFAULT_ROLLUP_WINDOW);
+                rollupWindow = ElasticObserverConstants.DEFAULT_ROLLUP_WINDOW;
+            }
+        }
+
+        if (includeComponentTypesString != null && !includeComponentTypesString.isEmpty()) {
+            includeComponentTypes = includeComponentTypesString;
+        }
+
+        // An empty element is a valid rule here, it includes every name or excludes none
+        if (includeComponentNamesString != null) {
+            includeComponentNames = includeComponentNamesString;
+        }
+
+        if (excludeComponentNamesString != null) {
+            excludeComponentNames = excludeComponentNamesString;
+        }
+
+        if (samplingPercentageString != null && !samplingPercentageString.isEmpty()) {
+            samplingPercentage = Double.parseDouble(samplingPercentageString);
+            if (samplingPercentage < 0 || samplingPercentage > 100) {
+                log.warn("Sampling percentage must be between 0 and 100. Using default sampling percentage: " +
+                        ElasticObserverConstants.DEFAULT_SAMPLING_PERCENTAGE);
+                samplingPercentage = ElasticObserverConstants.DEFAULT_SAMPLING_PERCENTAGE;
+            }
+        }
+
+        if (samplingKeepFaultsString != null && !samplingKeepFaultsString.isEmpty()) {
+            samplingKeepFaults = Boolean.parseBoolean(samplingKeepFaultsString);
+        }
+
+        if (latencyHistogramsEnabledString != null && !latencyHistogramsEnabledString.isEmpty()) {
+            latencyHistogramsEnabled = Boolean.parseBoolean(latencyHistogramsEnabledString);
+        }
+
+        if (latencyHistogramsFlushIntervalString != null && !latencyHistogramsFlushIntervalString.isEmpty()) {
+            latencyHistogramsFlushInterval = Long.parseLong(latencyHistogramsFlushIntervalString);
+            if (latencyHistogramsFlushInterval < 1) {
+                log.warn("Latency histograms flush interval must be a positive number of millis. Using default: " +
+                        ElasticObserverConstants.DEFAULT_LATENCY_HISTOGRAMS_FLUSH_INTERVAL);
+                latencyHistogramsFlushInterval = ElasticObserverConstants.DEFAULT_LATENCY_HISTOGRAMS_FLUSH_INTERVAL;
+            }
+        }
+
+        if (spillJournalEnabledString != null && !spillJournalEnabledString.isEmpty()) {
+            spillJournalEnabled = Boolean.parseBoolean(spillJournalEnabledString);
+        }
+
+        if (spillJournalDirectoryString != null && !spillJournalDirectoryString.isEmpty()) {
+            spillJournalDirectory = spillJournalDirectoryString;
+        }
+
+        if (spillJournalSegmentSizeString != null && !spillJournalSegmentSizeString.isEmpty()) {
+            spillJournalSegmentSize = (int) Math.min(Long.parseLong(spillJournalSegmentSizeString),
+                    Integer.MAX_VALUE);
+        }
+
+        if (spillJournalMaxSizeString != null && !spillJournalMaxSizeString.isEmpty()) {
+            spillJournalMaxSize = Long.parseLong(spillJournalMaxSizeString);
+        }
+
+        if (spillJournalHighWaterMarkString != null && !spillJournalHighWaterMarkString.isEmpty()) {
+            spillJournalHighWaterMark = Integer.parseInt(spillJournalHighWaterMarkString);
+            if (spillJournalHighWaterMark < 1 || spillJournalHighWaterMark > 100) {
+                log.warn("Spill journal high-water mark must be a percentage between 1 and 100. Using default: " +
+                        ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_HIGH_WATER_MARK);
+                spillJournalHighWaterMark = ElasticObserverConstants.DEFAULT_SPILL_JOURNAL_HIGH_WATER_MARK;
+            }
+        }
+
+        if (spillJournalReplayRateString != null && !spillJournalReplayRateString.isEmpty()) {
+            spillJournalReplayRate = Integer.parseInt(spillJournalReplayRateString);
+        }
+
+        // Elasticsearch index names are lowercase
+        if (indexNameString != null && !indexNameString.trim().isEmpty()) {
+            indexName = indexNameString.trim().toLowerCase(Locale.ROOT);
+        }
+
+        if (indexPartitioningString != null && !indexPartitioningString.isEmpty()) {
+            IndexPartitioning partitioningInConfig = IndexPartitioning.fromConfigName(indexPartitioningString);
+            if (partitioningInConfig != null) {
+                indexPartitioning = partitioningInConfig;
+            } else {
+                log.warn("Unknown index partitioning: " + indexPartitioningString + ". Using " +
+                        indexPartitioning.getConfigName() + " partitioning.");
+            }
+        }
+
+        if (indexManageTemplateString != null && !indexManageTemplateString.isEmpty()) {
+            indexManageTemplate = Boolean.parseBoolean(indexManageTemplateString);
+        }
+
+        if (indexShardsString != null && !indexShardsString.isEmpty()) {
+            indexShards = Integer.parseInt(indexShardsString);
+        }
+
+        if (indexReplicasString != null && !indexReplicasString.isEmpty()) {
+            indexReplicas = Integer.parseInt(indexReplicasString);
+        }
+
+        if (indexRetentionString != null) {
+            indexRetention = indexRetentionString.trim();
+        }
+
+        if (indexRolloverMaxSizeString != null && !indexRolloverMaxSizeString.isEmpty()) {
+            indexRolloverMaxSize = indexRolloverMaxSizeString.trim();
+        }
+
+        if (indexRolloverMaxAgeString != null && !indexRolloverMaxAgeString.isEmpty()) {
+            indexRolloverMaxAge = indexRolloverMaxAgeString.trim();
+        }
+
+        if (metricsPrometheusEnabledString != null && !metricsPrometheusEnabledString.isEmpty()) {
+            metricsPrometheusEnabled = Boolean.parseBoolean(metricsPrometheusEnabledString);
+        }
+
+        if (metricsPrometheusHostString != null && !metricsPrometheusHostString.trim().isEmpty()) {
+            metricsPrometheusHost = metricsPrometheusHostString.trim();
+        }
+
+        if (metricsPrometheusPortString != null && !metricsPrometheusPortString.isEmpty()) {
+            metricsPrometheusPort = Integer.parseInt(metricsPrometheusPortString);
+        }
+
+        // Without the template and its lifecycle policy nothing rolls the write index over
+        if (indexPartitioning == IndexPartitioning.ROLLOVER && !indexManageTemplate) {
+            log.warn("Rollover index partitioning needs the managed index template. Enabling the index template.");
+            indexManageTemplate = true;
+        }
+
         if (log.isDebugEnabled()) {
             log.debug("Host: " + host);
             log.debug("Port: " + port);
+            log.debug("Hosts: " + hosts);
+            log.debug("Max Connections Per Route: " + maxConnectionsPerRoute);
+            log.debug("Max Connections Total: " + maxConnectionsTotal);
+            log.debug("Keep Alive: " + keepAlive + " millis");
+            log.debug("Compression Enabled: " + compressionEnabled);
+            log.debug("Sniffing Enabled: " + sniffingEnabled);
+            log.debug("Sniffing Interval: " + sniffingInterval + " millis");
+            log.debug("Sniffing After Failure Delay: " + sniffingAfterFailureDelay + " millis");
             log.debug("Buffer Size: " + bufferSize + " events");
+            log.debug("Buffer Overflow Policy: " + bufferOverflowPolicy.getConfigName());
+            log.debug("Buffer Block Timeout: " + bufferBlockTimeOut + " millis");
+            log.debug("Workers: " + workers);
             log.debug("Bullk Size: " + bulkSize + " events");
             log.debug("Bulk Timeout: " + bulkTimeOut + " millis");
             log.debug("Buffer Empty Sleep Time: " + bufferEmptySleep + " millis");
             log.debug("No Nodes Sleep Time: " + noNodesSleep + " millis");
+            log.debug("No Nodes Max Sleep Time: " + noNodesMaxSleep + " millis");
+            log.debug("Circuit Failure Threshold: " + circuitFailureThreshold);
+            log.debug("Bulk Actions: " + bulkActions + " events");
+            log.debug("Bulk Byte Size: " + bulkByteSize + " bytes");
+            log.debug("Bulk Flush Interval: " + bulkFlushInterval + " millis");
+            log.debug("Bulk Concurrent Requests: " + bulkConcurrentRequests);
+            log.debug("Bulk Backoff Initial Delay: " + bulkBackoffInitialDelay + " millis");
+            log.debug("Bulk Backoff Max Delay: " + bulkBackoffMaxDelay + " millis");
+            log.debug("Bulk Backoff Max Retries: " + bulkBackoffMaxRetries);
+            log.debug("Publishing Mode: " + (rollupEnabled ? ElasticObserverConstants.PUBLISHING_MODE_ROLLUP :
+                    ElasticObserverConstants.PUBLISHING_MODE_RAW));
+            log.debug("Rollup Window: " + rollupWindow + " millis");
+            log.debug("Include Component Types: " + includeComponentTypes);
+            log.debug("Include Component Names: " + includeComponentNames);
+            log.debug("Exclude Component Names: " + excludeComponentNames);
+            log.debug("Sampling Percentage: " + samplingPercentage + "%");
+            log.debug("Sampling Keep Faults: " + samplingKeepFaults);
+            log.debug("Latency Histograms Enabled: " + latencyHistogramsEnabled);
+            log.debug("Latency Histograms Flush Interval: " + latencyHistogramsFlushInterval + " millis");
+            log.debug("Spill Journal Enabled: " + spillJournalEnabled);
+            log.debug("Spill Journal Directory: " + spillJournalDirectory);
+            log.debug("Spill Journal Segment Size: " + spillJournalSegmentSize + " bytes");
+            log.debug("Spill Journal Max Size: " + spillJournalMaxSize + " bytes");
+            log.debug("Spill Journal High Water Mark: " + spillJournalHighWaterMark + "%");
+            log.debug("Spill Journal Replay Rate: " + spillJournalReplayRate + " events per second");
+            log.debug("Index Name: " + indexName);
+            log.debug("Index Partitioning: " + indexPartitioning.getConfigName());
+            log.debug("Index Manage Template: " + indexManageTemplate);
+            log.debug("Index Shards: " + indexShards);
+            log.debug("Index Replicas: " + indexReplicas);
+            log.debug("Index Retention: " + indexRetention);
+            log.debug("Index Rollover Max Size: " + indexRolloverMaxSize);
+            log.debug("Index Rollover Max Age: " + indexRolloverMaxAge);
+            log.debug("Metrics Prometheus Enabled: " + metricsPrometheusEnabled);
+            log.debug("Metrics Prometheus Host: " + metricsPrometheusHost);
+            log.debug("Metrics Prometheus Port: " + metricsPrometheusPort);
             log.debug("Username: " + username);
             log.debug("Trust Store Path: " + trustStorePath);
             log.debug("Trust Store Type: " + trustStoreType);
@@ -386,11 +1393,57 @@ public class ElasticMediationFlowObserver implements MessageFlowObserver {
         // Put resolved configurations into configuration field
         configurations.put(ElasticObserverConstants.HOST, host);
         configurations.put(ElasticObserverConstants.PORT, port);
+        configurations.put(ElasticObserverConstants.HOSTS, hosts);
+        configurations.put(ElasticObserverConstants.MAX_CONNECTIONS_PER_ROUTE, maxConnectionsPerRoute);
+        configurations.put(ElasticObserverConstants.MAX_CONNECTIONS_TOTAL, maxConnectionsTotal);
+        configurations.put(ElasticObserverConstants.KEEP_ALIVE, keepAlive);
+        configurations.put(ElasticObserverConstants.COMPRESSION_ENABLED, compressionEnabled);
+        configurations.put(ElasticObserverConstants.SNIFFING_ENABLED, sniffingEnabled);
+        configurations.put(ElasticObserverConstants.SNIFFING_INTERVAL, sniffingInterval);
+        configurations.put(ElasticObserverConstants.SNIFFING_AFTER_FAILURE_DELAY, sniffingAfterFailureDelay);
         configurations.put(ElasticObserverConstants.BUFFER_SIZE, bufferSize);
+        configurations.put(ElasticObserverConstants.BUFFER_OVERFLOW_POLICY, bufferOverflowPolicy);
+        configurations.put(ElasticObserverConstants.BUFFER_BLOCK_TIME_OUT, bufferBlockTimeOut);
+        configurations.put(ElasticObserverConstants.WORKERS, workers);
         configurations.put(ElasticObserverConstants.BULK_SIZE, bulkSize);
         configurations.put(ElasticObserverConstants.BULK_TIME_OUT, bulkTimeOut);
         configurations.put(ElasticObserverConstants.BUFFER_EMPTY_SLEEP, bufferEmptySleep);
         configurations.put(ElasticObserverConstants.NO_NODES_SLEEP, noNodesSleep);
+        configurations.put(ElasticObserverConstants.NO_NODES_MAX_SLEEP, noNodesMaxSleep);
+        configurations.put(ElasticObserverConstants.CIRCUIT_FAILURE_THRESHOLD, circuitFailureThreshold);
+        configurations.put(ElasticObserverConstants.BULK_ACTIONS, bulkActions);
+        configurations.put(ElasticObserverConstants.BULK_BYTE_SIZE, bulkByteSize);
+        configurations.put(ElasticObserverConstants.BULK_FLUSH_INTERVAL, bulkFlushInterval);
+        configurations.put(ElasticObserverConstants.BULK_CONCURRENT_REQUESTS, bulkConcurrentRequests);
+        configurations.put(ElasticObserverConstants.BULK_BACKOFF_INITIAL_DELAY, bulkBackoffInitialDelay);
+        configurations.put(ElasticObserverConstants.BULK_BACKOFF_MAX_DELAY, bulkBackoffMaxDelay);
+        configurations.put(ElasticObserverConstants.BULK_BACKOFF_MAX_RETRIES, bulkBackoffMaxRetries);
+        configurations.put(ElasticObserverConstants.ROLLUP_ENABLED, rollupEnabled);
+        configurations.put(ElasticObserverConstants.ROLLUP_WINDOW, rollupWindow);
+        configurations.put(ElasticObserverConstants.INCLUDE_COMPONENT_TYPES, includeComponentTypes);
+        configurations.put(ElasticObserverConstants.INCLUDE_COMPONENT_NAMES, includeComponentNames);
+        configurations.put(ElasticObserverConstants.EXCLUDE_COMPONENT_NAMES, excludeComponentNames);
+        configurations.put(ElasticObserverConstants.SAMPLING_PERCENTAGE, samplingPercentage);
+        configurations.put(ElasticObserverConstants.SAMPLING_KEEP_FAULTS, samplingKeepFaults);
+        configurations.put(ElasticObserverConstants.LATENCY_HISTOGRAMS_ENABLED, latencyHistogramsEnabled);
+        configurations.put(ElasticObserverConstants.LATENCY_HISTOGRAMS_FLUSH_INTERVAL, latencyHistogramsFlushInterval);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_ENABLED, spillJournalEnabled);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_DIRECTORY, spillJournalDirectory);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_SEGMENT_SIZE, spillJournalSegmentSize);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_MAX_SIZE, spillJournalMaxSize);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_HIGH_WATER_MARK, spillJournalHighWaterMark);
+        configurations.put(ElasticObserverConstants.SPILL_JOURNAL_REPLAY_RATE, spillJournalReplayRate);
+        configurations.put(ElasticObserverConstants.INDEX_NAME, indexName);
+        configurations.put(ElasticObserverConstants.INDEX_PARTITIONING, indexPartitioning);
+        configurations.put(ElasticObserverConstants.INDEX_MANAGE_TEMPLATE, indexManageTemplate);
+        configurations.put(ElasticObserverConstants.INDEX_SHARDS, indexShards);
+        configurations.put(ElasticObserverConstants.INDEX_REPLICAS, indexReplicas);
+        configurations.put(ElasticObserverConstants.INDEX_RETENTION, indexRetention);
+        configurations.put(ElasticObserverConstants.INDEX_ROLLOVER_MAX_SIZE, indexRolloverMaxSize);
+        configurations.put(ElasticObserverConstants.INDEX_ROLLOVER_MAX_AGE, indexRolloverMaxAge);
+        configurations.put(ElasticObserverConstants.METRICS_PROMETHEUS_ENABLED, metricsPrometheusEnabled);
+        configurations.put(ElasticObserverConstants.METRICS_PROMETHEUS_HOST, metricsPrometheusHost);
+        configurations.put(ElasticObserverConstants.METRICS_PROMETHEUS_PORT, metricsPrometheusPort);
         configurations.put(ElasticObserverConstants.USERNAME, username);
         configurations.put(ElasticObserverConstants.PASSWORD, password);
         configurations.put(ElasticObserverConstants.TRUST_STORE_PATH, trustStorePath);
@@ -0,0 +1,213 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes statistics events into an encoding buffer in the Elasticsearch _bulk format (newline delimited json,
+ * an action line followed by the document source line).
+ * Field names and the action line are pre-encoded, string values are escaped and UTF-8 encoded char by char,
+ * so no intermediate Map, String or ObjectMapper is created per event.
+ * An encoder instance is used by a single publisher thread.
+ */
+public class BulkEventEncoder {
+
+    private static final byte[] TYPE_FIELD = ascii("{\"type\":");
+    private static final byte[] NAME_FIELD = ascii(",\"name\":");
+    private static final byte[] FLOW_ID_FIELD = ascii(",\"flowid\":");
+    private static final byte[] HOST_FIELD = ascii(",\"host\":");
+    private static final byte[] TIMESTAMP_FIELD = ascii(",\"@timestamp\":");
+    private static final byte[] SUCCESS_TRUE = ascii(",\"success\":true}\n");
+    private static final byte[] SUCCESS_FALSE = ascii(",\"success\":false}\n");
+    private static final byte[] NULL_VALUE = ascii("null");
+
+    private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+
+    // Longest UTF-8/escaped form of a single char, \\u00XX is 6 bytes
+    private static final int MAX_BYTES_PER_CHAR = 6;
+
+    // Provides the {"index":{"_index":"<index>"}} action line of the event timestamp
+    private final IndexRouter indexRouter;
+
+    // Host address of this server, same for every event
+    private final byte[] hostValue;
+
+    // Writes @timestamp without allocating, caches the formatted day and second
+    private final TimestampFormatter timestampFormatter = new TimestampFormatter();
+
+    /**
+     * @param indexRouter picks the index of a document from its timestamp
+     * @param host        host address of this server
+     */
+    public BulkEventEncoder(IndexRouter indexRouter, String host) {
+        this.indexRouter = indexRouter;
+
+        EncodingBuffer buffer = new EncodingBuffer(64);
+        writeString(host, buffer);
+        this.hostValue = copy(buffer);
+    }
+
+    /**
+     * Appends the action line and the document of the event to the buffer.
+     *
+     * @param event statistics event
+     * @param out   buffer holding the bulk request body
+     */
+    public void encode(StatisticsEvent event, EncodingBuffer out) {
+        out.write(indexRouter.actionLine(event.getStartTime()));
+
+        out.write(TYPE_FIELD);
+        writeString(event.getComponentType(), out);
+        out.write(NAME_FIELD);
+        writeString(event.getComponentName(), out);
+        out.write(FLOW_ID_FIELD);
+        writeString(event.getFlowId(), out);
+        out.write(HOST_FIELD);
+        out.write(hostValue);
+        out.write(TIMESTAMP_FIELD);
+        writeTimestamp(event.getStartTime(), out);
+        out.write(event.isSuccess() ? SUCCESS_TRUE : SUCCESS_FALSE);
+    }
+
+    /**
+     * Writes the value as a quoted json string, or json null.
+     *
+     * @param value string value
+     * @param out   buffer to write into
+     */
+    static void writeString(String value, EncodingBuffer out) {
+        if (value == null) {
+            out.write(NULL_VALUE);
+            return;
+        }
+
+        int length = value.length();
+        out.ensureCapacity(length * MAX_BYTES_PER_CHAR + 2);
+        out.writeUnchecked('"');
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    out.writeUnchecked('\\');
+                    out.writeUnchecked(c);
+                } else if (c < 0x20) {
+                    writeControlChar(c, out);
+                } else {
+                    out.writeUnchecked(c);
+                }
+            } else if (c < 0x800) {
+                out.writeUnchecked(0xC0 | (c >> 6));
+                out.writeUnchecked(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.writeUnchecked(0xF0 | (codePoint >> 18));
+                out.writeUnchecked(0x80 | ((codePoint >> 12) & 0x3F));
+                out.writeUnchecked(0x80 | ((codePoint >> 6) & 0x3F));
+                out.writeUnchecked(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate can not be encoded in UTF-8
+                out.writeUnchecked('?');
+            } else {
+                out.writeUnchecked(0xE0 | (c >> 12));
+                out.writeUnchecked(0x80 | ((c >> 6) & 0x3F));
+                out.writeUnchecked(0x80 | (c & 0x3F));
+            }
+        }
+        out.writeUnchecked('"');
+    }
+
+    private static void writeControlChar(char c, EncodingBuffer out) {
+        out.writeUnchecked('\\');
+        switch (c) {
+            case '\n':
+                out.writeUnchecked('n');
+                break;
+            case '\r':
+                out.writeUnchecked('r');
+                break;
+            case '\t':
+                out.writeUnchecked('t');
+                break;
+            case '\b':
+                out.writeUnchecked('b');
+                break;
+            case '\f':
+                out.writeUnchecked('f');
+                break;
+            default:
+                out.writeUnchecked('u');
+                out.writeUnchecked('0');
+                out.writeUnchecked('0');
+                out.writeUnchecked(HEX_DIGITS[c >> 4]);
+                out.writeUnchecked(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    /**
+     * Writes the time as a quoted ISO-8601 UTC timestamp, the format Elasticsearch expects for @timestamp.
+     *
+     * @param time time in millis
+     * @param out  buffer to write into
+     */
+    private void writeTimestamp(long time, EncodingBuffer out) {
+        out.write('"');
+        timestampFormatter.write(time, out);
+        out.write('"');
+    }
+
+    /**
+     * Writes the value as a json number without creating a String.
+     *
+     * @param value number to write
+     * @param out   buffer to write into
+     */
+    static void writeLong(long value, EncodingBuffer out) {
+        if (value == Long.MIN_VALUE) {
+            out.write(ascii(Long.toString(value)));
+            return;
+        }
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+
+        // Longest long is 19 digits
+        out.ensureCapacity(19);
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.writeUnchecked('0' + (int) (value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] copy(EncodingBuffer buffer) {
+        byte[] bytes = new byte[buffer.length()];
+        System.arraycopy(buffer.array(), 0, bytes, 0, buffer.length());
+        return bytes;
+    }
+}
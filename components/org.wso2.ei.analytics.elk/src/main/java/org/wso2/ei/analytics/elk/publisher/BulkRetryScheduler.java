@@ -0,0 +1,127 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the documents which failed with a transient error to be added to their BulkProcessor again.
+ * The delay grows exponentially with the retries of a document and is jittered, so documents rejected together
+ * by an overloaded cluster do not come back together. Shared by all the BulkProcessors of the observer.
+ */
+public class BulkRetryScheduler {
+
+    private static final Log log = LogFactory.getLog(BulkRetryScheduler.class);
+
+    private final long initialDelay;
+    private final long maxDelay;
+    private final int maxRetries;
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ElasticsearchBulkRetry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param initialDelay delay before the first retry of a document (in millis)
+     * @param maxDelay     maximum delay between retries, the delay doubles after every retry (in millis)
+     * @param maxRetries   maximum number of retries of a document
+     */
+    public BulkRetryScheduler(long initialDelay, long maxDelay, int maxRetries) {
+        this.initialDelay = Math.max(1, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * Whether a document with the given status should be sent again. Rejections of an overloaded cluster and
+     * unavailable nodes are transient, other failures (e.g. mapping errors) fail again on every retry.
+     *
+     * @param status status of the failed document or bulk request
+     * @return true if the document should be retried
+     */
+    public static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.BAD_GATEWAY || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * @param retries number of times the document was already retried
+     * @return true if the document may be retried once more
+     */
+    public boolean canRetry(int retries) {
+        return retries < maxRetries;
+    }
+
+    /**
+     * Picks the delay of the next retry between half and all of the exponential backoff, which keeps the backoff
+     * growing while spreading out the retries.
+     *
+     * @param retries number of times the document was already retried
+     * @return delay before the next retry (in millis)
+     */
+    public long nextDelay(int retries) {
+        long backoff = initialDelay;
+        for (int i = 0; i < retries && backoff < maxDelay; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxDelay);
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * Runs the retry after the backoff delay of the given retry count.
+     *
+     * @param retry   adds the documents to the BulkProcessor again
+     * @param retries number of times the documents were already retried
+     * @return false if the retry was not scheduled because the scheduler is shut down
+     */
+    public boolean schedule(Runnable retry, int retries) {
+        try {
+            retryExecutor.schedule(retry, nextDelay(retries), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RuntimeException e) {
+            // Rejected after shutdown
+            if (log.isDebugEnabled()) {
+                log.debug("Bulk retry not scheduled.", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Drops the pending retries and stops the retry thread.
+     */
+    public void shutdown() {
+        retryExecutor.shutdownNow();
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adapts the bulk size and the bulk requests in flight of a BulkProcessor to the load of the cluster.
+ * Both limits are halved when the cluster rejects a bulk with 429 (too many requests), and grow back step by step
+ * with every bulk which goes through without rejections (additive increase, multiplicative decrease). The bulk
+ * size grows back first, then the requests in flight.
+ * While throttled, the publisher collects fewer events per bulk and stops draining the event buffer when too many
+ * bulks are in flight, so the pressure ends up in the event buffer and its overflow policy.
+ */
+public class BulkThrottle {
+
+    // Smallest bulk the limit shrinks to, as a fraction of the configured bulk size
+    private static final int MIN_BULK_LIMIT_DIVISOR = 16;
+
+    // Number of clean bulks it takes the bulk limit to grow from the minimum back to the configured size
+    private static final int INCREASE_STEPS = 10;
+
+    private final int maxBulkLimit;
+    private final int minBulkLimit;
+    private final int bulkLimitStep;
+    private final int maxConcurrencyLimit;
+
+    // Events collected into a bulk
+    private volatile int bulkLimit;
+
+    // Bulk requests allowed in flight while the next bulk is collected, 0 waits for every bulk to complete
+    private volatile int concurrencyLimit;
+
+    private final AtomicInteger inFlightBulks = new AtomicInteger();
+
+    // Publisher parked in awaitCapacity, unparked when a bulk completes
+    private volatile Thread waitingPublisher;
+
+    /**
+     * @param maxBulkLimit        configured number of events per bulk
+     * @param maxConcurrencyLimit configured number of bulk requests in flight
+     */
+    public BulkThrottle(int maxBulkLimit, int maxConcurrencyLimit) {
+        this.maxBulkLimit = Math.max(1, maxBulkLimit);
+        this.minBulkLimit = Math.max(1, this.maxBulkLimit / MIN_BULK_LIMIT_DIVISOR);
+        this.bulkLimitStep = Math.max(1, (this.maxBulkLimit - this.minBulkLimit) / INCREASE_STEPS);
+        this.maxConcurrencyLimit = Math.max(0, maxConcurrencyLimit);
+        this.bulkLimit = this.maxBulkLimit;
+        this.concurrencyLimit = this.maxConcurrencyLimit;
+    }
+
+    /**
+     * @return true if another bulk may be collected without exceeding the requests in flight limit
+     */
+    public boolean hasCapacity() {
+        return inFlightBulks.get() <= concurrencyLimit;
+    }
+
+    /**
+     * Parks the calling publisher until a bulk in flight completes or the time out elapses. Returns immediately if
+     * there is capacity. Only one publisher may wait on a throttle at a time.
+     * The publisher also returns early when it is unparked or interrupted, e.g. on shutdown.
+     *
+     * @param timeOutNanos maximum time to wait (in nanoseconds)
+     * @return true if another bulk may be collected
+     */
+    public boolean awaitCapacity(long timeOutNanos) {
+        if (hasCapacity()) {
+            return true;
+        }
+
+        waitingPublisher = Thread.currentThread();
+        try {
+            // Check again after registering, a bulk completed in between would not have unparked us
+            if (!hasCapacity()) {
+                LockSupport.parkNanos(this, timeOutNanos);
+            }
+        } finally {
+            waitingPublisher = null;
+        }
+        return hasCapacity();
+    }
+
+    /**
+     * Called by the BulkProcessor listener before a bulk request is sent.
+     */
+    void onBulkStarted() {
+        inFlightBulks.incrementAndGet();
+    }
+
+    /**
+     * Called by the BulkProcessor listener when a bulk request completes, successfully or not.
+     *
+     * @param rejected whether the cluster rejected the bulk or any of its documents with 429
+     */
+    void onBulkCompleted(boolean rejected) {
+        inFlightBulks.decrementAndGet();
+        if (rejected) {
+            decrease();
+        } else {
+            increase();
+        }
+
+        Thread publisher = waitingPublisher;
+        if (publisher != null) {
+            LockSupport.unpark(publisher);
+        }
+    }
+
+    private synchronized void decrease() {
+        bulkLimit = Math.max(minBulkLimit, bulkLimit / 2);
+        concurrencyLimit = concurrencyLimit / 2;
+    }
+
+    private synchronized void increase() {
+        if (bulkLimit < maxBulkLimit) {
+            bulkLimit = Math.min(maxBulkLimit, bulkLimit + bulkLimitStep);
+        } else if (concurrencyLimit < maxConcurrencyLimit) {
+            concurrencyLimit++;
+        }
+    }
+
+    /**
+     * @return true if any of the limits is below its configured value
+     */
+    public boolean isThrottled() {
+        return bulkLimit < maxBulkLimit || concurrencyLimit < maxConcurrencyLimit;
+    }
+
+    /**
+     * @return number of events to collect into the next bulk
+     */
+    public int getBulkLimit() {
+        return bulkLimit;
+    }
+
+    /**
+     * @return number of bulk requests allowed in flight while the next bulk is collected
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * @return number of bulk requests sent and not completed yet
+     */
+    public int getInFlightBulks() {
+        return inFlightBulks.get();
+    }
+}
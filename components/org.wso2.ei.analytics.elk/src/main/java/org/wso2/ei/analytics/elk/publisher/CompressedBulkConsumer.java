@@ -0,0 +1,191 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.ascii;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.copy;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeString;
+
+/**
+ * Sends the bulk requests of a BulkProcessor with a gzip compressed body and accepts a gzip compressed response.
+ * The client of this Elasticsearch version can not compress request bodies, so the index requests are written
+ * back into the _bulk format here and sent through the low level client. Sources are copied straight from the
+ * encoding buffers they point into.
+ * Only index requests are expected, which is all the publishers add.
+ */
+public class CompressedBulkConsumer implements BiConsumer<BulkRequest, ActionListener<BulkResponse>> {
+
+    private static final String GZIP = "gzip";
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
+    private static final RequestOptions OPTIONS = RequestOptions.DEFAULT.toBuilder()
+            .addHeader("Accept-Encoding", GZIP)
+            .build();
+
+    // Document lines of this bulk format are separated by new lines
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final RestClient client;
+
+    // Action line of the last index name seen, all the documents of a publisher go to the same few indices
+    private volatile ActionLine lastActionLine;
+
+    /**
+     * @param client low level client of the RestHighLevelClient
+     */
+    public CompressedBulkConsumer(RestClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void accept(BulkRequest bulkRequest, ActionListener<BulkResponse> listener) {
+        Request request = new Request("POST", "/_bulk");
+        try {
+            byte[] body = compress(bulkRequest);
+            ByteArrayEntity entity = new ByteArrayEntity(body, 0, body.length, NDJSON);
+            entity.setContentEncoding(GZIP);
+            request.setEntity(entity);
+        } catch (IOException e) {
+            listener.onFailure(e);
+            return;
+        }
+        request.setOptions(OPTIONS);
+
+        client.performRequestAsync(request, new ResponseListener() {
+            @Override
+            public void onSuccess(Response response) {
+                BulkResponse bulkResponse;
+                try {
+                    bulkResponse = parse(response);
+                } catch (IOException | RuntimeException e) {
+                    listener.onFailure(e);
+                    return;
+                }
+                listener.onResponse(bulkResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the index requests in the _bulk format into a gzip stream.
+     *
+     * @param bulkRequest bulk request collected by the BulkProcessor
+     * @return compressed request body
+     * @throws IOException if the body can not be compressed
+     */
+    byte[] compress(BulkRequest bulkRequest) throws IOException {
+        // Compressed statistics are usually below a tenth of the uncompressed size
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                (int) Math.min(Integer.MAX_VALUE - 8, bulkRequest.estimatedSizeInBytes() / 8 + 64));
+        try (GZIPOutputStream gzip = new FastGZIPOutputStream(out)) {
+            for (DocWriteRequest<?> docWriteRequest : bulkRequest.requests()) {
+                if (!(docWriteRequest instanceof IndexRequest)) {
+                    throw new IllegalArgumentException("Only index requests can be compressed: " + docWriteRequest);
+                }
+                IndexRequest indexRequest = (IndexRequest) docWriteRequest;
+                gzip.write(actionLine(indexRequest.index()));
+                BytesRef source = indexRequest.source().toBytesRef();
+                gzip.write(source.bytes, source.offset, source.length);
+                gzip.write(LINE_SEPARATOR);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] actionLine(String index) {
+        ActionLine actionLine = lastActionLine;
+        if (actionLine != null && actionLine.index.equals(index)) {
+            return actionLine.bytes;
+        }
+        EncodingBuffer buffer = new EncodingBuffer(64);
+        buffer.write(ascii("{\"index\":{\"_index\":"));
+        writeString(index, buffer);
+        buffer.write(ascii("}}\n"));
+        actionLine = new ActionLine(index, copy(buffer));
+        lastActionLine = actionLine;
+        return actionLine.bytes;
+    }
+
+    private static BulkResponse parse(Response response) throws IOException {
+        InputStream content = response.getEntity().getContent();
+        if (GZIP.equalsIgnoreCase(response.getHeader("Content-Encoding"))) {
+            content = new GZIPInputStream(content);
+        }
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, content)) {
+            return BulkResponse.fromXContent(parser);
+        }
+    }
+
+    /**
+     * Encoded action line of an index.
+     */
+    private static final class ActionLine {
+
+        private final String index;
+        private final byte[] bytes;
+
+        ActionLine(String index, byte[] bytes) {
+            this.index = index;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Compresses with the fastest level, statistics documents are repetitive enough to shrink well anyway and the
+     * publisher workers should not spend their time compressing.
+     */
+    private static final class FastGZIPOutputStream extends GZIPOutputStream {
+
+        FastGZIPOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out, 8192);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
@@ -18,176 +18,619 @@
 
 package org.wso2.ei.analytics.elk.publisher;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.SimpleTimeZone;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
 import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
-import org.wso2.carbon.das.data.publisher.util.PublisherUtil;
+import org.elasticsearch.rest.RestStatus;
 
+import org.wso2.ei.analytics.elk.buffer.EventRingBuffer;
+import org.wso2.ei.analytics.elk.buffer.PartitionedEventBuffer;
+import org.wso2.ei.analytics.elk.filter.ComponentFilter;
+import org.wso2.ei.analytics.elk.filter.FlowSampler;
+import org.wso2.ei.analytics.elk.journal.SpillJournal;
+import org.wso2.ei.analytics.elk.latency.LatencyRecorder;
+import org.wso2.ei.analytics.elk.mbean.PublisherMetrics;
+import org.wso2.ei.analytics.elk.rollup.RollupAggregator;
+import org.wso2.ei.analytics.elk.services.ClusterCircuitBreaker;
 import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
 
 /**
- * Processes the PublishingFlow into json strings and publishes to Elasticsearch using the RestHighLevelClient.
+ * Processes the PublishingFlow into statistics events and publishes them to Elasticsearch using the
+ * RestHighLevelClient.
  */
 public class ElasticStatisticsPublisher {
 
     private ElasticStatisticsPublisher() {
     }
 
-    private static BulkProcessor bulkProcessor;
     private static final Log log = LogFactory.getLog(ElasticStatisticsPublisher.class);
 
     /*
-    Queue to store all the Maps of data to be converted to json strings
-    This works as the event Buffer to store events before publishing. Size is configured through carbon.xml
+    Queue to store all the statistics events to be encoded into bulk requests
+    This works as the event Buffer to store events before publishing. It is partitioned by message flow id, one
+    partition per publisher worker. Size, overflow policy and worker count are configured through carbon.xml
      */
-    private static Queue<Map<String, Object>> allMappingsQueue = new ConcurrentLinkedQueue<>();
+    private static volatile PartitionedEventBuffer<StatisticsEvent> allMappingsQueue = new PartitionedEventBuffer<>(
+            ElasticObserverConstants.DEFAULT_WORKERS, ElasticObserverConstants.DEFAULT_BUFFER_SIZE,
+            ElasticObserverConstants.DEFAULT_BUFFER_OVERFLOW_POLICY,
+            ElasticObserverConstants.DEFAULT_BUFFER_BLOCK_TIME_OUT);
+
+    // Components published, built from the include/exclude rules of carbon.xml
+    private static volatile ComponentFilter componentFilter = new ComponentFilter(
+            ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_TYPES),
+            ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_NAMES),
+            ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_EXCLUDED_COMPONENT_NAMES));
+
+    // Drops a percentage of the flows, null publishes every flow
+    private static volatile FlowSampler flowSampler = null;
+
+    // Aggregates the events instead of buffering them in rollup mode, null in raw (per event document) mode
+    private static volatile RollupAggregator rollupAggregator = null;
+
+    // Per component histograms of the mediation duration, null if latency histograms are disabled
+    private static volatile LatencyRecorder latencyRecorder = null;
+
+    // Picks the index of the documents, a single index by default
+    private static volatile IndexRouter indexRouter = new IndexRouter(ElasticObserverConstants.DEFAULT_INDEX_NAME,
+            ElasticObserverConstants.DEFAULT_INDEX_PARTITIONING);
+
+    // Whether bulk requests are sent with a gzip compressed body
+    private static volatile boolean bulkCompression = ElasticObserverConstants.DEFAULT_COMPRESSION_ENABLED;
+
+    // Disk overflow of the event buffer, null if spilling is disabled
+    private static volatile SpillJournal spillJournal = null;
+
+    // Events in a buffer partition above which new events are spilled to the journal
+    private static volatile int spillHighWaterMark = Integer.MAX_VALUE;
 
     /**
-     * Processes the PublishingFlow into a simple json format
+     * Processes the PublishingFlow into statistics events
      *
      * @param publishingFlow PublishingFlow object which contains the publishing events
      */
     public static void process(PublishingFlow publishingFlow) {
 
-        // Takes message flow id and host
+        // Takes message flow id, host is added by the encoder
         String flowid = publishingFlow.getMessageFlowId();
-        String host = PublisherUtil.getHostAddress();
 
         ArrayList<PublishingEvent> events = publishingFlow.getEvents();
 
+        // Decided once per flow before any other work, so a dropped flow costs little more than a hash of its id
+        FlowSampler sampler = flowSampler;
+        if (sampler != null && !sampler.sample(flowid, events)) {
+            return;
+        }
+
+        // All the events of a flow go to the partition of the same worker
+        EventRingBuffer<StatisticsEvent> eventBuffer = allMappingsQueue.partitionFor(flowid);
+        SpillJournal journal = spillJournal;
+        RollupAggregator aggregator = rollupAggregator;
+        LatencyRecorder recorder = latencyRecorder;
+        ComponentFilter filter = componentFilter;
+
         for (PublishingEvent event : events) {
             String componentType = event.getComponentType();
             String componentName = event.getComponentName();
 
-            // Checks each event for one of these five services
-            if (componentType.equals(ElasticObserverConstants.SEQUENCE) ||
-                    componentType.equals(ElasticObserverConstants.ENDPOINT) ||
-                    componentType.equals(ElasticObserverConstants.API) ||
-                    componentType.equals(ElasticObserverConstants.PROXY_SERVICE) ||
-                    componentType.equals(ElasticObserverConstants.INBOUND_ENDPOINT)) {
-
-                // Map to store details of the event
-                Map<String, Object> mapping = new HashMap<>();
-
-                // Ignore events with theses ComponentNames
-                if (!(componentName.equals("API_INSEQ") || componentName.equals("API_OUTSEQ") ||
-                        componentName.equals("PROXY_INSEQ") || componentName.equals("PROXY_OUTSEQ") ||
-                        componentName.equals("AnonymousEndpoint"))) {
-
-                    mapping.put("type", componentType);
-                    mapping.put("name", componentName);
-                    mapping.put("flowid", flowid);
-                    mapping.put("host", host);
-                    mapping.put("@timestamp", getFormattedDate(event.getStartTime()));
-
-                    // If there is a fault count, the event is not success
-                    if (event.getFaultCount() > 0) {
-                        mapping.put("success", false);
-                    } else {
-                        mapping.put("success", true);
-                    }
-
-                    // Enqueue the Map to the queue
-                    allMappingsQueue.add(mapping);
-                }
+            // Checks each event against the configured component type and name rules
+            if (!filter.accept(componentType, componentName)) {
+                continue;
+            }
+
+            // If there is a fault count, the event is not success
+            boolean success = !(event.getFaultCount() > 0);
+
+            Long duration = event.getDuration();
+            long mediationTime = duration == null ? 0 : duration;
+
+            if (recorder != null) {
+                recorder.record(componentType, componentName, mediationTime);
+            }
+
+            // In rollup mode the event only updates the counters of its component
+            if (aggregator != null) {
+                aggregator.record(componentType, componentName, success, mediationTime);
+                continue;
             }
+
+            StatisticsEvent statisticsEvent = new StatisticsEvent(componentType, componentName, flowid,
+                    event.getStartTime(), mediationTime, success);
+
+            // Spill to disk above the high-water mark, the replayer brings the event back later
+            if (journal != null && eventBuffer.size() >= spillHighWaterMark &&
+                    journal.append(statisticsEvent)) {
+                continue;
+            }
+
+            // Enqueue the event to the queue, overflow policy of the buffer decides on a full buffer
+            eventBuffer.offer(statisticsEvent);
         }
     }
 
     /**
-     * Publishes the array list of simplified jsons to Elasticsearch using the Java High Level REST Client.
+     * Publishes the encoded bulk body to Elasticsearch using the Java High Level REST Client.
+     * The BulkProcessor splits the body into index requests which refer to the buffer array, so the buffer stays
+     * in flight until BulkProcessorListener releases every document of it.
      *
-     * @param jsonsToSend array list of json strings to be published to Elasticsearch
-     * @param client      elasticsearch RestHighLevelClient
+     * @param buffer        buffer holding the events encoded by BulkEventEncoder
+     * @param eventCount    number of events encoded into the buffer
+     * @param bulkProcessor long lived BulkProcessor of the publisher worker
+     * @param bufferPool    pool the buffer belongs to
      */
-    public static void publish(List<String> jsonsToSend, RestHighLevelClient client) {
+    public static void publish(EncodingBuffer buffer, int eventCount, BulkProcessor bulkProcessor,
+                               EncodingBufferPool bufferPool) {
+        if (eventCount == 0) {
+            bufferPool.release(buffer);
+            return;
+        }
 
-        // Prepare and Send the bulk request
-        IndexRequest indexRequest = new IndexRequest("eidata");
-        if (jsonsToSend != null) {
-            for (String jsonString : jsonsToSend) {
-                BulkProcessor.Builder bulkProcessorBuilder = BulkProcessor.builder(
-                        (request, bulkListener) ->
-                                client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
-                        new BulkProcessorListener());
-                bulkProcessor = bulkProcessorBuilder.build();
-                indexRequest.source(jsonString, XContentType.JSON);
-                bulkProcessor.add(indexRequest);
-                bulkProcessor.close();
-            }
+        bufferPool.markInFlight(buffer, eventCount);
+        try {
+            // Every action line names its index, the default index is not used
+            bulkProcessor.add(new BytesArray(buffer.array(), 0, buffer.length()), indexRouter.getName(), null,
+                    XContentType.JSON);
+        } catch (Exception e) {
+            log.error("Failed to add the encoded events to the bulk processor", e);
+            bufferPool.release(buffer);
         }
     }
 
     /**
-     * Takes time in milliseconds and returns the formatted date and time according to Elasticsearch
+     * Builds the BulkProcessor which collects index requests and sends them to Elasticsearch as bulk requests.
+     * A bulk request is sent when any of the action count, byte size or flush interval limits is reached.
+     * The body of the bulk requests is gzip compressed if compression is enabled.
+     * Failed documents are retried one by one by the listener, so the BulkProcessor does not retry bulk requests
+     * itself.
      *
-     * @param time long time in millis
-     * @return timeStamp formatted according to the Elasticsearch
+     * @param client             elasticsearch RestHighLevelClient
+     * @param bufferPool         pool of the encoding buffers added to the BulkProcessor
+     * @param circuitBreaker     circuit breaker fed with the outcome of the bulk requests
+     * @param throttle           limits of the bulk size and requests in flight, adapted to the rejections
+     * @param retryScheduler     schedules the retries of the documents which failed with a transient error
+     * @param publisherMetrics   counters of the retried and failed documents
+     * @param bulkActions        number of index requests per bulk request
+     * @param bulkByteSize       size of the index requests per bulk request (in bytes)
+     * @param flushInterval      interval to send collected index requests regardless of count/size (in millis)
+     * @param concurrentRequests number of bulk requests allowed in flight, 0 sends synchronously
+     * @return built BulkProcessor
      */
-    private static String getFormattedDate(long time) {
-        Date date = new Date(time);
+    public static BulkProcessor buildBulkProcessor(RestHighLevelClient client, EncodingBufferPool bufferPool,
+                                                   ClusterCircuitBreaker circuitBreaker, BulkThrottle throttle,
+                                                   BulkRetryScheduler retryScheduler,
+                                                   PublisherMetrics publisherMetrics, int bulkActions,
+                                                   long bulkByteSize, long flushInterval, int concurrentRequests) {
+        BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer;
+        if (bulkCompression) {
+            consumer = new CompressedBulkConsumer(client.getLowLevelClient());
+        } else {
+            consumer = (request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener);
+        }
 
-        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-        String formattedDate = dateFormat.format(date);
+        BulkProcessorListener listener = new BulkProcessorListener(bufferPool, circuitBreaker, throttle,
+                retryScheduler, publisherMetrics);
+        BulkProcessor bulkProcessor = BulkProcessor.builder(consumer, listener)
+                .setBulkActions(bulkActions)
+                .setBulkSize(new ByteSizeValue(bulkByteSize, ByteSizeUnit.BYTES))
+                .setFlushInterval(TimeValue.timeValueMillis(flushInterval))
+                .setConcurrentRequests(concurrentRequests)
+                .setBackoffPolicy(BackoffPolicy.noBackoff())
+                .build();
+        listener.setBulkProcessor(bulkProcessor);
+        return bulkProcessor;
+    }
 
-        DateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
-        timeFormat.setTimeZone(new SimpleTimeZone(SimpleTimeZone.UTC_TIME, "UTC"));
-        String formattedTime = timeFormat.format(date);
+    /**
+     * @return queue which includes all the statistics events that are to be encoded into bulk requests
+     */
+    public static PartitionedEventBuffer<StatisticsEvent> getAllMappingsQueue() {
+        return allMappingsQueue;
+    }
 
-        return formattedDate + "T" + formattedTime + "Z";
+    /**
+     * Replaces the event buffer with one built from the configured values. Called once by the observer before
+     * the publisher workers start.
+     *
+     * @param eventBuffer buffer to store events before publishing, with one partition per worker
+     */
+    public static void setAllMappingsQueue(PartitionedEventBuffer<StatisticsEvent> eventBuffer) {
+        allMappingsQueue = eventBuffer;
     }
 
     /**
-     * @return queue which includes all the Maps that are to be converted into json strings
+     * @return aggregator of the rollup mode, null in raw mode
      */
-    public static Queue<Map<String, Object>> getAllMappingsQueue() {
-        return allMappingsQueue;
+    public static RollupAggregator getRollupAggregator() {
+        return rollupAggregator;
+    }
+
+    /**
+     * Switches between rollup and raw mode. Called once by the observer before publishing starts.
+     *
+     * @param aggregator aggregator to record the events into, null publishes a document per event
+     */
+    public static void setRollupAggregator(RollupAggregator aggregator) {
+        rollupAggregator = aggregator;
+    }
+
+    /**
+     * @return rules deciding which components are published
+     */
+    public static ComponentFilter getComponentFilter() {
+        return componentFilter;
+    }
+
+    /**
+     * Replaces the built in component rules with the configured ones. Called once by the observer before
+     * publishing starts.
+     *
+     * @param filter rules deciding which components are published
+     */
+    public static void setComponentFilter(ComponentFilter filter) {
+        componentFilter = filter;
+    }
+
+    /**
+     * @return sampler of the message flows, null if every flow is published
+     */
+    public static FlowSampler getFlowSampler() {
+        return flowSampler;
+    }
+
+    /**
+     * Enables flow sampling. Called once by the observer before publishing starts.
+     *
+     * @param sampler sampler of the message flows, null publishes every flow
+     */
+    public static void setFlowSampler(FlowSampler sampler) {
+        flowSampler = sampler;
+    }
+
+    /**
+     * @return recorder of the per component latency histograms, null if they are disabled
+     */
+    public static LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    /**
+     * Enables the latency histograms. Called once by the observer before publishing starts.
+     *
+     * @param recorder recorder to record the mediation durations into, null disables the histograms
+     */
+    public static void setLatencyRecorder(LatencyRecorder recorder) {
+        latencyRecorder = recorder;
+    }
+
+    /**
+     * @return router picking the index of the documents
+     */
+    public static IndexRouter getIndexRouter() {
+        return indexRouter;
+    }
+
+    /**
+     * Replaces the default index with the configured index and partitioning. Called once by the observer before
+     * the publisher threads are created, as their encoders take the router when they are created.
+     *
+     * @param router router picking the index of the documents
+     */
+    public static void setIndexRouter(IndexRouter router) {
+        indexRouter = router;
+    }
+
+    /**
+     * @return whether bulk requests are sent with a gzip compressed body
+     */
+    public static boolean isBulkCompression() {
+        return bulkCompression;
+    }
+
+    /**
+     * Enables compression of the bulk requests. Called once by the observer before the bulk processors are built.
+     *
+     * @param compression whether bulk requests are sent with a gzip compressed body
+     */
+    public static void setBulkCompression(boolean compression) {
+        bulkCompression = compression;
+    }
+
+    /**
+     * @return disk overflow of the event buffer, null if spilling is disabled
+     */
+    public static SpillJournal getSpillJournal() {
+        return spillJournal;
+    }
+
+    /**
+     * Enables spilling events to disk. Called once by the observer before the publisher workers start.
+     *
+     * @param journal       journal to write events to, null disables spilling
+     * @param highWaterMark events in a buffer partition above which new events go to the journal
+     */
+    public static void setSpillJournal(SpillJournal journal, int highWaterMark) {
+        spillHighWaterMark = highWaterMark;
+        spillJournal = journal;
+    }
+
+    /**
+     * @return events in a buffer partition above which new events go to the spill journal
+     */
+    public static int getSpillHighWaterMark() {
+        return spillHighWaterMark;
     }
 
     /**
      * The requests will be executed by the BulkProcessor, which takes care of calling the BulkProcessor.Listener
      * for every bulk request.
      * The listener provides methods to access to the BulkRequest and the BulkResponse.
+     * Once a bulk request completes, its documents are released back to the encoding buffer pool and its outcome
+     * is reported to the circuit breaker, which replaces pinging the cluster before every bulk.
+     * Documents which failed with a transient error (e.g. 429 rejections of an overloaded cluster) are added to the
+     * BulkProcessor again after a backoff instead of being released, so their encoding buffers stay in flight until
+     * they are indexed or dropped. Rejections also shrink the limits of the throttle.
      */
     static class BulkProcessorListener implements BulkProcessor.Listener {
+
+        private final EncodingBufferPool bufferPool;
+        private final ClusterCircuitBreaker circuitBreaker;
+        private final BulkThrottle throttle;
+        private final BulkRetryScheduler retryScheduler;
+        private final PublisherMetrics publisherMetrics;
+
+        // Set once the BulkProcessor is built, the retried documents are added to it
+        private volatile BulkProcessor bulkProcessor;
+
+        // Retries of the documents which failed at least once, compared by identity as they are added again as is
+        private final Map<DocWriteRequest<?>, Integer> retries = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        // Send time of the bulk requests in flight, to measure their latency
+        private final Map<Long, Long> bulkStartTimes = new ConcurrentHashMap<>();
+
+        BulkProcessorListener(EncodingBufferPool bufferPool, ClusterCircuitBreaker circuitBreaker,
+                              BulkThrottle throttle, BulkRetryScheduler retryScheduler,
+                              PublisherMetrics publisherMetrics) {
+            this.bufferPool = bufferPool;
+            this.circuitBreaker = circuitBreaker;
+            this.throttle = throttle;
+            this.retryScheduler = retryScheduler;
+            this.publisherMetrics = publisherMetrics;
+        }
+
+        void setBulkProcessor(BulkProcessor bulkProcessor) {
+            this.bulkProcessor = bulkProcessor;
+        }
+
         @Override
         public void beforeBulk(long executionId, BulkRequest request) {
             log.debug("Executing bulk [{" + executionId + "}]");
+            throttle.onBulkStarted();
+            bulkStartTimes.put(executionId, System.nanoTime());
+            publisherMetrics.recordBulkStarted(request.numberOfActions());
         }
 
         @Override
         public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
-            if (response.hasFailures()) {
-                log.warn("Bulk [{" + executionId + "}] executed with failures");
-            } else if (log.isDebugEnabled()) {
-                log.debug("Bulk [{" + executionId + "}] completed in {" + response.getTook().getMillis() +
-                        "} milliseconds");
+            // The cluster answered, failed items do not mean the cluster is down
+            circuitBreaker.recordSuccess();
+            publisherMetrics.recordBulkCompleted(bulkLatency(executionId));
+
+            if (!response.hasFailures()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Bulk [{" + executionId + "}] completed in {" + response.getTook().getMillis() +
+                            "} milliseconds");
+                }
+                throttle.onBulkCompleted(false);
+                releaseDocuments(request.requests());
+                return;
+            }
+
+            List<DocWriteRequest<?>> documents = request.requests();
+            List<DocWriteRequest<?>> failedDocuments = new ArrayList<>();
+            int rejectedCount = 0;
+            int droppedCount = 0;
+            for (BulkItemResponse item : response.getItems()) {
+                DocWriteRequest<?> document = documents.get(item.getItemId());
+                if (!item.isFailed()) {
+                    releaseDocument(document);
+                    continue;
+                }
+
+                RestStatus status = item.getFailure().getStatus();
+                if (status == RestStatus.TOO_MANY_REQUESTS) {
+                    rejectedCount++;
+                }
+                if (BulkRetryScheduler.isRetryable(status)) {
+                    failedDocuments.add(document);
+                } else {
+                    // Fails the same way on every retry
+                    droppedCount++;
+                    releaseDocument(document);
+                }
+            }
+
+            log.warn("Bulk [{" + executionId + "}] executed with failures: " + failedDocuments.size() +
+                    " documents failed with a transient error, " + droppedCount + " documents were rejected");
+            if (log.isDebugEnabled()) {
+                log.debug(response.buildFailureMessage());
             }
+
+            publisherMetrics.recordFailedDocuments(droppedCount);
+            publisherMetrics.recordRejectedDocuments(rejectedCount);
+            throttle.onBulkCompleted(rejectedCount > 0);
+            retry(failedDocuments);
         }
 
         @Override
         public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
-            log.error("Failed to execute bulk", failure);
+            publisherMetrics.recordBulkFailed(bulkLatency(executionId));
+            RestStatus status = statusOf(failure);
+            if (status == RestStatus.TOO_MANY_REQUESTS) {
+                // The cluster is up but overloaded, back off instead of opening the circuit
+                log.warn("Bulk [{" + executionId + "}] rejected by Elasticsearch: " + failure.getMessage());
+                circuitBreaker.recordSuccess();
+                publisherMetrics.recordRejectedDocuments(request.numberOfActions());
+            } else {
+                log.error("Failed to execute bulk", failure);
+                circuitBreaker.recordFailure();
+            }
+            throttle.onBulkCompleted(status == RestStatus.TOO_MANY_REQUESTS);
+
+            // Without a status the cluster was not reached (e.g. connection refused), so the whole bulk is retried
+            if (status == null || BulkRetryScheduler.isRetryable(status)) {
+                retry(request.requests());
+            } else {
+                dropDocuments(request.requests());
+            }
+        }
+
+        /**
+         * Schedules the failed documents to be added to the BulkProcessor again, or drops the documents which ran
+         * out of retries.
+         *
+         * @param failedDocuments documents which failed with a transient error
+         */
+        private void retry(List<DocWriteRequest<?>> failedDocuments) {
+            if (failedDocuments.isEmpty()) {
+                return;
+            }
+
+            List<DocWriteRequest<?>> retriedDocuments = new ArrayList<>(failedDocuments.size());
+            List<DocWriteRequest<?>> exhaustedDocuments = new ArrayList<>();
+            int maxRetries = 0;
+            for (DocWriteRequest<?> document : failedDocuments) {
+                int documentRetries = retries.getOrDefault(document, 0);
+                if (retryScheduler.canRetry(documentRetries)) {
+                    retries.put(document, documentRetries + 1);
+                    retriedDocuments.add(document);
+                    maxRetries = Math.max(maxRetries, documentRetries);
+                } else {
+                    exhaustedDocuments.add(document);
+                }
+            }
+
+            if (!exhaustedDocuments.isEmpty()) {
+                log.warn(exhaustedDocuments.size() + " documents dropped after " + retryScheduler.getMaxRetries() +
+                        " retries");
+                dropDocuments(exhaustedDocuments);
+            }
+
+            if (!retriedDocuments.isEmpty()) {
+                publisherMetrics.recordRetriedDocuments(retriedDocuments.size());
+                int documentRetries = maxRetries;
+                if (!retryScheduler.schedule(() -> resubmit(retriedDocuments, documentRetries), documentRetries)) {
+                    dropDocuments(retriedDocuments);
+                }
+            }
+        }
+
+        /**
+         * Adds the retried documents to the BulkProcessor. Runs on the retry thread, never on the thread completing
+         * the bulk request, as adding may wait for a bulk request in flight.
+         *
+         * @param retriedDocuments documents to be sent again
+         * @param documentRetries  retries of the documents before this one
+         */
+        private void resubmit(List<DocWriteRequest<?>> retriedDocuments, int documentRetries) {
+            if (!circuitBreaker.isAllowingRequests()) {
+                // Wait for the cluster to come back without spending the retries of the documents
+                if (!retryScheduler.schedule(() -> resubmit(retriedDocuments, documentRetries), documentRetries)) {
+                    dropDocuments(retriedDocuments);
+                }
+                return;
+            }
+
+            int added = 0;
+            try {
+                for (DocWriteRequest<?> document : retriedDocuments) {
+                    bulkProcessor.add(document);
+                    added++;
+                }
+            } catch (Exception e) {
+                // The BulkProcessor is closed once the publisher stops
+                log.warn("Failed to add the retried documents to the bulk processor", e);
+                dropDocuments(retriedDocuments.subList(added, retriedDocuments.size()));
+            }
+        }
+
+        private void dropDocuments(List<DocWriteRequest<?>> documents) {
+            publisherMetrics.recordFailedDocuments(documents.size());
+            releaseDocuments(documents);
+        }
+
+        /**
+         * Releases the encoding buffers which the sources of the index requests point into.
+         *
+         * @param documents completed index requests
+         */
+        private void releaseDocuments(List<DocWriteRequest<?>> documents) {
+            for (DocWriteRequest<?> document : documents) {
+                releaseDocument(document);
+            }
+        }
+
+        private void releaseDocument(DocWriteRequest<?> document) {
+            if (!retries.isEmpty()) {
+                retries.remove(document);
+            }
+            if (document instanceof IndexRequest) {
+                BytesReference source = ((IndexRequest) document).source();
+                if (source != null) {
+                    // Sources parsed from a BytesArray are slices sharing its array, no copy is made
+                    bufferPool.releaseDocument(source.toBytesRef().bytes);
+                }
+            }
+        }
+
+        /**
+         * @param executionId id of the completed bulk request
+         * @return time since the bulk request was sent (in nanoseconds)
+         */
+        private long bulkLatency(long executionId) {
+            Long startTime = bulkStartTimes.remove(executionId);
+            return startTime == null ? 0 : System.nanoTime() - startTime;
+        }
+
+        /**
+         * @param failure failure of a whole bulk request
+         * @return status the cluster answered with, null if the cluster was not reached
+         */
+        private static RestStatus statusOf(Throwable failure) {
+            if (failure instanceof ElasticsearchException) {
+                return ((ElasticsearchException) failure).status();
+            }
+            if (failure instanceof ResponseException) {
+                return RestStatus.fromCode(((ResponseException) failure).getResponse().getStatusLine()
+                        .getStatusCode());
+            }
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable byte array which the encoded bulk request body is written into.
+ * Buffers are reused through EncodingBufferPool, so the backing array grows to the size of a typical bulk
+ * once and is not allocated again.
+ */
+public final class EncodingBuffer {
+
+    private byte[] bytes;
+    private int length;
+
+    // Documents of this buffer which are still held by the BulkProcessor
+    private final AtomicInteger pendingDocuments = new AtomicInteger();
+
+    EncodingBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * Makes sure that the given number of bytes can be written without growing the array again.
+     *
+     * @param additional number of bytes to be written
+     */
+    public void ensureCapacity(int additional) {
+        int required = length + additional;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+        }
+    }
+
+    public void write(int b) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) b;
+    }
+
+    public void write(byte[] source) {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+    }
+
+    /**
+     * Writes a byte without checking the capacity, callers must have called ensureCapacity before.
+     *
+     * @param b byte to be written
+     */
+    void writeUnchecked(int b) {
+        bytes[length++] = (byte) b;
+    }
+
+    /**
+     * @return backing array, valid up to length()
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    AtomicInteger getPendingDocuments() {
+        return pendingDocuments;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of encoding buffers of a publisher thread.
+ * A buffer handed to the BulkProcessor stays in flight until every document of it has been through a bulk
+ * request. The index requests parsed by the BulkProcessor point into the buffer array, so BulkProcessorListener
+ * releases the buffer through that array when the bulk request completes.
+ */
+public class EncodingBufferPool {
+
+    // Initial size of a pooled buffer, enough for a bulk of a few hundred events (in bytes)
+    private static final int INITIAL_BUFFER_CAPACITY = 64 * 1024;
+
+    // Free buffers kept for reuse, extra buffers are left to the garbage collector
+    private final Queue<EncodingBuffer> freeBuffers;
+
+    // Buffers held by the BulkProcessor, keyed by their backing array (arrays use identity equality)
+    private final Map<byte[], EncodingBuffer> inFlightBuffers = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxFreeBuffers maximum number of free buffers kept for reuse
+     */
+    public EncodingBufferPool(int maxFreeBuffers) {
+        this.freeBuffers = new ArrayBlockingQueue<>(maxFreeBuffers);
+    }
+
+    /**
+     * @return an empty buffer, reused if there is a free one
+     */
+    public EncodingBuffer acquire() {
+        EncodingBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = new EncodingBuffer(INITIAL_BUFFER_CAPACITY);
+        }
+        return buffer;
+    }
+
+    /**
+     * Marks the buffer as handed over to the BulkProcessor. Must be called before the buffer is added, since the
+     * BulkProcessor can complete the bulk request before add returns.
+     *
+     * @param buffer    encoded buffer
+     * @param documents number of documents encoded into the buffer
+     */
+    public void markInFlight(EncodingBuffer buffer, int documents) {
+        buffer.getPendingDocuments().set(documents);
+        inFlightBuffers.put(buffer.array(), buffer);
+    }
+
+    /**
+     * Releases one document of the in flight buffer which owns the given array. The buffer returns to the pool
+     * when its last document is released.
+     *
+     * @param array backing array of a document source
+     */
+    public void releaseDocument(byte[] array) {
+        EncodingBuffer buffer = inFlightBuffers.get(array);
+        if (buffer != null && buffer.getPendingDocuments().decrementAndGet() == 0) {
+            inFlightBuffers.remove(array);
+            release(buffer);
+        }
+    }
+
+    /**
+     * Returns a buffer which is not in flight to the pool.
+     *
+     * @param buffer buffer to be reused
+     */
+    public void release(EncodingBuffer buffer) {
+        inFlightBuffers.remove(buffer.array());
+        buffer.reset();
+        freeBuffers.offer(buffer);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+/**
+ * Decides how the statistics documents are spread over indices.
+ */
+public enum IndexPartitioning {
+
+    // Every document goes to a single index
+    NONE("none"),
+
+    // An index per day, picked from the timestamp of the document, e.g. eidata-2019.05.14
+    DAILY("daily"),
+
+    // An index per hour, picked from the timestamp of the document, e.g. eidata-2019.05.14.13
+    HOURLY("hourly"),
+
+    // Documents go to a write alias, rolled over to a new index by the lifecycle policy of the cluster
+    ROLLOVER("rollover");
+
+    private final String configName;
+
+    IndexPartitioning(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * @return name of the partitioning as written in carbon.xml
+     */
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Resolves the partitioning from the value configured in carbon.xml.
+     *
+     * @param configName value of the <Partitioning> element
+     * @return matching partitioning, or null if the value is not a known partitioning
+     */
+    public static IndexPartitioning fromConfigName(String configName) {
+        for (IndexPartitioning partitioning : values()) {
+            if (partitioning.configName.equalsIgnoreCase(configName.trim())) {
+                return partitioning;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.ascii;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.copy;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeString;
+
+/**
+ * Picks the index of a document from its timestamp and provides the pre-encoded bulk action line of that index.
+ * With time partitioning, queries over recent windows only touch the indices of those windows.
+ * The action line is cached per partition as an immutable snapshot behind a volatile field, so consecutive
+ * documents of the same day or hour reuse it and a router can safely be shared between threads.
+ */
+public class IndexRouter {
+
+    private static final long MILLIS_PER_HOUR = 3600 * 1000;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private final String name;
+    private final IndexPartitioning partitioning;
+
+    private volatile CachedPartition cachedPartition = new CachedPartition(Long.MIN_VALUE, null);
+
+    /**
+     * @param name         name of the index, prefix of the time partitioned indices and name of the write alias
+     * @param partitioning how the documents are spread over indices
+     */
+    public IndexRouter(String name, IndexPartitioning partitioning) {
+        this.name = name;
+        this.partitioning = partitioning;
+    }
+
+    /**
+     * @param timeMillis timestamp of the document (in millis)
+     * @return {"index":{"_index":"<index of the timestamp>"}} followed by a new line
+     */
+    public byte[] actionLine(long timeMillis) {
+        return partitionOf(timeMillis).actionLine;
+    }
+
+    /**
+     * @param timeMillis timestamp of the document (in millis)
+     * @return name of the index or alias the document is written to
+     */
+    public String indexName(long timeMillis) {
+        return partitionOf(timeMillis).indexName;
+    }
+
+    private CachedPartition partitionOf(long timeMillis) {
+        long key = partitionKey(timeMillis);
+        CachedPartition partition = cachedPartition;
+        if (partition.key != key) {
+            partition = new CachedPartition(key, partitionName(key));
+            cachedPartition = partition;
+        }
+        return partition;
+    }
+
+    private long partitionKey(long timeMillis) {
+        switch (partitioning) {
+            case DAILY:
+                return Math.floorDiv(timeMillis, MILLIS_PER_DAY);
+            case HOURLY:
+                return Math.floorDiv(timeMillis, MILLIS_PER_HOUR);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Formats the index name of a partition. Called once per day or hour.
+     */
+    private String partitionName(long key) {
+        switch (partitioning) {
+            case DAILY:
+                LocalDate date = LocalDate.ofEpochDay(key);
+                return String.format("%s-%04d.%02d.%02d", name, date.getYear(), date.getMonthValue(),
+                        date.getDayOfMonth());
+            case HOURLY:
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(key * MILLIS_PER_HOUR / 1000, 0, ZoneOffset.UTC);
+                return String.format("%s-%04d.%02d.%02d.%02d", name, dateTime.getYear(), dateTime.getMonthValue(),
+                        dateTime.getDayOfMonth(), dateTime.getHour());
+            default:
+                return name;
+        }
+    }
+
+    private static byte[] encodeActionLine(String indexName) {
+        EncodingBuffer buffer = new EncodingBuffer(64);
+        buffer.write(ascii("{\"index\":{\"_index\":"));
+        writeString(indexName, buffer);
+        buffer.write(ascii("}}\n"));
+        return copy(buffer);
+    }
+
+    /**
+     * @return name of the index, prefix of the time partitioned indices and name of the write alias
+     */
+    public String getName() {
+        return name;
+    }
+
+    public IndexPartitioning getPartitioning() {
+        return partitioning;
+    }
+
+    /**
+     * @return pattern matching every index the documents are written to
+     */
+    public String getIndexPattern() {
+        return partitioning == IndexPartitioning.NONE ? name : name + "-*";
+    }
+
+    /**
+     * Index name and encoded action line of a day or an hour.
+     */
+    private static final class CachedPartition {
+
+        private final long key;
+        private final String indexName;
+        private final byte[] actionLine;
+
+        private CachedPartition(long key, String indexName) {
+            this.key = key;
+            this.indexName = indexName;
+            this.actionLine = indexName == null ? null : encodeActionLine(indexName);
+        }
+    }
+}
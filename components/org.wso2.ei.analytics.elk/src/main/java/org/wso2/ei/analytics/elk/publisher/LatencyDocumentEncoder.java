@@ -0,0 +1,104 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import org.wso2.ei.analytics.elk.latency.LatencySummary;
+
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.ascii;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.copy;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeLong;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeString;
+
+/**
+ * Writes latency summaries into an encoding buffer in the Elasticsearch _bulk format:
+ * <pre>
+ * {"type":"Proxy Service","name":"StockQuoteProxy","host":"10.0.0.1","@timestamp":"...","latency_window":60000,
+ *  "count":1250,"latency_p50":4,"latency_p90":9,"latency_p99":31,"latency_p999":66,"latency_max":87}
+ * </pre>
+ * The @timestamp is the start of the flush interval.
+ */
+public class LatencyDocumentEncoder {
+
+    private static final byte[] TYPE_FIELD = ascii("{\"type\":");
+    private static final byte[] NAME_FIELD = ascii(",\"name\":");
+    private static final byte[] HOST_FIELD = ascii(",\"host\":");
+    private static final byte[] TIMESTAMP_FIELD = ascii(",\"@timestamp\":");
+    private static final byte[] WINDOW_FIELD = ascii(",\"latency_window\":");
+    private static final byte[] COUNT_FIELD = ascii(",\"count\":");
+    private static final byte[] P50_FIELD = ascii(",\"latency_p50\":");
+    private static final byte[] P90_FIELD = ascii(",\"latency_p90\":");
+    private static final byte[] P99_FIELD = ascii(",\"latency_p99\":");
+    private static final byte[] P999_FIELD = ascii(",\"latency_p999\":");
+    private static final byte[] MAX_FIELD = ascii(",\"latency_max\":");
+    private static final byte[] DOCUMENT_END = ascii("}\n");
+
+    private final IndexRouter indexRouter;
+    private final byte[] hostValue;
+    private final TimestampFormatter timestampFormatter = new TimestampFormatter();
+
+    /**
+     * @param indexRouter picks the index of a document from its timestamp
+     * @param host        host address of this server
+     */
+    public LatencyDocumentEncoder(IndexRouter indexRouter, String host) {
+        this.indexRouter = indexRouter;
+
+        EncodingBuffer buffer = new EncodingBuffer(64);
+        writeString(host, buffer);
+        this.hostValue = copy(buffer);
+    }
+
+    /**
+     * Appends the action line and the summary document to the buffer.
+     *
+     * @param summary     percentiles of a component over the flush interval
+     * @param windowStart start of the flush interval (in millis)
+     * @param window      length of the flush interval, or of the intervals published together (in millis)
+     * @param out         buffer holding the bulk request body
+     */
+    public void encode(LatencySummary summary, long windowStart, long window, EncodingBuffer out) {
+        out.write(indexRouter.actionLine(windowStart));
+
+        out.write(TYPE_FIELD);
+        writeString(summary.getComponentType(), out);
+        out.write(NAME_FIELD);
+        writeString(summary.getComponentName(), out);
+        out.write(HOST_FIELD);
+        out.write(hostValue);
+        out.write(TIMESTAMP_FIELD);
+        out.write('"');
+        timestampFormatter.write(windowStart, out);
+        out.write('"');
+        out.write(WINDOW_FIELD);
+        writeLong(window, out);
+        out.write(COUNT_FIELD);
+        writeLong(summary.getCount(), out);
+        out.write(P50_FIELD);
+        writeLong(summary.getP50(), out);
+        out.write(P90_FIELD);
+        writeLong(summary.getP90(), out);
+        out.write(P99_FIELD);
+        writeLong(summary.getP99(), out);
+        out.write(P999_FIELD);
+        writeLong(summary.getP999(), out);
+        out.write(MAX_FIELD);
+        writeLong(summary.getMax(), out);
+        out.write(DOCUMENT_END);
+    }
+}
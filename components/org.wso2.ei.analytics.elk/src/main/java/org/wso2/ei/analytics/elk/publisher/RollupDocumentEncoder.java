@@ -0,0 +1,129 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import org.wso2.ei.analytics.elk.rollup.RollupSummary;
+
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.ascii;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.copy;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeLong;
+import static org.wso2.ei.analytics.elk.publisher.BulkEventEncoder.writeString;
+
+/**
+ * Writes rollup summaries into an encoding buffer in the Elasticsearch _bulk format. A summary document carries
+ * the same type, name, host, @timestamp and success fields as an event document, so existing dashboards keep
+ * working when filtered on them, plus the count and duration statistics of the window:
+ * <pre>
+ * {"type":"Proxy Service","name":"StockQuoteProxy","host":"10.0.0.1","@timestamp":"...","success":true,
+ *  "rollup_window":60000,"count":1250,"duration_sum":5130,"duration_max":87,
+ *  "duration_histogram":{"lt_1":12,"lt_2":40,"lt_4":800,...,"ge_4194304":0}}
+ * </pre>
+ * Only the non empty histogram buckets are written. The @timestamp is the start of the window and rollup_window its
+ * length, which spans several windows when they were published together after the cluster was down.
+ */
+public class RollupDocumentEncoder {
+
+    private static final byte[] TYPE_FIELD = ascii("{\"type\":");
+    private static final byte[] NAME_FIELD = ascii(",\"name\":");
+    private static final byte[] HOST_FIELD = ascii(",\"host\":");
+    private static final byte[] TIMESTAMP_FIELD = ascii(",\"@timestamp\":");
+    private static final byte[] SUCCESS_TRUE = ascii(",\"success\":true");
+    private static final byte[] SUCCESS_FALSE = ascii(",\"success\":false");
+    private static final byte[] WINDOW_FIELD = ascii(",\"rollup_window\":");
+    private static final byte[] COUNT_FIELD = ascii(",\"count\":");
+    private static final byte[] DURATION_SUM_FIELD = ascii(",\"duration_sum\":");
+    private static final byte[] DURATION_MAX_FIELD = ascii(",\"duration_max\":");
+    private static final byte[] HISTOGRAM_FIELD = ascii(",\"duration_histogram\":{");
+    private static final byte[] DOCUMENT_END = ascii("}}\n");
+
+    // "lt_<upper bound>": per bucket, the last bucket is "ge_<lower bound>"
+    private static final byte[][] BUCKET_FIELDS = new byte[RollupSummary.DURATION_BUCKETS][];
+
+    static {
+        int last = RollupSummary.DURATION_BUCKETS - 1;
+        for (int i = 0; i < last; i++) {
+            BUCKET_FIELDS[i] = ascii("\"lt_" + RollupSummary.getBucketUpperBound(i) + "\":");
+        }
+        BUCKET_FIELDS[last] = ascii("\"ge_" + RollupSummary.getBucketUpperBound(last - 1) + "\":");
+    }
+
+    private final IndexRouter indexRouter;
+    private final byte[] hostValue;
+    private final TimestampFormatter timestampFormatter = new TimestampFormatter();
+
+    /**
+     * @param indexRouter picks the index of a document from its timestamp
+     * @param host        host address of this server
+     */
+    public RollupDocumentEncoder(IndexRouter indexRouter, String host) {
+        this.indexRouter = indexRouter;
+
+        EncodingBuffer buffer = new EncodingBuffer(64);
+        writeString(host, buffer);
+        this.hostValue = copy(buffer);
+    }
+
+    /**
+     * Appends the action line and the summary document to the buffer.
+     *
+     * @param summary     statistics of a key over the window
+     * @param windowStart start of the window (in millis)
+     * @param window      length of the window, or of the windows published together (in millis)
+     * @param out         buffer holding the bulk request body
+     */
+    public void encode(RollupSummary summary, long windowStart, long window, EncodingBuffer out) {
+        out.write(indexRouter.actionLine(windowStart));
+
+        out.write(TYPE_FIELD);
+        writeString(summary.getComponentType(), out);
+        out.write(NAME_FIELD);
+        writeString(summary.getComponentName(), out);
+        out.write(HOST_FIELD);
+        out.write(hostValue);
+        out.write(TIMESTAMP_FIELD);
+        out.write('"');
+        timestampFormatter.write(windowStart, out);
+        out.write('"');
+        out.write(summary.isSuccess() ? SUCCESS_TRUE : SUCCESS_FALSE);
+        out.write(WINDOW_FIELD);
+        writeLong(window, out);
+        out.write(COUNT_FIELD);
+        writeLong(summary.getCount(), out);
+        out.write(DURATION_SUM_FIELD);
+        writeLong(summary.getDurationSum(), out);
+        out.write(DURATION_MAX_FIELD);
+        writeLong(summary.getDurationMax(), out);
+
+        out.write(HISTOGRAM_FIELD);
+        boolean first = true;
+        for (int i = 0; i < RollupSummary.DURATION_BUCKETS; i++) {
+            long bucketCount = summary.getDurationBucketCount(i);
+            if (bucketCount == 0) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            out.write(BUCKET_FIELDS[i]);
+            writeLong(bucketCount, out);
+            first = false;
+        }
+        out.write(DOCUMENT_END);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+/**
+ * Fields of a PublishingEvent which are published to Elasticsearch, kept in the event buffer until the
+ * publisher thread encodes them.
+ * Only references and primitives are copied from the PublishingEvent, the json document is written by
+ * BulkEventEncoder straight into the bulk request bytes.
+ */
+public final class StatisticsEvent {
+
+    private final String componentType;
+    private final String componentName;
+    private final String flowId;
+    private final long startTime;
+    private final long duration;
+    private final boolean success;
+
+    public StatisticsEvent(String componentType, String componentName, String flowId, long startTime,
+                           long duration, boolean success) {
+        this.componentType = componentType;
+        this.componentName = componentName;
+        this.flowId = flowId;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.success = success;
+    }
+
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public String getFlowId() {
+        return flowId;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return mediation time of the component (in millis)
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Formats epoch millis as ISO-8601 UTC timestamps (yyyy-MM-ddTHH:mm:ss.SSSZ) straight into an encoding buffer.
+ * The formatted date is cached per day and the formatted date and time per second, so consecutive events of the
+ * same second only write their millis. The caches are immutable snapshots behind volatile fields, so a formatter
+ * can safely be shared between threads.
+ */
+public class TimestampFormatter {
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    // Length of yyyy-MM-ddTHH:mm:ss
+    private static final int SECOND_PREFIX_LENGTH = 19;
+
+    // Length of yyyy-MM-ddTHH:mm:ss.SSSZ
+    public static final int TIMESTAMP_LENGTH = SECOND_PREFIX_LENGTH + 5;
+
+    private volatile CachedPrefix cachedDay = new CachedPrefix(Long.MIN_VALUE, null);
+    private volatile CachedPrefix cachedSecond = new CachedPrefix(Long.MIN_VALUE, null);
+
+    /**
+     * Writes the timestamp of the given time to the buffer, without quotes.
+     *
+     * @param timeMillis time in millis since the epoch
+     * @param out        buffer to write into
+     */
+    public void write(long timeMillis, EncodingBuffer out) {
+        long epochSecond = Math.floorDiv(timeMillis, MILLIS_PER_SECOND);
+        int millis = (int) Math.floorMod(timeMillis, MILLIS_PER_SECOND);
+
+        CachedPrefix second = cachedSecond;
+        if (second.key != epochSecond) {
+            second = new CachedPrefix(epochSecond, formatSecond(epochSecond));
+            cachedSecond = second;
+        }
+
+        out.ensureCapacity(TIMESTAMP_LENGTH);
+        for (byte b : second.bytes) {
+            out.writeUnchecked(b);
+        }
+        out.writeUnchecked('.');
+        out.writeUnchecked('0' + millis / 100);
+        out.writeUnchecked('0' + (millis / 10) % 10);
+        out.writeUnchecked('0' + millis % 10);
+        out.writeUnchecked('Z');
+    }
+
+    /**
+     * @param timeMillis time in millis since the epoch
+     * @return timestamp of the given time, mainly for logging and tests
+     */
+    public String format(long timeMillis) {
+        EncodingBuffer buffer = new EncodingBuffer(TIMESTAMP_LENGTH);
+        write(timeMillis, buffer);
+        return new String(buffer.array(), 0, buffer.length(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Formats yyyy-MM-ddTHH:mm:ss of the second, reusing the cached date of the day. Called once per second.
+     */
+    private byte[] formatSecond(long epochSecond) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        CachedPrefix day = cachedDay;
+        if (day.key != epochDay) {
+            day = new CachedPrefix(epochDay, formatDay(epochDay));
+            cachedDay = day;
+        }
+
+        byte[] bytes = new byte[SECOND_PREFIX_LENGTH];
+        System.arraycopy(day.bytes, 0, bytes, 0, day.bytes.length);
+        int hour = secondOfDay / 3600;
+        int minute = (secondOfDay / 60) % 60;
+        int second = secondOfDay % 60;
+        bytes[11] = (byte) ('0' + hour / 10);
+        bytes[12] = (byte) ('0' + hour % 10);
+        bytes[13] = ':';
+        bytes[14] = (byte) ('0' + minute / 10);
+        bytes[15] = (byte) ('0' + minute % 10);
+        bytes[16] = ':';
+        bytes[17] = (byte) ('0' + second / 10);
+        bytes[18] = (byte) ('0' + second % 10);
+        return bytes;
+    }
+
+    /**
+     * Formats yyyy-MM-ddT of the day. Called once per day.
+     */
+    private static byte[] formatDay(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        String formatted = String.format("%04d-%02d-%02dT", date.getYear(), date.getMonthValue(),
+                date.getDayOfMonth());
+        return formatted.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Formatted prefix of a day or a second.
+     */
+    private static final class CachedPrefix {
+
+        private final long key;
+        private final byte[] bytes;
+
+        private CachedPrefix(long key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
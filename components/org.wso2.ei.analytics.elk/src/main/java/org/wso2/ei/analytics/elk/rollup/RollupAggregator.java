@@ -0,0 +1,96 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.rollup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates statistics events in memory per (component type, component name, success) instead of buffering a
+ * document per event. The host is the same for every event of this server, so it is added when publishing.
+ * Counters of a key are created on its first event and reused for every window, so recording an event does not
+ * allocate once all the components of the server have been seen.
+ */
+public class RollupAggregator {
+
+    // Component type -> component name -> counters
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ComponentCounters>> counters =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Records an event into the counters of its key.
+     *
+     * @param componentType type of the component
+     * @param componentName name of the component
+     * @param success       whether the component completed without a fault
+     * @param duration      mediation time of the component (in millis)
+     */
+    public void record(String componentType, String componentName, boolean success, long duration) {
+        // get first, computeIfAbsent locks the bin even if the key is present
+        ConcurrentHashMap<String, ComponentCounters> byName = counters.get(componentType);
+        if (byName == null) {
+            byName = counters.computeIfAbsent(componentType, type -> new ConcurrentHashMap<>());
+        }
+        ComponentCounters componentCounters = byName.get(componentName);
+        if (componentCounters == null) {
+            componentCounters = byName.computeIfAbsent(componentName, name -> new ComponentCounters());
+        }
+        (success ? componentCounters.succeeded : componentCounters.failed).record(duration);
+    }
+
+    /**
+     * Reads and resets the counters of every key, for the window which just ended.
+     *
+     * @param summaries list the summaries of the keys with events in the window are added to
+     * @return number of summaries added
+     */
+    public int drain(List<RollupSummary> summaries) {
+        int added = 0;
+        for (Map.Entry<String, ConcurrentHashMap<String, ComponentCounters>> byType : counters.entrySet()) {
+            for (Map.Entry<String, ComponentCounters> byName : byType.getValue().entrySet()) {
+                ComponentCounters componentCounters = byName.getValue();
+                added += drain(byType.getKey(), byName.getKey(), true, componentCounters.succeeded, summaries);
+                added += drain(byType.getKey(), byName.getKey(), false, componentCounters.failed, summaries);
+            }
+        }
+        return added;
+    }
+
+    private static int drain(String componentType, String componentName, boolean success, RollupCounters counters,
+                             List<RollupSummary> summaries) {
+        long[] buckets = new long[RollupSummary.DURATION_BUCKETS];
+        long[] durations = new long[2];
+        long count = counters.sumThenReset(buckets, durations);
+        if (count == 0) {
+            return 0;
+        }
+        summaries.add(new RollupSummary(componentType, componentName, success, count, durations[0], durations[1],
+                buckets));
+        return 1;
+    }
+
+    /**
+     * Counters of the succeeded and failed events of a component.
+     */
+    private static final class ComponentCounters {
+        private final RollupCounters succeeded = new RollupCounters();
+        private final RollupCounters failed = new RollupCounters();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.rollup;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one rollup key. Updated by the MessageFlowReporter threads without locking, the striped adders keep
+ * concurrent updates of the same key from contending on a single cache line.
+ * Events are recorded into the counters of the current window. At the end of a window the flusher swaps in the
+ * spare counters, waits for the updates still running on the old counters and only then reads and resets them,
+ * since the adders can not be reset atomically while they are updated. So an update racing with the flush is
+ * counted in exactly one window, and the count, the sum and the buckets of a window always agree.
+ */
+final class RollupCounters {
+
+    // Counters the events are recorded into
+    private final AtomicReference<WindowCounters> current = new AtomicReference<>(new WindowCounters());
+
+    // Counters of the next window, only touched by the flusher
+    private WindowCounters spare = new WindowCounters();
+
+    /**
+     * @param duration mediation time of the component (in millis)
+     */
+    void record(long duration) {
+        if (duration < 0) {
+            duration = 0;
+        }
+        while (true) {
+            WindowCounters window = current.get();
+            window.entered.increment();
+            try {
+                // Check again after registering, the flusher does not wait for an update on swapped out counters
+                if (window == current.get()) {
+                    window.record(duration);
+                    return;
+                }
+            } finally {
+                window.exited.increment();
+            }
+        }
+    }
+
+    /**
+     * Bucket 0 holds 0 millis, bucket i holds [2^(i-1), 2^i) millis and the last bucket holds everything longer.
+     */
+    static int bucketIndex(long duration) {
+        return Math.min(64 - Long.numberOfLeadingZeros(duration), RollupSummary.DURATION_BUCKETS - 1);
+    }
+
+    /**
+     * Reads and resets the counters. Called by the flusher only.
+     *
+     * @return number of events recorded since the last reset, the other counters are only read if it is not 0
+     */
+    synchronized long sumThenReset(long[] buckets, long[] durations) {
+        WindowCounters window = current.get();
+        // Keys without events keep their counters, an update which is not counted yet is flushed with the next window
+        if (window.count.sum() == 0) {
+            return 0;
+        }
+        current.set(spare);
+        window.awaitUpdates();
+
+        long events = window.count.sum();
+        durations[0] = window.durationSum.sum();
+        durations[1] = window.durationMax.get();
+        for (int i = 0; i < window.durationBuckets.length; i++) {
+            buckets[i] = window.durationBuckets[i].sum();
+        }
+        window.reset();
+        spare = window;
+        return events;
+    }
+
+    /**
+     * Counters of the events of a window.
+     */
+    private static final class WindowCounters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder durationSum = new LongAdder();
+        private final LongAccumulator durationMax = new LongAccumulator(Math::max, 0);
+
+        // Count of durations per power of two bucket, see bucketIndex
+        private final LongAdder[] durationBuckets = new LongAdder[RollupSummary.DURATION_BUCKETS];
+
+        // Updates which registered on and left these counters, never reset
+        private final LongAdder entered = new LongAdder();
+        private final LongAdder exited = new LongAdder();
+
+        WindowCounters() {
+            for (int i = 0; i < durationBuckets.length; i++) {
+                durationBuckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long duration) {
+            count.increment();
+            durationSum.add(duration);
+            durationMax.accumulate(duration);
+            durationBuckets[bucketIndex(duration)].increment();
+        }
+
+        /**
+         * Waits until the updates which registered on these counters before they were swapped out are done.
+         */
+        void awaitUpdates() {
+            while (true) {
+                // Read the exits first, an update counted there is always counted in the entries read after
+                long exits = exited.sum();
+                if (exits == entered.sum()) {
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * Only called once no update is running on these counters.
+         */
+        void reset() {
+            count.reset();
+            durationSum.reset();
+            durationMax.reset();
+            for (LongAdder bucket : durationBuckets) {
+                bucket.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.rollup;
+
+/**
+ * Aggregated statistics of one (component type, component name, success) key over a rollup window, published as
+ * a single document instead of one document per event.
+ */
+public final class RollupSummary {
+
+    // Number of power of two duration buckets, the last one is open ended (2^22 millis is about 70 minutes)
+    public static final int DURATION_BUCKETS = 24;
+
+    private final String componentType;
+    private final String componentName;
+    private final boolean success;
+    private final long count;
+    private final long durationSum;
+    private final long durationMax;
+    private final long[] durationBuckets;
+
+    RollupSummary(String componentType, String componentName, boolean success, long count, long durationSum,
+                  long durationMax, long[] durationBuckets) {
+        this.componentType = componentType;
+        this.componentName = componentName;
+        this.success = success;
+        this.count = count;
+        this.durationSum = durationSum;
+        this.durationMax = durationMax;
+        this.durationBuckets = durationBuckets;
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return exclusive upper bound of the bucket (in millis), the last bucket has none
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return number of events in the window
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return total mediation time of the events in the window (in millis)
+     */
+    public long getDurationSum() {
+        return durationSum;
+    }
+
+    /**
+     * @return longest mediation time in the window (in millis)
+     */
+    public long getDurationMax() {
+        return durationMax;
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return number of events whose duration falls into the bucket
+     */
+    public long getDurationBucketCount(int bucket) {
+        return durationBuckets[bucket];
+    }
+}
@@ -0,0 +1,248 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tracks the health of the Elasticsearch cluster for the publisher workers.
+ * The circuit is driven by the outcome of the bulk requests, so publishing does not pay for a health check:
+ * <ul>
+ * <li>CLOSED - bulk requests succeed, workers publish</li>
+ * <li>OPEN - consecutive bulk requests failed, workers stop draining the buffer and the cluster is pinged in the
+ * background with exponential backoff</li>
+ * <li>HALF_OPEN - a ping succeeded, workers publish again and the next bulk request closes or reopens the circuit</li>
+ * </ul>
+ */
+public class ClusterCircuitBreaker {
+
+    private static final Log log = LogFactory.getLog(ClusterCircuitBreaker.class);
+
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    // Pings the cluster, only called while the circuit is open
+    private final Callable<Boolean> healthProbe;
+
+    private final int failureThreshold;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    // Failed bulk requests in a row while closed
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // Time to wait before the next ping (in millis)
+    private final AtomicLong backoff = new AtomicLong();
+
+    // Number of times the circuit opened, read through JMX
+    private final AtomicLong openedCount = new AtomicLong();
+
+    // Workers parked until the circuit allows publishing again
+    private final Set<Thread> waitingWorkers = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService probeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ElasticsearchHealthProbe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param healthProbe      returns true if the cluster is reachable, e.g. a ping of the rest client
+     * @param failureThreshold failed bulk requests in a row which open the circuit
+     * @param initialBackoff   time to wait before the first ping after the circuit opens (in millis)
+     * @param maxBackoff       maximum time between pings, the time doubles after every failed ping (in millis)
+     */
+    public ClusterCircuitBreaker(Callable<Boolean> healthProbe, int failureThreshold, long initialBackoff,
+                                 long maxBackoff) {
+        this.healthProbe = healthProbe;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialBackoff = Math.max(1, initialBackoff);
+        this.maxBackoff = Math.max(this.initialBackoff, maxBackoff);
+        this.backoff.set(this.initialBackoff);
+    }
+
+    /**
+     * @return true if the workers may send bulk requests
+     */
+    public boolean isAllowingRequests() {
+        return state.get() != State.OPEN;
+    }
+
+    /**
+     * Parks the calling worker until the circuit allows publishing again or the time out elapses.
+     * The worker also returns early when it is unparked or interrupted, e.g. on shutdown.
+     *
+     * @param timeOutNanos maximum time to wait (in nanoseconds)
+     * @return true if the workers may send bulk requests
+     */
+    public boolean awaitAllowingRequests(long timeOutNanos) {
+        if (isAllowingRequests()) {
+            return true;
+        }
+
+        Thread worker = Thread.currentThread();
+        waitingWorkers.add(worker);
+        try {
+            // Check again after registering, a transition in between would not have unparked us
+            if (!isAllowingRequests()) {
+                LockSupport.parkNanos(this, timeOutNanos);
+            }
+        } finally {
+            waitingWorkers.remove(worker);
+        }
+        return isAllowingRequests();
+    }
+
+    /**
+     * Called for every bulk request which reached the cluster. Item level failures (e.g. mapping errors) do not
+     * count against the cluster health.
+     */
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() != State.CLOSED && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            backoff.set(initialBackoff);
+            // Log only once
+            log.info("Elasticsearch node connected");
+        }
+    }
+
+    /**
+     * Called for every bulk request which failed as a whole, e.g. when no nodes are reachable.
+     */
+    public void recordFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            // The trial after a successful ping failed, back off further
+            if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                increaseBackoff();
+                open();
+            }
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold
+                && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            // Log only once
+            log.info("No available Elasticsearch nodes to connect. Waiting for nodes... ");
+            open();
+        }
+    }
+
+    /**
+     * Opens the circuit and probes the cluster right away, so the workers keep buffering until the probe succeeds
+     * once. Used at startup, where the cluster has not been reached yet.
+     */
+    public void startOpen() {
+        if (state.compareAndSet(State.CLOSED, State.OPEN)) {
+            consecutiveFailures.set(0);
+            scheduleProbe(0);
+        }
+    }
+
+    private void open() {
+        openedCount.incrementAndGet();
+        consecutiveFailures.set(0);
+        scheduleProbe(backoff.get());
+    }
+
+    private void scheduleProbe(long delay) {
+        try {
+            probeExecutor.schedule(this::probe, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Rejected after shutdown
+            if (log.isDebugEnabled()) {
+                log.debug("Elasticsearch health probe not scheduled.", e);
+            }
+        }
+    }
+
+    /**
+     * Pings the cluster while the circuit is open. Lets the workers publish again if the ping succeeds,
+     * otherwise pings again after a longer backoff.
+     */
+    private void probe() {
+        boolean reachable;
+        try {
+            reachable = Boolean.TRUE.equals(healthProbe.call());
+        } catch (Exception e) {
+            log.debug("Elasticsearch connection error.", e);
+            reachable = false;
+        }
+
+        if (reachable) {
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Elasticsearch ping succeeded, resuming publishing.");
+                }
+                for (Thread worker : waitingWorkers) {
+                    LockSupport.unpark(worker);
+                }
+            }
+        } else {
+            increaseBackoff();
+            if (log.isDebugEnabled()) {
+                log.debug("Elasticsearch ping failed, next ping in " + backoff.get() + " millis.");
+            }
+            scheduleProbe(backoff.get());
+        }
+    }
+
+    private void increaseBackoff() {
+        backoff.updateAndGet(current -> Math.min(current * 2, maxBackoff));
+    }
+
+    /**
+     * Stops pinging the cluster.
+     */
+    public void shutdown() {
+        probeExecutor.shutdownNow();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return number of times the circuit opened
+     */
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    /**
+     * @return current time between pings while the circuit is open (in millis)
+     */
+    public long getBackoff() {
+        return backoff.get();
+    }
+}
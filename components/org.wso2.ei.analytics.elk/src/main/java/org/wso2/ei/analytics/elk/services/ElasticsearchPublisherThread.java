@@ -18,22 +18,30 @@
 
 package org.wso2.ei.analytics.elk.services;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.client.RestHighLevelClient;
 
+import org.wso2.carbon.das.data.publisher.util.PublisherUtil;
+import org.wso2.ei.analytics.elk.buffer.EventRingBuffer;
+import org.wso2.ei.analytics.elk.mbean.PublisherMetrics;
+import org.wso2.ei.analytics.elk.publisher.BulkEventEncoder;
+import org.wso2.ei.analytics.elk.publisher.BulkRetryScheduler;
+import org.wso2.ei.analytics.elk.publisher.BulkThrottle;
 import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+import org.wso2.ei.analytics.elk.publisher.EncodingBufferPool;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * This thread dequeues data maps from the allMappingsQueue, converts them to json strings and
- * invokes publishing to Elasticsearch
+ * This thread dequeues statistics events from its partition of the allMappingsQueue, encodes them into bulk request
+ * bytes and invokes publishing to Elasticsearch. Each worker has its own BulkProcessor, so the in flight limit
+ * applies per worker.
  */
 public class ElasticsearchPublisherThread extends Thread {
 
@@ -43,128 +51,169 @@ public class ElasticsearchPublisherThread extends Thread {
     private volatile boolean shutdownRequested = false;
 
     private RestHighLevelClient client;
+
+    // Partition of the event buffer drained by this worker
+    private EventRingBuffer<StatisticsEvent> eventBuffer;
+
+    // Collects index requests into bulk requests, lives as long as the thread
+    private BulkProcessor bulkProcessor;
+
+    // Encodes events straight into pooled bulk request buffers
+    private final BulkEventEncoder encoder = new BulkEventEncoder(
+            ElasticStatisticsPublisher.getIndexRouter(), PublisherUtil.getHostAddress());
+    private final EncodingBufferPool bufferPool = new EncodingBufferPool(
+            ElasticObserverConstants.MAX_FREE_ENCODING_BUFFERS);
+
     private int bulkSize;
     private long bulkTimeOut;
     private long bufferEmptySleep;
-    private long noNodesSleep;
 
-    // Whether nodes connected and can publish
-    boolean isPublishing = true;
+    // Health of the cluster, shared by all the workers
+    private ClusterCircuitBreaker circuitBreaker;
+
+    // Batch fill ratio, time to flush and encoding time, read through the statistics MBean
+    private PublisherMetrics publisherMetrics;
+
+    // Bulk size and bulk requests in flight of this worker, shrunk while the cluster rejects bulk requests
+    private BulkThrottle throttle;
 
     /**
      * This adds the following configurable values to the thread.
      *
      * @param restClient       configured rest client object
+     * @param eventBuffer      partition of the event buffer drained by this worker
      * @param bulkSize         maximum size of the bulk to be published at a time
      * @param bulkTimeOut      time out for bulk collecting from the buffer
-     * @param bufferEmptySleep thread sleep time when the event buffer is empty
-     * @param noNodesSleep     thread sleep time when the Elasticsearch cluster is down
+     * @param bufferEmptySleep maximum time the thread stays parked when the event buffer is empty
+     * @param circuitBreaker   health of the Elasticsearch cluster, decides whether the worker publishes
+     * @param publisherMetrics metrics of the published batches
      */
-    public void init(RestHighLevelClient restClient, int bulkSize, long bulkTimeOut, long bufferEmptySleep,
-                     long noNodesSleep) {
+    public void init(RestHighLevelClient restClient, EventRingBuffer<StatisticsEvent> eventBuffer, int bulkSize,
+                     long bulkTimeOut, long bufferEmptySleep, ClusterCircuitBreaker circuitBreaker,
+                     PublisherMetrics publisherMetrics) {
         this.client = restClient;
+        this.eventBuffer = eventBuffer;
         this.bulkSize = bulkSize;
         this.bulkTimeOut = bulkTimeOut;
         this.bufferEmptySleep = bufferEmptySleep;
-        this.noNodesSleep = noNodesSleep;
+        this.circuitBreaker = circuitBreaker;
+        this.publisherMetrics = publisherMetrics;
+    }
+
+    /**
+     * Builds the BulkProcessor used by this worker for its whole lifetime. Must be called after init.
+     *
+     * @param bulkActions        number of index requests per bulk request
+     * @param bulkByteSize       size of the index requests per bulk request (in bytes)
+     * @param flushInterval      interval to send collected index requests regardless of count/size (in millis)
+     * @param concurrentRequests number of bulk requests of this worker allowed in flight
+     * @param retryScheduler     schedules the retries of the documents which failed with a transient error
+     */
+    public void initBulkProcessor(int bulkActions, long bulkByteSize, long flushInterval, int concurrentRequests,
+                                  BulkRetryScheduler retryScheduler) {
+        this.throttle = new BulkThrottle(bulkSize, concurrentRequests);
+        this.bulkProcessor = ElasticStatisticsPublisher.buildBulkProcessor(client, bufferPool, circuitBreaker,
+                throttle, retryScheduler, publisherMetrics, bulkActions, bulkByteSize, flushInterval,
+                concurrentRequests);
     }
 
     @Override
     public void run() {
         if (log.isDebugEnabled()) {
-            log.debug("Elasticsearch publisher thread started.");
+            log.debug("Elasticsearch publisher thread started: " + getName());
         }
 
+        long bufferEmptySleepNanos = TimeUnit.MILLISECONDS.toNanos(bufferEmptySleep);
+        long bulkTimeOutNanos = TimeUnit.MILLISECONDS.toNanos(bulkTimeOut);
+
         // While not shutdown
         while (!shutdownRequested) {
-            // First check whether the event queue/buffer is empty
-            if (ElasticStatisticsPublisher.getAllMappingsQueue().isEmpty()) {
-                try {
-                    // Sleep if the queue/buffer is empty (default 1000 millis)
-                    Thread.sleep(bufferEmptySleep);
-                } catch (InterruptedException e) {
-                    log.warn("Publisher Thread interrupted", e);
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException();
-                }
-            } else {
-                try {
-                    if (isPublishing) {
-                        // If nodes has connected before, check whether nodes are not connected now
-                        if (!client.ping(RequestOptions.DEFAULT)) {
-                            // Log only once
-                            log.info("No available Elasticsearch nodes to connect. Waiting for nodes... ");
-                            isPublishing = false;
-                        }
-                    } else {
-                        // If nodes has not connected before, check whether node are connected now
-                        if (client.ping(RequestOptions.DEFAULT)) {
-                            // Log only once
-                            log.info("Elasticsearch node connected");
-                            isPublishing = true;
-                        }
-                    }
-                } catch (IOException e) {
-                    log.debug("Elasticsearch connection error.", e);
-                }
+            if (!circuitBreaker.isAllowingRequests()) {
+                // No nodes are available, keep the events buffered until the health probe reaches the cluster
+                circuitBreaker.awaitAllowingRequests(bufferEmptySleepNanos);
+                continue;
+            }
+
+            if (!throttle.hasCapacity()) {
+                // The cluster is overloaded, keep the events buffered until one of the bulk requests completes
+                throttle.awaitCapacity(bufferEmptySleepNanos);
+                continue;
+            }
 
-                if (!isPublishing) {
-                    try {
-                        // Sleep if no nodes are available (default 5000 millis)
-                        Thread.sleep(noNodesSleep);
-                    } catch (InterruptedException e) {
-                        log.warn("Publisher Thread interrupted", e);
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException();
+            // Park until the first event arrives, producers unpark this thread (at most 1000 millis by default)
+            if (eventBuffer.awaitEvents(bufferEmptySleepNanos)) {
+                EncodingBuffer buffer = bufferPool.acquire();
+                int eventCount = 0;
+                long encodingTimeNanos = 0;
+
+                // Smaller than the bulk size while the cluster rejects bulk requests
+                int bulkLimit = throttle.getBulkLimit();
+
+                // Time the first event was taken, to count the time out and the time to flush
+                long startTime = System.nanoTime();
+                long deadline = startTime + bulkTimeOutNanos;
+
+                // This while loop is collecting events from the buffering queue until the maximum
+                // bulk size is reached.
+                while (bulkLimit > eventCount) {
+                    // Dequeue event from the queue
+                    StatisticsEvent event = eventBuffer.poll();
+
+                    // Polling from the queue gives null after the queue is empty.
+                    if (event != null) {
+                        long encodeStartTime = System.nanoTime();
+                        encoder.encode(event, buffer);
+                        encodingTimeNanos += System.nanoTime() - encodeStartTime;
+                        eventCount++;
+                        continue;
                     }
-                } else {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    ArrayList<String> jsonStringList = new ArrayList<>();
-
-                    // Entering time to the below while loop, to count the time out
-                    long startTime = System.currentTimeMillis();
-
-                    // This while loop is collecting maps from the buffering queue until the maximum
-                    // bulk size is reached.
-                    while (bulkSize > jsonStringList.size()) {
-                        // Dequeue Map from the queue
-                        Map<String, Object> map = ElasticStatisticsPublisher.getAllMappingsQueue().poll();
-
-                        // Polling from the queue gives null after the queue is empty.
-                        if (map != null) {
-                            try {
-                                String jsonString = objectMapper.writeValueAsString(map);
-                                jsonStringList.add(jsonString);
-
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Added JSON String: " + jsonString);
-                                }
-                            } catch (JsonProcessingException e) {
-                                log.error("Cannot convert to json", e);
-                            }
-                        }
 
-                        /*
-                        If the buffering queue has fewer events than the maximum size of the bulk, the loop will not
-                        stop. So when the time out is reached collected bulk will get published.
-                          */
-                        if ((System.currentTimeMillis() - startTime) > bulkTimeOut) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Polling time-out exceeded. Publishing collected events.(<500)");
-                            }
-                            break;
+                    /*
+                    If the buffering queue has fewer events than the maximum size of the bulk, the thread parks
+                    until the next event arrives. When the time out is reached collected bulk will get published.
+                      */
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || shutdownRequested) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Polling time-out exceeded. Publishing collected events.(<" + bulkLimit +
+                                    ")");
                         }
+                        break;
                     }
+                    eventBuffer.awaitEvents(remaining);
+                }
 
-                    // Publish the json string list
-                    ElasticStatisticsPublisher.publish(jsonStringList, client);
+                // Hand the encoded events over to the bulk processor
+                ElasticStatisticsPublisher.publish(buffer, eventCount, bulkProcessor, bufferPool);
+                if (throttle.isThrottled()) {
+                    // Send the smaller bulk right away instead of collecting up to the configured bulk actions
+                    bulkProcessor.flush();
+                }
+                publisherMetrics.recordBatch(eventCount, bulkSize, System.nanoTime() - startTime);
+                publisherMetrics.recordEncoding(eventCount, encodingTimeNanos);
 
-                    if (log.isDebugEnabled()) {
-                        log.debug("Published :" + jsonStringList.size() + " events");
-                    }
+                if (log.isDebugEnabled()) {
+                    log.debug("Published :" + eventCount + " events");
                 }
             }
         }
+
+        closeBulkProcessor();
+    }
+
+    /**
+     * Sends the index requests still collected in the bulk processor and waits for the in flight bulk requests.
+     */
+    private void closeBulkProcessor() {
+        try {
+            if (!bulkProcessor.awaitClose(ElasticObserverConstants.BULK_PROCESSOR_CLOSE_TIME_OUT,
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("Bulk requests did not complete before the publisher thread stopped.");
+            }
+        } catch (InterruptedException e) {
+            log.warn("Publisher Thread interrupted while closing the bulk processor", e);
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
@@ -175,6 +224,9 @@ public class ElasticsearchPublisherThread extends Thread {
             log.debug("Statistics reporter thread is being stopped");
         }
         shutdownRequested = true;
+
+        // Wake the thread up if it is parked on an empty buffer, an open circuit or a throttled bulk processor
+        LockSupport.unpark(this);
     }
 
     /**
@@ -0,0 +1,202 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+
+import org.wso2.ei.analytics.elk.publisher.IndexPartitioning;
+import org.wso2.ei.analytics.elk.publisher.IndexRouter;
+
+import java.io.IOException;
+
+/**
+ * Installs the index template of the statistics indices, with mappings of the fields the encoders write, and the
+ * lifecycle policy which rolls over and deletes them. In rollover mode it also creates the first index behind
+ * the write alias.
+ * Strings are mapped as keywords only, instead of the text field with a keyword sub field of the dynamic mapping.
+ */
+public class IndexTemplateInstaller {
+
+    private static final Log log = LogFactory.getLog(IndexTemplateInstaller.class);
+
+    private static final String POLICY_SUFFIX = "-policy";
+
+    // First index behind the write alias, ILM increments the suffix on every rollover
+    private static final String FIRST_ROLLOVER_INDEX_SUFFIX = "-000001";
+
+    private static final int NOT_FOUND = 404;
+    private static final int BAD_REQUEST = 400;
+
+    private final RestClient client;
+    private final IndexRouter indexRouter;
+    private final int shards;
+    private final int replicas;
+    private final String retention;
+    private final String rolloverMaxSize;
+    private final String rolloverMaxAge;
+
+    /**
+     * @param client          low level rest client
+     * @param indexRouter     index name and partitioning of the statistics documents
+     * @param shards          number of primary shards of an index
+     * @param replicas        number of replicas of a shard
+     * @param retention       age after which an index is deleted, e.g. 30d, empty keeps the indices
+     * @param rolloverMaxSize size of the write index which triggers a rollover, e.g. 50gb
+     * @param rolloverMaxAge  age of the write index which triggers a rollover, e.g. 1d
+     */
+    public IndexTemplateInstaller(RestClient client, IndexRouter indexRouter, int shards, int replicas,
+                                  String retention, String rolloverMaxSize, String rolloverMaxAge) {
+        this.client = client;
+        this.indexRouter = indexRouter;
+        this.shards = shards;
+        this.replicas = replicas;
+        this.retention = retention;
+        this.rolloverMaxSize = rolloverMaxSize;
+        this.rolloverMaxAge = rolloverMaxAge;
+    }
+
+    /**
+     * Puts the lifecycle policy (if any) and the index template, replacing the ones installed by an earlier start,
+     * and bootstraps the write alias in rollover mode. Existing indices keep their mappings.
+     *
+     * @throws IOException if the cluster can not be reached or rejects a request, e.g. for lack of privileges
+     */
+    public void install() throws IOException {
+        String policyName = null;
+        if (isRollover() || !retention.isEmpty()) {
+            policyName = indexRouter.getName() + POLICY_SUFFIX;
+            Request request = new Request("PUT", "/_ilm/policy/" + policyName);
+            request.setJsonEntity(policyBody());
+            client.performRequest(request);
+        }
+
+        Request request = new Request("PUT", "/_template/" + indexRouter.getName());
+        request.setJsonEntity(templateBody(policyName));
+        client.performRequest(request);
+
+        if (isRollover()) {
+            bootstrapWriteAlias();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Index template " + indexRouter.getName() + " installed for " + indexRouter.getIndexPattern() +
+                    (policyName == null ? "" : " with lifecycle policy " + policyName));
+        }
+    }
+
+    /**
+     * Creates the first index with the write alias, unless the alias exists. Another server of the cluster may
+     * create it at the same time, which is not an error.
+     */
+    private void bootstrapWriteAlias() throws IOException {
+        if (aliasExists()) {
+            return;
+        }
+
+        Request request = new Request("PUT", "/" + indexRouter.getName() + FIRST_ROLLOVER_INDEX_SUFFIX);
+        request.setJsonEntity("{\"aliases\":{" + quote(indexRouter.getName()) + ":{\"is_write_index\":true}}}");
+        try {
+            client.performRequest(request);
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() != BAD_REQUEST || !aliasExists()) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean aliasExists() throws IOException {
+        // A missing alias is not an error for HEAD requests
+        Response response = client.performRequest(new Request("HEAD", "/_alias/" + indexRouter.getName()));
+        return response.getStatusLine().getStatusCode() != NOT_FOUND;
+    }
+
+    private boolean isRollover() {
+        return indexRouter.getPartitioning() == IndexPartitioning.ROLLOVER;
+    }
+
+    /**
+     * @return lifecycle policy rolling the write index over in rollover mode and deleting old indices
+     */
+    String policyBody() {
+        StringBuilder phases = new StringBuilder();
+        if (isRollover()) {
+            phases.append("\"hot\":{\"actions\":{\"rollover\":{\"max_size\":").append(quote(rolloverMaxSize))
+                    .append(",\"max_age\":").append(quote(rolloverMaxAge)).append("}}}");
+        }
+        if (!retention.isEmpty()) {
+            if (phases.length() > 0) {
+                phases.append(',');
+            }
+            phases.append("\"delete\":{\"min_age\":").append(quote(retention))
+                    .append(",\"actions\":{\"delete\":{}}}");
+        }
+        return "{\"policy\":{\"phases\":{" + phases + "}}}";
+    }
+
+    /**
+     * @param policyName lifecycle policy of the indices, null if there is none
+     * @return index template with the settings and mappings of the statistics indices
+     */
+    String templateBody(String policyName) {
+        StringBuilder settings = new StringBuilder()
+                .append("\"number_of_shards\":").append(shards)
+                .append(",\"number_of_replicas\":").append(replicas)
+                .append(",\"codec\":\"best_compression\"");
+        if (policyName != null) {
+            settings.append(",\"lifecycle.name\":").append(quote(policyName));
+            if (isRollover()) {
+                settings.append(",\"lifecycle.rollover_alias\":").append(quote(indexRouter.getName()));
+            }
+        }
+
+        return "{\"index_patterns\":[" + quote(indexRouter.getIndexPattern()) + "]," +
+                "\"settings\":{\"index\":{" + settings + "}}," +
+                "\"mappings\":{" +
+                "\"dynamic_templates\":[{\"strings_as_keywords\":{\"match_mapping_type\":\"string\"," +
+                "\"mapping\":{\"type\":\"keyword\",\"ignore_above\":1024}}}]," +
+                "\"properties\":{" +
+                "\"@timestamp\":{\"type\":\"date\"}," +
+                "\"type\":{\"type\":\"keyword\"}," +
+                "\"name\":{\"type\":\"keyword\"}," +
+                "\"flowid\":{\"type\":\"keyword\"}," +
+                "\"host\":{\"type\":\"keyword\"}," +
+                "\"success\":{\"type\":\"boolean\"}," +
+                "\"count\":{\"type\":\"long\"}," +
+                "\"rollup_window\":{\"type\":\"long\"}," +
+                "\"duration_sum\":{\"type\":\"long\"}," +
+                "\"duration_max\":{\"type\":\"long\"}," +
+                "\"duration_histogram\":{\"type\":\"object\"}," +
+                "\"latency_window\":{\"type\":\"long\"}," +
+                "\"latency_p50\":{\"type\":\"long\"}," +
+                "\"latency_p90\":{\"type\":\"long\"}," +
+                "\"latency_p99\":{\"type\":\"long\"}," +
+                "\"latency_p999\":{\"type\":\"long\"}," +
+                "\"latency_max\":{\"type\":\"long\"}" +
+                "}}}";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.wso2.carbon.das.data.publisher.util.PublisherUtil;
+import org.wso2.ei.analytics.elk.latency.LatencyRecorder;
+import org.wso2.ei.analytics.elk.latency.LatencySummary;
+import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+import org.wso2.ei.analytics.elk.publisher.LatencyDocumentEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This thread publishes the mediation duration percentiles of every component at the end of each flush interval.
+ */
+public class LatencyPublisherThread extends WindowPublisherThread {
+
+    private final LatencyRecorder recorder;
+
+    private final LatencyDocumentEncoder encoder = new LatencyDocumentEncoder(
+            ElasticStatisticsPublisher.getIndexRouter(), PublisherUtil.getHostAddress());
+
+    private final List<LatencySummary> summaries = new ArrayList<>();
+
+    /**
+     * @param recorder       recorder the durations are recorded into
+     * @param flushInterval  length of the flush interval (in millis)
+     * @param circuitBreaker health of the Elasticsearch cluster
+     */
+    public LatencyPublisherThread(LatencyRecorder recorder, long flushInterval, ClusterCircuitBreaker circuitBreaker) {
+        super(flushInterval, circuitBreaker);
+        this.recorder = recorder;
+        setName("ElasticsearchLatencyPublisher");
+    }
+
+    @Override
+    protected int encodeWindow(long windowStart, long windowLength, EncodingBuffer buffer) {
+        summaries.clear();
+        int summaryCount = recorder.drain(summaries);
+        for (LatencySummary summary : summaries) {
+            encoder.encode(summary, windowStart, windowLength, buffer);
+        }
+        return summaryCount;
+    }
+}
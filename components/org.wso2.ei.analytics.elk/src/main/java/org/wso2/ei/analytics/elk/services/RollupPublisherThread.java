@@ -0,0 +1,64 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.wso2.carbon.das.data.publisher.util.PublisherUtil;
+import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+import org.wso2.ei.analytics.elk.publisher.RollupDocumentEncoder;
+import org.wso2.ei.analytics.elk.rollup.RollupAggregator;
+import org.wso2.ei.analytics.elk.rollup.RollupSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This thread publishes the rollup summaries at the end of every window, one document per (component type,
+ * component name, success) key which had events in the window.
+ */
+public class RollupPublisherThread extends WindowPublisherThread {
+
+    private final RollupAggregator aggregator;
+
+    private final RollupDocumentEncoder encoder = new RollupDocumentEncoder(
+            ElasticStatisticsPublisher.getIndexRouter(), PublisherUtil.getHostAddress());
+
+    private final List<RollupSummary> summaries = new ArrayList<>();
+
+    /**
+     * @param aggregator     aggregator the events are recorded into
+     * @param window         length of the rollup window (in millis)
+     * @param circuitBreaker health of the Elasticsearch cluster
+     */
+    public RollupPublisherThread(RollupAggregator aggregator, long window, ClusterCircuitBreaker circuitBreaker) {
+        super(window, circuitBreaker);
+        this.aggregator = aggregator;
+        setName("ElasticsearchRollupPublisher");
+    }
+
+    @Override
+    protected int encodeWindow(long windowStart, long windowLength, EncodingBuffer buffer) {
+        summaries.clear();
+        int summaryCount = aggregator.drain(summaries);
+        for (RollupSummary summary : summaries) {
+            encoder.encode(summary, windowStart, windowLength, buffer);
+        }
+        return summaryCount;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.ei.analytics.elk.buffer.EventRingBuffer;
+import org.wso2.ei.analytics.elk.buffer.PartitionedEventBuffer;
+import org.wso2.ei.analytics.elk.journal.SpillJournal;
+import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This thread moves spilled events from the spill journal back into the event buffer once the Elasticsearch
+ * cluster is healthy, at a bounded rate so the backlog does not starve the live events.
+ */
+public class SpillJournalReplayerThread extends Thread {
+
+    private static final Log log = LogFactory.getLog(SpillJournalReplayerThread.class);
+
+    // The replay rate is spread over ticks of this length
+    private static final long REPLAY_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // To stop running
+    private volatile boolean shutdownRequested = false;
+
+    private final SpillJournal journal;
+    private final ClusterCircuitBreaker circuitBreaker;
+
+    // Events replayed per tick
+    private final int eventsPerTick;
+
+    /**
+     * @param journal        journal to replay
+     * @param circuitBreaker health of the Elasticsearch cluster, events are only replayed while it is closed
+     * @param replayRate     maximum number of events replayed per second
+     */
+    public SpillJournalReplayerThread(SpillJournal journal, ClusterCircuitBreaker circuitBreaker, int replayRate) {
+        this.journal = journal;
+        this.circuitBreaker = circuitBreaker;
+        this.eventsPerTick = Math.max(1, replayRate / (int) (TimeUnit.SECONDS.toNanos(1) / REPLAY_TICK_NANOS));
+        setName("ElasticsearchSpillJournalReplayer");
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug("Spill journal replayer started, replaying " + eventsPerTick + " events per tick.");
+        }
+
+        List<StatisticsEvent> events = new ArrayList<>(eventsPerTick);
+        List<StatisticsEvent> rejected = new ArrayList<>();
+
+        while (!shutdownRequested) {
+            long tickStart = System.nanoTime();
+
+            if (!journal.isEmpty() && circuitBreaker.getState() == ClusterCircuitBreaker.State.CLOSED) {
+                replay(events, rejected);
+            }
+
+            // Wait for the rest of the tick
+            long remaining = tickStart + REPLAY_TICK_NANOS - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+    }
+
+    /**
+     * Takes a tick worth of events from the journal and offers them to their buffer partitions. Events whose
+     * partition is above the high-water mark go back to the journal.
+     */
+    private void replay(List<StatisticsEvent> events, List<StatisticsEvent> rejected) {
+        PartitionedEventBuffer<StatisticsEvent> allMappingsQueue = ElasticStatisticsPublisher.getAllMappingsQueue();
+        int highWaterMark = ElasticStatisticsPublisher.getSpillHighWaterMark();
+
+        events.clear();
+        rejected.clear();
+        journal.poll(eventsPerTick, events);
+
+        for (StatisticsEvent event : events) {
+            EventRingBuffer<StatisticsEvent> eventBuffer = allMappingsQueue.partitionFor(event.getFlowId());
+            if (eventBuffer.size() >= highWaterMark || !eventBuffer.tryOffer(event)) {
+                rejected.add(event);
+            }
+        }
+
+        if (!rejected.isEmpty()) {
+            journal.requeue(rejected);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Replayed " + (events.size() - rejected.size()) + " spilled events.");
+        }
+    }
+
+    /**
+     * Shutdown thread, stop running
+     */
+    public void shutdown() {
+        shutdownRequested = true;
+        LockSupport.unpark(this);
+    }
+}
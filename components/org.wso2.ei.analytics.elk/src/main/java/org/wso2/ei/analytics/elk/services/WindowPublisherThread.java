@@ -0,0 +1,182 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import org.wso2.ei.analytics.elk.mbean.PublisherMetrics;
+import org.wso2.ei.analytics.elk.publisher.BulkRetryScheduler;
+import org.wso2.ei.analytics.elk.publisher.BulkThrottle;
+import org.wso2.ei.analytics.elk.publisher.ElasticStatisticsPublisher;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+import org.wso2.ei.analytics.elk.publisher.EncodingBufferPool;
+import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base of the threads which publish documents summarizing a window instead of a document per event.
+ * Windows are aligned to the epoch, so the windows of all the servers of a cluster line up. The windows which end
+ * while the cluster is down are not drained, they are published as one window covering all of them once the
+ * cluster is back, so the documents carry the start and the length of the windows they cover.
+ */
+public abstract class WindowPublisherThread extends Thread {
+
+    private static final Log log = LogFactory.getLog(WindowPublisherThread.class);
+
+    // To stop running
+    private volatile boolean shutdownRequested = false;
+
+    // Length of a window (in millis)
+    protected final long window;
+
+    private final ClusterCircuitBreaker circuitBreaker;
+
+    private final EncodingBufferPool bufferPool = new EncodingBufferPool(
+            ElasticObserverConstants.MAX_FREE_ENCODING_BUFFERS);
+
+    private BulkProcessor bulkProcessor;
+
+    // Start of the first window which is not published yet (in millis)
+    private long windowStart;
+
+    /**
+     * @param window         length of a window (in millis)
+     * @param circuitBreaker health of the Elasticsearch cluster
+     */
+    protected WindowPublisherThread(long window, ClusterCircuitBreaker circuitBreaker) {
+        this.window = window;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Builds the BulkProcessor used by this thread for its whole lifetime.
+     *
+     * @param client             elasticsearch RestHighLevelClient
+     * @param bulkActions        number of index requests per bulk request
+     * @param bulkByteSize       size of the index requests per bulk request (in bytes)
+     * @param flushInterval      interval to send collected index requests regardless of count/size (in millis)
+     * @param concurrentRequests number of bulk requests allowed in flight
+     * @param retryScheduler     schedules the retries of the documents which failed with a transient error
+     * @param publisherMetrics   counters of the retried and failed documents
+     */
+    public void initBulkProcessor(RestHighLevelClient client, int bulkActions, long bulkByteSize,
+                                  long flushInterval, int concurrentRequests, BulkRetryScheduler retryScheduler,
+                                  PublisherMetrics publisherMetrics) {
+        // A window is published as a single batch, so the limits of the throttle are not applied
+        this.bulkProcessor = ElasticStatisticsPublisher.buildBulkProcessor(client, bufferPool, circuitBreaker,
+                new BulkThrottle(bulkActions, concurrentRequests), retryScheduler, publisherMetrics, bulkActions,
+                bulkByteSize, flushInterval, concurrentRequests);
+    }
+
+    @Override
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug(getName() + " started with a window of " + window + " millis.");
+        }
+
+        startWindows(System.currentTimeMillis());
+        long windowEnd = windowStart + window;
+
+        while (!shutdownRequested) {
+            long remaining = windowEnd - System.currentTimeMillis();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remaining));
+                continue;
+            }
+            windowEnd = publishEndedWindows(System.currentTimeMillis());
+        }
+
+        // Publish the partial window before stopping, up to the end of the window it belongs to
+        publish(windowStart, (System.currentTimeMillis() / window + 1) * window - windowStart);
+        closeBulkProcessor();
+    }
+
+    /**
+     * Starts the first window, the one the given time falls in.
+     *
+     * @param now current time (in millis)
+     */
+    void startWindows(long now) {
+        windowStart = now / window * window;
+    }
+
+    /**
+     * Publishes the windows which ended by the given time. While the cluster is down they are not drained, so
+     * their events are published with the first window after the cluster is back instead of being lost.
+     *
+     * @param now current time (in millis)
+     * @return end of the window the given time falls in (in millis)
+     */
+    long publishEndedWindows(long now) {
+        long windowEnd = now / window * window;
+        if (windowEnd > windowStart && circuitBreaker.isAllowingRequests()) {
+            publish(windowStart, windowEnd - windowStart);
+            windowStart = windowEnd;
+        }
+        return windowEnd + window;
+    }
+
+    /**
+     * Encodes the documents of the windows which just ended and hands them over to the bulk processor.
+     */
+    private void publish(long windowStart, long windowLength) {
+        EncodingBuffer buffer = bufferPool.acquire();
+        int documentCount = encodeWindow(windowStart, windowLength, buffer);
+        ElasticStatisticsPublisher.publish(buffer, documentCount, bulkProcessor, bufferPool);
+
+        if (log.isDebugEnabled()) {
+            log.debug(getName() + " published " + documentCount + " documents.");
+        }
+    }
+
+    /**
+     * Drains what was collected over the windows and encodes it into bulk request bytes.
+     *
+     * @param windowStart  start of the first window (in millis)
+     * @param windowLength length of the windows, more than one window after the cluster was down (in millis)
+     * @param buffer       buffer to encode the documents into
+     * @return number of encoded documents
+     */
+    protected abstract int encodeWindow(long windowStart, long windowLength, EncodingBuffer buffer);
+
+    private void closeBulkProcessor() {
+        try {
+            if (!bulkProcessor.awaitClose(ElasticObserverConstants.BULK_PROCESSOR_CLOSE_TIME_OUT,
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("Bulk requests did not complete before " + getName() + " stopped.");
+            }
+        } catch (InterruptedException e) {
+            log.warn(getName() + " interrupted while closing the bulk processor", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Shutdown thread, stop running
+     */
+    public void shutdown() {
+        shutdownRequested = true;
+        LockSupport.unpark(this);
+    }
+}
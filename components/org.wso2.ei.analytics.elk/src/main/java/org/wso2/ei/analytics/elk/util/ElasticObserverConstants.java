@@ -19,6 +19,10 @@
 package org.wso2.ei.analytics.elk.util;
 
 import org.wso2.carbon.das.data.publisher.util.AnalyticsDataPublisherConstants;
+import org.wso2.ei.analytics.elk.buffer.OverflowPolicy;
+import org.wso2.ei.analytics.elk.publisher.IndexPartitioning;
+
+import java.io.File;
 
 /**
  * Stores needed constant values
@@ -38,11 +42,71 @@ public class ElasticObserverConstants {
         <ElasticObserver>   const: OBSERVER_ELEMENT
             <Host>localhost</Host>  HOST_CONFIG
             <Port>9200</Port>   PORT_CONFIG
+            <Hosts>es1:9200,es2:9200</Hosts>    HOSTS_CONFIG, replaces Host and Port, default port is PORT_CONFIG
+            <MaxConnectionsPerRoute>10</MaxConnectionsPerRoute>   MAX_CONNECTIONS_PER_ROUTE_CONFIG
+            <MaxConnectionsTotal>30</MaxConnectionsTotal>   MAX_CONNECTIONS_TOTAL_CONFIG
+            <KeepAlive>-1</KeepAlive>   KEEP_ALIVE_CONFIG, in milliseconds, -1 as long as the server allows
+            <Compression>false</Compression>    COMPRESSION_CONFIG, gzip bulk request and response bodies
+            <Sniffing>
+                <Enabled>false</Enabled>    SNIFFING_ENABLED_CONFIG
+                <Interval>300000</Interval>    SNIFFING_INTERVAL_CONFIG, in milliseconds
+                <AfterFailureDelay>60000</AfterFailureDelay>    SNIFFING_AFTER_FAILURE_DELAY_CONFIG, in milliseconds
+            </Sniffing>
             <BufferSize>5000</BufferSize>   BUFFER_SIZE_CONFIG
+            <BufferOverflowPolicy>drop-newest</BufferOverflowPolicy>   BUFFER_OVERFLOW_POLICY_CONFIG, or drop-oldest/block
+            <BufferBlockTimeOut>100</BufferBlockTimeOut>   BUFFER_BLOCK_TIME_OUT_CONFIG, in milliseconds
+            <Workers>1</Workers>    WORKERS_CONFIG
             <BulkSize>500</BulkSize>    BULK_SIZE_CONFIG
             <BulkCollectingTimeOut>5000</BulkCollectingTimeOut> BULK_COLLECTING_TIME_OUT_CONFIG
             <BufferEmptySleepTime>1000</BufferEmptySleepTime>   BUFFER_EMPTY_SLEEP_TIME_CONFIG, in milliseconds
             <NoNodesSleepTime>5000</NoNodesSleepTime>   NO_NODES_SLEEP_TIME_CONFIG, in milliseconds
+            <NoNodesMaxSleepTime>60000</NoNodesMaxSleepTime>   NO_NODES_MAX_SLEEP_TIME_CONFIG, in milliseconds
+            <CircuitFailureThreshold>3</CircuitFailureThreshold>   CIRCUIT_FAILURE_THRESHOLD_CONFIG
+            <BulkActions>500</BulkActions>  BULK_ACTIONS_CONFIG
+            <BulkByteSize>5242880</BulkByteSize>    BULK_BYTE_SIZE_CONFIG, in bytes
+            <BulkFlushInterval>5000</BulkFlushInterval>  BULK_FLUSH_INTERVAL_CONFIG, in milliseconds
+            <BulkConcurrentRequests>1</BulkConcurrentRequests>  BULK_CONCURRENT_REQUESTS_CONFIG
+            <BulkBackoffInitialDelay>50</BulkBackoffInitialDelay>  BULK_BACKOFF_INITIAL_DELAY_CONFIG, in milliseconds
+            <BulkBackoffMaxDelay>30000</BulkBackoffMaxDelay>  BULK_BACKOFF_MAX_DELAY_CONFIG, in milliseconds
+            <BulkBackoffMaxRetries>8</BulkBackoffMaxRetries>  BULK_BACKOFF_MAX_RETRIES_CONFIG
+            <PublishingMode>raw</PublishingMode>  PUBLISHING_MODE_CONFIG, raw (document per event) or rollup
+            <RollupWindow>60000</RollupWindow>  ROLLUP_WINDOW_CONFIG, in milliseconds
+            <ComponentFilter>
+                <IncludeTypes>Sequence,Endpoint,API,Proxy Service,Inbound EndPoint</IncludeTypes>  INCLUDE_COMPONENT_TYPES_CONFIG
+                <IncludeNames></IncludeNames>   INCLUDE_COMPONENT_NAMES_CONFIG, empty includes every name
+                <ExcludeNames>API_INSEQ,API_OUTSEQ,PROXY_INSEQ,PROXY_OUTSEQ,AnonymousEndpoint</ExcludeNames>  EXCLUDE_COMPONENT_NAMES_CONFIG
+            </ComponentFilter>
+            <Sampling>
+                <Percentage>100</Percentage>    SAMPLING_PERCENTAGE_CONFIG, of the message flows
+                <KeepFaults>true</KeepFaults>   SAMPLING_KEEP_FAULTS_CONFIG
+            </Sampling>
+            <LatencyHistograms>
+                <Enabled>false</Enabled>    LATENCY_HISTOGRAMS_ENABLED_CONFIG
+                <FlushInterval>60000</FlushInterval>    LATENCY_HISTOGRAMS_FLUSH_INTERVAL_CONFIG, in milliseconds
+            </LatencyHistograms>
+            <SpillJournal>
+                <Enabled>false</Enabled>    SPILL_JOURNAL_ENABLED_CONFIG
+                <Directory>repository/data/elk-spill-journal</Directory>  SPILL_JOURNAL_DIRECTORY_CONFIG
+                <SegmentSize>16777216</SegmentSize>    SPILL_JOURNAL_SEGMENT_SIZE_CONFIG, in bytes
+                <MaxSize>268435456</MaxSize>    SPILL_JOURNAL_MAX_SIZE_CONFIG, in bytes
+                <HighWaterMark>80</HighWaterMark>    SPILL_JOURNAL_HIGH_WATER_MARK_CONFIG, % of the buffer
+                <ReplayRate>5000</ReplayRate>    SPILL_JOURNAL_REPLAY_RATE_CONFIG, events per second
+            </SpillJournal>
+            <Index>
+                <Name>eidata</Name>    INDEX_NAME_CONFIG
+                <Partitioning>none</Partitioning>    INDEX_PARTITIONING_CONFIG, none, daily, hourly or rollover
+                <ManageTemplate>true</ManageTemplate>    INDEX_MANAGE_TEMPLATE_CONFIG
+                <Shards>1</Shards>    INDEX_SHARDS_CONFIG
+                <Replicas>1</Replicas>    INDEX_REPLICAS_CONFIG
+                <Retention></Retention>    INDEX_RETENTION_CONFIG, e.g. 30d, empty keeps the indices
+                <RolloverMaxSize>50gb</RolloverMaxSize>    INDEX_ROLLOVER_MAX_SIZE_CONFIG
+                <RolloverMaxAge>1d</RolloverMaxAge>    INDEX_ROLLOVER_MAX_AGE_CONFIG
+            </Index>
+            <Metrics>
+                <PrometheusEnabled>false</PrometheusEnabled>    METRICS_PROMETHEUS_ENABLED_CONFIG
+                <PrometheusHost>localhost</PrometheusHost>    METRICS_PROMETHEUS_HOST_CONFIG
+                <PrometheusPort>9464</PrometheusPort>    METRICS_PROMETHEUS_PORT_CONFIG
+            </Metrics>
             <Username>transport_client_user</Username>  USERNAME_CONFIG
             <Password svns:secretAlias="Elastic.User.Password">password</Password>   PASSWORD_CONFIG, PASSWORD_ALIAS
             <SSLEnabled>true</SSLEnabled>   SSL_ENABLED_CONFIG
@@ -58,11 +122,65 @@ public class ElasticObserverConstants {
     private static final String OBSERVER_ELEMENT = AnalyticsDataPublisherConstants.STAT_CONFIG_ELEMENT + ".ElasticObserver";
     public static final String HOST_CONFIG = OBSERVER_ELEMENT + ".Host";
     public static final String PORT_CONFIG = OBSERVER_ELEMENT + ".Port";
+    public static final String HOSTS_CONFIG = OBSERVER_ELEMENT + ".Hosts";
+    public static final String MAX_CONNECTIONS_PER_ROUTE_CONFIG = OBSERVER_ELEMENT + ".MaxConnectionsPerRoute";
+    public static final String MAX_CONNECTIONS_TOTAL_CONFIG = OBSERVER_ELEMENT + ".MaxConnectionsTotal";
+    public static final String KEEP_ALIVE_CONFIG = OBSERVER_ELEMENT + ".KeepAlive";
+    public static final String COMPRESSION_CONFIG = OBSERVER_ELEMENT + ".Compression";
+    private static final String SNIFFING_ELEMENT = OBSERVER_ELEMENT + ".Sniffing";
+    public static final String SNIFFING_ENABLED_CONFIG = SNIFFING_ELEMENT + ".Enabled";
+    public static final String SNIFFING_INTERVAL_CONFIG = SNIFFING_ELEMENT + ".Interval";
+    public static final String SNIFFING_AFTER_FAILURE_DELAY_CONFIG = SNIFFING_ELEMENT + ".AfterFailureDelay";
     public static final String BUFFER_SIZE_CONFIG = OBSERVER_ELEMENT + ".BufferSize";
+    public static final String BUFFER_OVERFLOW_POLICY_CONFIG = OBSERVER_ELEMENT + ".BufferOverflowPolicy";
+    public static final String BUFFER_BLOCK_TIME_OUT_CONFIG = OBSERVER_ELEMENT + ".BufferBlockTimeOut";
+    public static final String WORKERS_CONFIG = OBSERVER_ELEMENT + ".Workers";
     public static final String BULK_SIZE_CONFIG = OBSERVER_ELEMENT + ".BulkSize";
     public static final String BULK_COLLECTING_TIME_OUT_CONFIG = OBSERVER_ELEMENT + ".BulkCollectingTimeOut";
     public static final String BUFFER_EMPTY_SLEEP_TIME_CONFIG = OBSERVER_ELEMENT + ".BufferEmptySleepTime";
     public static final String NO_NODES_SLEEP_TIME_CONFIG = OBSERVER_ELEMENT + ".NoNodesSleepTime";
+    public static final String NO_NODES_MAX_SLEEP_TIME_CONFIG = OBSERVER_ELEMENT + ".NoNodesMaxSleepTime";
+    public static final String CIRCUIT_FAILURE_THRESHOLD_CONFIG = OBSERVER_ELEMENT + ".CircuitFailureThreshold";
+    public static final String BULK_ACTIONS_CONFIG = OBSERVER_ELEMENT + ".BulkActions";
+    public static final String BULK_BYTE_SIZE_CONFIG = OBSERVER_ELEMENT + ".BulkByteSize";
+    public static final String BULK_FLUSH_INTERVAL_CONFIG = OBSERVER_ELEMENT + ".BulkFlushInterval";
+    public static final String BULK_CONCURRENT_REQUESTS_CONFIG = OBSERVER_ELEMENT + ".BulkConcurrentRequests";
+    public static final String BULK_BACKOFF_INITIAL_DELAY_CONFIG = OBSERVER_ELEMENT + ".BulkBackoffInitialDelay";
+    public static final String BULK_BACKOFF_MAX_DELAY_CONFIG = OBSERVER_ELEMENT + ".BulkBackoffMaxDelay";
+    public static final String BULK_BACKOFF_MAX_RETRIES_CONFIG = OBSERVER_ELEMENT + ".BulkBackoffMaxRetries";
+    public static final String PUBLISHING_MODE_CONFIG = OBSERVER_ELEMENT + ".PublishingMode";
+    public static final String ROLLUP_WINDOW_CONFIG = OBSERVER_ELEMENT + ".RollupWindow";
+    private static final String COMPONENT_FILTER_ELEMENT = OBSERVER_ELEMENT + ".ComponentFilter";
+    public static final String INCLUDE_COMPONENT_TYPES_CONFIG = COMPONENT_FILTER_ELEMENT + ".IncludeTypes";
+    public static final String INCLUDE_COMPONENT_NAMES_CONFIG = COMPONENT_FILTER_ELEMENT + ".IncludeNames";
+    public static final String EXCLUDE_COMPONENT_NAMES_CONFIG = COMPONENT_FILTER_ELEMENT + ".ExcludeNames";
+    private static final String SAMPLING_ELEMENT = OBSERVER_ELEMENT + ".Sampling";
+    public static final String SAMPLING_PERCENTAGE_CONFIG = SAMPLING_ELEMENT + ".Percentage";
+    public static final String SAMPLING_KEEP_FAULTS_CONFIG = SAMPLING_ELEMENT + ".KeepFaults";
+    private static final String LATENCY_HISTOGRAMS_ELEMENT = OBSERVER_ELEMENT + ".LatencyHistograms";
+    public static final String LATENCY_HISTOGRAMS_ENABLED_CONFIG = LATENCY_HISTOGRAMS_ELEMENT + ".Enabled";
+    public static final String LATENCY_HISTOGRAMS_FLUSH_INTERVAL_CONFIG = LATENCY_HISTOGRAMS_ELEMENT +
+            ".FlushInterval";
+    private static final String SPILL_JOURNAL_ELEMENT = OBSERVER_ELEMENT + ".SpillJournal";
+    public static final String SPILL_JOURNAL_ENABLED_CONFIG = SPILL_JOURNAL_ELEMENT + ".Enabled";
+    public static final String SPILL_JOURNAL_DIRECTORY_CONFIG = SPILL_JOURNAL_ELEMENT + ".Directory";
+    public static final String SPILL_JOURNAL_SEGMENT_SIZE_CONFIG = SPILL_JOURNAL_ELEMENT + ".SegmentSize";
+    public static final String SPILL_JOURNAL_MAX_SIZE_CONFIG = SPILL_JOURNAL_ELEMENT + ".MaxSize";
+    public static final String SPILL_JOURNAL_HIGH_WATER_MARK_CONFIG = SPILL_JOURNAL_ELEMENT + ".HighWaterMark";
+    public static final String SPILL_JOURNAL_REPLAY_RATE_CONFIG = SPILL_JOURNAL_ELEMENT + ".ReplayRate";
+    private static final String INDEX_ELEMENT = OBSERVER_ELEMENT + ".Index";
+    public static final String INDEX_NAME_CONFIG = INDEX_ELEMENT + ".Name";
+    public static final String INDEX_PARTITIONING_CONFIG = INDEX_ELEMENT + ".Partitioning";
+    public static final String INDEX_MANAGE_TEMPLATE_CONFIG = INDEX_ELEMENT + ".ManageTemplate";
+    public static final String INDEX_SHARDS_CONFIG = INDEX_ELEMENT + ".Shards";
+    public static final String INDEX_REPLICAS_CONFIG = INDEX_ELEMENT + ".Replicas";
+    public static final String INDEX_RETENTION_CONFIG = INDEX_ELEMENT + ".Retention";
+    public static final String INDEX_ROLLOVER_MAX_SIZE_CONFIG = INDEX_ELEMENT + ".RolloverMaxSize";
+    public static final String INDEX_ROLLOVER_MAX_AGE_CONFIG = INDEX_ELEMENT + ".RolloverMaxAge";
+    private static final String METRICS_ELEMENT = OBSERVER_ELEMENT + ".Metrics";
+    public static final String METRICS_PROMETHEUS_ENABLED_CONFIG = METRICS_ELEMENT + ".PrometheusEnabled";
+    public static final String METRICS_PROMETHEUS_HOST_CONFIG = METRICS_ELEMENT + ".PrometheusHost";
+    public static final String METRICS_PROMETHEUS_PORT_CONFIG = METRICS_ELEMENT + ".PrometheusPort";
     public static final String USERNAME_CONFIG = OBSERVER_ELEMENT + ".Username";
     public static final String PASSWORD_CONFIG = OBSERVER_ELEMENT + ".Password";
     // path to Truststore that contains the certificate for this client
@@ -84,18 +202,171 @@ public class ElasticObserverConstants {
     // Default buffering queue size, overrides with the size config in carbon.xml
     public static final int DEFAULT_BUFFER_SIZE = 5000;
 
+    // Default action on a full event buffer, overrides with the overflow policy config in carbon.xml
+    public static final OverflowPolicy DEFAULT_BUFFER_OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+
+    // Maximum time a reporter thread waits for a free buffer slot with the block policy (in milliseconds)
+    public static final long DEFAULT_BUFFER_BLOCK_TIME_OUT = 100;
+
+    // Number of publisher workers, each drains its own partition of the event buffer with its own BulkProcessor
+    public static final int DEFAULT_WORKERS = 1;
+
     // Size of the event bulk published at one request
     public static final int DEFAULT_PUBLISHING_BULK_SIZE = 500;
 
     // Time out for collecting the fixed size bulk (in milliseconds)
     public static final long DEFAULT_BULK_COLLECTING_TIMEOUT = 5000;
 
-    // Default sleep time of the PublisherThread when the event buffer is empty (in milliseconds)
+    // Default maximum park time of the PublisherThread when the event buffer is empty, the thread wakes up
+    // earlier as soon as an event arrives (in milliseconds)
     public static final long DEFAULT_BUFFER_EMPTY_SLEEP_TIME = 1000;
 
-    // Default sleep time of the PublisherThread when the Elasticsearch server is down (in milliseconds)
+    // Default time before the first ping once the Elasticsearch server is found down, doubled after every failed
+    // ping (in milliseconds)
     public static final long DEFAULT_NO_NODES_SLEEP_TIME = 5000;
 
+    // Default maximum time between pings while the Elasticsearch server is down (in milliseconds)
+    public static final long DEFAULT_NO_NODES_MAX_SLEEP_TIME = 60000;
+
+    // Default number of failed bulk requests in a row after which the server is considered down
+    public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 3;
+
+    // Number of index requests after which the BulkProcessor sends a bulk request
+    public static final int DEFAULT_BULK_ACTIONS = 500;
+
+    // Size of the collected index requests after which the BulkProcessor sends a bulk request (in bytes)
+    public static final long DEFAULT_BULK_BYTE_SIZE = 5 * 1024 * 1024;
+
+    // Interval at which the BulkProcessor sends the collected index requests regardless of count/size (in millis)
+    public static final long DEFAULT_BULK_FLUSH_INTERVAL = 5000;
+
+    // Number of bulk requests each publisher worker allows to be in flight while new index requests are collected
+    public static final int DEFAULT_BULK_CONCURRENT_REQUESTS = 1;
+
+    // Initial delay of the jittered exponential backoff used to retry failed documents (in milliseconds)
+    public static final long DEFAULT_BULK_BACKOFF_INITIAL_DELAY = 50;
+
+    // Maximum delay between two retries of a failed document (in milliseconds)
+    public static final long DEFAULT_BULK_BACKOFF_MAX_DELAY = 30000;
+
+    // Maximum number of retries of a document which failed with a transient error, e.g. a 429 rejection
+    public static final int DEFAULT_BULK_BACKOFF_MAX_RETRIES = 8;
+
+    // Maximum time to wait for in flight bulk requests when the publisher shuts down (in milliseconds)
+    public static final long BULK_PROCESSOR_CLOSE_TIME_OUT = 10000;
+
+    // Maximum time to wait for the publisher threads to send their last documents when the observer is destroyed,
+    // longer than the bulk processor close time out (in milliseconds)
+    public static final long PUBLISHER_THREAD_JOIN_TIME_OUT = 15000;
+
+    // Number of free encoding buffers a publisher worker keeps for reuse
+    public static final int MAX_FREE_ENCODING_BUFFERS = 8;
+
+    // Publishing modes, a document per event or a summary document per component and window
+    public static final String PUBLISHING_MODE_RAW = "raw";
+    public static final String PUBLISHING_MODE_ROLLUP = "rollup";
+
+    // A document per event is published by default
+    public static final boolean DEFAULT_ROLLUP_ENABLED = false;
+
+    // Length of the window events are aggregated over in rollup mode (in milliseconds)
+    public static final long DEFAULT_ROLLUP_WINDOW = 60000;
+
+    // Monitoring service types
+    public static final String SEQUENCE = "Sequence";
+    public static final String ENDPOINT = "Endpoint";
+    public static final String API = "API";
+    public static final String PROXY_SERVICE = "Proxy Service";
+    public static final String INBOUND_ENDPOINT = "Inbound EndPoint";
+
+    // Component types published by default, comma separated
+    public static final String DEFAULT_INCLUDED_COMPONENT_TYPES = SEQUENCE + "," + ENDPOINT + "," + API + "," +
+            PROXY_SERVICE + "," + INBOUND_ENDPOINT;
+
+    // Every component name which is not excluded is published by default
+    public static final String DEFAULT_INCLUDED_COMPONENT_NAMES = "";
+
+    // Component names never published by default, comma separated
+    public static final String DEFAULT_EXCLUDED_COMPONENT_NAMES =
+            "API_INSEQ,API_OUTSEQ,PROXY_INSEQ,PROXY_OUTSEQ,AnonymousEndpoint";
+
+    // Every message flow is published by default (in percent)
+    public static final double DEFAULT_SAMPLING_PERCENTAGE = 100;
+
+    // Flows with a faulty component are published even if they are not sampled
+    public static final boolean DEFAULT_SAMPLING_KEEP_FAULTS = true;
+
+    // Per component latency histograms are disabled by default
+    public static final boolean DEFAULT_LATENCY_HISTOGRAMS_ENABLED = false;
+
+    // Interval the latency percentiles are published at (in milliseconds)
+    public static final long DEFAULT_LATENCY_HISTOGRAMS_FLUSH_INTERVAL = 60000;
+
+    // Spilling events to disk when the event buffer fills up is disabled by default
+    public static final boolean DEFAULT_SPILL_JOURNAL_ENABLED = false;
+
+    // Directory of the spill journal segments, relative to carbon home
+    public static final String DEFAULT_SPILL_JOURNAL_DIRECTORY = "repository" + File.separator + "data" +
+            File.separator + "elk-spill-journal";
+
+    // Size of a spill journal segment file (in bytes)
+    public static final int DEFAULT_SPILL_JOURNAL_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    // Maximum size of all the spill journal segments, the oldest segment is evicted above it (in bytes)
+    public static final long DEFAULT_SPILL_JOURNAL_MAX_SIZE = 256L * 1024 * 1024;
+
+    // Percentage of a buffer partition above which new events are spilled to the journal
+    public static final int DEFAULT_SPILL_JOURNAL_HIGH_WATER_MARK = 80;
+
+    // Maximum number of spilled events moved back into the event buffer per second
+    public static final int DEFAULT_SPILL_JOURNAL_REPLAY_RATE = 5000;
+
+    // System property of the carbon home directory
+    public static final String CARBON_HOME = "carbon.home";
+
+    // Connection pool limits of the rest client, same as the defaults of the client
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 30;
+
+    // Idle connections are kept as long as the server allows by default (in milliseconds)
+    public static final long DEFAULT_KEEP_ALIVE = -1;
+
+    // Bulk requests are sent uncompressed by default
+    public static final boolean DEFAULT_COMPRESSION_ENABLED = false;
+
+    // Nodes of the cluster are not sniffed by default, only the configured hosts are used
+    public static final boolean DEFAULT_SNIFFING_ENABLED = false;
+
+    // Interval between sniffs of the nodes, and the delay of the sniff after a node failed (in milliseconds)
+    public static final int DEFAULT_SNIFFING_INTERVAL = 300000;
+    public static final int DEFAULT_SNIFFING_AFTER_FAILURE_DELAY = 60000;
+
+    // Index which the statistics are published to, prefix of the time partitioned indices and name of the write
+    // alias in rollover mode
+    public static final String DEFAULT_INDEX_NAME = "eidata";
+
+    // Statistics are published to a single index by default
+    public static final IndexPartitioning DEFAULT_INDEX_PARTITIONING = IndexPartitioning.NONE;
+
+    // The index template and lifecycle policy of the statistics indices are installed by default
+    public static final boolean DEFAULT_INDEX_MANAGE_TEMPLATE = true;
+
+    // Shards and replicas of a statistics index
+    public static final int DEFAULT_INDEX_SHARDS = 1;
+    public static final int DEFAULT_INDEX_REPLICAS = 1;
+
+    // Statistics indices are kept until deleted by hand by default
+    public static final String DEFAULT_INDEX_RETENTION = "";
+
+    // Size and age of the write index which trigger a rollover in rollover mode
+    public static final String DEFAULT_INDEX_ROLLOVER_MAX_SIZE = "50gb";
+    public static final String DEFAULT_INDEX_ROLLOVER_MAX_AGE = "1d";
+
+    // The statistics are only exposed through JMX by default, the Prometheus endpoint listens on localhost
+    public static final boolean DEFAULT_METRICS_PROMETHEUS_ENABLED = false;
+    public static final String DEFAULT_METRICS_PROMETHEUS_HOST = "localhost";
+    public static final int DEFAULT_METRICS_PROMETHEUS_PORT = 9464;
+
     public static final String DEFAULT_HOSTNAME = "localhost";
     public static final String DEFAULT_USERNAME = "elastic";
     public static final String DEFAULT_PASSWORD = "changeme";
@@ -104,21 +375,63 @@ public class ElasticObserverConstants {
     public static final String DEFAULT_TRUSTSTORE_PASSWORD = "wso2carbon";
     public static final String DEFAULT_TRUSTSTORE_TYPE = "jks";
 
-    // Monitoring service types
-    public static final String SEQUENCE = "Sequence";
-    public static final String ENDPOINT = "Endpoint";
-    public static final String API = "API";
-    public static final String PROXY_SERVICE = "Proxy Service";
-    public static final String INBOUND_ENDPOINT = "Inbound EndPoint";
+    // Object name of the observer statistics MBean
+    public static final String MBEAN_OBJECT_NAME = "org.wso2.ei.analytics.elk:type=ElasticObserverStatistics";
 
     // Keys for the configurations object in ElasticMediationFlowObserver getConfigurations()
     public static final String HOST = "host";
     public static final String PORT = "port";
+    public static final String HOSTS = "hosts";
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "maxConnectionsPerRoute";
+    public static final String MAX_CONNECTIONS_TOTAL = "maxConnectionsTotal";
+    public static final String KEEP_ALIVE = "keepAlive";
+    public static final String COMPRESSION_ENABLED = "compressionEnabled";
+    public static final String SNIFFING_ENABLED = "sniffingEnabled";
+    public static final String SNIFFING_INTERVAL = "sniffingInterval";
+    public static final String SNIFFING_AFTER_FAILURE_DELAY = "sniffingAfterFailureDelay";
     public static final String BUFFER_SIZE = "bufferSize";
+    public static final String BUFFER_OVERFLOW_POLICY = "bufferOverflowPolicy";
+    public static final String BUFFER_BLOCK_TIME_OUT = "bufferBlockTimeOut";
+    public static final String WORKERS = "workers";
     public static final String BULK_SIZE = "bulkSize";
     public static final String BULK_TIME_OUT = "bulkTimeOut";
     public static final String BUFFER_EMPTY_SLEEP = "bufferEmptySleep";
     public static final String NO_NODES_SLEEP = "noNodesSleep";
+    public static final String NO_NODES_MAX_SLEEP = "noNodesMaxSleep";
+    public static final String CIRCUIT_FAILURE_THRESHOLD = "circuitFailureThreshold";
+    public static final String BULK_ACTIONS = "bulkActions";
+    public static final String BULK_BYTE_SIZE = "bulkByteSize";
+    public static final String BULK_FLUSH_INTERVAL = "bulkFlushInterval";
+    public static final String BULK_CONCURRENT_REQUESTS = "bulkConcurrentRequests";
+    public static final String BULK_BACKOFF_INITIAL_DELAY = "bulkBackoffInitialDelay";
+    public static final String BULK_BACKOFF_MAX_DELAY = "bulkBackoffMaxDelay";
+    public static final String BULK_BACKOFF_MAX_RETRIES = "bulkBackoffMaxRetries";
+    public static final String ROLLUP_ENABLED = "rollupEnabled";
+    public static final String ROLLUP_WINDOW = "rollupWindow";
+    public static final String INCLUDE_COMPONENT_TYPES = "includeComponentTypes";
+    public static final String INCLUDE_COMPONENT_NAMES = "includeComponentNames";
+    public static final String EXCLUDE_COMPONENT_NAMES = "excludeComponentNames";
+    public static final String SAMPLING_PERCENTAGE = "samplingPercentage";
+    public static final String SAMPLING_KEEP_FAULTS = "samplingKeepFaults";
+    public static final String LATENCY_HISTOGRAMS_ENABLED = "latencyHistogramsEnabled";
+    public static final String LATENCY_HISTOGRAMS_FLUSH_INTERVAL = "latencyHistogramsFlushInterval";
+    public static final String SPILL_JOURNAL_ENABLED = "spillJournalEnabled";
+    public static final String SPILL_JOURNAL_DIRECTORY = "spillJournalDirectory";
+    public static final String SPILL_JOURNAL_SEGMENT_SIZE = "spillJournalSegmentSize";
+    public static final String SPILL_JOURNAL_MAX_SIZE = "spillJournalMaxSize";
+    public static final String SPILL_JOURNAL_HIGH_WATER_MARK = "spillJournalHighWaterMark";
+    public static final String SPILL_JOURNAL_REPLAY_RATE = "spillJournalReplayRate";
+    public static final String INDEX_NAME = "indexName";
+    public static final String INDEX_PARTITIONING = "indexPartitioning";
+    public static final String INDEX_MANAGE_TEMPLATE = "indexManageTemplate";
+    public static final String INDEX_SHARDS = "indexShards";
+    public static final String INDEX_REPLICAS = "indexReplicas";
+    public static final String INDEX_RETENTION = "indexRetention";
+    public static final String INDEX_ROLLOVER_MAX_SIZE = "indexRolloverMaxSize";
+    public static final String INDEX_ROLLOVER_MAX_AGE = "indexRolloverMaxAge";
+    public static final String METRICS_PROMETHEUS_ENABLED = "metricsPrometheusEnabled";
+    public static final String METRICS_PROMETHEUS_HOST = "metricsPrometheusHost";
+    public static final String METRICS_PROMETHEUS_PORT = "metricsPrometheusPort";
     public static final String USERNAME = "username";
     public static final String PASSWORD = "password";
     public static final String TRUST_STORE_PASSWORD = "trustStorePass";
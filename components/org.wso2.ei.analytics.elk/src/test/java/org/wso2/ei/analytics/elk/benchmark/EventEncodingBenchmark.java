@@ -0,0 +1,144 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.ei.analytics.elk.publisher.BulkEventEncoder;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+import org.wso2.ei.analytics.elk.publisher.EncodingBufferPool;
+import org.wso2.ei.analytics.elk.publisher.IndexPartitioning;
+import org.wso2.ei.analytics.elk.publisher.IndexRouter;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SimpleTimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per event cost of the previous Map/ObjectMapper/String encoding with BulkEventEncoder.
+ * Run the main method from the test classpath, the gc profiler reports the bytes allocated per event as
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventEncodingBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String HOST = "10.100.5.72";
+
+    private final List<StatisticsEvent> events = new ArrayList<>(BATCH_SIZE);
+    private final BulkEventEncoder encoder = new BulkEventEncoder(
+            new IndexRouter("eidata", IndexPartitioning.NONE), HOST);
+    private final EncodingBufferPool bufferPool = new EncodingBufferPool(1);
+
+    @Setup
+    public void setUp() {
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            events.add(new StatisticsEvent(i % 2 == 0 ? "Proxy Service" : "Endpoint", "StockQuoteProxy" + (i % 10),
+                    "urn_uuid_" + i, time + i, i % 50, i % 20 != 0));
+        }
+    }
+
+    /**
+     * Previous path, a HashMap per event, an ObjectMapper per batch and a json String converted to bytes by the
+     * index request.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void mapObjectMapperString(Blackhole blackhole) throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (StatisticsEvent event : events) {
+            Map<String, Object> mapping = new HashMap<>();
+            mapping.put("type", event.getComponentType());
+            mapping.put("name", event.getComponentName());
+            mapping.put("flowid", event.getFlowId());
+            mapping.put("host", HOST);
+            mapping.put("@timestamp", getFormattedDate(event.getStartTime()));
+            mapping.put("success", event.isSuccess());
+
+            String jsonString = objectMapper.writeValueAsString(mapping);
+            blackhole.consume(jsonString.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Current path, events encoded straight into a pooled bulk body buffer.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void bulkEventEncoder(Blackhole blackhole) {
+        EncodingBuffer buffer = bufferPool.acquire();
+        for (StatisticsEvent event : events) {
+            encoder.encode(event, buffer);
+        }
+        blackhole.consume(buffer.length());
+        bufferPool.release(buffer);
+    }
+
+    private static String getFormattedDate(long time) {
+        Date date = new Date(time);
+
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        String formattedDate = dateFormat.format(date);
+
+        DateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        timeFormat.setTimeZone(new SimpleTimeZone(SimpleTimeZone.UTC_TIME, "UTC"));
+        String formattedTime = timeFormat.format(date);
+
+        return formattedDate + "T" + formattedTime + "Z";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EventEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
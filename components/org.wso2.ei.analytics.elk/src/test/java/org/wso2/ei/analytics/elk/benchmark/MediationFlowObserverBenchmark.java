@@ -0,0 +1,301 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.benchmark;
+
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.ei.analytics.elk.latency.LatencyHistogram;
+import org.wso2.ei.analytics.elk.observer.ElasticMediationFlowObserver;
+import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * End-to-end throughput of the observer: producer threads notify ElasticMediationFlowObserver with synthetic
+ * flows, like the MessageFlowReporter threads do, while the publisher threads send the bulk requests to a
+ * StubElasticsearchServer. Unlike the JMH benchmarks this one runs the whole pipeline for a fixed time, so it
+ * reports sustained rates instead of the cost of a single operation.
+ * Run the main method from the test classpath. Settings are system properties with their defaults below, e.g.
+ * -Dthreads=8 -Dstub.latency=50 -Dstub.rejectionRate=0.01. If -Dmin.eventsPerSecond is set, the run fails
+ * when fewer events are indexed per second, so it can guard the publishing path in a build.
+ */
+public class MediationFlowObserverBenchmark {
+
+    private static final int FLOWS_PER_THREAD = 1024;
+    private static final long PROBE_TIME_OUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final int threads = Integer.getInteger("threads", 4);
+    private final int eventsPerFlow = Integer.getInteger("eventsPerFlow", 10);
+    private final String[] componentMix = System.getProperty("components",
+            "Proxy Service,Sequence,Mediator,Mediator,Mediator,Endpoint").split(",");
+    private final double faultRatio = Double.parseDouble(System.getProperty("faultRatio", "0.05"));
+    private final long warmup = Long.getLong("warmup", 10);
+    private final long duration = Long.getLong("duration", 30);
+    private final long stubLatency = Long.getLong("stub.latency", 5);
+    private final double stubRejectionRate = Double.parseDouble(System.getProperty("stub.rejectionRate", "0"));
+    private final int stubThreads = Integer.getInteger("stub.threads", 16);
+    private final double minEventsPerSecond = Double.parseDouble(System.getProperty("min.eventsPerSecond", "0"));
+
+    // Observer settings, written to the carbon.xml read by the observer
+    private final Map<String, String> observerSettings = new HashMap<>();
+
+    private final LongAdder offeredEventCount = new LongAdder();
+    private final List<LatencyHistogram> enqueueLatencies = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private MediationFlowObserverBenchmark() {
+        observerSettings.put("BufferSize", System.getProperty("bufferSize", "50000"));
+        observerSettings.put("BufferOverflowPolicy", System.getProperty("bufferOverflowPolicy", "drop-newest"));
+        observerSettings.put("Workers", System.getProperty("workers", "2"));
+        observerSettings.put("BulkSize", System.getProperty("bulkSize", "500"));
+        observerSettings.put("BulkActions", System.getProperty("bulkSize", "500"));
+        observerSettings.put("BulkConcurrentRequests", System.getProperty("bulkConcurrentRequests", "1"));
+        observerSettings.put("BulkCollectingTimeOut", "1000");
+        observerSettings.put("BulkFlushInterval", "1000");
+        observerSettings.put("Compression", System.getProperty("compression", "false"));
+        observerSettings.put("NoNodesSleepTime", "100");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new MediationFlowObserverBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        StubElasticsearchServer stub = new StubElasticsearchServer(stubLatency, stubRejectionRate);
+        stub.start(stubThreads);
+        File carbonXml = writeCarbonXml(stub.getPort());
+        ServerConfiguration.getInstance().forceInit(carbonXml.getAbsolutePath());
+
+        ElasticMediationFlowObserver observer = new ElasticMediationFlowObserver();
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName statistics = new ObjectName(ElasticObserverConstants.MBEAN_OBJECT_NAME);
+        List<Thread> producers = new ArrayList<>(threads);
+        try {
+            // The observer buffers until its health probe reached the stub
+            long deadline = System.currentTimeMillis() + PROBE_TIME_OUT;
+            while (!"CLOSED".equals(mBeanServer.getAttribute(statistics, "ClusterHealthState"))) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("The observer did not reach the stub Elasticsearch server");
+                }
+                Thread.sleep(50);
+            }
+
+            for (int i = 0; i < threads; i++) {
+                LatencyHistogram enqueueLatency = new LatencyHistogram();
+                enqueueLatencies.add(enqueueLatency);
+                Thread producer = new Thread(() -> produce(observer, createFlows(), enqueueLatency),
+                        "BenchmarkProducer-" + i);
+                producer.setDaemon(true);
+                producers.add(producer);
+                producer.start();
+            }
+
+            TimeUnit.SECONDS.sleep(warmup);
+            Sample start = new Sample(stub, mBeanServer, statistics);
+            TimeUnit.SECONDS.sleep(duration);
+            Sample end = new Sample(stub, mBeanServer, statistics);
+
+            report(start, end, stub, mBeanServer, statistics);
+        } finally {
+            running = false;
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            observer.destroy();
+            stub.stop();
+            Files.deleteIfExists(carbonXml.toPath());
+        }
+    }
+
+    private void produce(ElasticMediationFlowObserver observer, PublishingFlow[] flows,
+                         LatencyHistogram enqueueLatency) {
+        int next = 0;
+        while (running) {
+            PublishingFlow flow = flows[next];
+            next = (next + 1) % flows.length;
+
+            long startTime = System.nanoTime();
+            observer.updateStatistics(flow);
+            enqueueLatency.record(System.nanoTime() - startTime);
+            offeredEventCount.add(eventsPerFlow);
+        }
+    }
+
+    /**
+     * Flows are created up front and notified over and over, so the allocation rate is the one of the observer.
+     * The observer copies what it needs out of the flow before updateStatistics returns.
+     */
+    private PublishingFlow[] createFlows() {
+        Random random = new Random();
+        long time = System.currentTimeMillis();
+        PublishingFlow[] flows = new PublishingFlow[FLOWS_PER_THREAD];
+        for (int i = 0; i < flows.length; i++) {
+            PublishingFlow flow = new PublishingFlow();
+            flow.setMessageFlowId("urn_uuid_" + random.nextLong());
+            boolean faulty = random.nextDouble() < faultRatio;
+            for (int j = 0; j < eventsPerFlow; j++) {
+                String componentType = componentMix[j % componentMix.length].trim();
+                PublishingEvent event = new PublishingEvent();
+                event.setComponentType(componentType);
+                event.setComponentName(componentType.replace(" ", "") + (i % 20));
+                event.setStartTime(time + j);
+                event.setEndTime(time + j + random.nextInt(50));
+                event.setDuration(event.getEndTime() - event.getStartTime());
+                // The fault surfaces at the last component of the flow
+                event.setFaultCount(faulty && j == eventsPerFlow - 1 ? 1 : 0);
+                flow.addEvent(event);
+            }
+            flows[i] = flow;
+        }
+        return flows;
+    }
+
+    private void report(Sample start, Sample end, StubElasticsearchServer stub, MBeanServer mBeanServer,
+                        ObjectName statistics) throws Exception {
+        double seconds = (end.time - start.time) / (double) TimeUnit.SECONDS.toNanos(1);
+        long offered = end.offered - start.offered;
+        long enqueued = end.enqueued - start.enqueued;
+        long evicted = end.droppedOldest - start.droppedOldest;
+        long indexed = end.indexed - start.indexed;
+        double eventsPerSecond = indexed / seconds;
+
+        // Flows skipped on a full buffer never reach it, so the drop rate is taken from the offered events
+        double dropRate = offered == 0 ? 0 : 1 - (double) (enqueued - evicted) / offered;
+
+        long[] snapshot = new long[LatencyHistogram.BUCKET_COUNT];
+        long[] merged = new long[LatencyHistogram.BUCKET_COUNT];
+        long max = 0;
+        for (LatencyHistogram enqueueLatency : enqueueLatencies) {
+            max = Math.max(max, enqueueLatency.drainTo(snapshot));
+            for (int i = 0; i < snapshot.length; i++) {
+                merged[i] += snapshot[i];
+            }
+        }
+        long calls = 0;
+        for (long count : merged) {
+            calls += count;
+        }
+
+        long allocated = end.allocatedBytes - start.allocatedBytes;
+
+        System.out.println("Threads: " + threads + ", events per flow: " + eventsPerFlow + ", fault ratio: " +
+                faultRatio + ", stub latency: " + stubLatency + " ms, stub rejection rate: " + stubRejectionRate);
+        System.out.println("Observer: " + observerSettings);
+        System.out.printf("Offered events/sec:   %,.0f%n", offered / seconds);
+        System.out.printf("Enqueued events/sec:  %,.0f%n", enqueued / seconds);
+        System.out.printf("Indexed events/sec:   %,.0f%n", eventsPerSecond);
+        System.out.printf("Drop rate:            %.2f%%%n", dropRate * 100);
+        System.out.printf("Enqueue latency p50:  %,d ns per flow%n",
+                LatencyHistogram.valueAtPercentile(merged, calls, 50, max));
+        System.out.printf("Enqueue latency p99:  %,d ns per flow%n",
+                LatencyHistogram.valueAtPercentile(merged, calls, 99, max));
+        System.out.printf("Enqueue latency max:  %,d ns per flow%n", max);
+        System.out.printf("Allocation rate:      %,.1f MB/sec, %,.0f bytes per enqueued event%n",
+                allocated / seconds / (1024 * 1024), enqueued == 0 ? 0 : (double) allocated / enqueued);
+        System.out.println("Bulk requests: " + stub.getBulkRequestCount() + ", rejected documents: " +
+                stub.getRejectedDocumentCount() + ", retried documents: " +
+                mBeanServer.getAttribute(statistics, "RetriedDocumentCount") + ", failed documents: " +
+                mBeanServer.getAttribute(statistics, "FailedDocumentCount"));
+
+        if (minEventsPerSecond > 0 && eventsPerSecond < minEventsPerSecond) {
+            throw new AssertionError(String.format("Indexed %,.0f events/sec, expected at least %,.0f",
+                    eventsPerSecond, minEventsPerSecond));
+        }
+    }
+
+    /**
+     * carbon.xml holding just the observer configuration, pointing at the stub server.
+     */
+    private File writeCarbonXml(int port) throws Exception {
+        StringBuilder observer = new StringBuilder();
+        observer.append("<Host>127.0.0.1</Host><Port>").append(port).append("</Port>");
+        for (Map.Entry<String, String> setting : observerSettings.entrySet()) {
+            observer.append('<').append(setting.getKey()).append('>').append(setting.getValue())
+                    .append("</").append(setting.getKey()).append('>');
+        }
+        observer.append("<Index><ManageTemplate>false</ManageTemplate></Index><SSLEnabled>false</SSLEnabled>");
+
+        String carbon = "<Server xmlns=\"http://wso2.org/projects/carbon/carbon.xml\"><MediationFlowStatisticConfig>" +
+                "<ElasticObserver>" + observer + "</ElasticObserver></MediationFlowStatisticConfig></Server>";
+        File carbonXml = File.createTempFile("carbon", ".xml");
+        Files.write(carbonXml.toPath(), carbon.getBytes(StandardCharsets.UTF_8));
+        return carbonXml;
+    }
+
+    /**
+     * Counters read at the start and the end of the measurement.
+     */
+    private class Sample {
+
+        private final long time = System.nanoTime();
+        private final long offered = offeredEventCount.sum();
+        private final long enqueued;
+        private final long droppedOldest;
+        private final long indexed;
+        private final long allocatedBytes = allocatedBytes();
+
+        private Sample(StubElasticsearchServer stub, MBeanServer mBeanServer, ObjectName statistics)
+                throws Exception {
+            enqueued = (long) mBeanServer.getAttribute(statistics, "EnqueuedEventCount");
+            droppedOldest = (long) mBeanServer.getAttribute(statistics, "DroppedOldestEventCount");
+            indexed = stub.getIndexedDocumentCount();
+        }
+    }
+
+    /**
+     * @return bytes allocated by the live threads of the JVM, except the ones of the stub server. This includes the
+     * producers, the publisher threads and the http client, which are started once before the measurement.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long[] threadIds = threadBean.getAllThreadIds();
+        ThreadInfo[] threadInfos = threadBean.getThreadInfo(threadIds);
+        long[] allocated = ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadIds);
+        long total = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            // Threads which ended in between have no info
+            if (threadInfos[i] == null || allocated[i] < 0) {
+                continue;
+            }
+            String threadName = threadInfos[i].getThreadName();
+            if (!threadName.startsWith("StubElasticsearchServer") && !threadName.startsWith("HTTP-Dispatcher")) {
+                total += allocated[i];
+            }
+        }
+        return total;
+    }
+}
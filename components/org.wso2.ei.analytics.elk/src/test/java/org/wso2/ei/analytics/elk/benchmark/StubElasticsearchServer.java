@@ -0,0 +1,215 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-process stand in for an Elasticsearch node, answering just the requests the observer sends: the ping, the
+ * index template, the test document of the health probe and _bulk.
+ * Bulk requests are answered after a configurable latency, rejecting a configurable share of the documents with
+ * 429 like a node whose write queue is full. Documents are only counted, nothing is stored.
+ */
+public class StubElasticsearchServer {
+
+    private static final String SHARDS = "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}";
+
+    private final long latency;
+    private final double rejectionRate;
+
+    private final LongAdder bulkRequestCount = new LongAdder();
+    private final LongAdder indexedDocumentCount = new LongAdder();
+    private final LongAdder rejectedDocumentCount = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latency       time taken to answer a bulk request (in millis)
+     * @param rejectionRate share of the bulk documents rejected with 429, between 0 and 1
+     */
+    public StubElasticsearchServer(long latency, double rejectionRate) {
+        this.latency = latency;
+        this.rejectionRate = rejectionRate;
+    }
+
+    /**
+     * Starts listening on a free port of the loopback address.
+     *
+     * @param threads number of requests answered concurrently
+     * @throws IOException if the server can not be started
+     */
+    public void start(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "StubElasticsearchServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getBulkRequestCount() {
+        return bulkRequestCount.sum();
+    }
+
+    public long getIndexedDocumentCount() {
+        return indexedDocumentCount.sum();
+    }
+
+    public long getRejectedDocumentCount() {
+        return rejectedDocumentCount.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("HEAD".equals(method)) {
+                // Ping
+                exchange.sendResponseHeaders(200, -1);
+            } else if (path.endsWith("/_bulk")) {
+                handleBulk(exchange);
+            } else if ("DELETE".equals(method)) {
+                // Test document of the health probe
+                respond(exchange, 200, documentResponse(indexOf(path), "deleted"));
+            } else if (path.contains("/_doc/")) {
+                drain(exchange.getRequestBody());
+                respond(exchange, 201, documentResponse(indexOf(path), "created"));
+            } else {
+                // Index template, lifecycle policy and the first rollover index
+                drain(exchange.getRequestBody());
+                respond(exchange, 200, "{\"acknowledged\":true}");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        // Every document is an action line followed by a source line
+        int documents = (int) (drain(body) / 2);
+        bulkRequestCount.increment();
+
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder response = new StringBuilder(documents * 160 + 64);
+        response.append("{\"took\":").append(latency).append(",\"errors\":");
+        int errorsIndex = response.length();
+        response.append("false,\"items\":[");
+        int rejected = 0;
+        for (int i = 0; i < documents; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append("{\"index\":{\"_index\":\"eidata\",\"_type\":\"_doc\",\"_id\":\"stub-").append(i)
+                    .append("\",");
+            if (rejectionRate > 0 && random.nextDouble() < rejectionRate) {
+                rejected++;
+                response.append("\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\",")
+                        .append("\"reason\":\"rejected execution by the stub\"}}}");
+            } else {
+                response.append("\"_version\":1,\"result\":\"created\",").append(SHARDS)
+                        .append(",\"_seq_no\":0,\"_primary_term\":1,\"status\":201}}");
+            }
+        }
+        response.append("]}");
+        if (rejected > 0) {
+            response.replace(errorsIndex, errorsIndex + "false".length(), "true");
+        }
+
+        indexedDocumentCount.add(documents - rejected);
+        rejectedDocumentCount.add(rejected);
+        respond(exchange, 200, response.toString());
+    }
+
+    private static String documentResponse(String index, String result) {
+        return "{\"_index\":\"" + index + "\",\"_type\":\"_doc\",\"_id\":\"1\",\"_version\":1,\"result\":\"" +
+                result + "\"," + SHARDS + ",\"_seq_no\":0,\"_primary_term\":1}";
+    }
+
+    private static String indexOf(String path) {
+        int end = path.indexOf('/', 1);
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the request body to the end.
+     *
+     * @return number of lines in the body
+     */
+    private static long drain(InputStream body) throws IOException {
+        byte[] buffer = new byte[8192];
+        long lines = 0;
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+}
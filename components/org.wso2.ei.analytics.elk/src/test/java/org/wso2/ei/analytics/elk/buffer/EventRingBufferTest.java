@@ -0,0 +1,126 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.buffer;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+public class EventRingBufferTest extends TestCase {
+
+    public void testOfferAndPollInOrder() throws Exception {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(3, OverflowPolicy.DROP_NEWEST, 0);
+
+        // Wrap around the slots a few times
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buffer.offer(i));
+            assertTrue(buffer.offer(i + 100));
+            assertEquals(2, buffer.size());
+            assertEquals(Integer.valueOf(i), buffer.poll());
+            assertEquals(Integer.valueOf(i + 100), buffer.poll());
+            assertTrue(buffer.isEmpty());
+        }
+        assertNull(buffer.poll());
+    }
+
+    public void testDropNewest() throws Exception {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(2, OverflowPolicy.DROP_NEWEST, 0);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getDroppedNewestCount());
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        assertEquals(Integer.valueOf(2), buffer.poll());
+    }
+
+    public void testDropOldest() throws Exception {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(2, OverflowPolicy.DROP_OLDEST, 0);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertTrue(buffer.offer(3));
+
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getDroppedOldestCount());
+        assertEquals(Integer.valueOf(2), buffer.poll());
+        assertEquals(Integer.valueOf(3), buffer.poll());
+    }
+
+    public void testBlockTimesOut() throws Exception {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(2, OverflowPolicy.BLOCK, 10);
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+
+        assertEquals(1, buffer.getBlockTimedOutCount());
+        assertEquals(1, buffer.getTotalDroppedCount());
+    }
+
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 4;
+        final int eventsPerProducer = 10000;
+        final EventRingBuffer<Integer> buffer = new EventRingBuffer<>(producers * eventsPerProducer,
+                OverflowPolicy.DROP_NEWEST, 0);
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < eventsPerProducer; j++) {
+                    buffer.offer(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * eventsPerProducer, buffer.size());
+        assertEquals(0, buffer.getTotalDroppedCount());
+    }
+
+    public void testAwaitEventsWakesOnOffer() throws Exception {
+        final EventRingBuffer<Integer> buffer = new EventRingBuffer<>(4, OverflowPolicy.DROP_NEWEST, 0);
+
+        assertFalse(buffer.awaitEvents(TimeUnit.MILLISECONDS.toNanos(10)));
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            buffer.offer(1);
+        });
+        producer.start();
+
+        // Waits far longer than the producer delay unless the offer unparks the consumer
+        long start = System.nanoTime();
+        while (!buffer.awaitEvents(TimeUnit.SECONDS.toNanos(30))) {
+            assertTrue("Consumer was not woken up", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        producer.join();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.buffer;
+
+import junit.framework.TestCase;
+
+public class PartitionedEventBufferTest extends TestCase {
+
+    public void testSameKeySamePartition() throws Exception {
+        PartitionedEventBuffer<String> buffer = new PartitionedEventBuffer<>(4, 400, OverflowPolicy.DROP_NEWEST, 0);
+
+        assertEquals(4, buffer.getPartitionCount());
+        for (int i = 0; i < 50; i++) {
+            String flowId = "flow-" + i;
+            EventRingBuffer<String> partition = buffer.partitionFor(flowId);
+            assertSame(partition, buffer.getPartition(buffer.partitionIndexFor(flowId)));
+            assertTrue(partition.offer(flowId));
+            assertTrue(partition.offer(flowId));
+        }
+        assertEquals(100, buffer.size());
+
+        // Both events of a flow are drained by the worker of its partition
+        for (int i = 0; i < buffer.getPartitionCount(); i++) {
+            EventRingBuffer<String> partition = buffer.getPartition(i);
+            String flowId;
+            while ((flowId = partition.poll()) != null) {
+                assertEquals(i, buffer.partitionIndexFor(flowId));
+                assertEquals(flowId, partition.poll());
+            }
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    public void testCapacitySplit() throws Exception {
+        PartitionedEventBuffer<String> buffer = new PartitionedEventBuffer<>(3, 10, OverflowPolicy.DROP_NEWEST, 0);
+
+        // Rounded up so the partitions hold at least the configured capacity
+        assertEquals(4, buffer.getPartition(0).getCapacity());
+        assertEquals(12, buffer.getCapacity());
+        assertEquals(0, buffer.partitionIndexFor(null));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.filter;
+
+import junit.framework.TestCase;
+import org.wso2.ei.analytics.elk.util.ElasticObserverConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ComponentFilterTest extends TestCase {
+
+    public void testIncludedTypes() {
+        ComponentFilter filter = new ComponentFilter(Arrays.asList("Sequence", "API"),
+                Collections.<String>emptyList(), Collections.<String>emptyList());
+        assertTrue(filter.accept("Sequence", "main"));
+        assertTrue(filter.accept("API", "StockQuoteAPI"));
+        assertFalse(filter.accept("Endpoint", "main"));
+        assertFalse(filter.accept("sequence", "main"));
+        assertFalse(filter.accept(null, "main"));
+    }
+
+    public void testIncludedNames() {
+        ComponentFilter filter = new ComponentFilter(Arrays.asList("Sequence", "Endpoint"),
+                Arrays.asList("main", "StockQuoteEP"), Collections.<String>emptyList());
+        assertTrue(filter.accept("Sequence", "main"));
+        assertTrue(filter.accept("Endpoint", "StockQuoteEP"));
+        assertFalse(filter.accept("Sequence", "fault"));
+        // A name is only published with one of the included types
+        assertFalse(filter.accept("API", "main"));
+    }
+
+    public void testExcludedNames() {
+        ComponentFilter filter = new ComponentFilter(Arrays.asList("Sequence", "Endpoint"),
+                Arrays.asList("main", "API_INSEQ"), Arrays.asList("API_INSEQ", "AnonymousEndpoint"));
+        assertTrue(filter.accept("Sequence", "main"));
+        // Exclusion wins over inclusion
+        assertFalse(filter.accept("Sequence", "API_INSEQ"));
+        assertFalse(filter.accept("Endpoint", "AnonymousEndpoint"));
+    }
+
+    public void testEmptyIncludedNamesAcceptsEveryName() {
+        ComponentFilter filter = new ComponentFilter(Collections.singletonList("Sequence"),
+                Collections.<String>emptyList(), Collections.singletonList("fault"));
+        assertTrue(filter.accept("Sequence", "main"));
+        assertTrue(filter.accept("Sequence", "anything"));
+        assertFalse(filter.accept("Sequence", "fault"));
+    }
+
+    public void testEmptyConfig() {
+        ComponentFilter filter = new ComponentFilter(ComponentFilter.parseRules(""),
+                ComponentFilter.parseRules(""), ComponentFilter.parseRules(""));
+        assertTrue(filter.getIncludedTypes().isEmpty());
+        assertTrue(filter.getIncludedNames().isEmpty());
+        assertTrue(filter.getExcludedNames().isEmpty());
+        // Without an included type nothing is published
+        assertFalse(filter.accept("Sequence", "main"));
+        assertFalse(filter.accept("API", "StockQuoteAPI"));
+    }
+
+    public void testDefaultRules() {
+        ComponentFilter filter = new ComponentFilter(
+                ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_TYPES),
+                ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_INCLUDED_COMPONENT_NAMES),
+                ComponentFilter.parseRules(ElasticObserverConstants.DEFAULT_EXCLUDED_COMPONENT_NAMES));
+        assertTrue(filter.accept(ElasticObserverConstants.SEQUENCE, "main"));
+        assertTrue(filter.accept(ElasticObserverConstants.INBOUND_ENDPOINT, "HttpListener"));
+        assertFalse(filter.accept(ElasticObserverConstants.SEQUENCE, "PROXY_INSEQ"));
+        assertFalse(filter.accept(ElasticObserverConstants.ENDPOINT, "AnonymousEndpoint"));
+        assertFalse(filter.accept("Mediator", "LogMediator"));
+    }
+
+    public void testParseRules() {
+        List<String> rules = ComponentFilter.parseRules(" Sequence ,, Proxy Service ,\tAPI ,");
+        assertEquals(Arrays.asList("Sequence", "Proxy Service", "API"), rules);
+        assertTrue(ComponentFilter.parseRules("").isEmpty());
+        assertTrue(ComponentFilter.parseRules(" , ,").isEmpty());
+    }
+
+    public void testRulesAreUnmodifiable() {
+        ComponentFilter filter = new ComponentFilter(Collections.singletonList("Sequence"),
+                Collections.<String>emptyList(), Collections.<String>emptyList());
+        try {
+            filter.getIncludedTypes().add("API");
+            fail("Included types are modifiable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        assertFalse(filter.accept("API", "StockQuoteAPI"));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.filter;
+
+import junit.framework.TestCase;
+import org.apache.synapse.aspects.flow.statistics.publishing.PublishingEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class FlowSamplerTest extends TestCase {
+
+    public void testSamplesPercentageOfFlows() throws Exception {
+        FlowSampler sampler = new FlowSampler(5, false);
+        List<PublishingEvent> events = Collections.singletonList(event(0));
+
+        int kept = 0;
+        for (int i = 0; i < 100000; i++) {
+            String flowId = UUID.randomUUID().toString();
+            boolean sampled = sampler.sample(flowId, events);
+            // The decision only depends on the flow id
+            assertEquals(sampled, sampler.isSampled(flowId));
+            if (sampled) {
+                kept++;
+            }
+        }
+        assertTrue("Kept " + kept + " flows", kept > 4500 && kept < 5500);
+        assertEquals(100000 - kept, sampler.getSampledOutCount());
+    }
+
+    public void testKeepsFaultyFlows() throws Exception {
+        FlowSampler keepFaults = new FlowSampler(0, true);
+        FlowSampler dropFaults = new FlowSampler(0, false);
+        List<PublishingEvent> faulty = new ArrayList<>(Arrays.asList(event(0), event(1)));
+
+        assertTrue(keepFaults.sample("abcd1234", faulty));
+        assertFalse(keepFaults.sample("abcd1234", Collections.singletonList(event(0))));
+        assertFalse(dropFaults.sample("abcd1234", faulty));
+        assertTrue(new FlowSampler(100, false).sample("abcd1234", Collections.singletonList(event(0))));
+    }
+
+    public void testComponentFilter() throws Exception {
+        ComponentFilter filter = new ComponentFilter(ComponentFilter.parseRules("Sequence, Proxy Service"),
+                ComponentFilter.parseRules(""), ComponentFilter.parseRules("PROXY_INSEQ,"));
+
+        assertTrue(filter.accept("Proxy Service", "TestProxy"));
+        assertFalse(filter.accept("Proxy Service", "PROXY_INSEQ"));
+        assertFalse(filter.accept("Endpoint", "TestEndpoint"));
+
+        ComponentFilter onlyNames = new ComponentFilter(ComponentFilter.parseRules("Sequence"),
+                ComponentFilter.parseRules("TestSequence"), Collections.<String>emptyList());
+        assertTrue(onlyNames.accept("Sequence", "TestSequence"));
+        assertFalse(onlyNames.accept("Sequence", "OtherSequence"));
+    }
+
+    private static PublishingEvent event(int faultCount) {
+        PublishingEvent event = new PublishingEvent();
+        event.setComponentType("Sequence");
+        event.setComponentName("TestSequence");
+        event.setFaultCount(faultCount);
+        return event;
+    }
+}
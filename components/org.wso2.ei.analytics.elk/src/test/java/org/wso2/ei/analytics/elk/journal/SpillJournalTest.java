@@ -0,0 +1,144 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.journal;
+
+import junit.framework.TestCase;
+import org.wso2.ei.analytics.elk.publisher.StatisticsEvent;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SpillJournalTest extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("spill-journal");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    public void testAppendAndPollAcrossSegments() throws Exception {
+        SpillJournal journal = new SpillJournal(directory, 256, 1024 * 1024);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(journal.append(new StatisticsEvent("Proxy Service", "TestProxy", "flow-" + i, i, 5,
+                    i % 2 == 0)));
+        }
+        assertEquals(20, journal.getPendingCount());
+        assertTrue(journal.getSizeInBytes() > 256);
+
+        List<StatisticsEvent> events = new ArrayList<>();
+        assertEquals(20, journal.poll(100, events));
+        for (int i = 0; i < 20; i++) {
+            StatisticsEvent event = events.get(i);
+            assertEquals("Proxy Service", event.getComponentType());
+            assertEquals("TestProxy", event.getComponentName());
+            assertEquals("flow-" + i, event.getFlowId());
+            assertEquals(i, event.getStartTime());
+            assertEquals(5, event.getDuration());
+            assertEquals(i % 2 == 0, event.isSuccess());
+        }
+        assertTrue(journal.isEmpty());
+        assertEquals(20, journal.getReplayedCount());
+
+        // Only the segment being appended to is kept
+        assertEquals(256, journal.getSizeInBytes());
+        journal.close();
+    }
+
+    public void testEvictsOldestSegmentOverCap() throws Exception {
+        SpillJournal journal = new SpillJournal(directory, 128, 256);
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(journal.append(new StatisticsEvent("Sequence", "TestSequence", "f" + i, i, 5, true)));
+        }
+        assertEquals(256, journal.getSizeInBytes());
+        assertTrue(journal.getEvictedCount() > 0);
+        assertEquals(30, journal.getPendingCount() + journal.getEvictedCount());
+
+        // The newest event survives the eviction
+        List<StatisticsEvent> events = new ArrayList<>();
+        journal.poll(100, events);
+        assertEquals("f29", events.get(events.size() - 1).getFlowId());
+        journal.close();
+    }
+
+    public void testRequeuedEventsAreReplayedFirst() throws Exception {
+        SpillJournal journal = new SpillJournal(directory, 4096, 1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            journal.append(new StatisticsEvent("Sequence", "TestSequence", "f" + i, i, 5, true));
+        }
+
+        List<StatisticsEvent> events = new ArrayList<>();
+        journal.poll(3, events);
+        journal.requeue(events.subList(1, 3));
+        assertEquals(4, journal.getPendingCount());
+        assertEquals(1, journal.getReplayedCount());
+
+        // The rejected events come back before the events still in the segment, in their order
+        events.clear();
+        assertEquals(4, journal.poll(10, events));
+        assertEquals("f1", events.get(0).getFlowId());
+        assertEquals("f2", events.get(1).getFlowId());
+        assertEquals("f3", events.get(2).getFlowId());
+        assertEquals("f4", events.get(3).getFlowId());
+        assertTrue(journal.isEmpty());
+        journal.close();
+    }
+
+    public void testReplaysSegmentsAfterRestart() throws Exception {
+        SpillJournal journal = new SpillJournal(directory, 4096, 1024 * 1024);
+        journal.append(new StatisticsEvent("API", "TestAPI", "abcd1234", 42, 7, false));
+        journal.append(new StatisticsEvent("Endpoint", "TestEndpoint", null, 43, 8, true));
+
+        // A requeued event is written to the journal on close
+        List<StatisticsEvent> events = new ArrayList<>();
+        journal.poll(1, events);
+        journal.requeue(Collections.singletonList(events.get(0)));
+        journal.close();
+
+        // The partly replayed segment is replayed again from its start
+        SpillJournal reopened = new SpillJournal(directory, 4096, 1024 * 1024);
+        assertEquals(3, reopened.getPendingCount());
+
+        events.clear();
+        reopened.poll(10, events);
+        assertEquals(3, events.size());
+        assertEquals("abcd1234", events.get(0).getFlowId());
+        assertNull(events.get(1).getFlowId());
+        assertEquals("TestAPI", events.get(2).getComponentName());
+        assertFalse(events.get(2).isSuccess());
+        reopened.close();
+    }
+}
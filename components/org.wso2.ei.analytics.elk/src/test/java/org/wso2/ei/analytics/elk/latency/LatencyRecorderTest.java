@@ -0,0 +1,114 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.latency;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyRecorderTest extends TestCase {
+
+    public void testBucketBoundaries() throws Exception {
+        long previous = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long highest = LatencyHistogram.highestEquivalentValue(i);
+            assertTrue(highest > previous);
+            // The lowest and highest values of every bucket map back to it
+            assertEquals(i, LatencyHistogram.bucketIndex(previous + 1));
+            assertEquals(i, LatencyHistogram.bucketIndex(highest));
+            previous = highest;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    public void testPercentilesWithinPrecision() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 1; i <= 10000; i++) {
+            recorder.record("Proxy Service", "TestProxy", i);
+        }
+        recorder.record("Endpoint", "TestEndpoint", 5);
+
+        List<LatencySummary> summaries = new ArrayList<>();
+        assertEquals(2, recorder.drain(summaries));
+
+        LatencySummary proxy = find(summaries, "TestProxy");
+        assertEquals(10000, proxy.getCount());
+        assertWithinPrecision(5000, proxy.getP50());
+        assertWithinPrecision(9000, proxy.getP90());
+        assertWithinPrecision(9900, proxy.getP99());
+        assertWithinPrecision(9990, proxy.getP999());
+        assertEquals(10000, proxy.getMax());
+
+        LatencySummary endpoint = find(summaries, "TestEndpoint");
+        assertEquals(5, endpoint.getP50());
+        assertEquals(5, endpoint.getP999());
+
+        // Histograms are reset by the drain
+        summaries.clear();
+        assertEquals(0, recorder.drain(summaries));
+    }
+
+    public void testConcurrentRecording() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    recorder.record("Sequence", "TestSequence", i % 100);
+                }
+            });
+            threads[t].start();
+        }
+
+        List<LatencySummary> summaries = new ArrayList<>();
+        long count = 0;
+        while (true) {
+            boolean alive = false;
+            for (Thread thread : threads) {
+                alive |= thread.isAlive();
+            }
+            // Drains racing with the recording threads must not lose or double count values
+            recorder.drain(summaries);
+            if (!alive) {
+                break;
+            }
+        }
+        recorder.drain(summaries);
+        for (LatencySummary summary : summaries) {
+            count += summary.getCount();
+        }
+        assertEquals(40000, count);
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 32);
+    }
+
+    private static LatencySummary find(List<LatencySummary> summaries, String componentName) {
+        for (LatencySummary summary : summaries) {
+            if (summary.getComponentName().equals(componentName)) {
+                return summary;
+            }
+        }
+        fail("No summary for " + componentName);
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.mbean;
+
+import junit.framework.TestCase;
+import org.wso2.ei.analytics.elk.services.ClusterCircuitBreaker;
+
+import java.util.concurrent.TimeUnit;
+
+public class PrometheusTextFormatterTest extends TestCase {
+
+    public void testBucketHistogramPercentiles() {
+        BucketHistogram histogram = new BucketHistogram(10, 100, 1000);
+        assertEquals(0, histogram.valueAtPercentile(99));
+
+        for (int i = 0; i < 98; i++) {
+            histogram.record(5);
+        }
+        histogram.record(70);
+        histogram.record(5000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(98 * 5 + 70 + 5000, histogram.getSum());
+        assertEquals(5000, histogram.getMax());
+        assertEquals(10, histogram.valueAtPercentile(50));
+        assertEquals(100, histogram.valueAtPercentile(99));
+
+        // Values above the last bound fall in the overflow bucket, resolved to the largest recorded value
+        assertEquals(5000, histogram.valueAtPercentile(100));
+        assertEquals(1, histogram.getBucketCounts()[3]);
+    }
+
+    public void testFormat() {
+        PublisherMetrics publisherMetrics = new PublisherMetrics();
+        assertEquals(-1, publisherMetrics.getTimeSinceLastSuccessfulBulk());
+
+        publisherMetrics.recordBulkStarted(200);
+        publisherMetrics.recordBulkCompleted(TimeUnit.MILLISECONDS.toNanos(40));
+        publisherMetrics.recordBulkStarted(3);
+        publisherMetrics.recordBulkFailed(TimeUnit.MILLISECONDS.toNanos(3));
+        publisherMetrics.recordRejectedDocuments(3);
+        publisherMetrics.recordEncoding(4, 2000);
+        assertTrue(publisherMetrics.getTimeSinceLastSuccessfulBulk() >= 0);
+        assertEquals(500.0, publisherMetrics.getAverageEncodingTime());
+
+        ClusterCircuitBreaker circuitBreaker = new ClusterCircuitBreaker(() -> true, 1, 10, 10);
+        try {
+            String text = PrometheusTextFormatter.format(new ElasticObserverStatistics(publisherMetrics,
+                    circuitBreaker));
+
+            assertTrue(text.contains("# TYPE wso2ei_elk_enqueued_events_total counter\n"));
+            assertTrue(text.contains("wso2ei_elk_dropped_events_total{reason=\"drop_newest\"} 0\n"));
+            assertTrue(text.contains("wso2ei_elk_circuit_open 0\n"));
+            assertTrue(text.contains("wso2ei_elk_rejected_documents_total 3\n"));
+            assertTrue(text.contains("wso2ei_elk_failed_bulks_total 1\n"));
+            assertTrue(text.contains("wso2ei_elk_encoding_time_per_event_nanoseconds 500\n"));
+
+            // Buckets are cumulative
+            assertTrue(text.contains("# TYPE wso2ei_elk_bulk_size_documents histogram\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_size_documents_bucket{le=\"1\"} 0\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_size_documents_bucket{le=\"10\"} 1\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_size_documents_bucket{le=\"250\"} 2\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_size_documents_bucket{le=\"+Inf\"} 2\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_size_documents_sum 203\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_latency_milliseconds_bucket{le=\"5\"} 1\n"));
+            assertTrue(text.contains("wso2ei_elk_bulk_latency_milliseconds_count 2\n"));
+        } finally {
+            circuitBreaker.shutdown();
+        }
+    }
+}
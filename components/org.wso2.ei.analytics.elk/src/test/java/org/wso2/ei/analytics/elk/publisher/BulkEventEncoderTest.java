@@ -0,0 +1,45 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+
+public class BulkEventEncoderTest extends TestCase {
+
+    public void testStringEscaping() throws Exception {
+        assertEquals("\"plain\"", write("plain"));
+        assertEquals("\"quote\\\" backslash\\\\\"", write("quote\" backslash\\"));
+        assertEquals("\"new\\nline\\ttab\\u0001\"", write("new\nline\ttab\u0001"));
+        assertEquals("null", write(null));
+    }
+
+    public void testUtf8Encoding() throws Exception {
+        // 2, 3 and 4 byte UTF-8 sequences
+        String value = "caf\u00e9 \u0dc3\u0dd2 \ud83d\ude00";
+        assertEquals("\"" + value + "\"", write(value));
+    }
+
+    private static String write(String value) {
+        EncodingBuffer buffer = new EncodingBuffer(1);
+        BulkEventEncoder.writeString(value, buffer);
+        return new String(buffer.array(), 0, buffer.length(), StandardCharsets.UTF_8);
+    }
+}
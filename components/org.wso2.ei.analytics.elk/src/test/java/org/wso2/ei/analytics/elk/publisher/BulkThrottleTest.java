@@ -0,0 +1,110 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+public class BulkThrottleTest extends TestCase {
+
+    public void testRejectionsHalveLimits() throws Exception {
+        BulkThrottle throttle = new BulkThrottle(512, 4);
+        assertFalse(throttle.isThrottled());
+
+        throttle.onBulkStarted();
+        throttle.onBulkCompleted(true);
+        assertEquals(256, throttle.getBulkLimit());
+        assertEquals(2, throttle.getConcurrencyLimit());
+        assertTrue(throttle.isThrottled());
+
+        for (int i = 0; i < 10; i++) {
+            throttle.onBulkStarted();
+            throttle.onBulkCompleted(true);
+        }
+        // Bulk size stops at 1/16 of the configured size, requests in flight at 0
+        assertEquals(32, throttle.getBulkLimit());
+        assertEquals(0, throttle.getConcurrencyLimit());
+        assertEquals(0, throttle.getInFlightBulks());
+    }
+
+    public void testCleanBulksRestoreLimits() throws Exception {
+        BulkThrottle throttle = new BulkThrottle(512, 2);
+        for (int i = 0; i < 10; i++) {
+            throttle.onBulkStarted();
+            throttle.onBulkCompleted(true);
+        }
+
+        // Bulk size grows back first, one step per clean bulk
+        throttle.onBulkStarted();
+        throttle.onBulkCompleted(false);
+        assertEquals(32 + 48, throttle.getBulkLimit());
+        assertEquals(0, throttle.getConcurrencyLimit());
+
+        for (int i = 0; i < 20; i++) {
+            throttle.onBulkStarted();
+            throttle.onBulkCompleted(false);
+        }
+        assertEquals(512, throttle.getBulkLimit());
+        assertEquals(2, throttle.getConcurrencyLimit());
+        assertFalse(throttle.isThrottled());
+    }
+
+    public void testWaitsForInFlightBulks() throws Exception {
+        BulkThrottle throttle = new BulkThrottle(100, 1);
+        throttle.onBulkStarted();
+        throttle.onBulkCompleted(true);
+        assertEquals(0, throttle.getConcurrencyLimit());
+
+        // No bulk may be collected while one is in flight
+        throttle.onBulkStarted();
+        assertFalse(throttle.hasCapacity());
+        assertFalse(throttle.awaitCapacity(TimeUnit.MILLISECONDS.toNanos(10)));
+
+        Thread completer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throttle.onBulkCompleted(false);
+        });
+        completer.start();
+        assertTrue(throttle.awaitCapacity(TimeUnit.SECONDS.toNanos(10)));
+        completer.join();
+    }
+
+    public void testRetryDelayIsJitteredAndCapped() throws Exception {
+        BulkRetryScheduler scheduler = new BulkRetryScheduler(100, 1000, 3);
+        try {
+            for (int i = 0; i < 100; i++) {
+                long first = scheduler.nextDelay(0);
+                assertTrue("Delay " + first, first >= 50 && first <= 100);
+                long third = scheduler.nextDelay(2);
+                assertTrue("Delay " + third, third >= 200 && third <= 400);
+                long capped = scheduler.nextDelay(20);
+                assertTrue("Delay " + capped, capped >= 500 && capped <= 1000);
+            }
+            assertTrue(scheduler.canRetry(2));
+            assertFalse(scheduler.canRetry(3));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class CompressedBulkConsumerTest extends TestCase {
+
+    public void testCompressesBulkBody() throws Exception {
+        byte[] documents = "{\"type\":\"Sequence\"}{\"type\":\"API\"}".getBytes(StandardCharsets.UTF_8);
+
+        // Sources are slices of the same encoding buffer
+        BulkRequest bulkRequest = new BulkRequest();
+        bulkRequest.add(new IndexRequest("eidata").source(documents, 0, 19, XContentType.JSON));
+        bulkRequest.add(new IndexRequest("eidata").source(documents, 19, 14, XContentType.JSON));
+        bulkRequest.add(new IndexRequest("eidata-rollup").source(documents, 19, 14, XContentType.JSON));
+
+        byte[] body = new CompressedBulkConsumer(null).compress(bulkRequest);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            byte[] chunk = new byte[256];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
+        assertEquals("{\"index\":{\"_index\":\"eidata\"}}\n{\"type\":\"Sequence\"}\n" +
+                        "{\"index\":{\"_index\":\"eidata\"}}\n{\"type\":\"API\"}\n" +
+                        "{\"index\":{\"_index\":\"eidata-rollup\"}}\n{\"type\":\"API\"}\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
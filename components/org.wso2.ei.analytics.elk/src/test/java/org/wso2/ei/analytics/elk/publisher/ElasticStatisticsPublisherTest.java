@@ -24,14 +24,11 @@ import org.apache.synapse.aspects.flow.statistics.publishing.PublishingFlow;
 import org.junit.Assert;
 import org.wso2.carbon.das.data.publisher.util.PublisherUtil;
 
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
-import java.util.SimpleTimeZone;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.TimeZone;
 
 public class ElasticStatisticsPublisherTest extends TestCase {
 
@@ -57,55 +54,38 @@ public class ElasticStatisticsPublisherTest extends TestCase {
         flow.addEvent(event1);
         flow.addEvent(event2);
 
-        Map<String, Object> map1 = new HashMap<String, Object>();
-        Map<String, Object> map2 = new HashMap<String, Object>();
-
-        // for event1
-        map1.put("flowid", "abcd1234");
-        map1.put("host", PublisherUtil.getHostAddress());
-        map1.put("type", "Proxy Service");
-        map1.put("name", "TestProxy");
-
-        long time1 = event1.getStartTime();
-        Date date1 = new Date(time1);
+        String host = PublisherUtil.getHostAddress();
+        String actionLine = "{\"index\":{\"_index\":\"eidata\"}}\n";
 
         DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-        String formattedDate1 = dateFormat.format(date1);
-
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
         DateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
-        timeFormat.setTimeZone(new SimpleTimeZone(SimpleTimeZone.UTC_TIME, "UTC"));
-        String formattedTime1 = timeFormat.format(date1);
-
-        String timestampElastic1 = formattedDate1 + "T" + formattedTime1 + "Z";
-        map1.put("@timestamp", timestampElastic1);
+        timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
 
-        map1.put("success", true);
+        // for event1
+        Date date1 = new Date(event1.getStartTime());
+        String timestampElastic1 = dateFormat.format(date1) + "T" + timeFormat.format(date1) + "Z";
+        String expected1 = actionLine + "{\"type\":\"Proxy Service\",\"name\":\"TestProxy\"," +
+                "\"flowid\":\"abcd1234\",\"host\":\"" + host + "\",\"@timestamp\":\"" + timestampElastic1 + "\"," +
+                "\"success\":true}\n";
 
         // for event2
-        map2.put("flowid", "abcd1234");
-        map2.put("host", PublisherUtil.getHostAddress());
-        map2.put("type", "Sequence");
-        map2.put("name", "TestSequence");
+        Date date2 = new Date(event2.getStartTime());
+        String timestampElastic2 = dateFormat.format(date2) + "T" + timeFormat.format(date2) + "Z";
+        String expected2 = actionLine + "{\"type\":\"Sequence\",\"name\":\"TestSequence\"," +
+                "\"flowid\":\"abcd1234\",\"host\":\"" + host + "\",\"@timestamp\":\"" + timestampElastic2 + "\"," +
+                "\"success\":false}\n";
 
-        long time2 = event2.getStartTime();
-        Date date2 = new Date(time2);
-
-        String formattedDate2 = dateFormat.format(date2);
-        String formattedTime2 = timeFormat.format(date2);
-
-        String timestampElastic2 = formattedDate2 + "T" + formattedTime2 + "Z";
-        map2.put("@timestamp", timestampElastic2);
-
-        map2.put("success", false);
+        ElasticStatisticsPublisher.process(flow);
 
-        Queue<Map<String, Object>> queue = new ConcurrentLinkedQueue<Map<String, Object>>();
-        queue.add(map1);
-        queue.add(map2);
+        BulkEventEncoder encoder = new BulkEventEncoder(new IndexRouter("eidata", IndexPartitioning.NONE), host);
+        EncodingBuffer buffer = new EncodingBufferPool(1).acquire();
 
-        ElasticStatisticsPublisher.process(flow);
+        encoder.encode(ElasticStatisticsPublisher.getAllMappingsQueue().partitionFor("abcd1234").poll(), buffer);
+        Assert.assertEquals(expected1, new String(buffer.array(), 0, buffer.length(), StandardCharsets.UTF_8));
 
-        Assert.assertTrue(map1.equals(ElasticStatisticsPublisher.getAllMappingsQueue().poll()) &&
-                map2.equals(ElasticStatisticsPublisher.getAllMappingsQueue().poll())
-        );
+        buffer.reset();
+        encoder.encode(ElasticStatisticsPublisher.getAllMappingsQueue().partitionFor("abcd1234").poll(), buffer);
+        Assert.assertEquals(expected2, new String(buffer.array(), 0, buffer.length(), StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
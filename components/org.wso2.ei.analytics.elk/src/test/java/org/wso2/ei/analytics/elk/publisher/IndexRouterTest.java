@@ -0,0 +1,72 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+public class IndexRouterTest extends TestCase {
+
+    // 2019-05-14T13:45:10.250Z
+    private static final long TIME = ZonedDateTime.of(2019, 5, 14, 13, 45, 10, 250000000, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    private static final long HOUR = 3600 * 1000;
+
+    public void testSingleIndex() throws Exception {
+        IndexRouter router = new IndexRouter("eidata", IndexPartitioning.NONE);
+        assertEquals("eidata", router.indexName(TIME));
+        assertEquals("eidata", router.indexName(0));
+        assertEquals("eidata", router.getIndexPattern());
+        assertEquals("{\"index\":{\"_index\":\"eidata\"}}\n", actionLine(router, TIME));
+    }
+
+    public void testDailyIndices() throws Exception {
+        IndexRouter router = new IndexRouter("eidata", IndexPartitioning.DAILY);
+        assertEquals("eidata-2019.05.14", router.indexName(TIME));
+        assertEquals("eidata-2019.05.15", router.indexName(TIME + 11 * HOUR));
+        assertEquals("eidata-1969.12.31", router.indexName(-1));
+        assertEquals("eidata-*", router.getIndexPattern());
+        assertEquals("{\"index\":{\"_index\":\"eidata-2019.05.14\"}}\n", actionLine(router, TIME));
+
+        // Same partition reuses the encoded action line
+        assertSame(router.actionLine(TIME), router.actionLine(TIME + HOUR));
+    }
+
+    public void testHourlyIndices() throws Exception {
+        IndexRouter router = new IndexRouter("eidata", IndexPartitioning.HOURLY);
+        assertEquals("eidata-2019.05.14.13", router.indexName(TIME));
+        assertEquals("eidata-2019.05.14.14", router.indexName(TIME + HOUR));
+        assertEquals("eidata-2019.05.15.00", router.indexName(TIME + 11 * HOUR));
+        assertEquals("{\"index\":{\"_index\":\"eidata-2019.05.14.13\"}}\n", actionLine(router, TIME));
+    }
+
+    public void testRolloverWritesToAlias() throws Exception {
+        IndexRouter router = new IndexRouter("eidata", IndexPartitioning.ROLLOVER);
+        assertEquals("eidata", router.indexName(TIME));
+        assertEquals("eidata-*", router.getIndexPattern());
+    }
+
+    private static String actionLine(IndexRouter router, long time) {
+        return new String(router.actionLine(time), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+import org.wso2.ei.analytics.elk.rollup.RollupAggregator;
+import org.wso2.ei.analytics.elk.rollup.RollupSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RollupDocumentEncoderTest extends TestCase {
+
+    public void testEncode() throws Exception {
+        RollupAggregator aggregator = new RollupAggregator();
+        aggregator.record("Proxy Service", "TestProxy", true, 3);
+        aggregator.record("Proxy Service", "TestProxy", true, 5000000);
+        List<RollupSummary> summaries = new ArrayList<>();
+        aggregator.drain(summaries);
+
+        RollupDocumentEncoder encoder = new RollupDocumentEncoder(new IndexRouter("eidata", IndexPartitioning.NONE),
+                "10.0.0.1");
+        EncodingBuffer buffer = new EncodingBuffer(16);
+        encoder.encode(summaries.get(0), 0, 60000, buffer);
+
+        assertEquals("{\"index\":{\"_index\":\"eidata\"}}\n" +
+                "{\"type\":\"Proxy Service\",\"name\":\"TestProxy\",\"host\":\"10.0.0.1\"," +
+                "\"@timestamp\":\"1970-01-01T00:00:00.000Z\",\"success\":true,\"rollup_window\":60000," +
+                "\"count\":2,\"duration_sum\":5000003,\"duration_max\":5000000," +
+                "\"duration_histogram\":{\"lt_4\":1,\"ge_4194304\":1}}\n",
+                new String(buffer.array(), 0, buffer.length(), StandardCharsets.UTF_8));
+    }
+}
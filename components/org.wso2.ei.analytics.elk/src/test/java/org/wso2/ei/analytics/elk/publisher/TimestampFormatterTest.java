@@ -0,0 +1,58 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.publisher;
+
+import junit.framework.TestCase;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+public class TimestampFormatterTest extends TestCase {
+
+    private static final DateTimeFormatter EXPECTED_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    public void testFormatMatchesIsoUtc() throws Exception {
+        TimestampFormatter formatter = new TimestampFormatter();
+        long[] times = {
+                0L,
+                // Around midnight UTC, where the date used to be taken from the default time zone
+                Instant.parse("2019-06-30T23:59:59.999Z").toEpochMilli(),
+                Instant.parse("2019-07-01T00:00:00.000Z").toEpochMilli(),
+                Instant.parse("2020-02-29T12:34:56.007Z").toEpochMilli(),
+                System.currentTimeMillis()
+        };
+
+        for (long time : times) {
+            assertEquals(EXPECTED_FORMAT.format(Instant.ofEpochMilli(time)), formatter.format(time));
+        }
+    }
+
+    public void testCachedSecondAndDay() throws Exception {
+        TimestampFormatter formatter = new TimestampFormatter();
+        long start = Instant.parse("2019-12-31T23:59:58.000Z").toEpochMilli();
+
+        // Walk across seconds and the day boundary, back and forth
+        for (long time = start; time < start + 3000; time += 7) {
+            assertEquals(EXPECTED_FORMAT.format(Instant.ofEpochMilli(time)), formatter.format(time));
+        }
+        assertEquals("2019-12-31T23:59:58.000Z", formatter.format(start));
+    }
+}
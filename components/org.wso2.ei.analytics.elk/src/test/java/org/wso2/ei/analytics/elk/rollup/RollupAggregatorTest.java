@@ -0,0 +1,125 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.rollup;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RollupAggregatorTest extends TestCase {
+
+    public void testAggregatesPerKeyAndResets() throws Exception {
+        RollupAggregator aggregator = new RollupAggregator();
+
+        aggregator.record("Proxy Service", "TestProxy", true, 0);
+        aggregator.record("Proxy Service", "TestProxy", true, 3);
+        aggregator.record("Proxy Service", "TestProxy", true, 100);
+        aggregator.record("Proxy Service", "TestProxy", false, 7);
+        aggregator.record("Endpoint", "TestEndpoint", true, 1);
+
+        List<RollupSummary> summaries = new ArrayList<>();
+        assertEquals(3, aggregator.drain(summaries));
+
+        RollupSummary succeeded = find(summaries, "TestProxy", true);
+        assertEquals(3, succeeded.getCount());
+        assertEquals(103, succeeded.getDurationSum());
+        assertEquals(100, succeeded.getDurationMax());
+        assertEquals(1, succeeded.getDurationBucketCount(0));
+        // 3 millis is in [2, 4), 100 millis in [64, 128)
+        assertEquals(1, succeeded.getDurationBucketCount(2));
+        assertEquals(1, succeeded.getDurationBucketCount(7));
+
+        assertEquals(1, find(summaries, "TestProxy", false).getCount());
+        assertEquals(1, find(summaries, "TestEndpoint", true).getDurationBucketCount(1));
+
+        // Keys without events in the window are not published
+        summaries.clear();
+        aggregator.record("Endpoint", "TestEndpoint", true, 1);
+        assertEquals(1, aggregator.drain(summaries));
+        assertEquals("TestEndpoint", summaries.get(0).getComponentName());
+    }
+
+    public void testConcurrentRecording() throws Exception {
+        RollupAggregator aggregator = new RollupAggregator();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    aggregator.record("Sequence", "TestSequence" + (i % 3), true, i % 10);
+                }
+            });
+            threads[t].start();
+        }
+
+        List<RollupSummary> summaries = new ArrayList<>();
+        long count = 0;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        aggregator.drain(summaries);
+        for (RollupSummary summary : summaries) {
+            count += summary.getCount();
+        }
+        assertEquals(40000, count);
+    }
+
+    public void testRecordingWhileDraining() throws Exception {
+        RollupAggregator aggregator = new RollupAggregator();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50000; i++) {
+                    aggregator.record("Sequence", "TestSequence", true, 5);
+                }
+            });
+            threads[t].start();
+        }
+
+        // Flush while the events are recorded, every window must add up on its own
+        List<RollupSummary> summaries = new ArrayList<>();
+        boolean recording = true;
+        while (recording) {
+            recording = false;
+            for (Thread thread : threads) {
+                recording |= thread.isAlive();
+            }
+            aggregator.drain(summaries);
+        }
+
+        long count = 0;
+        for (RollupSummary summary : summaries) {
+            assertEquals(5 * summary.getCount(), summary.getDurationSum());
+            assertEquals(summary.getCount(), summary.getDurationBucketCount(RollupCounters.bucketIndex(5)));
+            count += summary.getCount();
+        }
+        assertTrue(summaries.size() > 1);
+        assertEquals(200000, count);
+    }
+
+    private static RollupSummary find(List<RollupSummary> summaries, String componentName, boolean success) {
+        for (RollupSummary summary : summaries) {
+            if (summary.getComponentName().equals(componentName) && summary.isSuccess() == success) {
+                return summary;
+            }
+        }
+        fail("No summary for " + componentName);
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClusterCircuitBreakerTest extends TestCase {
+
+    public void testOpensAfterThresholdAndRecovers() throws Exception {
+        AtomicBoolean reachable = new AtomicBoolean(false);
+        AtomicInteger pings = new AtomicInteger();
+        ClusterCircuitBreaker circuitBreaker = new ClusterCircuitBreaker(() -> {
+            pings.incrementAndGet();
+            return reachable.get();
+        }, 2, 10, 40);
+
+        try {
+            circuitBreaker.recordFailure();
+            assertEquals(ClusterCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+            // A success in between resets the consecutive failures
+            circuitBreaker.recordSuccess();
+            circuitBreaker.recordFailure();
+            assertTrue(circuitBreaker.isAllowingRequests());
+
+            circuitBreaker.recordFailure();
+            assertEquals(ClusterCircuitBreaker.State.OPEN, circuitBreaker.getState());
+            assertEquals(1, circuitBreaker.getOpenedCount());
+            assertFalse(circuitBreaker.isAllowingRequests());
+
+            // Failed pings back off up to the maximum
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (circuitBreaker.getBackoff() < 40 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(40, circuitBreaker.getBackoff());
+            assertTrue(pings.get() >= 2);
+            assertFalse(circuitBreaker.awaitAllowingRequests(TimeUnit.MILLISECONDS.toNanos(1)));
+
+            // The worker gets unparked once a ping succeeds
+            reachable.set(true);
+            assertTrue(circuitBreaker.awaitAllowingRequests(TimeUnit.SECONDS.toNanos(5)));
+            assertEquals(ClusterCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+            // A failed trial opens the circuit again
+            circuitBreaker.recordFailure();
+            assertEquals(ClusterCircuitBreaker.State.OPEN, circuitBreaker.getState());
+            assertEquals(2, circuitBreaker.getOpenedCount());
+
+            assertTrue(circuitBreaker.awaitAllowingRequests(TimeUnit.SECONDS.toNanos(5)));
+            circuitBreaker.recordSuccess();
+            assertEquals(ClusterCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+            assertEquals(10, circuitBreaker.getBackoff());
+        } finally {
+            circuitBreaker.shutdown();
+        }
+    }
+
+    public void testStartsOpenUntilFirstProbe() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        ClusterCircuitBreaker circuitBreaker = new ClusterCircuitBreaker(() -> probes.incrementAndGet() > 1,
+                3, 10, 40);
+
+        try {
+            circuitBreaker.startOpen();
+            assertEquals(ClusterCircuitBreaker.State.OPEN, circuitBreaker.getState());
+            // Not counted as an outage
+            assertEquals(0, circuitBreaker.getOpenedCount());
+
+            // First probe runs right away and fails, the second one after the backoff succeeds
+            assertTrue(circuitBreaker.awaitAllowingRequests(TimeUnit.SECONDS.toNanos(5)));
+            assertEquals(2, probes.get());
+
+            circuitBreaker.recordSuccess();
+            assertEquals(ClusterCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        } finally {
+            circuitBreaker.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+* Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.ei.analytics.elk.services;
+
+import junit.framework.TestCase;
+import org.wso2.ei.analytics.elk.publisher.EncodingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WindowPublisherThreadTest extends TestCase {
+
+    private static final long WINDOW = 1000;
+
+    public void testPublishesEachEndedWindow() {
+        ClusterCircuitBreaker circuitBreaker = new ClusterCircuitBreaker(() -> true, 1, 10, 40);
+        RecordingPublisherThread thread = new RecordingPublisherThread(circuitBreaker);
+        try {
+            thread.startWindows(5 * WINDOW + 300);
+            assertEquals(6 * WINDOW, thread.publishEndedWindows(5 * WINDOW + 900));
+            assertTrue(thread.windows.isEmpty());
+
+            assertEquals(7 * WINDOW, thread.publishEndedWindows(6 * WINDOW + 2));
+            assertEquals(8 * WINDOW, thread.publishEndedWindows(7 * WINDOW));
+            assertWindows(thread, 5 * WINDOW, WINDOW, 6 * WINDOW, WINDOW);
+        } finally {
+            circuitBreaker.shutdown();
+        }
+    }
+
+    public void testWindowsEndedWhileTheClusterWasDownArePublishedTogether() throws Exception {
+        AtomicBoolean reachable = new AtomicBoolean(false);
+        ClusterCircuitBreaker circuitBreaker = new ClusterCircuitBreaker(reachable::get, 1, 10, 40);
+        RecordingPublisherThread thread = new RecordingPublisherThread(circuitBreaker);
+        try {
+            thread.startWindows(5 * WINDOW);
+            circuitBreaker.recordFailure();
+            assertFalse(circuitBreaker.isAllowingRequests());
+            assertEquals(7 * WINDOW, thread.publishEndedWindows(6 * WINDOW));
+            assertEquals(8 * WINDOW, thread.publishEndedWindows(7 * WINDOW + 5));
+            assertEquals(9 * WINDOW, thread.publishEndedWindows(8 * WINDOW));
+            assertTrue(thread.windows.isEmpty());
+
+            // One document per key covers the three windows, from the start of the first one
+            reachable.set(true);
+            assertTrue(circuitBreaker.awaitAllowingRequests(TimeUnit.SECONDS.toNanos(5)));
+            assertEquals(10 * WINDOW, thread.publishEndedWindows(9 * WINDOW + 10));
+            assertWindows(thread, 5 * WINDOW, 4 * WINDOW);
+
+            assertEquals(11 * WINDOW, thread.publishEndedWindows(10 * WINDOW));
+            assertWindows(thread, 5 * WINDOW, 4 * WINDOW, 9 * WINDOW, WINDOW);
+        } finally {
+            circuitBreaker.shutdown();
+        }
+    }
+
+    /**
+     * @param windows start and length of each published window, in order
+     */
+    private static void assertWindows(RecordingPublisherThread thread, long... windows) {
+        assertEquals(windows.length / 2, thread.windows.size());
+        for (int i = 0; i < windows.length / 2; i++) {
+            assertEquals(windows[2 * i], thread.windows.get(i)[0]);
+            assertEquals(windows[2 * i + 1], thread.windows.get(i)[1]);
+        }
+    }
+
+    /**
+     * Records the windows instead of encoding documents, so nothing is handed over to the bulk processor.
+     */
+    private static class RecordingPublisherThread extends WindowPublisherThread {
+
+        private final List<long[]> windows = new ArrayList<>();
+
+        RecordingPublisherThread(ClusterCircuitBreaker circuitBreaker) {
+            super(WINDOW, circuitBreaker);
+        }
+
+        @Override
+        protected int encodeWindow(long windowStart, long windowLength, EncodingBuffer buffer) {
+            windows.add(new long[]{windowStart, windowLength});
+            return 0;
+        }
+    }
+}
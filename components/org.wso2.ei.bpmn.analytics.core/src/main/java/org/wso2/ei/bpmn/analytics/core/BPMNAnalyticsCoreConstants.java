@@ -23,6 +23,10 @@ package org.wso2.ei.bpmn.analytics.core;
 public class BPMNAnalyticsCoreConstants {
 
     public static final String COLUMN_FINISHED_TIME = "finishedTime";
+    public static final String COLUMN_PROCESS_DEFINITION_ID = "processDefinitionId";
+    public static final String COLUMN_PROCESS_KEY_NAME = "processKeyName";
+    public static final String COLUMN_TASK_DEFINITION_KEY = "taskDefinitionKey";
+    public static final String COLUMN_ASSIGNEE = "assignee";
     public static final String ANALYTICS_AGGREGATE = "analytics/aggregates";
     public static final String ANALYTICS_SEARCH = "analytics/search";
     public static final String AVG = "AVG";
@@ -69,9 +73,53 @@ public class BPMNAnalyticsCoreConstants {
     public static final String TASK_INSTANCE_ID = "taskInstanceId";
     public static final int MIN_COUNT = 0;
     public static final int MAX_COUNT = 100000;
+    public static final String SORT_ASC = "ASC";
+    public static final String SORT_DESC = "DESC";
     // Analytics Rest Api Header Constants
     public static final String AUTH_BASIC_HEADER = "Basic";
 
+    // Defaults of the pooled http client used to call the DAS rest api, timeouts in milliseconds
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+    public static final int DEFAULT_CONNECTION_TIMEOUT = 10000;
+    public static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+    public static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 60000;
+
+    // Defaults of the cache of the DAS query results, time to live in milliseconds
+    public static final boolean DEFAULT_QUERY_CACHE_ENABLED = true;
+    public static final int DEFAULT_QUERY_CACHE_TIME_TO_LIVE = 5000;
+    public static final int DEFAULT_QUERY_CACHE_MAX_ENTRIES = 1000;
+
+    // Defaults of the executor running the queries of a batch concurrently, time out in milliseconds
+    public static final int DEFAULT_BATCH_QUERY_THREAD_POOL_SIZE = 10;
+    public static final int DEFAULT_BATCH_QUERY_QUEUE_SIZE = 100;
+    public static final int DEFAULT_BATCH_QUERY_TIME_OUT = 30000;
+
+    // Defaults of the local aggregates of the usage summary tables, intervals in milliseconds
+    public static final boolean DEFAULT_AGGREGATE_STORE_ENABLED = false;
+    public static final int DEFAULT_AGGREGATE_STORE_REFRESH_INTERVAL = 60000;
+    public static final int DEFAULT_AGGREGATE_STORE_SETTLE_DELAY = 300000;
+    public static final int DEFAULT_AGGREGATE_STORE_PAGE_SIZE = 1000;
+    public static final int DEFAULT_AGGREGATE_STORE_MAX_DAYS = 31;
+    public static final String DEFAULT_AGGREGATE_STORE_TIME_ZONE = "UTC";
+    public static final String MIN = "MIN";
+    public static final String MAX = "MAX";
+
+    // Batch query request and response keys
+    public static final String BATCH_QUERIES = "queries";
+    public static final String BATCH_QUERY_NAME = "query";
+    public static final String BATCH_FILTERS = "filters";
+    public static final String BATCH_TIME_OUT = "timeout";
+    public static final String BATCH_RESULTS = "results";
+    public static final String BATCH_RESULT = "result";
+    public static final String BATCH_STATUS = "status";
+    public static final String BATCH_COMPLETE = "complete";
+    public static final String BATCH_STATUS_OK = "ok";
+    public static final String BATCH_STATUS_TIMEOUT = "timeout";
+    public static final String BATCH_STATUS_REJECTED = "rejected";
+    public static final String BATCH_STATUS_UNKNOWN = "unknown";
+    public static final String BATCH_STATUS_ERROR = "error";
+
     public static final String PROCESS_CENTER_CONFIGURATION_FILE_NAME = "process-center.xml";
     public static final String ANALYTICS_SERVER_PASSWORD_SECRET_ALIAS = "PC.Analytics.Password";
     public static final String RUNTIME_ENVIRONMENT_PASSWORD_SECRET_ALIAS = "PC.Runtime.Environment.Password";
@@ -0,0 +1,92 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core;
+
+import org.json.JSONException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MonitorQueries names the queries of the process, task and user level monitors, so a dashboard can ask for
+ * several of them at once. The names are the ones of the bpmn-api jaggery endpoints calling the same queries.
+ */
+public class MonitorQueries {
+
+	/**
+	 * A monitor query, takes the filters as a JSON string and returns the result as a JSON string. Unlike the
+	 * monitor methods, the errors are thrown to the caller.
+	 */
+	public interface MonitorQuery {
+		String execute(String filters) throws JSONException, IOException, XMLStreamException;
+	}
+
+	private static final Map<String, MonitorQuery> queries;
+
+	static {
+		final ProcessLevelMonitor processLevelMonitor = new ProcessLevelMonitor();
+		final TaskLevelMonitor taskLevelMonitor = new TaskLevelMonitor();
+		final UserLevelMonitor userLevelMonitor = new UserLevelMonitor();
+
+		Map<String, MonitorQuery> map = new HashMap<>();
+		map.put("total_completed_tasks_vs_user_id_for_process",
+		        processLevelMonitor::queryTotalCompletedTasksVsUserIdForProcess);
+		map.put("total_involved_time_vs_user_id_for_process", processLevelMonitor::queryTotalTimeVsUserIdForProcess);
+		map.put("avg_time_vs_process_id", processLevelMonitor::queryAvgExecuteTimeVsProcessId);
+		map.put("process_instance_count_vs_process_id", processLevelMonitor::queryProcessInstanceCountVsProcessId);
+		map.put("avg_time_vs_process_version", processLevelMonitor::queryAvgExecuteTimeVsProcessVersion);
+		map.put("process_instance_count_vs_process_version",
+		        processLevelMonitor::queryProcessInstanceCountVsProcessVersion);
+		map.put("exec_time_vs_process_instance_id", processLevelMonitor::queryExecutionTimeVsProcessInstanceId);
+		map.put("process_instance_count_vs_date", processLevelMonitor::queryDateVsProcessInstanceCount);
+		map.put("process_definition_key_list", filters -> processLevelMonitor.queryProcessIdList());
+		map.put("process_key_list", filters -> processLevelMonitor.queryProcessKeyList());
+
+		map.put("avg_time_vs_task_id", taskLevelMonitor::queryAvgExecuteTimeVsTaskId);
+		map.put("task_instance_count_vs_task_id", taskLevelMonitor::queryTaskInstanceCountVsTaskId);
+		map.put("task_instance_count_vs_user_id", taskLevelMonitor::queryTaskInstanceCountVsUserId);
+		map.put("avg_wait_time_vs_user_id", taskLevelMonitor::queryAvgWaitingTimeVsUserId);
+		map.put("exec_time_vs_task_instance_id", taskLevelMonitor::queryExecutionTimeVsTaskInstanceId);
+		map.put("task_instance_count_vs_date", taskLevelMonitor::queryDateVsTaskInstanceCount);
+		map.put("task_definition_key_list", filters -> taskLevelMonitor.queryTaskList());
+		map.put("task_definition_key_list_vs_process_id", taskLevelMonitor::queryProcessRelatedTaskList);
+
+		map.put("total_involved_time_vs_user_id", userLevelMonitor::queryTotalInvolvedTimeVsUserId);
+		map.put("total_completed_tasks_vs_user_id", userLevelMonitor::queryTotalCompletedTasksVsUserId);
+		map.put("total_involved_time_vs_process_id", userLevelMonitor::queryTotalInvolvedTimeVsProcessId);
+		map.put("total_involved_instance_count_vs_process_id",
+		        userLevelMonitor::queryTotalInvolvedInstanceCountVsProcessId);
+		map.put("user_level_task_instance_count_vs_task_id", userLevelMonitor::queryUserLevelTaskInstanceCountVsTaskId);
+		map.put("user_level_avg_time_vs_task_id", userLevelMonitor::queryUserLevelAvgExecuteTimeVsTaskId);
+		map.put("user_id_list", filters -> userLevelMonitor.queryUserList());
+		queries = Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Get a monitor query by its name
+	 *
+	 * @param name name of the query, e.g. avg_time_vs_process_id
+	 * @return the query, null if there is no query with the given name
+	 */
+	public static MonitorQuery get(String name) {
+		return queries.get(name);
+	}
+}
@@ -23,16 +23,12 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.XML;
-import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateField;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateQuery;
-import org.wso2.ei.bpmn.analytics.core.models.SearchQuery;
+import org.wso2.ei.bpmn.analytics.core.clients.AggregateQueryExecutor;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
 import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Hashtable;
 
 /**
  * ProcessLevelMonitor holds all the functionalites for the process level monitoring
@@ -49,60 +45,7 @@ public class ProcessLevelMonitor {
 	public String getTotalCompletedTasksVsUserIdForProcess(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-
-				String queryStr = "processDefinitionId:" + "\"'" + processId + "'\"";
-				if (from != 0 && to != 0) {
-					queryStr += " AND " + BPMNAnalyticsCoreUtils
-							.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-				}
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Total Completed Tasks Vs User Id for process: " + processId + " | Result:"
-							+ BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-								BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String assignee = values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						int totalInvolvedTasks = values.getInt(BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
-						table.put(assignee, totalInvolvedTasks);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getIntegerValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-									BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS, order, userCount);
-				}
-			}
-
+			sortedResult = queryTotalCompletedTasksVsUserIdForProcess(filters);
 		} catch (XMLStreamException | JSONException | IOException e) {
 			log.error("BPMN Analytics Core - Total Completed Tasks Vs UserId UserLevelMonitoring error.", e);
 		}
@@ -112,6 +55,32 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalCompletedTasksVsUserIdForProcess(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryTotalCompletedTasksVsUserIdForProcess(String filters)
+			throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					       BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, userCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT assignee, SUM(duration) AS totalExecutionTime FROM
 	 *                TASK_USAGE_SUMMARY where <processId> GROUP BY assignee;
@@ -122,55 +91,7 @@ public class ProcessLevelMonitor {
 	public String getTotalTimeVsUserIdForProcess(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.SUM);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				String queryStr = "processDefinitionId:" + "\"'" + processId+ "'\"";
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get total execution time Vs User Id for process. | Result:" +
-							BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String userId =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						double totalExecTime = values.getInt(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-						table.put(userId, totalExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-							                          BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME, order,
-							                          taskCount);
-				}
-			}
+			sortedResult = queryTotalTimeVsUserIdForProcess(filters);
 		} catch (JSONException | XMLStreamException | IOException e) {
 			log.error("BPMN Analytics Core - total execution time Vs UserId ProcessLevelMonitoring error.", e);
 		}
@@ -180,6 +101,28 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalTimeVsUserIdForProcess(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTotalTimeVsUserIdForProcess(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.sum(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME)
+					.integerValues()
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processDefinitionId, AVG(duration) AS avgExecutionTime FROM
 	 *                PROCESS_USAGE_SUMMARY WHERE <date range> GROUP BY processDefinitionId;
@@ -190,60 +133,7 @@ public class ProcessLevelMonitor {
 	public String getAvgExecuteTimeVsProcessId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.AVG);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				if (from != 0 && to != 0) {
-					query.setQuery(BPMNAnalyticsCoreUtils.getDateRangeQuery(
-							BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to));
-				}
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Avg Execution Time Vs ProcessId Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY)
-								      .getString(0);
-						double avgExecTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-						table.put(processDefKey, avgExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getDoubleValueSortedList(table,
-					                                                               BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
-					                                                               BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME,
-					                                                               order,
-					                                                               processCount);
-				}
-			}
+			sortedResult = queryAvgExecuteTimeVsProcessId(filters);
 		} catch (JSONException | XMLStreamException | IOException e) {
 			log.error("BPMN Analytics Core - Avg Execution Time Vs ProcessId ProcessLevelMonitoring error.", e);
 		}
@@ -253,6 +143,29 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getAvgExecuteTimeVsProcessId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryAvgExecuteTimeVsProcessId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.avg(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+					     BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, processCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processDefinitionId, COUNT(processInstanceId) AS processInstanceCount
 	 *                FROM PROCESS_USAGE_SUMMARY WHERE <date range> GROUP BY processDefinitionId;
@@ -263,60 +176,7 @@ public class ProcessLevelMonitor {
 	public String getProcessInstanceCountVsProcessId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				if (from != 0 && to != 0) {
-					query.setQuery(BPMNAnalyticsCoreUtils.getDateRangeQuery(
-							BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to));
-				}
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Process Instance Count Vs ProcessId Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY)
-								      .getString(0);
-						int processInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-						table.put(processDefKey, processInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getIntegerValueSortedList(table,
-					                                                                BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
-					                                                                BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT,
-					                                                                order,
-					                                                                processCount);
-				}
-			}
+			sortedResult = queryProcessInstanceCountVsProcessId(filters);
 		} catch (JSONException | XMLStreamException | IOException e) {
 			log.error("BPMN Analytics Core - Process Instance Count Vs ProcessId ProcessLevelMonitoring error.", e);
 		}
@@ -326,6 +186,30 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getProcessInstanceCountVsProcessId(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryProcessInstanceCountVsProcessId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+					       BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, processCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processVersion, AVG(duration) AS avgExecutionTime FROM
 	 *                PROCESS_USAGE_SUMMARY WHERE <date range> AND <processId> GROUP BY
@@ -337,55 +221,7 @@ public class ProcessLevelMonitor {
 	public String getAvgExecuteTimeVsProcessVersion(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processKey = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_KEY);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.AVG);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_VERSION);
-				query.setQuery("processKeyName:" + "\"'" + processKey + "'\"");
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Avg Execution Time Vs Process Version Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processVersion =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_VERSION)
-								      .getString(0);
-						double avgExecTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-						table.put(processVersion, avgExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.PROCESS_VERSION,
-							                          BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME, order,
-							                          processCount);
-				}
-			}
+			sortedResult = queryAvgExecuteTimeVsProcessVersion(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Avg Execution Time Vs Process Version ProcessLevelMonitoring error.", e);
 		}
@@ -395,6 +231,28 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getAvgExecuteTimeVsProcessVersion(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryAvgExecuteTimeVsProcessVersion(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processKey = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_KEY);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.avg(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, BPMNAnalyticsCoreConstants.PROCESS_VERSION,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_KEY_NAME, processKey)
+					.orderBy(order, processCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processVersion, COUNT(processInstanceId) AS processInstanceCount
 	 *                FROM PROCESS_USAGE_SUMMARY GROUP BY processVersion;
@@ -405,55 +263,7 @@ public class ProcessLevelMonitor {
 	public String getProcessInstanceCountVsProcessVersion(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processKey = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_KEY);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_VERSION);
-				query.setQuery("processKeyName:" + "\"'" + processKey + "'\"");
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Process Instance Count Vs Process Version Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processVersion =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_VERSION)
-								      .getString(0);
-						int processInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-						table.put(processVersion, processInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getIntegerValueSortedList(table, BPMNAnalyticsCoreConstants.PROCESS_VERSION,
-							                           BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT,
-							                           order, processCount);
-				}
-			}
+			sortedResult = queryProcessInstanceCountVsProcessVersion(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Process Instance Count Vs Process Version ProcessLevelMonitoring error.", e);
 		}
@@ -463,6 +273,30 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getProcessInstanceCountVsProcessVersion(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryProcessInstanceCountVsProcessVersion(String filters)
+			throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processKey = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_KEY);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int processCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+					       BPMNAnalyticsCoreConstants.PROCESS_VERSION,
+					       BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_KEY_NAME, processKey)
+					.orderBy(order, processCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT DISTINCT processInstanceId, duration FROM PROCESS_USAGE_SUMMARY
 	 *                WHERE <processId> AND <date range>
@@ -473,51 +307,7 @@ public class ProcessLevelMonitor {
 	public String getExecutionTimeVsProcessInstanceId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int limit = filterObj.getInt(BPMNAnalyticsCoreConstants.LIMIT);
-
-				SearchQuery searchQuery = new SearchQuery();
-				searchQuery.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				String queryStr = "processDefinitionId:" + "\"'" + processId + "'\"";
-				if (from != 0 && to != 0) {
-					queryStr += " AND " + BPMNAnalyticsCoreUtils
-							.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-				}
-				searchQuery.setQuery(queryStr);
-				searchQuery.setStart(BPMNAnalyticsCoreConstants.MIN_COUNT);
-				searchQuery.setCount(BPMNAnalyticsCoreConstants.MAX_COUNT);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Execution Time Vs Process Instance Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(searchQuery));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH),
-						      BPMNAnalyticsCoreUtils.getJSONString(searchQuery));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getString(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_ID);
-						double executionTime = values.getDouble(BPMNAnalyticsCoreConstants.DURATION);
-						table.put(processDefKey, executionTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_ID,
-							                          BPMNAnalyticsCoreConstants.DURATION, order, limit);
-				}
-			}
+			sortedResult = queryExecutionTimeVsProcessInstanceId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Execution Time Vs Process InstanceId ProcessLevelMonitoring error.", e);
 		}
@@ -527,6 +317,32 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getExecutionTimeVsProcessInstanceId(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryExecutionTimeVsProcessInstanceId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int limit = filterObj.getInt(BPMNAnalyticsCoreConstants.LIMIT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.search(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+					        BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_ID,
+					        BPMNAnalyticsCoreConstants.DURATION)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, limit);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * Perform query: SELECT DISTINCT finishTime, COUNT(*) AS processInstanceCount FROM
 	 *                PROCESS_USAGE_SUMMARY WHERE <date range> AND <process id list>
@@ -538,86 +354,7 @@ public class ProcessLevelMonitor {
 	public String getDateVsProcessInstanceCount(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				boolean aggregateByMonth = filterObj.getBoolean(BPMNAnalyticsCoreConstants.AGGREGATE_BY_MONTH);
-				JSONArray processIdList =
-						filterObj.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_ID_LIST);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				if(aggregateByMonth) {
-					query.setGroupByField(BPMNAnalyticsCoreConstants.MONTH);
-				} else {
-					query.setGroupByField(BPMNAnalyticsCoreConstants.FINISHED_TIME);
-				}
-				String queryStr = BPMNAnalyticsCoreUtils
-						.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-
-				if (processIdList.length() != 0) {
-					queryStr += " AND ";
-					for (int i = 0; i < processIdList.length(); i++) {
-						if (i == 0) {
-							queryStr +=
-									"(processDefinitionId:" + "\"'" + processIdList.getString(i) +
-									"'\"";
-						} else {
-							queryStr += " OR " + "processDefinitionId:" + "\"'" +
-							            processIdList.getString(i) + "'\"";
-						}
-						if (i == processIdList.length() - 1) {
-							queryStr += ")";
-						}
-					}
-				}
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<Long, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						long completedTime;
-						if(aggregateByMonth) {
-							completedTime = Long.parseLong(
-									values.getJSONArray(BPMNAnalyticsCoreConstants.MONTH).getString(0));
-						} else {
-							completedTime = Long.parseLong(
-									values.getJSONArray(BPMNAnalyticsCoreConstants.FINISHED_TIME)
-									      .getString(0));
-						}
-						int processInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-						table.put(completedTime, processInstanceCount);
-					}
-					if(aggregateByMonth) {
-						sortedResult = BPMNAnalyticsCoreUtils
-								.getLongKeySortedList(table, BPMNAnalyticsCoreConstants.MONTH,
-								                      BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-					} else {
-						sortedResult = BPMNAnalyticsCoreUtils
-								.getLongKeySortedList(table, BPMNAnalyticsCoreConstants.FINISHED_TIME,
-								                      BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-					}
-				}
-			}
+			sortedResult = queryDateVsProcessInstanceCount(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Date Vs Process Instance Count ProcessLevelMonitoring error.", e);
 		}
@@ -627,6 +364,31 @@ public class ProcessLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getDateVsProcessInstanceCount(String)}, the errors are thrown instead of being logged
+	 */
+	String queryDateVsProcessInstanceCount(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			boolean aggregateByMonth = filterObj.getBoolean(BPMNAnalyticsCoreConstants.AGGREGATE_BY_MONTH);
+			JSONArray processIdList = filterObj.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_ID_LIST);
+
+			String timeField = aggregateByMonth ? BPMNAnalyticsCoreConstants.MONTH :
+					           BPMNAnalyticsCoreConstants.FINISHED_TIME;
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, timeField,
+					       BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT)
+					.whereFinishedBetween(from, to)
+					.whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+					            BPMNAnalyticsCoreUtils.getStringList(processIdList));
+			sortedResult = AggregateQueryExecutor.getTimeSeries(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * Get process definition key list
 	 *
@@ -635,56 +397,32 @@ public class ProcessLevelMonitor {
 	public String getProcessIdList() {
 		String processIdList = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get the Process Id List Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray array = new JSONArray(result);
-				JSONArray resultArray = new JSONArray();
-
-				if (array.length() != 0) {
-					for (int i = 0; i < array.length(); i++) {
-						JSONObject jsonObj = array.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY)
-								      .getString(0);
-						JSONObject o = new JSONObject();
-						o.put(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, processDefKey);
-						resultArray.put(o);
-					}
-					processIdList = resultArray.toString();
-				}
-
-				if (log.isDebugEnabled()) {
-					log.debug("Process Id List Result:" + processIdList);
-				}
-			}
+			processIdList = queryProcessIdList();
 		} catch (Exception e) {
 			log.error("BPMN Analytics Core - process id list error.", e);
 		}
 		return processIdList;
 	}
 
+	/**
+	 * Run the query of {@link #getProcessIdList()}, the errors are thrown instead of being logged
+	 */
+	String queryProcessIdList() throws JSONException, IOException, XMLStreamException {
+		String processIdList = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+					       BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
+			processIdList = AggregateQueryExecutor.getKeyList(spec);
+
+			if (log.isDebugEnabled()) {
+				log.debug("Process Id List Result:" + processIdList);
+			}
+		}
+		return processIdList;
+	}
+
 	/**
 	 * Get process key list
 	 *
@@ -693,53 +431,28 @@ public class ProcessLevelMonitor {
 	public String getProcessKeyList() {
 		String processKeyList = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_KEY);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Process Key List Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray array = new JSONArray(result);
-				JSONArray resultArray = new JSONArray();
-
-				if (array.length() != 0) {
-					for (int i = 0; i < array.length(); i++) {
-						JSONObject jsonObj = array.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_KEY)
-								      .getString(0);
-						JSONObject o = new JSONObject();
-						o.put(BPMNAnalyticsCoreConstants.PROCESS_KEY, processKey);
-						resultArray.put(o);
-					}
-					processKeyList = resultArray.toString();
-				}
-
-				if (log.isDebugEnabled()) {
-					log.debug("Process Key List Result:" + processKeyList);
-				}
-			}
+			processKeyList = queryProcessKeyList();
 		} catch (Exception e) {
 			log.error("BPMN Analytics Core - process key list error.", e);
 		}
 		return processKeyList;
 	}
+
+	/**
+	 * Run the query of {@link #getProcessKeyList()}, the errors are thrown instead of being logged
+	 */
+	String queryProcessKeyList() throws JSONException, IOException, XMLStreamException {
+		String processKeyList = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, BPMNAnalyticsCoreConstants.PROCESS_KEY,
+					       BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_COUNT);
+			processKeyList = AggregateQueryExecutor.getKeyList(spec);
+
+			if (log.isDebugEnabled()) {
+				log.debug("Process Key List Result:" + processKeyList);
+			}
+		}
+		return processKeyList;
+	}
 }
@@ -22,16 +22,12 @@ import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateField;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateQuery;
+import org.wso2.ei.bpmn.analytics.core.clients.AggregateQueryExecutor;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
 import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
-import org.wso2.ei.bpmn.analytics.core.models.SearchQuery;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Hashtable;
 
 /**
  * TaskLevelMonitor holds all the functionalites for the task level monitoring
@@ -49,56 +45,7 @@ public class TaskLevelMonitor {
 	public String getAvgExecuteTimeVsTaskId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.AVG);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				query.setQuery("processDefinitionId:" + "\"'" + processId + "'\"");
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Avg Execution Time Vs Task Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils
-								      .getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String taskDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-								      .getString(0);
-						double avgExecTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-						table.put(taskDefKey, avgExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
-							                          BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME, order,
-							                          taskCount);
-				}
-			}
+			sortedResult = queryAvgExecuteTimeVsTaskId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Avg Execution Time Vs TaskId TaskLevelMonitoring error.", e);
 		}
@@ -108,6 +55,28 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getAvgExecuteTimeVsTaskId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryAvgExecuteTimeVsTaskId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.avg(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					     BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT taskDefinitionKey, COUNT(taskInstanceId) AS taskInstanceCount FROM
 	 *                USER_INVOLVE_SUMMARY_DATA GROUP BY taskDefinitionKey;
@@ -118,56 +87,7 @@ public class TaskLevelMonitor {
 	public String getTaskInstanceCountVsTaskId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				query.setQuery("processDefinitionId:" + "\"'" + processId + "'\"");
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Task Instance Count Vs Task Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-								      .getString(0);
-						int processInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-						table.put(processDefKey, processInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getIntegerValueSortedList(table,
-					                                                                BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
-					                                                                BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT,
-					                                                                order,
-					                                                                taskCount);
-				}
-			}
+			sortedResult = queryTaskInstanceCountVsTaskId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Task Instance Count Vs TaskId TaskLevelMonitoring error.", e);
 		}
@@ -177,6 +97,28 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTaskInstanceCountVsTaskId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTaskInstanceCountVsTaskId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					       BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT assignee, COUNT(taskInstanceId) AS taskInstanceCount FROM
 	 *                TASK_USAGE_SUMMARY GROUP BY assignee;
@@ -187,57 +129,7 @@ public class TaskLevelMonitor {
 	public String getTaskInstanceCountVsUserId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				String queryStr = "taskDefinitionKey:" + "\"'" + taskId + "'\" AND " +"processDefinitionId:" + "\"'" + processId+ "'\"";
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Task Instance Count Vs User Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String userId =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						int taskInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-						table.put(userId, taskInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getIntegerValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-							                           BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT,
-							                           order, taskCount);
-				}
-			}
+			sortedResult = queryTaskInstanceCountVsUserId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Task Instance Count Vs UserId TaskLevelMonitoring error.", e);
 		}
@@ -247,6 +139,29 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTaskInstanceCountVsUserId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTaskInstanceCountVsUserId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY, taskId)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT assignee, AVG(duration) AS avgExecutionTime FROM
 	 *                TASK_USAGE_SUMMARY GROUP BY assignee;
@@ -257,56 +172,7 @@ public class TaskLevelMonitor {
 	public String getAvgWaitingTimeVsUserId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.AVG);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.AVG_WAITING_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				String queryStr = "taskDefinitionKey:" + "\"'" + taskId + "'\" AND " +"processDefinitionId:" + "\"'" + processId+ "'\"";
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Avg Waiting Time Vs User Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String userId =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						double avgExecTime = values.getInt(BPMNAnalyticsCoreConstants.AVG_WAITING_TIME);
-						table.put(userId, avgExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-							                          BPMNAnalyticsCoreConstants.AVG_WAITING_TIME, order,
-							                          taskCount);
-				}
-			}
+			sortedResult = queryAvgWaitingTimeVsUserId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Avg Waiting Time Vs UserId TaskLevelMonitoring error.", e);
 		}
@@ -316,6 +182,30 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getAvgWaitingTimeVsUserId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryAvgWaitingTimeVsUserId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.avg(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_WAITING_TIME)
+					.integerValues()
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY, taskId)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT DISTINCT taskInstanceId, duration FROM TASK_USAGE_SUMMARY
 	 *                WHERE <taskDefinitionKey> AND <date range>
@@ -326,52 +216,7 @@ public class TaskLevelMonitor {
 	public String getExecutionTimeVsTaskInstanceId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int limit = filterObj.getInt(BPMNAnalyticsCoreConstants.LIMIT);
-
-				SearchQuery searchQuery = new SearchQuery();
-				searchQuery.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				String queryStr = "taskDefinitionKey:" + "\"'" + taskId + "'\" AND " +"processDefinitionId:" + "\"'" + processId+ "'\"";
-				if (from != 0 && to != 0) {
-					queryStr += " AND " + BPMNAnalyticsCoreUtils
-							.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-				}
-				searchQuery.setQuery(queryStr);
-				searchQuery.setStart(BPMNAnalyticsCoreConstants.MIN_COUNT);
-				searchQuery.setCount(BPMNAnalyticsCoreConstants.MAX_COUNT);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Execution Time Vs Task Instance Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(searchQuery));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH),
-						      BPMNAnalyticsCoreUtils.getJSONString(searchQuery));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getString(BPMNAnalyticsCoreConstants.TASK_INSTANCE_ID);
-						double executionTime = values.getDouble(BPMNAnalyticsCoreConstants.DURATION);
-						table.put(processDefKey, executionTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.TASK_INSTANCE_ID,
-							                          BPMNAnalyticsCoreConstants.DURATION, order, limit);
-				}
-			}
+			sortedResult = queryExecutionTimeVsTaskInstanceId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Execution Time Vs Task InstanceId TaskLevelMonitoring error.", e);
 		}
@@ -381,6 +226,33 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getExecutionTimeVsTaskInstanceId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryExecutionTimeVsTaskInstanceId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String taskId = filterObj.getString(BPMNAnalyticsCoreConstants.TASK_ID);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int limit = filterObj.getInt(BPMNAnalyticsCoreConstants.LIMIT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.search(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE,
+					        BPMNAnalyticsCoreConstants.TASK_INSTANCE_ID,
+					        BPMNAnalyticsCoreConstants.DURATION)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY, taskId)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, limit);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * Perform query: SELECT DISTINCT finishTime, COUNT(*) AS taskInstanceCount FROM TASK_USAGE_SUMMARY
 	 *                WHERE <date range> AND <task id list> GROUP BY finishTime
@@ -391,69 +263,7 @@ public class TaskLevelMonitor {
 	public String getDateVsTaskInstanceCount(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				JSONArray taskIdList = filterObj.getJSONArray(BPMNAnalyticsCoreConstants.TASK_ID_LIST);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.FINISHED_TIME);
-				String queryStr = BPMNAnalyticsCoreUtils
-						.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-
-				queryStr +="AND " +"processDefinitionId:" + "\"'" + processId+ "'\"";
-
-				if (taskIdList.length() != 0) {
-					queryStr += " AND ";
-					for (int i = 0; i < taskIdList.length(); i++) {
-						if (i == 0) {
-							queryStr +=
-									"(taskDefinitionKey:" + "\"'" + taskIdList.getString(i) + "'\"";
-						} else {
-							queryStr += " OR " + "taskDefinitionKey:" + "\"'" +
-							            taskIdList.getString(i) + "'\"";
-						}
-						if (i == taskIdList.length() - 1) {
-							queryStr += ")";
-						}
-					}
-				}
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<Long, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						long completedTime = Long.parseLong(
-								values.getJSONArray(BPMNAnalyticsCoreConstants.FINISHED_TIME).getString(0));
-						int taskInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-						table.put(completedTime, taskInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getLongKeySortedList(table, BPMNAnalyticsCoreConstants.FINISHED_TIME,
-							                      BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-				}
-			}
+			sortedResult = queryDateVsTaskInstanceCount(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Date Vs Task Instance Count TaskLevelMonitoring error.", e);
 		}
@@ -463,6 +273,30 @@ public class TaskLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getDateVsTaskInstanceCount(String)}, the errors are thrown instead of being logged
+	 */
+	String queryDateVsTaskInstanceCount(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			JSONArray taskIdList = filterObj.getJSONArray(BPMNAnalyticsCoreConstants.TASK_ID_LIST);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.FINISHED_TIME,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT)
+					.whereFinishedBetween(from, to)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId)
+					.whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY,
+					            BPMNAnalyticsCoreUtils.getStringList(taskIdList));
+			sortedResult = AggregateQueryExecutor.getTimeSeries(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * Get task definition key list
 	 *
@@ -471,56 +305,32 @@ public class TaskLevelMonitor {
 	public String getTaskList() {
 		String taskIdList = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get the Task List Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray array = new JSONArray(result);
-				JSONArray resultArray = new JSONArray();
-
-				if (array.length() != 0) {
-					for (int i = 0; i < array.length(); i++) {
-						JSONObject jsonObj = array.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String taskDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-								      .getString(0);
-						JSONObject o = new JSONObject();
-						o.put(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY, taskDefKey);
-						resultArray.put(o);
-					}
-					taskIdList = resultArray.toString();
-				}
-
-				if (log.isDebugEnabled()) {
-					log.debug("Task List Result:" + taskIdList);
-				}
-			}
+			taskIdList = queryTaskList();
 		} catch (Exception e) {
 			log.error("BPMN Analytics Core - task id list error.", e);
 		}
 		return taskIdList;
 	}
 
+	/**
+	 * Run the query of {@link #getTaskList()}, the errors are thrown instead of being logged
+	 */
+	String queryTaskList() throws JSONException, IOException, XMLStreamException {
+		String taskIdList = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					       BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
+			taskIdList = AggregateQueryExecutor.getKeyList(spec);
+
+			if (log.isDebugEnabled()) {
+				log.debug("Task List Result:" + taskIdList);
+			}
+		}
+		return taskIdList;
+	}
+
 	/**
 	 * Get task definition key list for a selected process id
 	 *
@@ -530,57 +340,33 @@ public class TaskLevelMonitor {
 	public String getProcessRelatedTaskList(String filters) {
 		String taskIdList = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				String queryStr = "processDefinitionId:" + "\"'" + processId+ "'\"";
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				query.setAggregateFields(aggregateFields);
-				query.setQuery(queryStr);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get the Task List Result:" +
-							BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray array = new JSONArray(result);
-				JSONArray resultArray = new JSONArray();
-
-				if (array.length() != 0) {
-					for (int i = 0; i < array.length(); i++) {
-						JSONObject jsonObj = array.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String taskDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-										.getString(0);
-						JSONObject o = new JSONObject();
-						o.put(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY, taskDefKey);
-						resultArray.put(o);
-					}
-					taskIdList = resultArray.toString();
-				}
-
-				if (log.isDebugEnabled()) {
-					log.debug("Task List Result:" + taskIdList);
-				}
-			}
+			taskIdList = queryProcessRelatedTaskList(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - task id list error.", e);
 		}
 		return taskIdList;
 	}
+
+	/**
+	 * Run the query of {@link #getProcessRelatedTaskList(String)}, the errors are thrown instead of being logged
+	 */
+	String queryProcessRelatedTaskList(String filters) throws JSONException, IOException, XMLStreamException {
+		String taskIdList = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					       BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId);
+			taskIdList = AggregateQueryExecutor.getKeyList(spec);
+
+			if (log.isDebugEnabled()) {
+				log.debug("Task List Result:" + taskIdList);
+			}
+		}
+		return taskIdList;
+	}
 }
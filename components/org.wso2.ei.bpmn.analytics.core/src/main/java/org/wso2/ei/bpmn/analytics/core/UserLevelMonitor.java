@@ -19,18 +19,14 @@ package org.wso2.ei.bpmn.analytics.core;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateField;
+import org.wso2.ei.bpmn.analytics.core.clients.AggregateQueryExecutor;
 import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
-import org.wso2.ei.bpmn.analytics.core.models.AggregateQuery;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Hashtable;
 
 /**
  * UserLevelMonitor holds all the functionalities for the user level monitoring
@@ -50,59 +46,7 @@ public class UserLevelMonitor {
 	public String getTotalInvolvedTimeVsUserId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField sumField = new AggregateField();
-				sumField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				sumField.setAggregate(BPMNAnalyticsCoreConstants.SUM);
-				sumField.setAlias(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(sumField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				if (from != 0 && to != 0) {
-					query.setQuery(BPMNAnalyticsCoreUtils.getDateRangeQuery(
-							BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to));
-				}
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Total Involved Time Vs User Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils
-								      .getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String assignee =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						double totalInvolvedTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-						table.put(assignee, totalInvolvedTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-							                          BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME, order,
-							                          userCount);
-				}
-			}
+			sortedResult = queryTotalInvolvedTimeVsUserId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Total Involved Time Vs UserId UserLevelMonitoring error.", e);
 		}
@@ -112,6 +56,28 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalInvolvedTimeVsUserId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTotalInvolvedTimeVsUserId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.sum(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, userCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT assignUser, COUNT(*) AS completedTotalTasks FROM
 	 *                USER_INVOLVE_SUMMARY_DATA WHERE <date range> GROUP BY assignUser;
@@ -122,58 +88,7 @@ public class UserLevelMonitor {
 	public String getTotalCompletedTasksVsUserId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				if (from != 0 && to != 0) {
-					query.setQuery(BPMNAnalyticsCoreUtils.getDateRangeQuery(
-							BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to));
-				}
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Total Completed Tasks Vs User Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String assignee =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						int totalInvolvedTime =
-								values.getInt(BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
-						table.put(assignee, totalInvolvedTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getIntegerValueSortedList(table, BPMNAnalyticsCoreConstants.ASSIGN_USER,
-							                           BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS,
-							                           order, userCount);
-				}
-			}
+			sortedResult = queryTotalCompletedTasksVsUserId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Total Completed Tasks Vs UserId UserLevelMonitoring error.", e);
 		}
@@ -183,6 +98,28 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalCompletedTasksVsUserId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTotalCompletedTasksVsUserId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int userCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					       BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, userCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processDefKey, SUM(duration) AS totalInvolvedTime FROM
 	 *                USER_INVOLVE_SUMMARY WHERE <assignee> AND <date range> GROUP BY processDefKey;
@@ -193,62 +130,7 @@ public class UserLevelMonitor {
 	public String getTotalInvolvedTimeVsProcessId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int count = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField sumField = new AggregateField();
-				sumField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				sumField.setAggregate(BPMNAnalyticsCoreConstants.SUM);
-				sumField.setAlias(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(sumField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				String queryStr = "assignee:" + "\"'" + userId + "'\"";
-				if (from != 0 && to != 0) {
-					queryStr += " AND " + BPMNAnalyticsCoreUtils
-							.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-				}
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get Total Involved Time Vs Process Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY)
-								      .getString(0);
-						double totalInvolvedTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME);
-						table.put(processDefKey, totalInvolvedTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getDoubleValueSortedList(table,
-					                                                               BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
-					                                                               BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME,
-					                                                               order, count);
-				}
-			}
+			sortedResult = queryTotalInvolvedTimeVsProcessId(filters);
 		} catch (JSONException | XMLStreamException | IOException e) {
 			log.error("BPMN Analytics Core - Total Involved Time Vs ProcessId UserLevelMonitoring error.", e);
 		}
@@ -258,6 +140,31 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalInvolvedTimeVsProcessId(String)}, the errors are thrown instead of being logged
+	 */
+	String queryTotalInvolvedTimeVsProcessId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int count = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.sum(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					     BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.TOTAL_INVOLVED_TIME)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, userId)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, count);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT processDefKey, COUNT(*) AS totalInstanceCount FROM
 	 *                USER_INVOLVE_SUMMARY WHERE <assignee> AND <date range> GROUP BY
@@ -269,62 +176,7 @@ public class UserLevelMonitor {
 	public String getTotalInvolvedInstanceCountVsProcessId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
-				long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
-				String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int count = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TOTAL_INSTANCE_COUNT);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY);
-				String queryStr = "assignee:" + "\"'" + userId + "'\"";
-				if (from != 0 && to != 0) {
-					queryStr += " AND " + BPMNAnalyticsCoreUtils
-							.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from, to);
-				}
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug(
-							"Query to get Total Involved Instance Count Vs Process Id Result:" +
-							BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY)
-								      .getString(0);
-						int instanceCount = values.getInt(BPMNAnalyticsCoreConstants.TOTAL_INSTANCE_COUNT);
-						table.put(processDefKey, instanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getIntegerValueSortedList(table,
-					                                                                BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
-					                                                                BPMNAnalyticsCoreConstants.TOTAL_INSTANCE_COUNT,
-					                                                                order, count);
-				}
-			}
+			sortedResult = queryTotalInvolvedInstanceCountVsProcessId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - Total Involved Instance Count Vs ProcessId UserLevelMonitoring error.", e);
 		}
@@ -336,6 +188,33 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getTotalInvolvedInstanceCountVsProcessId(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryTotalInvolvedInstanceCountVsProcessId(String filters)
+			throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			long from = filterObj.getLong(BPMNAnalyticsCoreConstants.START_TIME);
+			long to = filterObj.getLong(BPMNAnalyticsCoreConstants.END_TIME);
+			String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int count = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					       BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.TOTAL_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, userId)
+					.whereFinishedBetweenIfSet(from, to)
+					.orderBy(order, count);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT taskDefinitionKey, COUNT(taskInstanceId) AS taskInstanceCount FROM
 	 *                USER_INVOLVE_SUMMARY_DATA WHERE <assignee> GROUP BY taskDefinitionKey;
@@ -346,58 +225,7 @@ public class UserLevelMonitor {
 	public String getUserLevelTaskInstanceCountVsTaskId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				String queryStr="assignee:" + "\"'" + userId + "'\"";
-				queryStr += " AND " + "processDefKey:" + "\"'" + processId + "'\"";
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get User Level Task Instance Count Vs Task Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Integer> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String processDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-								      .getString(0);
-						int processInstanceCount =
-								values.getInt(BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT);
-						table.put(processDefKey, processInstanceCount);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils.getIntegerValueSortedList(table,
-					                                                                BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
-					                                                                BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT,
-					                                                                order,
-					                                                                taskCount);
-				}
-			}
+			sortedResult = queryUserLevelTaskInstanceCountVsTaskId(filters);
 		} catch (IOException | JSONException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - User Level Task Instance Count Vs Task Id UserLevelMonitoring error.", e);
 		}
@@ -407,6 +235,32 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getUserLevelTaskInstanceCountVsTaskId(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryUserLevelTaskInstanceCountVsTaskId(String filters)
+			throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					       BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					       BPMNAnalyticsCoreConstants.TASK_INSTANCE_COUNT)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, userId)
+					.whereEquals(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * perform query: SELECT taskDefinitionKey, AVG(duration) AS avgExecutionTime FROM
 	 *                USER_INVOLVE_SUMMARY_DATA WHERE <assignee> GROUP BY taskDefinitionKey;
@@ -417,58 +271,7 @@ public class UserLevelMonitor {
 	public String getUserLevelAvgExecuteTimeVsTaskId(String filters) {
 		String sortedResult = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				JSONObject filterObj = new JSONObject(filters);
-				String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
-				String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
-				String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
-				int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
-
-				AggregateField avgField = new AggregateField();
-				avgField.setFieldName(BPMNAnalyticsCoreConstants.DURATION);
-				avgField.setAggregate(BPMNAnalyticsCoreConstants.AVG);
-				avgField.setAlias(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(avgField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY);
-				String queryStr="assignee:" + "\"'" + userId + "'\"";
-				queryStr += " AND " + "processDefKey:" + "\"'" + processId + "'\"";
-				query.setQuery(queryStr);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get User Level Avg Execution Time Vs Task Id Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray unsortedResultArray = new JSONArray(result);
-				Hashtable<String, Double> table = new Hashtable<>();
-
-				if (unsortedResultArray.length() != 0) {
-					for (int i = 0; i < unsortedResultArray.length(); i++) {
-						JSONObject jsonObj = unsortedResultArray.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String taskDefKey =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY)
-								      .getString(0);
-						double avgExecTime =
-								values.getDouble(BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME);
-						table.put(taskDefKey, avgExecTime);
-					}
-					sortedResult = BPMNAnalyticsCoreUtils
-							.getDoubleValueSortedList(table, BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
-							                          BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME, order,
-							                          taskCount);
-				}
-			}
+			sortedResult = queryUserLevelAvgExecuteTimeVsTaskId(filters);
 		} catch (JSONException | IOException | XMLStreamException e) {
 			log.error("BPMN Analytics Core - User Level Avg Execution Time Vs Task Id UserLevelMonitoring error.", e);
 		}
@@ -478,6 +281,31 @@ public class UserLevelMonitor {
 		return sortedResult;
 	}
 
+	/**
+	 * Run the query of {@link #getUserLevelAvgExecuteTimeVsTaskId(String)}, the errors are thrown
+	 * instead of being logged
+	 */
+	String queryUserLevelAvgExecuteTimeVsTaskId(String filters) throws JSONException, IOException, XMLStreamException {
+		String sortedResult = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			JSONObject filterObj = new JSONObject(filters);
+			String processId = filterObj.getString(BPMNAnalyticsCoreConstants.PROCESS_ID);
+			String userId = filterObj.getString(BPMNAnalyticsCoreConstants.USER_ID);
+			String order = filterObj.getString(BPMNAnalyticsCoreConstants.ORDER);
+			int taskCount = filterObj.getInt(BPMNAnalyticsCoreConstants.NUM_COUNT);
+
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.avg(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+					     BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+					     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME)
+					.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, userId)
+					.whereEquals(BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, processId)
+					.orderBy(order, taskCount);
+			sortedResult = AggregateQueryExecutor.getSortedList(spec);
+		}
+		return sortedResult;
+	}
+
 	/**
 	 * Get user id list
 	 *
@@ -486,52 +314,28 @@ public class UserLevelMonitor {
 	public String getUserList() {
 		String userIdList = "";
 		try {
-			if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
-				AggregateField countField = new AggregateField();
-				countField.setFieldName(BPMNAnalyticsCoreConstants.ALL);
-				countField.setAggregate(BPMNAnalyticsCoreConstants.COUNT);
-				countField.setAlias(BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
-
-				ArrayList<AggregateField> aggregateFields = new ArrayList<>();
-				aggregateFields.add(countField);
-
-				AggregateQuery query = new AggregateQuery();
-				query.setTableName(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE);
-				query.setGroupByField(BPMNAnalyticsCoreConstants.ASSIGN_USER);
-				query.setAggregateFields(aggregateFields);
-
-				if (log.isDebugEnabled()) {
-					log.debug("Query to get User List Result:" +
-					          BPMNAnalyticsCoreUtils.getJSONString(query));
-				}
-
-				String result = BPMNAnalyticsCoreRestClient
-						.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE),
-						      BPMNAnalyticsCoreUtils.getJSONString(query));
-
-				JSONArray array = new JSONArray(result);
-				JSONArray resultArray = new JSONArray();
-
-				if (array.length() != 0) {
-					for (int i = 0; i < array.length(); i++) {
-						JSONObject jsonObj = array.getJSONObject(i);
-						JSONObject values = jsonObj.getJSONObject(BPMNAnalyticsCoreConstants.VALUES);
-						String userId =
-								values.getJSONArray(BPMNAnalyticsCoreConstants.ASSIGN_USER).getString(0);
-						JSONObject o = new JSONObject();
-						o.put(BPMNAnalyticsCoreConstants.ASSIGN_USER, userId);
-						resultArray.put(o);
-					}
-					userIdList = resultArray.toString();
-				}
-
-				if (log.isDebugEnabled()) {
-					log.debug("User List Result:" + userIdList);
-				}
-			}
+			userIdList = queryUserList();
 		} catch (Exception e) {
 			log.error("BPMN Analytics Core - user id list error.", e);
 		}
 		return userIdList;
 	}
+
+	/**
+	 * Run the query of {@link #getUserList()}, the errors are thrown instead of being logged
+	 */
+	String queryUserList() throws JSONException, IOException, XMLStreamException {
+		String userIdList = "";
+		if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+			AggregateQuerySpec spec = AggregateQuerySpec
+					.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+					       BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS);
+			userIdList = AggregateQueryExecutor.getKeyList(spec);
+
+			if (log.isDebugEnabled()) {
+				log.debug("User List Result:" + userIdList);
+			}
+		}
+		return userIdList;
+	}
 }
@@ -0,0 +1,145 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
+import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
+
+import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * AggregateQueryExecutor runs the query specs of the monitoring gadgets against DAS. Aggregate queries go through
+ * the query result cache, the responses are read as they arrive and only the requested top or bottom entries are
+ * sorted, so every gadget gets the same treatment.
+ * If the local aggregate store is enabled, the aggregate queries it can answer are not sent to DAS.
+ */
+public class AggregateQueryExecutor {
+	private static final Log log = LogFactory.getLog(AggregateQueryExecutor.class);
+
+	/**
+	 * Run the query and read the keys and the values of the result
+	 *
+	 * @param spec describes the query
+	 * @return the rows of the result, only the top or bottom rows in descending order of their values if the spec
+	 * is ordered
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public static AggregateRows execute(AggregateQuerySpec spec) throws IOException, XMLStreamException {
+		AggregateRowsHandler handler = spec.isIntegerValues() ?
+		                               AggregateRowsHandler.integerValues(spec.getKeyField(), spec.getValueField()) :
+		                               AggregateRowsHandler.doubleValues(spec.getKeyField(), spec.getValueField());
+		if (spec.getOrder() != null) {
+			// Keep only the selected rows while the response is read, the cache holds only those rows too
+			handler = handler.select(spec.getOrder(), spec.getLimit());
+		}
+		return execute(spec, handler);
+	}
+
+	/**
+	 * Run the query and get the top or bottom entries of the result, as selected by the order of the spec
+	 *
+	 * @param spec describes the query
+	 * @return the sorted result as a JSON array string, an empty string if there is no result
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws JSONException
+	 */
+	public static String getSortedList(AggregateQuerySpec spec) throws IOException, XMLStreamException,
+	                                                                   JSONException {
+		AggregateRows rows = execute(spec);
+		if (rows.size() == 0) {
+			return "";
+		}
+		if (spec.isIntegerValues()) {
+			return BPMNAnalyticsCoreUtils.getIntegerValueSortedList(rows, spec.getKeyField(), spec.getValueField(),
+			                                                        spec.getOrder(), spec.getLimit());
+		}
+		return BPMNAnalyticsCoreUtils.getDoubleValueSortedList(rows, spec.getKeyField(), spec.getValueField(),
+		                                                       spec.getOrder(), spec.getLimit());
+	}
+
+	/**
+	 * Run a query grouped by a time field and get the result sorted by time
+	 *
+	 * @param spec describes the query, its values are truncated to int
+	 * @return the result as a JSON array string, an empty string if there is no result
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws JSONException
+	 */
+	public static String getTimeSeries(AggregateQuerySpec spec) throws IOException, XMLStreamException,
+	                                                                   JSONException {
+		AggregateRows rows = execute(spec, AggregateRowsHandler.integerValues(spec.getKeyField(),
+		                                                                      spec.getValueField()));
+		if (rows.size() == 0) {
+			return "";
+		}
+		return BPMNAnalyticsCoreUtils.getLongKeySortedList(rows, spec.getKeyField(), spec.getValueField());
+	}
+
+	/**
+	 * Run the query and get the keys of the result
+	 *
+	 * @param spec describes the query
+	 * @return the keys as a JSON array string, an empty string if there is no result
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws JSONException
+	 */
+	public static String getKeyList(AggregateQuerySpec spec) throws IOException, XMLStreamException, JSONException {
+		AggregateRows rows = execute(spec, AggregateRowsHandler.keys(spec.getKeyField()));
+		if (rows.size() == 0) {
+			return "";
+		}
+		return BPMNAnalyticsCoreUtils.getKeyList(rows, spec.getKeyField());
+	}
+
+	private static AggregateRows execute(AggregateQuerySpec spec, AggregateRowsHandler handler)
+			throws IOException, XMLStreamException {
+		if (spec.isSearch()) {
+			String query = BPMNAnalyticsCoreUtils.getJSONString(spec.toSearchQuery());
+			if (log.isDebugEnabled()) {
+				log.debug("Search query on " + spec.getTableName() + ": " + query);
+			}
+			// Search results are not cached, they hold up to MAX_COUNT records, or the limit if the spec is ordered
+			return BPMNAnalyticsCoreRestClient
+					.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH), query, handler);
+		}
+		LocalAggregateStore store = LocalAggregateStore.getInstance();
+		if (store != null) {
+			AggregateRows rows = store.query(spec, handler.isIntegerValues());
+			if (rows != null) {
+				return rows;
+			}
+		}
+		String query = BPMNAnalyticsCoreUtils.getJSONString(spec.toAggregateQuery());
+		if (log.isDebugEnabled()) {
+			log.debug("Aggregate query on " + spec.getTableName() + ": " + query);
+		}
+		return BPMNAnalyticsCoreRestClient
+				.cachedPost(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE), query,
+				            handler);
+	}
+}
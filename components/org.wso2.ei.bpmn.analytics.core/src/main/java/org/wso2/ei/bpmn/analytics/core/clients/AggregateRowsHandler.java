@@ -0,0 +1,249 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
+import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
+import org.wso2.ei.bpmn.analytics.core.utils.TopKSelector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the records returned by the DAS aggregate and search apis while they are received, keeping only the key
+ * and the value of each record. The response is never held in memory as a whole, so the memory used is bound by
+ * the number of records instead of the size of the response.
+ * A record looks like {"values":{"assignUser":["admin"],"completedTotalTasks":10.0},...}, the key may also be a
+ * single value as returned by the search api.
+ * A handler with an order keeps only the top or bottom records, so the memory used is bound by the limit.
+ */
+public class AggregateRowsHandler implements DASResponseHandler<AggregateRows> {
+
+	// Thread safe, shared by all the handlers
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private final String keyField;
+	private final String valueField;
+	private final boolean integerValues;
+	private final String order;
+	private final int limit;
+
+	private AggregateRowsHandler(String keyField, String valueField, boolean integerValues, String order,
+	                             int limit) {
+		this.keyField = keyField;
+		this.valueField = valueField;
+		this.integerValues = integerValues;
+		this.order = order;
+		this.limit = limit;
+	}
+
+	/**
+	 * Read the keys and the values of the records, values are truncated to int
+	 *
+	 * @param keyField   group by field of the query
+	 * @param valueField alias of the aggregate field
+	 * @return a handler of aggregate responses
+	 */
+	public static AggregateRowsHandler integerValues(String keyField, String valueField) {
+		return new AggregateRowsHandler(keyField, valueField, true, null, 0);
+	}
+
+	/**
+	 * Read the keys and the values of the records
+	 *
+	 * @param keyField   group by field of the query
+	 * @param valueField alias of the aggregate field
+	 * @return a handler of aggregate responses
+	 */
+	public static AggregateRowsHandler doubleValues(String keyField, String valueField) {
+		return new AggregateRowsHandler(keyField, valueField, false, null, 0);
+	}
+
+	/**
+	 * Read only the keys of the records, the values are 0
+	 *
+	 * @param keyField group by field of the query
+	 * @return a handler of aggregate responses
+	 */
+	public static AggregateRowsHandler keys(String keyField) {
+		return new AggregateRowsHandler(keyField, null, false, null, 0);
+	}
+
+	/**
+	 * Read the same fields, keeping only the top or bottom records as selected by BPMNAnalyticsCoreUtils.getSelector.
+	 * The kept records are in descending order of their values.
+	 *
+	 * @param order top or bottom
+	 * @param limit number of records to be kept
+	 * @return a handler of aggregate responses
+	 */
+	public AggregateRowsHandler select(String order, int limit) {
+		return new AggregateRowsHandler(keyField, valueField, integerValues, order, limit);
+	}
+
+	/**
+	 * @return the fields read by this handler, responses of the same query read by different handlers must not
+	 * be mixed up
+	 */
+	public String getDescription() {
+		String description = keyField + "," + valueField + "," + (integerValues ? "int" : "double");
+		if (order != null) {
+			description += "," + order + "," + limit;
+		}
+		return description;
+	}
+
+	/**
+	 * @return true if the values are truncated to int
+	 */
+	public boolean isIntegerValues() {
+		return integerValues;
+	}
+
+	@Override
+	public AggregateRows handleResponse(InputStream responseBody, String charset) throws IOException {
+		AggregateRows rows = new AggregateRows();
+		TopKSelector selector = order != null ? BPMNAnalyticsCoreUtils.getSelector(order, limit) : null;
+		// Closing the parser only closes the response stream. The stream of httpclient reads the rest of the body when
+		// it is closed, so the connection can be reused.
+		try (JsonParser parser = createParser(responseBody, charset)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new JsonParseException(parser, "DAS response is not an array of records.");
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+				readRecord(parser, rows, selector);
+			}
+			if (token != JsonToken.END_ARRAY) {
+				throw new JsonParseException(parser, "DAS response is not an array of records.");
+			}
+		}
+		if (selector != null) {
+			selector.sortDescending();
+			for (int i = 0; i < selector.size(); i++) {
+				rows.add(selector.getKey(i), selector.getValue(i));
+			}
+		}
+		return rows;
+	}
+
+	static JsonParser createParser(InputStream responseBody, String charset) throws IOException {
+		if (StandardCharsets.UTF_8.name().equalsIgnoreCase(charset)) {
+			// Parse the bytes, without decoding them into characters first
+			return jsonFactory.createParser(responseBody);
+		}
+		return jsonFactory.createParser(new InputStreamReader(responseBody, charset));
+	}
+
+	private void readRecord(JsonParser parser, AggregateRows rows, TopKSelector selector) throws IOException {
+		boolean hasValues = false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (BPMNAnalyticsCoreConstants.VALUES.equals(field) && token == JsonToken.START_OBJECT) {
+				readValues(parser, rows, selector);
+				hasValues = true;
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (!hasValues) {
+			throw new JsonParseException(parser, "DAS record without " + BPMNAnalyticsCoreConstants.VALUES + ".");
+		}
+	}
+
+	/**
+	 * Add the record to the rows, or offer it to the selector if the records are selected
+	 */
+	private void readValues(JsonParser parser, AggregateRows rows, TopKSelector selector) throws IOException {
+		String key = null;
+		double value = 0;
+		boolean hasValue = false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (field.equals(keyField)) {
+				key = readKey(parser, token);
+			} else if (field.equals(valueField)) {
+				value = readValue(parser, token);
+				hasValue = true;
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (key == null) {
+			throw new JsonParseException(parser, "DAS record without " + keyField + ".");
+		}
+		if (valueField != null && !hasValue) {
+			throw new JsonParseException(parser, "DAS record without " + valueField + ".");
+		}
+		if (selector != null) {
+			selector.offer(key, value);
+		} else {
+			rows.add(key, value);
+		}
+	}
+
+	/**
+	 * Group by values are returned as an array, the key is the first element
+	 */
+	static String readKey(JsonParser parser, JsonToken token) throws IOException {
+		if (token == JsonToken.START_ARRAY) {
+			String key = null;
+			JsonToken element = parser.nextToken();
+			if (element != JsonToken.END_ARRAY) {
+				if (element.isScalarValue() && element != JsonToken.VALUE_NULL) {
+					key = parser.getText();
+				}
+				parser.skipChildren();
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					parser.skipChildren();
+				}
+			}
+			return key;
+		}
+		if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+			return parser.getText();
+		}
+		parser.skipChildren();
+		return null;
+	}
+
+	private double readValue(JsonParser parser, JsonToken token) throws IOException {
+		double value;
+		if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+			value = parser.getDoubleValue();
+		} else if (token == JsonToken.VALUE_STRING) {
+			try {
+				value = Double.parseDouble(parser.getText().trim());
+			} catch (NumberFormatException e) {
+				throw new JsonParseException(parser, valueField + " is not a number.", e);
+			}
+		} else {
+			throw new JsonParseException(parser, valueField + " is not a number.");
+		}
+		return integerValues ? (int) value : value;
+	}
+}
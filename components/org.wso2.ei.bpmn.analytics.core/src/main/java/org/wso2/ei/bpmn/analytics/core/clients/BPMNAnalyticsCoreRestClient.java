@@ -19,27 +19,171 @@ package org.wso2.ei.bpmn.analytics.core.clients;
 
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
-import org.apache.commons.lang.CharSet;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.registry.core.utils.RegistryUtils;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.config.BPMNAnalyticsCoreConfiguration;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
 import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import javax.xml.stream.XMLStreamException;
 
 /**
  * BPMNAnalyticsCoreRestClient class is used to invoke the DAS REST API
+ * All the calls share one http client, so the connections to DAS are pooled and kept alive between the calls
+ * instead of paying a TCP and TLS handshake for every dashboard query.
  */
 public class BPMNAnalyticsCoreRestClient {
 	private static final Log log = LogFactory.getLog(BPMNAnalyticsCoreRestClient.class);
 
+	// Shared, thread safe http client. Created when the component is activated
+	private static volatile HttpClient httpClient;
+	private static MultiThreadedHttpConnectionManager connectionManager;
+	private static IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+	// Recent results of the aggregate queries, null if the cache is disabled
+	private static volatile QueryResultCache<AggregateRows> queryResultCache;
+
+	private static volatile int socketTimeout = BPMNAnalyticsCoreConstants.DEFAULT_SOCKET_TIMEOUT;
+
+	// Deadline (System.nanoTime) of the calls made by the current thread, set while a batch query runs
+	private static final ThreadLocal<Long> callDeadline = new ThreadLocal<>();
+
+	// Reads the whole response body into a String
+	private static final DASResponseHandler<String> STRING_RESPONSE_HANDLER = new DASResponseHandler<String>() {
+		@Override
+		public String handleResponse(InputStream responseBody, String charset) throws IOException {
+			return IOUtils.toString(responseBody, charset);
+		}
+	};
+
+	/**
+	 * Create the pooled http client used by all the calls to DAS. The trust store system properties must be set
+	 * before, TLS sessions are then resumed through the default SSL socket factory of the JVM.
+	 *
+	 * @param configuration BPS analytics configuration, null to use the default pool size and timeouts
+	 */
+	public static synchronized void init(BPMNAnalyticsCoreConfiguration configuration) {
+		int maxConnectionsPerHost = BPMNAnalyticsCoreConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+		int maxTotalConnections = BPMNAnalyticsCoreConstants.DEFAULT_MAX_TOTAL_CONNECTIONS;
+		int connectionTimeout = BPMNAnalyticsCoreConstants.DEFAULT_CONNECTION_TIMEOUT;
+		int socketTimeout = BPMNAnalyticsCoreConstants.DEFAULT_SOCKET_TIMEOUT;
+		int idleConnectionTimeout = BPMNAnalyticsCoreConstants.DEFAULT_IDLE_CONNECTION_TIMEOUT;
+		boolean queryCacheEnabled = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_ENABLED;
+		int queryCacheTimeToLive = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_TIME_TO_LIVE;
+		int queryCacheMaxEntries = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_MAX_ENTRIES;
+		if (configuration != null) {
+			maxConnectionsPerHost = configuration.getMaxConnectionsPerHost();
+			maxTotalConnections = configuration.getMaxTotalConnections();
+			connectionTimeout = configuration.getConnectionTimeout();
+			socketTimeout = configuration.getSocketTimeout();
+			idleConnectionTimeout = configuration.getIdleConnectionTimeout();
+			queryCacheEnabled = configuration.isQueryCacheEnabled();
+			queryCacheTimeToLive = configuration.getQueryCacheTimeToLive();
+			queryCacheMaxEntries = configuration.getQueryCacheMaxEntries();
+		}
+
+		shutdown();
+		MultiThreadedHttpConnectionManager manager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = manager.getParams();
+		params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+		params.setMaxTotalConnections(maxTotalConnections);
+		params.setConnectionTimeout(connectionTimeout);
+		params.setSoTimeout(socketTimeout);
+		// DAS may close a kept alive connection while it is in the pool
+		params.setStaleCheckingEnabled(true);
+
+		HttpClient client = new HttpClient(manager);
+		// Time to wait for a pooled connection when all of them are in use
+		client.getParams().setConnectionManagerTimeout(connectionTimeout);
+
+		// Close the connections which stayed idle in the pool for longer than the idle timeout
+		IdleConnectionTimeoutThread idleThread = new IdleConnectionTimeoutThread();
+		idleThread.setName("BPMNAnalyticsCoreIdleConnectionTimeout");
+		idleThread.addConnectionManager(manager);
+		idleThread.setConnectionTimeout(idleConnectionTimeout);
+		idleThread.setTimeoutInterval(Math.max(idleConnectionTimeout / 2, 1000));
+		idleThread.start();
+
+		connectionManager = manager;
+		idleConnectionTimeoutThread = idleThread;
+		httpClient = client;
+		BPMNAnalyticsCoreRestClient.socketTimeout = socketTimeout;
+
+		if (queryCacheEnabled && queryCacheTimeToLive > 0 && queryCacheMaxEntries > 0) {
+			queryResultCache = new QueryResultCache<>(queryCacheTimeToLive, queryCacheMaxEntries);
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug("DAS rest client initialized with " + maxConnectionsPerHost + " connections per host, " +
+					maxTotalConnections + " connections in total");
+			if (queryResultCache != null) {
+				log.debug("DAS query results are cached for " + queryCacheTimeToLive + " ms, up to " +
+						queryCacheMaxEntries + " results");
+			}
+		}
+	}
+
+	/**
+	 * Close the pooled connections. Called when the component is deactivated.
+	 */
+	public static synchronized void shutdown() {
+		if (idleConnectionTimeoutThread != null) {
+			idleConnectionTimeoutThread.shutdown();
+			idleConnectionTimeoutThread = null;
+		}
+		if (connectionManager != null) {
+			connectionManager.shutdown();
+			connectionManager = null;
+		}
+		httpClient = null;
+		queryResultCache = null;
+	}
+
+	private static HttpClient getHttpClient() {
+		HttpClient client = httpClient;
+		if (client == null) {
+			synchronized (BPMNAnalyticsCoreRestClient.class) {
+				if (httpClient == null) {
+					// Called before the component got activated
+					RegistryUtils.setTrustStoreSystemProperties();
+					init(null);
+				}
+				client = httpClient;
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Bound the calls to DAS made by the current thread until clearCallDeadline is called. The socket time out of
+	 * each call is cut to the time left, so a query which is cancelled on its time out does not keep its thread
+	 * blocked on the socket for the whole configured socket time out.
+	 *
+	 * @param deadline System.nanoTime after which the calls fail
+	 */
+	public static void setCallDeadline(long deadline) {
+		callDeadline.set(deadline);
+	}
+
+	public static void clearCallDeadline() {
+		callDeadline.remove();
+	}
+
 	/**
 	 * Send post request to a DAS rest web service
 	 * @param url used to locate the webservice functionality
@@ -47,18 +191,45 @@ public class BPMNAnalyticsCoreRestClient {
 	 * @return the result as a String
 	 */
 	public static String post(String url, String message) throws IOException, XMLStreamException {
-		RegistryUtils.setTrustStoreSystemProperties();
-		HttpClient httpClient = new HttpClient();
+		try {
+			return post(url, message, STRING_RESPONSE_HANDLER);
+		} catch (UnsupportedEncodingException e) {
+			throw e;
+		} catch (IOException e) {
+			String errMsg = "Async DAS client I/O exception.";
+			log.error(errMsg, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Send post request to a DAS rest web service and pass the response body to the handler while it is received
+	 * @param url used to locate the webservice functionality
+	 * @param message is the request message that need to be sent to the web service
+	 * @param handler builds the result from the response body
+	 * @return the result built by the handler
+	 */
+	public static <T> T post(String url, String message, DASResponseHandler<T> handler)
+			throws IOException, XMLStreamException {
 		PostMethod postRequest = new PostMethod(url);
 		postRequest.setRequestHeader("Authorization", BPMNAnalyticsCoreUtils
 				.getAuthorizationHeader());
-		BufferedReader br = null;
 		try {
 			StringRequestEntity input =
 					new StringRequestEntity(message, "application/json", "UTF-8");
 			postRequest.setRequestEntity(input);
 
-			int returnCode = httpClient.executeMethod(postRequest);
+			Long deadline = callDeadline.get();
+			if (deadline != null) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					throw new SocketTimeoutException("Time out reached before the DAS call.");
+				}
+				// Only for this call, the pooled connections keep the configured socket time out
+				postRequest.getParams().setSoTimeout((int) Math.min(remaining, socketTimeout));
+			}
+
+			int returnCode = getHttpClient().executeMethod(postRequest);
 
 			if (returnCode != HttpStatus.SC_OK) {
 				String errorCode = "Failed : HTTP error code : " + returnCode;
@@ -69,21 +240,18 @@ public class BPMNAnalyticsCoreRestClient {
 			if (postRequest.getResponseCharSet() != null) {
 				charsetname = postRequest.getResponseCharSet();
 			}
-			InputStreamReader reader =
-					new InputStreamReader((postRequest.getResponseBodyAsStream()), charsetname);
-			br = new BufferedReader(reader);
-
-			String output = null;
-			StringBuilder totalOutput = new StringBuilder();
 
 			if (log.isDebugEnabled()) {
 				log.debug("Output from Server .... \n");
 			}
 
-			while ((output = br.readLine()) != null) {
-				totalOutput.append(output);
+			// httpclient reads the rest of the body when the handler closes the stream or when the connection is
+			// released below, so the connection goes back to the pool even if the handler stops early
+			InputStream responseBody = postRequest.getResponseBodyAsStream();
+			if (responseBody == null) {
+				responseBody = new ByteArrayInputStream(new byte[0]);
 			}
-			return totalOutput.toString();
+			return handler.handleResponse(responseBody, charsetname);
 
 		} catch (UnsupportedEncodingException e) {
 			String errMsg = "Async DAS client unsupported encoding exception.";
@@ -91,22 +259,56 @@ public class BPMNAnalyticsCoreRestClient {
 		} catch (UnsupportedOperationException e) {
 			String errMsg = "Async DAS client unsupported operation exception.";
 			throw new UnsupportedOperationException(errMsg);
-		} catch (IOException e) {
-			String errMsg = "Async DAS client I/O exception.";
-			log.error(errMsg, e);
 		} finally {
 			postRequest.releaseConnection();
-			if (br != null) {
-				try {
-					br.close();
-				} catch (Exception e) {
-					String errMsg = "Async DAS rest client BufferedReader close exception.";
-					log.error(errMsg, e);
-				}
-			}
 		}
-		return null;
 	}
 
-}
+	/**
+	 * Send an aggregate query to DAS, or return the rows of the same query sent recently.
+	 * Identical queries sent at the same time share one call to DAS. Used for the aggregate queries of the
+	 * dashboards, which are refreshed with the same filters by many users.
+	 * @param url used to locate the webservice functionality
+	 * @param message is the request message that need to be sent to the web service, the same query must
+	 *                serialize to the same message
+	 * @param handler reads the rows from the response body
+	 * @return the rows of the result
+	 */
+	public static AggregateRows cachedPost(final String url, final String message,
+	                                       final AggregateRowsHandler handler)
+			throws IOException, XMLStreamException {
+		QueryResultCache<AggregateRows> cache = queryResultCache;
+		if (cache == null) {
+			return post(url, message, handler);
+		}
+		String key = url + "\n" + message + "\n" + handler.getDescription();
+		return cache.get(key, new QueryResultCache.QueryLoader<AggregateRows>() {
+			@Override
+			public AggregateRows load() throws IOException, XMLStreamException {
+				return post(url, message, handler);
+			}
+		});
+	}
+
+	/**
+	 * @return cache of the aggregate query results, null if it is disabled or the client is not initialized
+	 */
+	public static QueryResultCache<AggregateRows> getQueryResultCache() {
+		return queryResultCache;
+	}
+
+	/**
+	 * @return pool of the connections to DAS, null if the client is not initialized
+	 */
+	static MultiThreadedHttpConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
 
+	/**
+	 * @return thread closing the idle pooled connections, null if the client is not initialized
+	 */
+	static IdleConnectionTimeoutThread getIdleConnectionTimeoutThread() {
+		return idleConnectionTimeoutThread;
+	}
+
+}
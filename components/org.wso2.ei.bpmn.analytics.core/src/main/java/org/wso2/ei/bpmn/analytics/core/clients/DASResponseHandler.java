@@ -0,0 +1,38 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the response body of a DAS rest call while it is received
+ *
+ * @param <T> type of the result built from the response
+ */
+public interface DASResponseHandler<T> {
+
+	/**
+	 * Build the result from the response body. The body is released after this method returns.
+	 *
+	 * @param responseBody response body, empty if DAS returned no content
+	 * @param charset      charset of the response
+	 * @return the result
+	 */
+	T handleResponse(InputStream responseBody, String charset) throws IOException;
+}
@@ -0,0 +1,677 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.config.BPMNAnalyticsCoreConfiguration;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
+import org.wso2.ei.bpmn.analytics.core.models.SearchQuery;
+import org.wso2.ei.bpmn.analytics.core.models.SortByField;
+import org.wso2.ei.bpmn.analytics.core.models.UsageAggregate;
+import org.wso2.ei.bpmn.analytics.core.models.UsageRecord;
+import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
+import org.wso2.ei.bpmn.analytics.core.utils.TopKSelector;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Keeps the count of the records and the sum, min and max of their durations for each day and each combination of
+ * process, task and user values of the usage summary tables, so the monitor queries can be answered from memory.
+ * New records are loaded from DAS on a schedule, by finished time. Records finished after the last load, less the
+ * settle delay, are not counted yet. Only the last max days days, counted in the configured time zone, are kept.
+ * A query is answered here only if its group by field and its filters are kept for its table and its date range
+ * covers whole days within the kept days, the other queries are sent to DAS. The queries are sent to DAS too while
+ * the loads fail, once the aggregates are older than the settle delay and two refresh intervals.
+ */
+public class LocalAggregateStore {
+	private static final Log log = LogFactory.getLog(LocalAggregateStore.class);
+
+	// Columns kept for each table, the group by fields and the filter columns of the monitor queries
+	private static final Map<String, String[]> tableDimensions = new HashMap<>();
+
+	static {
+		tableDimensions.put(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+		                    new String[] { BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+		                                   BPMNAnalyticsCoreConstants.PROCESS_KEY,
+		                                   BPMNAnalyticsCoreConstants.PROCESS_VERSION,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_PROCESS_KEY_NAME });
+		tableDimensions.put(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE,
+		                    new String[] { BPMNAnalyticsCoreConstants.ASSIGN_USER,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY });
+		tableDimensions.put(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+		                    new String[] { BPMNAnalyticsCoreConstants.ASSIGN_USER,
+		                                   BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+		                                   BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                   BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE });
+	}
+
+	private static volatile LocalAggregateStore instance;
+	private static ScheduledExecutorService scheduler;
+
+	private final Map<String, TableAggregates> tables = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final long settleDelay;
+
+	// Age of the last finished time loaded above which the queries are sent to DAS
+	private final long maxLag;
+	private final int pageSize;
+	private final int maxDays;
+
+	// Time zone of the days, the ranges of the dashboards must start and end at its midnights
+	private final ZoneId zone;
+
+	// Next finished time to be loaded, the records finished before are in the aggregates
+	private volatile long cursor;
+	private volatile boolean loaded;
+
+	// First day kept, the older days are dropped on each load
+	private volatile long firstDay;
+
+	private final LongAdder localQueryCount = new LongAdder();
+	private final LongAdder dasQueryCount = new LongAdder();
+	private final LongAdder skippedRecordCount = new LongAdder();
+
+	LocalAggregateStore(long refreshInterval, long settleDelay, int pageSize, int maxDays, ZoneId zone) {
+		this.settleDelay = settleDelay;
+		// A load in progress is up to a refresh interval late already, the next one is late
+		this.maxLag = settleDelay + 2 * refreshInterval;
+		this.pageSize = pageSize;
+		this.maxDays = maxDays;
+		this.zone = zone;
+		for (Map.Entry<String, String[]> entry : tableDimensions.entrySet()) {
+			tables.put(entry.getKey(), new TableAggregates(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	/**
+	 * Create the store and schedule the loading of the records, if the store is enabled. Called when the component
+	 * is activated.
+	 *
+	 * @param configuration BPS analytics configuration, null to use the defaults
+	 */
+	public static synchronized void init(BPMNAnalyticsCoreConfiguration configuration) {
+		boolean enabled = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_ENABLED;
+		int refreshInterval = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_REFRESH_INTERVAL;
+		int settleDelay = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_SETTLE_DELAY;
+		int pageSize = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_PAGE_SIZE;
+		int maxDays = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_MAX_DAYS;
+		String timeZone = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_TIME_ZONE;
+		if (configuration != null) {
+			enabled = configuration.isAggregateStoreEnabled();
+			refreshInterval = configuration.getAggregateStoreRefreshInterval();
+			settleDelay = configuration.getAggregateStoreSettleDelay();
+			pageSize = configuration.getAggregateStorePageSize();
+			maxDays = configuration.getAggregateStoreMaxDays();
+			timeZone = configuration.getAggregateStoreTimeZone();
+		}
+
+		shutdown();
+		if (!enabled || refreshInterval <= 0 || pageSize <= 0) {
+			return;
+		}
+		if (maxDays < 1) {
+			log.warn("Aggregate store max days must be at least 1. Using default max days: " +
+					BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_MAX_DAYS);
+			maxDays = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_MAX_DAYS;
+		}
+		ZoneId zone;
+		try {
+			zone = ZoneId.of(timeZone);
+		} catch (DateTimeException e) {
+			log.warn("Unknown aggregate store time zone " + timeZone + ". Using default time zone: " +
+					BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_TIME_ZONE);
+			zone = ZoneId.of(BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_TIME_ZONE);
+		}
+		final LocalAggregateStore store =
+				new LocalAggregateStore(refreshInterval, settleDelay, pageSize, maxDays, zone);
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BPMNAnalyticsAggregateStore");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (BPMNAnalyticsCoreUtils.isDASAnalyticsActivated()) {
+						store.update();
+					}
+				} catch (IOException | XMLStreamException | RuntimeException e) {
+					// Keep the schedule, the same records are loaded again on the next run
+					log.error("BPMN Analytics Core - local aggregates update error.", e);
+				}
+			}
+		}, 0, refreshInterval, TimeUnit.MILLISECONDS);
+		instance = store;
+
+		if (log.isDebugEnabled()) {
+			log.debug("Local aggregates of the last " + maxDays + " days in " + zone + " are loaded every " +
+					refreshInterval + " ms, settle delay " + settleDelay + " ms");
+		}
+	}
+
+	/**
+	 * Stop loading the records and drop the aggregates. Called when the component is deactivated.
+	 */
+	public static synchronized void shutdown() {
+		instance = null;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * @return the store, null if it is disabled or the component is not activated
+	 */
+	public static LocalAggregateStore getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Answer an aggregate query from the local aggregates
+	 *
+	 * @param spec          describes the query
+	 * @param integerValues truncate the values to int
+	 * @return the rows of the result, null if the query must be sent to DAS
+	 */
+	public AggregateRows query(AggregateQuerySpec spec, boolean integerValues) {
+		AggregateRows rows = isCurrent() && !spec.isSearch() ? aggregate(spec, integerValues) : null;
+		if (rows == null) {
+			dasQueryCount.increment();
+		} else {
+			localQueryCount.increment();
+		}
+		return rows;
+	}
+
+	/**
+	 * The aggregates are current if the records are loaded up to a recent finished time. While the loads fail the
+	 * records finished since the last load are missing, so the queries go to DAS.
+	 */
+	private boolean isCurrent() {
+		return loaded && getLag() <= maxLag;
+	}
+
+	private AggregateRows aggregate(AggregateQuerySpec spec, boolean integerValues) {
+		TableAggregates table = tables.get(spec.getTableName());
+		if (table == null || !isAggregateKept(spec)) {
+			return null;
+		}
+		int keyIndex = table.indexOf(spec.getKeyField());
+		if (keyIndex < 0) {
+			return null;
+		}
+
+		Map<String, List<String>> valueFilters = spec.getValueFilters();
+		int[] filterIndexes = new int[valueFilters.size()];
+		List<Set<String>> filterValues = new ArrayList<>(valueFilters.size());
+		int filterCount = 0;
+		for (Map.Entry<String, List<String>> filter : valueFilters.entrySet()) {
+			int index = table.indexOf(filter.getKey());
+			if (index < 0) {
+				return null;
+			}
+			filterIndexes[filterCount++] = index;
+			filterValues.add(new HashSet<>(filter.getValue()));
+		}
+
+		// Only whole days of the last max days are kept, a query without a range covers the older days too.
+		// [from TO to] must start at the beginning of a day and end with a day.
+		if (!spec.isRanged() || !isStartOfDay(spec.getFrom()) || !isStartOfDay(spec.getTo() + 1)) {
+			return null;
+		}
+		long fromDay = toDay(spec.getFrom());
+		long toDay = toDay(spec.getTo() + 1) - 1;
+
+		Map<String, UsageAggregate> groups = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			if (fromDay < firstDay) {
+				return null;
+			}
+			for (Map.Entry<Bucket, UsageAggregate> entry : table.buckets.entrySet()) {
+				Bucket bucket = entry.getKey();
+				if (bucket.day < fromDay || bucket.day > toDay) {
+					continue;
+				}
+				String key = bucket.values[keyIndex];
+				if (key == null || !matches(bucket, filterIndexes, filterValues)) {
+					continue;
+				}
+				UsageAggregate group = groups.get(key);
+				if (group == null) {
+					group = new UsageAggregate();
+					groups.put(key, group);
+				}
+				group.add(entry.getValue());
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		// Ordered specs get only their top or bottom rows, as if the response of DAS was read
+		AggregateRows rows = new AggregateRows();
+		TopKSelector selector = spec.getOrder() != null ?
+		                        BPMNAnalyticsCoreUtils.getSelector(spec.getOrder(), spec.getLimit()) : null;
+		for (Map.Entry<String, UsageAggregate> group : groups.entrySet()) {
+			double value = getValue(spec.getAggregate(), group.getValue());
+			if (Double.isNaN(value)) {
+				value = 0;
+			}
+			if (integerValues) {
+				value = (int) value;
+			}
+			if (selector != null) {
+				selector.offer(group.getKey(), value);
+			} else {
+				rows.add(group.getKey(), value);
+			}
+		}
+		if (selector != null) {
+			selector.sortDescending();
+			for (int i = 0; i < selector.size(); i++) {
+				rows.add(selector.getKey(i), selector.getValue(i));
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Count of the records and sum, average, min and max of their durations are kept
+	 */
+	private static boolean isAggregateKept(AggregateQuerySpec spec) {
+		if (BPMNAnalyticsCoreConstants.COUNT.equals(spec.getAggregate())) {
+			return true;
+		}
+		return BPMNAnalyticsCoreConstants.DURATION.equals(spec.getFieldName()) &&
+		       (BPMNAnalyticsCoreConstants.SUM.equals(spec.getAggregate()) ||
+		        BPMNAnalyticsCoreConstants.AVG.equals(spec.getAggregate()) ||
+		        BPMNAnalyticsCoreConstants.MIN.equals(spec.getAggregate()) ||
+		        BPMNAnalyticsCoreConstants.MAX.equals(spec.getAggregate()));
+	}
+
+	private static double getValue(String aggregate, UsageAggregate usage) {
+		switch (aggregate) {
+			case BPMNAnalyticsCoreConstants.COUNT:
+				return usage.getCount();
+			case BPMNAnalyticsCoreConstants.SUM:
+				return usage.getSum();
+			case BPMNAnalyticsCoreConstants.AVG:
+				return usage.getAverage();
+			case BPMNAnalyticsCoreConstants.MIN:
+				return usage.getMin();
+			default:
+				return usage.getMax();
+		}
+	}
+
+	private static boolean matches(Bucket bucket, int[] filterIndexes, List<Set<String>> filterValues) {
+		for (int i = 0; i < filterIndexes.length; i++) {
+			String value = bucket.values[filterIndexes[i]];
+			if (value == null || !filterValues.get(i).contains(value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long toDay(long time) {
+		return Instant.ofEpochMilli(time).atZone(zone).toLocalDate().toEpochDay();
+	}
+
+	private long startOfDay(long day) {
+		return LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant().toEpochMilli();
+	}
+
+	private boolean isStartOfDay(long time) {
+		return startOfDay(toDay(time)) == time;
+	}
+
+	/**
+	 * Load the records finished since the last load, up to the settle delay before now, and drop the days older
+	 * than max days. The first load starts at the first day kept. The aggregates are updated only if all the
+	 * records are loaded, so a failed load is repeated as a whole.
+	 *
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public void update() throws IOException, XMLStreamException {
+		update(System.currentTimeMillis());
+	}
+
+	void update(long now) throws IOException, XMLStreamException {
+		long keptFrom = toDay(now) - maxDays + 1;
+		long from = Math.max(cursor, startOfDay(keptFrom));
+		long to = now - settleDelay;
+
+		Map<TableAggregates, Map<Bucket, UsageAggregate>> updates = new HashMap<>();
+		int recordCount = 0;
+		long skipped = skippedRecordCount.sum();
+		if (from <= to) {
+			for (TableAggregates table : tables.values()) {
+				Map<Bucket, UsageAggregate> buckets = new HashMap<>();
+				recordCount += load(table, from, to, buckets);
+				updates.put(table, buckets);
+			}
+		}
+		skipped = skippedRecordCount.sum() - skipped;
+		if (skipped > 0) {
+			log.warn("Skipped " + skipped + " usage records without a valid " +
+			         BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + " while loading the local aggregates.");
+		}
+
+		int dropped = 0;
+		lock.writeLock().lock();
+		try {
+			for (TableAggregates table : tables.values()) {
+				dropped += table.dropBefore(keptFrom);
+			}
+			for (Map.Entry<TableAggregates, Map<Bucket, UsageAggregate>> update : updates.entrySet()) {
+				update.getKey().add(update.getValue());
+			}
+			firstDay = keptFrom;
+			// Nothing is kept before the first day, so the records are loaded up to now even if the range is empty
+			cursor = Math.max(cursor, to + 1);
+			loaded = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug("Loaded " + recordCount + " usage records finished up to " + to + " into the local aggregates, " +
+					"dropped " + dropped + " aggregates of the days before " + LocalDate.ofEpochDay(keptFrom));
+		}
+	}
+
+	/**
+	 * Load the records of the table finished in [from, to]. Each page asks for the records finished from the last
+	 * finished time of the previous page, sorted by finished time, so DAS never skips an offset and each record is
+	 * read once even if the index changes between the pages. The records without a valid finished time are
+	 * skipped.
+	 *
+	 * @return number of records loaded
+	 */
+	private int load(TableAggregates table, long from, long to, Map<Bucket, UsageAggregate> buckets)
+			throws IOException, XMLStreamException {
+		UsageRecordsHandler handler = new UsageRecordsHandler(table.dimensions);
+		int recordCount = 0;
+		long lower = from;
+		while (lower <= to) {
+			List<UsageRecord> records = search(table, handler, lower, to, 0, true);
+			if (records.size() < pageSize) {
+				recordCount += add(records, to + 1, buckets);
+				break;
+			}
+			long first = -1;
+			long last = -1;
+			for (UsageRecord record : records) {
+				if (record.getFinishedTime() >= 0) {
+					if (first < 0) {
+						first = record.getFinishedTime();
+					}
+					last = record.getFinishedTime();
+				}
+			}
+			if (first < 0) {
+				// The page has no finished time to go on from, the rest of the records are read by offset
+				recordCount += loadByOffset(table, handler, lower, to, buckets);
+				break;
+			}
+			if (first < lower || last < first || last > to) {
+				throw new IOException("DAS did not sort the records of " + table.tableName + " by " +
+				                      BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + ".");
+			}
+			if (first == last) {
+				// More records finished in the same millisecond than a page holds, they are read by offset
+				recordCount += loadByOffset(table, handler, last, last, buckets);
+				lower = last + 1;
+			} else {
+				// The records finished at the last time may go on in the next page, they are all read there
+				recordCount += add(records, last, buckets);
+				lower = last;
+			}
+		}
+		return recordCount;
+	}
+
+	private int loadByOffset(TableAggregates table, UsageRecordsHandler handler, long from, long to,
+	                         Map<Bucket, UsageAggregate> buckets) throws IOException, XMLStreamException {
+		int recordCount = 0;
+		List<UsageRecord> records;
+		int start = 0;
+		do {
+			records = search(table, handler, from, to, start, false);
+			recordCount += add(records, to + 1, buckets);
+			start += pageSize;
+		} while (records.size() == pageSize);
+		return recordCount;
+	}
+
+	private List<UsageRecord> search(TableAggregates table, UsageRecordsHandler handler, long from, long to,
+	                                 int start, boolean sorted) throws IOException, XMLStreamException {
+		SearchQuery query = new SearchQuery();
+		query.setTableName(table.tableName);
+		query.setQuery(BPMNAnalyticsCoreUtils.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME,
+		                                                        from, to));
+		query.setStart(start);
+		query.setCount(pageSize);
+		if (sorted) {
+			SortByField sortByField = new SortByField();
+			sortByField.setField(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME);
+			sortByField.setSortType(BPMNAnalyticsCoreConstants.SORT_ASC);
+
+			ArrayList<SortByField> sortBy = new ArrayList<>();
+			sortBy.add(sortByField);
+			query.setSortBy(sortBy);
+		}
+		return BPMNAnalyticsCoreRestClient
+				.post(BPMNAnalyticsCoreUtils.getURL(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH),
+				      BPMNAnalyticsCoreUtils.getJSONString(query), handler);
+	}
+
+	/**
+	 * Add the records finished before the given time to the aggregates of their day
+	 *
+	 * @return number of records added
+	 */
+	private int add(List<UsageRecord> records, long finishedBefore, Map<Bucket, UsageAggregate> buckets) {
+		int recordCount = 0;
+		for (UsageRecord record : records) {
+			if (record.getFinishedTime() < 0) {
+				skippedRecordCount.increment();
+				continue;
+			}
+			if (record.getFinishedTime() >= finishedBefore) {
+				continue;
+			}
+			Bucket bucket = new Bucket(toDay(record.getFinishedTime()), record.getDimensions());
+			UsageAggregate aggregate = buckets.get(bucket);
+			if (aggregate == null) {
+				aggregate = new UsageAggregate();
+				buckets.put(bucket, aggregate);
+			}
+			aggregate.add(record.getDuration());
+			recordCount++;
+		}
+		return recordCount;
+	}
+
+	/**
+	 * @return true once the records are loaded for the first time, queries are sent to DAS before
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * @return finished time up to which the records are loaded
+	 */
+	public long getLoadedUpTo() {
+		return cursor - 1;
+	}
+
+	/**
+	 * @return milliseconds since the last finished time loaded, the queries are sent to DAS once it is above the
+	 * settle delay and two refresh intervals
+	 */
+	public long getLag() {
+		return System.currentTimeMillis() - getLoadedUpTo();
+	}
+
+	/**
+	 * @return number of aggregates kept for all the tables
+	 */
+	public int getBucketCount() {
+		lock.readLock().lock();
+		try {
+			int count = 0;
+			for (TableAggregates table : tables.values()) {
+				count += table.buckets.size();
+			}
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getLocalQueryCount() {
+		return localQueryCount.sum();
+	}
+
+	public long getDASQueryCount() {
+		return dasQueryCount.sum();
+	}
+
+	/**
+	 * @return number of records read without a valid finished time, they are not counted in the aggregates
+	 */
+	public long getSkippedRecordCount() {
+		return skippedRecordCount.sum();
+	}
+
+	/**
+	 * Aggregates of a table, one per day and combination of the dimension values
+	 */
+	private static class TableAggregates {
+		private final String tableName;
+		private final String[] dimensions;
+		private final Map<Bucket, UsageAggregate> buckets = new HashMap<>();
+
+		TableAggregates(String tableName, String[] dimensions) {
+			this.tableName = tableName;
+			this.dimensions = dimensions;
+		}
+
+		int indexOf(String column) {
+			for (int i = 0; i < dimensions.length; i++) {
+				if (dimensions[i].equals(column)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @return number of aggregates dropped
+		 */
+		int dropBefore(long day) {
+			int dropped = 0;
+			Iterator<Bucket> iterator = buckets.keySet().iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().day < day) {
+					iterator.remove();
+					dropped++;
+				}
+			}
+			return dropped;
+		}
+
+		void add(Map<Bucket, UsageAggregate> updates) {
+			for (Map.Entry<Bucket, UsageAggregate> update : updates.entrySet()) {
+				UsageAggregate aggregate = buckets.get(update.getKey());
+				if (aggregate == null) {
+					buckets.put(update.getKey(), update.getValue());
+				} else {
+					aggregate.add(update.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Day and dimension values of an aggregate
+	 */
+	private static class Bucket {
+		private final long day;
+		private final String[] values;
+		private final int hashCode;
+
+		Bucket(long day, String[] values) {
+			this.day = day;
+			this.values = values;
+			this.hashCode = 31 * Long.hashCode(day) + Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Bucket)) {
+				return false;
+			}
+			Bucket bucket = (Bucket) o;
+			return day == bucket.day && Arrays.equals(values, bucket.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Caches the results of the DAS queries for a short time. Dashboards refresh the same filters every few seconds
+ * for many users, so most of the queries can be answered without calling DAS.
+ * Concurrent calls for the same query wait for the call in flight instead of sending their own (single flight).
+ * Failed calls are not cached. When the cache is full, the least recently used result is evicted.
+ *
+ * @param <V> type of the cached results
+ */
+public class QueryResultCache<V> {
+
+	/**
+	 * Sends the query to DAS on a cache miss
+	 */
+	public interface QueryLoader<V> {
+		V load() throws IOException, XMLStreamException;
+	}
+
+	private final long timeToLiveNanos;
+	private final int maxEntries;
+
+	// Results in access order, guarded by itself. Queries are sent outside of the lock
+	private final Map<String, CachedResult<V>> results;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder coalescedCount = new LongAdder();
+
+	/**
+	 * @param timeToLive time a result is served from the cache (in milliseconds)
+	 * @param maxEntries maximum number of cached results
+	 */
+	public QueryResultCache(long timeToLive, final int maxEntries) {
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+		this.maxEntries = maxEntries;
+		this.results = new LinkedHashMap<String, CachedResult<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResult<V>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Get the result of the query from the cache, or from DAS if it is not cached or expired
+	 *
+	 * @param key    normalized query, e.g. the url and the JSON of the query
+	 * @param loader sends the query to DAS
+	 * @return the result, null if DAS could not be reached
+	 */
+	public V get(String key, QueryLoader<V> loader) throws IOException, XMLStreamException {
+		CachedResult<V> cachedResult;
+		boolean loading = false;
+		synchronized (results) {
+			cachedResult = results.get(key);
+			if (cachedResult == null || cachedResult.isExpired(System.nanoTime())) {
+				cachedResult = new CachedResult<>();
+				results.put(key, cachedResult);
+				loading = true;
+			}
+		}
+
+		if (!loading) {
+			if (cachedResult.result.isDone()) {
+				hitCount.increment();
+			} else {
+				coalescedCount.increment();
+			}
+			return cachedResult.await();
+		}
+
+		missCount.increment();
+		V result = null;
+		Throwable failure = null;
+		try {
+			result = loader.load();
+			return result;
+		} catch (IOException | XMLStreamException | RuntimeException | Error e) {
+			failure = e;
+			throw e;
+		} finally {
+			if (failure == null && result != null) {
+				cachedResult.expiryTime = System.nanoTime() + timeToLiveNanos;
+				cachedResult.result.complete(result);
+			} else {
+				// Waiting calls get the same outcome, the next call sends the query again
+				remove(key, cachedResult);
+				if (failure != null) {
+					cachedResult.result.completeExceptionally(failure);
+				} else {
+					cachedResult.result.complete(null);
+				}
+			}
+		}
+	}
+
+	private void remove(String key, CachedResult<V> cachedResult) {
+		synchronized (results) {
+			if (results.get(key) == cachedResult) {
+				results.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Remove all the cached results
+	 */
+	public void clear() {
+		synchronized (results) {
+			results.clear();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @return number of calls which waited for the same query in flight instead of sending it
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * @return share of the calls answered without sending the query, including the coalesced calls
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount() + getCoalescedCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public int size() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Result of a query, in flight until it is completed
+	 */
+	private static class CachedResult<V> {
+
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+
+		// Set before the result is completed
+		private volatile long expiryTime;
+
+		private boolean isExpired(long now) {
+			return result.isDone() && now - expiryTime >= 0;
+		}
+
+		private V await() throws IOException, XMLStreamException {
+			try {
+				return result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the DAS query in flight.", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				} else if (cause instanceof XMLStreamException) {
+					throw (XMLStreamException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.models.UsageRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records returned by the DAS search api while they are received, keeping only the dimension columns,
+ * the duration and the finished time of each record.
+ */
+public class UsageRecordsHandler implements DASResponseHandler<List<UsageRecord>> {
+
+	private final String[] dimensionFields;
+
+	/**
+	 * @param dimensionFields columns of the records to be kept
+	 */
+	public UsageRecordsHandler(String[] dimensionFields) {
+		this.dimensionFields = dimensionFields;
+	}
+
+	@Override
+	public List<UsageRecord> handleResponse(InputStream responseBody, String charset) throws IOException {
+		List<UsageRecord> records = new ArrayList<>();
+		// The response stream is closed with the parser, as in AggregateRowsHandler
+		try (JsonParser parser = AggregateRowsHandler.createParser(responseBody, charset)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new JsonParseException(parser, "DAS response is not an array of records.");
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+				records.add(readRecord(parser));
+			}
+			if (token != JsonToken.END_ARRAY) {
+				throw new JsonParseException(parser, "DAS response is not an array of records.");
+			}
+		}
+		return records;
+	}
+
+	private UsageRecord readRecord(JsonParser parser) throws IOException {
+		UsageRecord record = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (BPMNAnalyticsCoreConstants.VALUES.equals(field) && token == JsonToken.START_OBJECT) {
+				record = readValues(parser);
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (record == null) {
+			throw new JsonParseException(parser, "DAS record without " + BPMNAnalyticsCoreConstants.VALUES + ".");
+		}
+		return record;
+	}
+
+	private UsageRecord readValues(JsonParser parser) throws IOException {
+		String[] dimensions = new String[dimensionFields.length];
+		double duration = Double.NaN;
+		long finishedTime = -1;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (BPMNAnalyticsCoreConstants.DURATION.equals(field)) {
+				duration = readNumber(parser, token, Double.NaN);
+			} else if (BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME.equals(field)) {
+				finishedTime = (long) readNumber(parser, token, -1);
+			} else {
+				int index = indexOf(field);
+				if (index >= 0) {
+					dimensions[index] = AggregateRowsHandler.readKey(parser, token);
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return new UsageRecord(dimensions, duration, finishedTime);
+	}
+
+	private int indexOf(String field) {
+		for (int i = 0; i < dimensionFields.length; i++) {
+			if (dimensionFields[i].equals(field)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static double readNumber(JsonParser parser, JsonToken token, double missingValue) throws IOException {
+		if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+			return parser.getDoubleValue();
+		}
+		if (token == JsonToken.VALUE_STRING) {
+			try {
+				return Double.parseDouble(parser.getText().trim());
+			} catch (NumberFormatException e) {
+				return missingValue;
+			}
+		}
+		parser.skipChildren();
+		return missingValue;
+	}
+}
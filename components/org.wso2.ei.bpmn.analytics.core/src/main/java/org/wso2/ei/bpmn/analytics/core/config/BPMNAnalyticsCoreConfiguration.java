@@ -45,9 +45,34 @@ public class BPMNAnalyticsCoreConfiguration {
     private String analyticsServerUsername;
     private String analyticsServerPassword;
 
+    /* Configurations of the pooled http client used to call the DAS rest api */
+    private int maxConnectionsPerHost = BPMNAnalyticsCoreConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int maxTotalConnections = BPMNAnalyticsCoreConstants.DEFAULT_MAX_TOTAL_CONNECTIONS;
+    private int connectionTimeout = BPMNAnalyticsCoreConstants.DEFAULT_CONNECTION_TIMEOUT;
+    private int socketTimeout = BPMNAnalyticsCoreConstants.DEFAULT_SOCKET_TIMEOUT;
+    private int idleConnectionTimeout = BPMNAnalyticsCoreConstants.DEFAULT_IDLE_CONNECTION_TIMEOUT;
+
     /* Configurations related to bpmn analytics */
     private boolean analyticsDashboardEnabled;
 
+    /* Configurations of the cache of the DAS query results */
+    private boolean queryCacheEnabled = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_ENABLED;
+    private int queryCacheTimeToLive = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_TIME_TO_LIVE;
+    private int queryCacheMaxEntries = BPMNAnalyticsCoreConstants.DEFAULT_QUERY_CACHE_MAX_ENTRIES;
+
+    /* Configurations of the executor running the queries of a batch */
+    private int batchQueryThreadPoolSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_THREAD_POOL_SIZE;
+    private int batchQueryQueueSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_QUEUE_SIZE;
+    private int batchQueryTimeOut = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_TIME_OUT;
+
+    /* Configurations of the local aggregates of the usage summary tables */
+    private boolean aggregateStoreEnabled = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_ENABLED;
+    private int aggregateStoreRefreshInterval = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_REFRESH_INTERVAL;
+    private int aggregateStoreSettleDelay = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_SETTLE_DELAY;
+    private int aggregateStorePageSize = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_PAGE_SIZE;
+    private int aggregateStoreMaxDays = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_MAX_DAYS;
+    private String aggregateStoreTimeZone = BPMNAnalyticsCoreConstants.DEFAULT_AGGREGATE_STORE_TIME_ZONE;
+
     /**
      * Create BPS Analytics Configuration from a configuration file. If error occurred while parsing configuration
      * file, default configuration will be created.
@@ -149,6 +174,33 @@ public class BPMNAnalyticsCoreConfiguration {
                     this.analyticsServerPassword = tAnalyticServer.getPassword();
                 }
             }
+            // Get http client configurations
+            if (tAnalyticServer.isSetHttpClient()) {
+                initHttpClient(tAnalyticServer.getHttpClient());
+            }
+        }
+    }
+
+    /**
+     * Initialize the configurations of the pooled http client, the defaults are kept for the missing elements
+     *
+     * @param tHttpClient
+     */
+    private void initHttpClient(THttpClient tHttpClient) {
+        if (tHttpClient.isSetMaxConnectionsPerHost()) {
+            this.maxConnectionsPerHost = tHttpClient.getMaxConnectionsPerHost();
+        }
+        if (tHttpClient.isSetMaxTotalConnections()) {
+            this.maxTotalConnections = tHttpClient.getMaxTotalConnections();
+        }
+        if (tHttpClient.isSetConnectionTimeout()) {
+            this.connectionTimeout = tHttpClient.getConnectionTimeout();
+        }
+        if (tHttpClient.isSetSocketTimeout()) {
+            this.socketTimeout = tHttpClient.getSocketTimeout();
+        }
+        if (tHttpClient.isSetIdleConnectionTimeout()) {
+            this.idleConnectionTimeout = tHttpClient.getIdleConnectionTimeout();
         }
     }
 
@@ -160,6 +212,75 @@ public class BPMNAnalyticsCoreConfiguration {
     private void initBPMNAnalytics(TBPMN tbpmn) {
         // Get Enabled configurations
         this.analyticsDashboardEnabled = tbpmn.getDashboardAnalyticsEnabled();
+        if (tbpmn.isSetQueryCache()) {
+            initQueryCache(tbpmn.getQueryCache());
+        }
+        if (tbpmn.isSetBatchQuery()) {
+            initBatchQuery(tbpmn.getBatchQuery());
+        }
+        if (tbpmn.isSetAggregateStore()) {
+            initAggregateStore(tbpmn.getAggregateStore());
+        }
+    }
+
+    /**
+     * Initialize the configurations of the query result cache, the defaults are kept for the missing elements
+     *
+     * @param tQueryCache
+     */
+    private void initQueryCache(TQueryCache tQueryCache) {
+        if (tQueryCache.isSetEnabled()) {
+            this.queryCacheEnabled = tQueryCache.getEnabled();
+        }
+        if (tQueryCache.isSetTimeToLive()) {
+            this.queryCacheTimeToLive = tQueryCache.getTimeToLive();
+        }
+        if (tQueryCache.isSetMaxEntries()) {
+            this.queryCacheMaxEntries = tQueryCache.getMaxEntries();
+        }
+    }
+
+    /**
+     * Initialize the configurations of the batch query executor, the defaults are kept for the missing elements
+     *
+     * @param tBatchQuery
+     */
+    private void initBatchQuery(TBatchQuery tBatchQuery) {
+        if (tBatchQuery.isSetThreadPoolSize()) {
+            this.batchQueryThreadPoolSize = tBatchQuery.getThreadPoolSize();
+        }
+        if (tBatchQuery.isSetQueueSize()) {
+            this.batchQueryQueueSize = tBatchQuery.getQueueSize();
+        }
+        if (tBatchQuery.isSetTimeOut()) {
+            this.batchQueryTimeOut = tBatchQuery.getTimeOut();
+        }
+    }
+
+    /**
+     * Initialize the configurations of the local aggregates, the defaults are kept for the missing elements
+     *
+     * @param tAggregateStore
+     */
+    private void initAggregateStore(TAggregateStore tAggregateStore) {
+        if (tAggregateStore.isSetEnabled()) {
+            this.aggregateStoreEnabled = tAggregateStore.getEnabled();
+        }
+        if (tAggregateStore.isSetRefreshInterval()) {
+            this.aggregateStoreRefreshInterval = tAggregateStore.getRefreshInterval();
+        }
+        if (tAggregateStore.isSetSettleDelay()) {
+            this.aggregateStoreSettleDelay = tAggregateStore.getSettleDelay();
+        }
+        if (tAggregateStore.isSetPageSize()) {
+            this.aggregateStorePageSize = tAggregateStore.getPageSize();
+        }
+        if (tAggregateStore.isSetMaxDays()) {
+            this.aggregateStoreMaxDays = tAggregateStore.getMaxDays();
+        }
+        if (tAggregateStore.isSetTimeZone()) {
+            this.aggregateStoreTimeZone = tAggregateStore.getTimeZone().trim();
+        }
     }
 
 //    public boolean isAnalyticsEnabled() {
@@ -182,4 +303,72 @@ public class BPMNAnalyticsCoreConfiguration {
         return analyticsDashboardEnabled;
     }
 
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public int getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+
+    public int getQueryCacheTimeToLive() {
+        return queryCacheTimeToLive;
+    }
+
+    public int getQueryCacheMaxEntries() {
+        return queryCacheMaxEntries;
+    }
+
+    public int getBatchQueryThreadPoolSize() {
+        return batchQueryThreadPoolSize;
+    }
+
+    public int getBatchQueryQueueSize() {
+        return batchQueryQueueSize;
+    }
+
+    public int getBatchQueryTimeOut() {
+        return batchQueryTimeOut;
+    }
+
+    public boolean isAggregateStoreEnabled() {
+        return aggregateStoreEnabled;
+    }
+
+    public int getAggregateStoreRefreshInterval() {
+        return aggregateStoreRefreshInterval;
+    }
+
+    public int getAggregateStoreSettleDelay() {
+        return aggregateStoreSettleDelay;
+    }
+
+    public int getAggregateStorePageSize() {
+        return aggregateStorePageSize;
+    }
+
+    public int getAggregateStoreMaxDays() {
+        return aggregateStoreMaxDays;
+    }
+
+    public String getAggregateStoreTimeZone() {
+        return aggregateStoreTimeZone;
+    }
+
 }
@@ -20,9 +20,13 @@ package org.wso2.ei.bpmn.analytics.core.internal;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
+import org.wso2.carbon.registry.core.utils.RegistryUtils;
+import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
+import org.wso2.ei.bpmn.analytics.core.clients.LocalAggregateStore;
 import org.wso2.ei.bpmn.analytics.core.exceptions.BPMNAnalyticsCoreException;
 import org.wso2.ei.bpmn.analytics.core.services.BPMNAnalyticsCoreServer;
 import org.wso2.ei.bpmn.analytics.core.services.BPMNAnalyticsCoreService;
+import org.wso2.ei.bpmn.analytics.core.services.BatchQueryRunner;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.service.RealmService;
 
@@ -41,6 +45,14 @@ public class BPMNAnalyticsCoreServiceComponent {
         try {
             BPMNAnalyticsCoreServerHolder bpmnAnalyticsCoreHolder = BPMNAnalyticsCoreServerHolder.getInstance();
             initAnalyticsServer(bpmnAnalyticsCoreHolder);
+            // The trust store is set once, before the first TLS connection to DAS
+            RegistryUtils.setTrustStoreSystemProperties();
+            BPMNAnalyticsCoreRestClient.init(
+                    bpmnAnalyticsCoreHolder.getBPMNAnalyticsCoreServer().getBPSAnalyticsConfiguration());
+            BatchQueryRunner.init(
+                    bpmnAnalyticsCoreHolder.getBPMNAnalyticsCoreServer().getBPSAnalyticsConfiguration());
+            LocalAggregateStore.init(
+                    bpmnAnalyticsCoreHolder.getBPMNAnalyticsCoreServer().getBPSAnalyticsConfiguration());
             BPMNAnalyticsCoreService bpsAnalyticsService = new BPMNAnalyticsCoreService();
             bpsAnalyticsService.setBPMNAnalyticsCoreServer(
                     bpmnAnalyticsCoreHolder.getBPMNAnalyticsCoreServer());
@@ -52,6 +64,12 @@ public class BPMNAnalyticsCoreServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext ctxt) {
+        LocalAggregateStore.shutdown();
+        BatchQueryRunner.shutdown();
+        BPMNAnalyticsCoreRestClient.shutdown();
+    }
+
     /**
      * Set RegistryService instance when bundle get bind to OSGI runtime.
      *
@@ -0,0 +1,362 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.models;
+
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AggregateQuerySpec class describes a DAS query of a monitoring gadget: the table, the group by (or key) field,
+ * the aggregate and its alias, the filters and the order of the result.
+ * The filters are Lucene clauses joined with AND, they are built only here.
+ */
+public class AggregateQuerySpec {
+	private final String tableName;
+	private final String keyField;
+	private final String aggregate;
+	private final String fieldName;
+	private final String valueField;
+	private final boolean search;
+	private boolean integerValues;
+	private final List<String> filters = new ArrayList<>();
+	private final Map<String, List<String>> valueFilters = new LinkedHashMap<>();
+	private boolean ranged;
+	private long from;
+	private long to;
+	private String order;
+	private int limit;
+
+	private AggregateQuerySpec(String tableName, String keyField, String aggregate, String fieldName,
+	                           String valueField, boolean search, boolean integerValues) {
+		this.tableName = tableName;
+		this.keyField = keyField;
+		this.aggregate = aggregate;
+		this.fieldName = fieldName;
+		this.valueField = valueField;
+		this.search = search;
+		this.integerValues = integerValues;
+	}
+
+	/**
+	 * SELECT groupByField, COUNT(*) AS alias FROM tableName GROUP BY groupByField
+	 *
+	 * @param tableName    DAS table to be queried
+	 * @param groupByField field to group the records by
+	 * @param alias        name of the count in the result
+	 * @return a query spec with int values
+	 */
+	public static AggregateQuerySpec count(String tableName, String groupByField, String alias) {
+		return new AggregateQuerySpec(tableName, groupByField, BPMNAnalyticsCoreConstants.COUNT,
+		                              BPMNAnalyticsCoreConstants.ALL, alias, false, true);
+	}
+
+	/**
+	 * SELECT groupByField, SUM(fieldName) AS alias FROM tableName GROUP BY groupByField
+	 *
+	 * @param tableName    DAS table to be queried
+	 * @param groupByField field to group the records by
+	 * @param fieldName    field to be summed
+	 * @param alias        name of the sum in the result
+	 * @return a query spec with double values
+	 */
+	public static AggregateQuerySpec sum(String tableName, String groupByField, String fieldName, String alias) {
+		return new AggregateQuerySpec(tableName, groupByField, BPMNAnalyticsCoreConstants.SUM, fieldName, alias,
+		                              false, false);
+	}
+
+	/**
+	 * SELECT groupByField, AVG(fieldName) AS alias FROM tableName GROUP BY groupByField
+	 *
+	 * @param tableName    DAS table to be queried
+	 * @param groupByField field to group the records by
+	 * @param fieldName    field to be averaged
+	 * @param alias        name of the average in the result
+	 * @return a query spec with double values
+	 */
+	public static AggregateQuerySpec avg(String tableName, String groupByField, String fieldName, String alias) {
+		return new AggregateQuerySpec(tableName, groupByField, BPMNAnalyticsCoreConstants.AVG, fieldName, alias,
+		                              false, false);
+	}
+
+	/**
+	 * SELECT keyField, valueField FROM tableName, sent to the search api instead of the aggregate api
+	 *
+	 * @param tableName  DAS table to be queried
+	 * @param keyField   field used as the key of the result
+	 * @param valueField field used as the value of the result
+	 * @return a query spec with double values
+	 */
+	public static AggregateQuerySpec search(String tableName, String keyField, String valueField) {
+		return new AggregateQuerySpec(tableName, keyField, null, null, valueField, true, false);
+	}
+
+	/**
+	 * Truncate the values to int
+	 *
+	 * @return this spec
+	 */
+	public AggregateQuerySpec integerValues() {
+		this.integerValues = true;
+		return this;
+	}
+
+	/**
+	 * Add the filter column:"'value'"
+	 *
+	 * @param column Lucene column of the table
+	 * @param value  value to be matched
+	 * @return this spec
+	 */
+	public AggregateQuerySpec whereEquals(String column, String value) {
+		filters.add(getEqualsQuery(column, value));
+		addValueFilter(column, Collections.singletonList(value));
+		return this;
+	}
+
+	/**
+	 * Add the filter (column:"'value1'" OR column:"'value2'" ...), nothing is added for an empty list
+	 *
+	 * @param column Lucene column of the table
+	 * @param values values to be matched
+	 * @return this spec
+	 */
+	public AggregateQuerySpec whereAnyOf(String column, List<String> values) {
+		if (!values.isEmpty()) {
+			StringBuilder query = new StringBuilder("(");
+			for (int i = 0; i < values.size(); i++) {
+				if (i != 0) {
+					query.append(" OR ");
+				}
+				query.append(getEqualsQuery(column, values.get(i)));
+			}
+			filters.add(query.append(')').toString());
+		}
+		addValueFilter(column, values);
+		return this;
+	}
+
+	/**
+	 * Add the filter finishedTime : [from TO to]
+	 *
+	 * @param from start of the date range
+	 * @param to   end of the date range
+	 * @return this spec
+	 */
+	public AggregateQuerySpec whereFinishedBetween(long from, long to) {
+		filters.add(BPMNAnalyticsCoreUtils.getDateRangeQuery(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, from,
+		                                                     to));
+		if (ranged) {
+			this.from = Math.max(this.from, from);
+			this.to = Math.min(this.to, to);
+		} else {
+			this.ranged = true;
+			this.from = from;
+			this.to = to;
+		}
+		return this;
+	}
+
+	/**
+	 * Add the filter finishedTime : [from TO to], nothing is added if the date range is not selected (0)
+	 *
+	 * @param from start of the date range
+	 * @param to   end of the date range
+	 * @return this spec
+	 */
+	public AggregateQuerySpec whereFinishedBetweenIfSet(long from, long to) {
+		if (from != 0 && to != 0) {
+			whereFinishedBetween(from, to);
+		}
+		return this;
+	}
+
+	/**
+	 * Keep only the first entries of the result. Search queries are sorted and limited by DAS, the aggregate api
+	 * can not sort the groups, so only the first entries are kept while the response is read.
+	 *
+	 * @param order top or bottom
+	 * @param limit number of entries to be kept
+	 * @return this spec
+	 */
+	public AggregateQuerySpec orderBy(String order, int limit) {
+		this.order = order;
+		this.limit = limit;
+		return this;
+	}
+
+	private static String getEqualsQuery(String column, String value) {
+		return column + ":\"'" + value + "'\"";
+	}
+
+	/**
+	 * Filters of the same column are joined with AND, so only the values of both filters are kept. An empty list
+	 * of values adds no filter to the query.
+	 */
+	private void addValueFilter(String column, List<String> values) {
+		if (values.isEmpty()) {
+			return;
+		}
+		List<String> current = valueFilters.get(column);
+		if (current == null) {
+			valueFilters.put(column, new ArrayList<>(values));
+		} else {
+			current.retainAll(values);
+		}
+	}
+
+	/**
+	 * @return the filters joined with AND, null if there is no filter
+	 */
+	public String getQuery() {
+		if (filters.isEmpty()) {
+			return null;
+		}
+		StringBuilder query = new StringBuilder(filters.get(0));
+		for (int i = 1; i < filters.size(); i++) {
+			query.append(" AND ").append(filters.get(i));
+		}
+		return query.toString();
+	}
+
+	/**
+	 * @return the query object sent to the aggregate api
+	 */
+	public AggregateQuery toAggregateQuery() {
+		AggregateField aggregateField = new AggregateField();
+		aggregateField.setFieldName(fieldName);
+		aggregateField.setAggregate(aggregate);
+		aggregateField.setAlias(valueField);
+
+		ArrayList<AggregateField> aggregateFields = new ArrayList<>();
+		aggregateFields.add(aggregateField);
+
+		AggregateQuery query = new AggregateQuery();
+		query.setTableName(tableName);
+		query.setGroupByField(keyField);
+		query.setQuery(getQuery());
+		query.setAggregateFields(aggregateFields);
+		return query;
+	}
+
+	/**
+	 * @return the query object sent to the search api. If the spec is ordered, DAS sorts the records by the value
+	 * field and returns only the first limit records, otherwise up to MAX_COUNT records are returned.
+	 */
+	public SearchQuery toSearchQuery() {
+		SearchQuery query = new SearchQuery();
+		query.setTableName(tableName);
+		query.setQuery(getQuery());
+		query.setStart(BPMNAnalyticsCoreConstants.MIN_COUNT);
+		String sortType = getSortType();
+		if (sortType != null) {
+			SortByField sortByField = new SortByField();
+			sortByField.setField(valueField);
+			sortByField.setSortType(sortType);
+
+			ArrayList<SortByField> sortBy = new ArrayList<>();
+			sortBy.add(sortByField);
+			query.setSortBy(sortBy);
+			query.setCount(Math.min(limit, BPMNAnalyticsCoreConstants.MAX_COUNT));
+		} else {
+			query.setCount(BPMNAnalyticsCoreConstants.MAX_COUNT);
+		}
+		return query;
+	}
+
+	/**
+	 * The top entries are the smallest values and the bottom entries the largest values, as selected by
+	 * BPMNAnalyticsCoreUtils.getSelector
+	 *
+	 * @return the sort type of the value field, null if the spec is not ordered
+	 */
+	private String getSortType() {
+		if (order == null || limit <= 0) {
+			return null;
+		}
+		if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.TOP)) {
+			return BPMNAnalyticsCoreConstants.SORT_ASC;
+		} else if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.BOTTOM)) {
+			return BPMNAnalyticsCoreConstants.SORT_DESC;
+		}
+		return null;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getAggregate() {
+		return aggregate;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	/**
+	 * @return the values allowed by the filters, by column. The columns without a filter are not in the map.
+	 */
+	public Map<String, List<String>> getValueFilters() {
+		return Collections.unmodifiableMap(valueFilters);
+	}
+
+	/**
+	 * @return true if the query has a finished time range
+	 */
+	public boolean isRanged() {
+		return ranged;
+	}
+
+	public long getFrom() {
+		return from;
+	}
+
+	public long getTo() {
+		return to;
+	}
+
+	public String getKeyField() {
+		return keyField;
+	}
+
+	public String getValueField() {
+		return valueField;
+	}
+
+	public boolean isSearch() {
+		return search;
+	}
+
+	public boolean isIntegerValues() {
+		return integerValues;
+	}
+
+	public String getOrder() {
+		return order;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.models;
+
+import java.util.Arrays;
+
+/**
+ * AggregateRows class keeps the group by keys and the aggregate values returned by DAS in two columns
+ */
+public class AggregateRows {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private String[] keys = new String[INITIAL_CAPACITY];
+	private double[] values = new double[INITIAL_CAPACITY];
+	private int size;
+
+	public void add(String key, double value) {
+		if (size == keys.length) {
+			int capacity = size * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public String getKey(int index) {
+		return keys[index];
+	}
+
+	public double getValue(int index) {
+		return values[index];
+	}
+}
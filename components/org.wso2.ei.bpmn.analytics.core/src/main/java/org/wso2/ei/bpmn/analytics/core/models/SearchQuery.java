@@ -17,6 +17,8 @@
  */
 package org.wso2.ei.bpmn.analytics.core.models;
 
+import java.util.ArrayList;
+
 /**
  * SearchQuery class is used to create a search query object
  */
@@ -25,6 +27,7 @@ public class SearchQuery {
 	private String query;
 	private int start;
 	private int count;
+	private ArrayList<SortByField> sortBy;
 
 	public String getTableName() {
 		return tableName;
@@ -58,4 +61,12 @@ public class SearchQuery {
 		this.count = count;
 	}
 
+	public ArrayList<SortByField> getSortBy() {
+		return sortBy;
+	}
+
+	public void setSortBy(ArrayList<SortByField> sortBy) {
+		this.sortBy = sortBy;
+	}
+
 }
@@ -0,0 +1,88 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.models;
+
+/**
+ * UsageAggregate class keeps the count of the records and the sum, min and max of their durations
+ */
+public class UsageAggregate {
+	private long count;
+	private long durationCount;
+	private double sum;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+	/**
+	 * Add a record
+	 *
+	 * @param duration duration of the record, NaN if the record has no duration
+	 */
+	public void add(double duration) {
+		count++;
+		if (!Double.isNaN(duration)) {
+			addDuration(1, duration, duration, duration);
+		}
+	}
+
+	/**
+	 * Add the records of another aggregate
+	 *
+	 * @param aggregate records to be added
+	 */
+	public void add(UsageAggregate aggregate) {
+		count += aggregate.count;
+		if (aggregate.durationCount != 0) {
+			addDuration(aggregate.durationCount, aggregate.sum, aggregate.min, aggregate.max);
+		}
+	}
+
+	private void addDuration(long durations, double durationSum, double durationMin, double durationMax) {
+		if (durationCount == 0) {
+			min = durationMin;
+			max = durationMax;
+		} else {
+			min = Math.min(min, durationMin);
+			max = Math.max(max, durationMax);
+		}
+		durationCount += durations;
+		sum += durationSum;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return average of the durations, NaN if no record has a duration
+	 */
+	public double getAverage() {
+		return durationCount == 0 ? Double.NaN : sum / durationCount;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+}
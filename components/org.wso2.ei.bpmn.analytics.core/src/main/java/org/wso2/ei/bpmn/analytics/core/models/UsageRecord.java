@@ -0,0 +1,54 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.models;
+
+/**
+ * UsageRecord class keeps the columns of a usage summary record needed by the local aggregates
+ */
+public class UsageRecord {
+	private final String[] dimensions;
+	private final double duration;
+	private final long finishedTime;
+
+	public UsageRecord(String[] dimensions, double duration, long finishedTime) {
+		this.dimensions = dimensions;
+		this.duration = duration;
+		this.finishedTime = finishedTime;
+	}
+
+	/**
+	 * @return values of the dimension columns, null for a missing value
+	 */
+	public String[] getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * @return duration of the record, NaN if it is missing
+	 */
+	public double getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return finished time of the record, -1 if it is missing
+	 */
+	public long getFinishedTime() {
+		return finishedTime;
+	}
+}
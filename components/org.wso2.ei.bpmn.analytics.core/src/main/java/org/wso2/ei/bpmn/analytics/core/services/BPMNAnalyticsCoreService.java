@@ -17,11 +17,21 @@
  */
 package org.wso2.ei.bpmn.analytics.core.services;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
+import org.wso2.ei.bpmn.analytics.core.clients.LocalAggregateStore;
+import org.wso2.ei.bpmn.analytics.core.clients.QueryResultCache;
+
 /**
  * OSGI service exposing BPMN Analytics Core Services
  */
 public class BPMNAnalyticsCoreService {
 
+    private static final Log log = LogFactory.getLog(BPMNAnalyticsCoreService.class);
+
     private BPMNAnalyticsCoreServer bpmnAnalyticsCoreServer;
 
     /**
@@ -41,4 +51,71 @@ public class BPMNAnalyticsCoreService {
     public void setBPMNAnalyticsCoreServer(BPMNAnalyticsCoreServer bpmnAnalyticsCoreServer) {
         this.bpmnAnalyticsCoreServer = bpmnAnalyticsCoreServer;
     }
+
+    /**
+     * Get the hits and misses of the cache of the DAS query results
+     *
+     * @return statistics of the query result cache as a JSON string, enabled is false if the cache is disabled
+     */
+    public String getQueryCacheStatistics() {
+        JSONObject statistics = new JSONObject();
+        QueryResultCache<?> cache = BPMNAnalyticsCoreRestClient.getQueryResultCache();
+        try {
+            statistics.put("enabled", cache != null);
+            if (cache != null) {
+                statistics.put("hits", cache.getHitCount());
+                statistics.put("misses", cache.getMissCount());
+                statistics.put("coalesced", cache.getCoalescedCount());
+                statistics.put("hitRatio", cache.getHitRatio());
+                statistics.put("size", cache.size());
+                statistics.put("maxEntries", cache.getMaxEntries());
+            }
+        } catch (JSONException e) {
+            log.error("BPMN Analytics Core - query cache statistics error.", e);
+            return "";
+        }
+        return statistics.toString();
+    }
+
+    /**
+     * Get the state of the local aggregates of the usage tables and the queries answered from them
+     *
+     * @return statistics of the local aggregate store as a JSON string, enabled is false if the store is disabled
+     */
+    public String getAggregateStoreStatistics() {
+        JSONObject statistics = new JSONObject();
+        LocalAggregateStore store = LocalAggregateStore.getInstance();
+        try {
+            statistics.put("enabled", store != null);
+            if (store != null) {
+                statistics.put("loaded", store.isLoaded());
+                statistics.put("loadedUpTo", store.getLoadedUpTo());
+                statistics.put("lag", store.getLag());
+                statistics.put("aggregates", store.getBucketCount());
+                statistics.put("localQueries", store.getLocalQueryCount());
+                statistics.put("dasQueries", store.getDASQueryCount());
+                statistics.put("skippedRecords", store.getSkippedRecordCount());
+            }
+        } catch (JSONException e) {
+            log.error("BPMN Analytics Core - aggregate store statistics error.", e);
+            return "";
+        }
+        return statistics.toString();
+    }
+
+    /**
+     * Run several named monitor queries of a dashboard concurrently, see {@link BatchQueryRunner}
+     *
+     * @param batch the named queries with their filters and time outs as a JSON string
+     * @return the results of the queries as a JSON string, the queries which timed out are reported without result
+     */
+    public String executeBatchQuery(String batch) {
+        String result = "";
+        try {
+            result = BatchQueryRunner.execute(batch);
+        } catch (JSONException e) {
+            log.error("BPMN Analytics Core - batch query error.", e);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,266 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.MonitorQueries;
+import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
+import org.wso2.ei.bpmn.analytics.core.config.BPMNAnalyticsCoreConfiguration;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the monitor queries of a dashboard page concurrently on a bounded executor, so the page waits for the
+ * slowest query instead of the sum of all of them.
+ * A batch looks like {"timeout":5000,"queries":{"avgTime":{"query":"avg_time_vs_process_id","filters":{...}},...}},
+ * each query may have its own timeout, which is counted from the start of the batch as well. The result looks like
+ * {"complete":true,"results":{"avgTime":{"status":"ok","result":[...]},...}}. Queries which did not complete before
+ * their timeout are cancelled and reported with the timeout status, the results of the other queries are kept.
+ * Queries which failed, for example on a DAS error, are reported with the error status.
+ * The calls to DAS made by a query get the time left as their socket time out, so a cancelled query releases its
+ * thread when its time out is reached instead of blocking on the socket.
+ */
+public class BatchQueryRunner {
+
+    private static final Log log = LogFactory.getLog(BatchQueryRunner.class);
+
+    private static final long KEEP_ALIVE_TIME = 60;
+
+    private static volatile ThreadPoolExecutor executor;
+    private static volatile long defaultTimeOut = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_TIME_OUT;
+
+    /**
+     * Create the executor running the queries of the batches. Called when the component is activated.
+     *
+     * @param configuration BPS analytics configuration, null to use the default pool size and time out
+     */
+    public static synchronized void init(BPMNAnalyticsCoreConfiguration configuration) {
+        int threadPoolSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_THREAD_POOL_SIZE;
+        int queueSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_QUEUE_SIZE;
+        int timeOut = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_TIME_OUT;
+        if (configuration != null) {
+            threadPoolSize = configuration.getBatchQueryThreadPoolSize();
+            queueSize = configuration.getBatchQueryQueueSize();
+            timeOut = configuration.getBatchQueryTimeOut();
+        }
+        if (threadPoolSize < 1) {
+            log.warn("Batch query thread pool size must be at least 1. Using default thread pool size: " +
+                    BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_THREAD_POOL_SIZE);
+            threadPoolSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_THREAD_POOL_SIZE;
+        }
+        if (queueSize < 1) {
+            log.warn("Batch query queue size must be at least 1. Using default queue size: " +
+                    BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_QUEUE_SIZE);
+            queueSize = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_QUEUE_SIZE;
+        }
+        if (timeOut < 1) {
+            log.warn("Batch query time out must be a positive number of millis. Using default time out: " +
+                    BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_TIME_OUT);
+            timeOut = BPMNAnalyticsCoreConstants.DEFAULT_BATCH_QUERY_TIME_OUT;
+        }
+
+        shutdown();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, KEEP_ALIVE_TIME,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new BatchQueryThreadFactory());
+        // Dashboards are used now and then, do not keep idle threads
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+        defaultTimeOut = timeOut;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Batch queries run on " + threadPoolSize + " threads, time out " + timeOut + " ms");
+        }
+    }
+
+    /**
+     * Stop the executor, the queries in progress are interrupted. Called when the component is deactivated.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Run the queries of a batch concurrently and wait for them until the time out of the batch
+     *
+     * @param batch the named queries with their filters and time outs as a JSON string
+     * @return the results of the queries as a JSON string
+     * @throws JSONException if the batch is not valid
+     */
+    public static String execute(String batch) throws JSONException {
+        long startTime = System.nanoTime();
+        JSONObject batchObj = new JSONObject(batch);
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(
+                batchObj.optLong(BPMNAnalyticsCoreConstants.BATCH_TIME_OUT, defaultTimeOut));
+        JSONObject queries = batchObj.getJSONObject(BPMNAnalyticsCoreConstants.BATCH_QUERIES);
+
+        JSONObject results = new JSONObject();
+        Map<String, Future<JSONArray>> futures = new LinkedHashMap<>();
+        Map<String, Long> deadlines = new LinkedHashMap<>();
+        ThreadPoolExecutor pool = executor;
+
+        // Submit all the queries first, then wait for them
+        Iterator<?> names = queries.keys();
+        while (names.hasNext()) {
+            String name = (String) names.next();
+            JSONObject query = queries.getJSONObject(name);
+            MonitorQueries.MonitorQuery monitorQuery =
+                    MonitorQueries.get(query.getString(BPMNAnalyticsCoreConstants.BATCH_QUERY_NAME));
+            if (monitorQuery == null) {
+                results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_UNKNOWN));
+                continue;
+            }
+            Object filters = query.opt(BPMNAnalyticsCoreConstants.BATCH_FILTERS);
+
+            long queryDeadline = deadline;
+            if (query.has(BPMNAnalyticsCoreConstants.BATCH_TIME_OUT)) {
+                queryDeadline = Math.min(deadline, startTime + TimeUnit.MILLISECONDS.toNanos(
+                        query.getLong(BPMNAnalyticsCoreConstants.BATCH_TIME_OUT)));
+            }
+            Callable<JSONArray> task = new MonitorQueryTask(monitorQuery, filters == null ? "{}" : filters.toString(),
+                    queryDeadline);
+
+            if (pool == null) {
+                // Not initialized, run the query in the calling thread
+                FutureTask<JSONArray> future = new FutureTask<>(task);
+                future.run();
+                futures.put(name, future);
+            } else {
+                try {
+                    futures.put(name, pool.submit(task));
+                } catch (RejectedExecutionException e) {
+                    log.warn("BPMN Analytics Core - batch query " + name + " rejected, the queue is full.");
+                    results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_REJECTED));
+                    continue;
+                }
+            }
+            deadlines.put(name, queryDeadline);
+        }
+
+        boolean complete = futures.size() == queries.length();
+        for (Map.Entry<String, Future<JSONArray>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Future<JSONArray> future = entry.getValue();
+            try {
+                long remaining = deadlines.get(name) - System.nanoTime();
+                JSONArray result = future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                JSONObject status = getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_OK);
+                status.put(BPMNAnalyticsCoreConstants.BATCH_RESULT, result);
+                results.put(name, status);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                complete = false;
+                results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_TIMEOUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                complete = false;
+                results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_TIMEOUT));
+            } catch (ExecutionException e) {
+                complete = false;
+                if (e.getCause() instanceof SocketTimeoutException || System.nanoTime() - deadlines.get(name) >= 0) {
+                    // A call to DAS ran out of the time left to the query
+                    results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_TIMEOUT));
+                } else {
+                    log.error("BPMN Analytics Core - batch query " + name + " error.", e.getCause());
+                    results.put(name, getStatus(BPMNAnalyticsCoreConstants.BATCH_STATUS_ERROR));
+                }
+            }
+        }
+
+        JSONObject response = new JSONObject();
+        response.put(BPMNAnalyticsCoreConstants.BATCH_COMPLETE, complete);
+        response.put(BPMNAnalyticsCoreConstants.BATCH_RESULTS, results);
+        if (log.isDebugEnabled()) {
+            log.debug("Batch of " + queries.length() + " queries completed in " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms, complete: " + complete);
+        }
+        return response.toString();
+    }
+
+    private static JSONObject getStatus(String status) throws JSONException {
+        JSONObject statusObj = new JSONObject();
+        statusObj.put(BPMNAnalyticsCoreConstants.BATCH_STATUS, status);
+        return statusObj;
+    }
+
+    /**
+     * Runs a monitor query with its filters, its calls to DAS are bound by the deadline of the query. The result is
+     * parsed here, so a failed query or an invalid result fails the task.
+     */
+    private static class MonitorQueryTask implements Callable<JSONArray> {
+        private final MonitorQueries.MonitorQuery monitorQuery;
+        private final String filters;
+        private final long deadline;
+
+        MonitorQueryTask(MonitorQueries.MonitorQuery monitorQuery, String filters, long deadline) {
+            this.monitorQuery = monitorQuery;
+            this.filters = filters;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public JSONArray call() throws JSONException, IOException, XMLStreamException {
+            BPMNAnalyticsCoreRestClient.setCallDeadline(deadline);
+            try {
+                String result = monitorQuery.execute(filters);
+                // The monitors return an empty string if there are no rows
+                return result == null || result.isEmpty() ? new JSONArray() : new JSONArray(result);
+            } finally {
+                BPMNAnalyticsCoreRestClient.clearCallDeadline();
+            }
+        }
+    }
+
+    /**
+     * Names the threads of the executor, they do not keep the server from shutting down
+     */
+    private static class BatchQueryThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "BPMNAnalyticsBatchQuery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.ei.bpmn.analytics.core.internal.BPMNAnalyticsCoreServerHolder;
 import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -38,6 +39,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import javax.xml.bind.DatatypeConverter;
@@ -139,38 +141,30 @@ public class BPMNAnalyticsCoreUtils {
     public static String getDoubleValueSortedList(Hashtable<String, Double> table, String key1,
                                                   String key2, String order, int count)
             throws JSONException {
-        //Transfer as List and sort it
-        ArrayList<Map.Entry<String, Double>> l = new ArrayList(table.entrySet());
-        Collections.sort(l, new Comparator<Map.Entry<String, Double>>() {
-            public int compare(Map.Entry<String, Double> o1, Map.Entry<String, Double> o2) {
-                return o1.getValue().compareTo(o2.getValue());
-            }
-        });
-        Collections.reverse(l);
-        JSONArray array = new JSONArray();
-        for (int i = 0; i < l.size(); i++) {
-            JSONObject o = new JSONObject();
-            o.put(key1, l.get(i).getKey());
-            o.put(key2, round(l.get(i).getValue(), 2));
-            array.put(o);
+        TopKSelector selector = getSelector(order, count);
+        if (selector == null) {
+            return new JSONArray().toString();
         }
-
-        //if count exceeds the array length, then assign the array length to the count variable
-        if (count > array.length()) {
-            count = array.length();
+        for (Map.Entry<String, Double> entry : table.entrySet()) {
+            selector.offer(entry.getKey(), entry.getValue());
         }
+        return getSelectedList(selector, key1, key2, false);
+    }
 
-        JSONArray arrayPortion = new JSONArray();
-        if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.TOP)) {
-            for (int i = array.length() - count; i < array.length(); i++) {
-                arrayPortion.put(array.get(i));
-            }
-        } else if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.BOTTOM)) {
-            for (int i = 0; i < count; i++) {
-                arrayPortion.put(array.get(i));
-            }
-        }
-        return arrayPortion.toString();
+    /**
+     * Get sorted list (sort by double type values) of the rows returned by DAS
+     *
+     * @param rows  is the keys and the values returned by DAS
+     * @param key1  is the name for the first value of the JSON object
+     * @param key2  is the name for the second value for the JSON object
+     * @param order is to get the top or bottom results
+     * @param count is to limit the number of results
+     * @return a sorted list as a JSON array string
+     * @throws JSONException
+     */
+    public static String getDoubleValueSortedList(AggregateRows rows, String key1, String key2, String order,
+                                                  int count) throws JSONException {
+        return getSortedList(rows, key1, key2, order, count, false);
     }
 
     /**
@@ -187,39 +181,82 @@ public class BPMNAnalyticsCoreUtils {
     public static String getIntegerValueSortedList(Hashtable<String, Integer> table, String key1,
                                                    String key2, String order, int count)
             throws JSONException {
-        ArrayList<Map.Entry<String, Integer>> l = new ArrayList(table.entrySet());
-        Collections.sort(l, new Comparator<Map.Entry<String, Integer>>() {
-            public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
-                return o1.getValue().compareTo(o2.getValue());
-            }
-        });
-        Collections.reverse(l);
-        JSONArray array = new JSONArray();
-        for (int i = 0; i < l.size(); i++) {
-            JSONObject o = new JSONObject();
-            o.put(key1, l.get(i).getKey());
-            o.put(key2, l.get(i).getValue());
-            array.put(o);
+        TopKSelector selector = getSelector(order, count);
+        if (selector == null) {
+            return new JSONArray().toString();
+        }
+        for (Map.Entry<String, Integer> entry : table.entrySet()) {
+            selector.offer(entry.getKey(), entry.getValue());
         }
+        return getSelectedList(selector, key1, key2, true);
+    }
+
+    /**
+     * Get sorted list (sort by int type values) of the rows returned by DAS
+     *
+     * @param rows  is the keys and the values returned by DAS
+     * @param key1  is the name for the first value of the JSON object
+     * @param key2  is the name for the second value for the JSON object
+     * @param order is to get the top or bottom results
+     * @param count is to limit the number of results
+     * @return a sorted list as a JSON array string
+     * @throws JSONException
+     */
+    public static String getIntegerValueSortedList(AggregateRows rows, String key1, String key2, String order,
+                                                   int count) throws JSONException {
+        return getSortedList(rows, key1, key2, order, count, true);
+    }
 
-        //if count exceeds the array length, then assign the array length to the count variable
-        if (count > array.length()) {
-            count = array.length();
+    private static String getSortedList(AggregateRows rows, String key1, String key2, String order, int count,
+                                        boolean integerValues) throws JSONException {
+        TopKSelector selector = getSelector(order, count);
+        if (selector == null) {
+            return new JSONArray().toString();
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            selector.offer(rows.getKey(i), rows.getValue(i));
         }
+        return getSelectedList(selector, key1, key2, integerValues);
+    }
 
+    /**
+     * Convert the selected rows to JSON, in descending order of their values
+     */
+    private static String getSelectedList(TopKSelector selector, String key1, String key2, boolean integerValues)
+            throws JSONException {
+        selector.sortDescending();
         JSONArray arrayPortion = new JSONArray();
-        if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.TOP)) {
-            for (int i = array.length() - count; i < array.length(); i++) {
-                arrayPortion.put(array.get(i));
-            }
-        } else if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.BOTTOM)) {
-            for (int i = 0; i < count; i++) {
-                arrayPortion.put(array.get(i));
+        for (int i = 0; i < selector.size(); i++) {
+            JSONObject o = new JSONObject();
+            o.put(key1, selector.getKey(i));
+            if (integerValues) {
+                o.put(key2, (int) selector.getValue(i));
+            } else {
+                o.put(key2, round(selector.getValue(i), 2));
             }
+            arrayPortion.put(o);
         }
         return arrayPortion.toString();
     }
 
+    /**
+     * Get the selector of the rows to be returned, only the selected rows are converted to JSON.
+     * The top results are the last rows of the list sorted in descending order, i.e. the smallest values, and the
+     * bottom results are the first rows, i.e. the largest values. Both are returned in descending order.
+     *
+     * @param order is to get the top or bottom results
+     * @param count is to limit the number of results
+     * @return a selector of count rows, null if the order is unknown
+     */
+    public static TopKSelector getSelector(String order, int count) {
+        if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.TOP)) {
+            return TopKSelector.smallest(count);
+        } else if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.BOTTOM)) {
+            return TopKSelector.largest(count);
+        }
+        return null;
+    }
+
     /**
      * Get sorted list (sort by long type keys)
      *
@@ -248,6 +285,56 @@ public class BPMNAnalyticsCoreUtils {
         return array.toString();
     }
 
+    /**
+     * Get sorted list (sort by long type keys) of the rows returned by DAS
+     *
+     * @param rows is the keys and the int values returned by DAS
+     * @param key1 is the name for the first value of the JSON object
+     * @param key2 is the name for the second value for the JSON object
+     * @return a sorted list as a JSON array string
+     * @throws JSONException
+     */
+    public static String getLongKeySortedList(AggregateRows rows, String key1, String key2) throws JSONException {
+        Hashtable<Long, Integer> table = new Hashtable<>();
+        for (int i = 0; i < rows.size(); i++) {
+            table.put(Long.parseLong(rows.getKey(i)), (int) rows.getValue(i));
+        }
+        return getLongKeySortedList(table, key1, key2);
+    }
+
+    /**
+     * Get the list of the keys returned by DAS
+     *
+     * @param rows is the keys returned by DAS
+     * @param key1 is the name for the value of the JSON object
+     * @return a list as a JSON array string
+     * @throws JSONException
+     */
+    public static String getKeyList(AggregateRows rows, String key1) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < rows.size(); i++) {
+            JSONObject o = new JSONObject();
+            o.put(key1, rows.getKey(i));
+            array.put(o);
+        }
+        return array.toString();
+    }
+
+    /**
+     * Get the values of a JSON array of strings, e.g. the process id list of the filters
+     *
+     * @param array is a JSON array of strings
+     * @return the values as a list
+     * @throws JSONException
+     */
+    public static List<String> getStringList(JSONArray array) throws JSONException {
+        List<String> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+
     /**
      * Convert given datetime string to date
      *
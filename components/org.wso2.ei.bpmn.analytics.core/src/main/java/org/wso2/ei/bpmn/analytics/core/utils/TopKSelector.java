@@ -0,0 +1,153 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.utils;
+
+/**
+ * Selects the k entries with the largest or the smallest values out of the aggregate result rows, using a heap
+ * bounded to k entries. Keys and values are kept in arrays, so offering a row costs O(log k) without boxing,
+ * instead of sorting all the rows to return a few of them.
+ */
+public class TopKSelector {
+
+    // Select the largest values, otherwise the smallest values
+    private final boolean largest;
+
+    // Heap of the selected entries, the root holds the entry which is replaced first
+    private final String[] keys;
+    private final double[] values;
+    private int size;
+
+    private TopKSelector(int k, boolean largest) {
+        int capacity = Math.max(k, 0);
+        this.largest = largest;
+        this.keys = new String[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Create a selector of the entries with the largest values
+     *
+     * @param k maximum number of selected entries
+     * @return an empty selector
+     */
+    public static TopKSelector largest(int k) {
+        return new TopKSelector(k, true);
+    }
+
+    /**
+     * Create a selector of the entries with the smallest values
+     *
+     * @param k maximum number of selected entries
+     * @return an empty selector
+     */
+    public static TopKSelector smallest(int k) {
+        return new TopKSelector(k, false);
+    }
+
+    /**
+     * Offer an entry, it is kept only if it is one of the k entries selected so far
+     *
+     * @param key   key of the entry, e.g. the user id
+     * @param value value the entries are selected by
+     */
+    public void offer(String key, double value) {
+        if (size < keys.length) {
+            keys[size] = key;
+            values[size] = value;
+            siftUp(size++);
+        } else if (size > 0 && ranksAbove(value, values[0])) {
+            keys[0] = key;
+            values[0] = value;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Sort the selected entries by their values in descending order. The selector must not be offered entries
+     * afterwards.
+     */
+    public void sortDescending() {
+        // Heap sort, moves the entry which ranks lowest to the end on each step
+        for (int last = size - 1; last > 0; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+        // The entries now rank from the highest, which is the smallest value when selecting the smallest values
+        if (!largest) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                swap(i, j);
+            }
+        }
+    }
+
+    /**
+     * @return number of selected entries
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    private boolean ranksAbove(double value, double other) {
+        return largest ? value > other : value < other;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksAbove(values[parent], values[index])) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                return;
+            }
+            if (child + 1 < heapSize && ranksAbove(values[child], values[child + 1])) {
+                child++;
+            }
+            if (!ranksAbove(values[index], values[child])) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.wso2.ei.bpmn.analytics.core.clients.BPMNAnalyticsCoreRestClient;
+import org.wso2.ei.bpmn.analytics.core.exceptions.BPMNAnalyticsCoreException;
+import org.wso2.ei.bpmn.analytics.core.internal.BPMNAnalyticsCoreServerHolder;
+import org.wso2.ei.bpmn.analytics.core.services.BPMNAnalyticsCoreServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DAS rest API on a local port for the tests. The BPS analytics configuration points to it with the dashboard
+ * analytics enabled and the query cache disabled. The requests are recorded and answered by the responder of the
+ * test.
+ */
+public class DASServerStub {
+
+	/**
+	 * Answers a request sent to DAS
+	 */
+	public interface Responder {
+		/**
+		 * @param path path of the rest API, e.g. analytics/aggregates
+		 * @param body request body
+		 * @return the response body, the request fails with status 500 if an exception is thrown
+		 */
+		String respond(String path, String body) throws Exception;
+	}
+
+	/**
+	 * A request received by the stub
+	 */
+	public static class Request {
+		public final String path;
+		public final String body;
+		// Port of the client, the same for the requests sent on one pooled connection
+		public final int remotePort;
+
+		Request(String path, String body, int remotePort) {
+			this.path = path;
+			this.body = body;
+			this.remotePort = remotePort;
+		}
+	}
+
+	private final HttpServer server;
+	private final String serverUrl;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final File configDir;
+	private final List<Request> requests = new CopyOnWriteArrayList<>();
+	private volatile Responder responder = (path, body) -> "[]";
+
+	/**
+	 * Start the stub and point the BPS analytics configuration and the rest client to it
+	 *
+	 * @param analyticServerConfig elements added to the AnalyticServer element of bps-analytics.xml, e.g. the
+	 *                             http client
+	 * @param bpmnConfig           elements added to the BPMN element of bps-analytics.xml, e.g. a query cache
+	 */
+	public DASServerStub(String analyticServerConfig, String bpmnConfig)
+			throws IOException, BPMNAnalyticsCoreException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+
+		serverUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+
+		configDir = Files.createTempDirectory("bps-analytics").toFile();
+		String config = "<BPSAnalytics xmlns=\"http://wso2.org/bps/analytics/config\">" +
+				"<AnalyticServer>" +
+				"<DASServerUrl>" + serverUrl + "/</DASServerUrl>" +
+				"<Username>admin</Username>" +
+				"<Password>admin</Password>" +
+				analyticServerConfig +
+				"</AnalyticServer>" +
+				"<BPMN>" +
+				"<DashboardAnalyticsEnabled>true</DashboardAnalyticsEnabled>" +
+				(bpmnConfig.contains("<QueryCache>") ? "" : "<QueryCache><Enabled>false</Enabled></QueryCache>") +
+				bpmnConfig +
+				"</BPMN>" +
+				"</BPSAnalytics>";
+		Files.write(new File(configDir, BPMNAnalyticsCoreConstants.BPS_ANALYTICS_CONFIGURATION_FILE_NAME).toPath(),
+		            config.getBytes(StandardCharsets.UTF_8));
+		System.setProperty("carbon.config.dir.path", configDir.getPath());
+
+		BPMNAnalyticsCoreServer analyticsServer = new BPMNAnalyticsCoreServer();
+		analyticsServer.init();
+		BPMNAnalyticsCoreServerHolder.getInstance().setBPMNAnalyticsCoreServer(analyticsServer);
+		BPMNAnalyticsCoreRestClient.init(analyticsServer.getBPSAnalyticsConfiguration());
+	}
+
+	/**
+	 * @param bpmnConfig elements added to the BPMN element of bps-analytics.xml, e.g. a query cache
+	 */
+	public DASServerStub(String bpmnConfig) throws IOException, BPMNAnalyticsCoreException {
+		this("", bpmnConfig);
+	}
+
+	public DASServerStub() throws IOException, BPMNAnalyticsCoreException {
+		this("");
+	}
+
+	/**
+	 * @return url of the stub, without the trailing slash
+	 */
+	public String getServerUrl() {
+		return serverUrl;
+	}
+
+	public void setResponder(Responder responder) {
+		this.responder = responder;
+	}
+
+	/**
+	 * @return the requests received so far, in the order they were received
+	 */
+	public List<Request> getRequests() {
+		return new ArrayList<>(requests);
+	}
+
+	/**
+	 * Stop the stub, shut the rest client down and remove the configuration
+	 */
+	public void stop() {
+		BPMNAnalyticsCoreRestClient.shutdown();
+		BPMNAnalyticsCoreServerHolder.getInstance().setBPMNAnalyticsCoreServer(null);
+		System.clearProperty("carbon.config.dir.path");
+		server.stop(0);
+		executor.shutdownNow();
+		new File(configDir, BPMNAnalyticsCoreConstants.BPS_ANALYTICS_CONFIGURATION_FILE_NAME).delete();
+		configDir.delete();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath().replaceFirst("^/+", "");
+		String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8.name());
+		requests.add(new Request(path, body, exchange.getRemoteAddress().getPort()));
+
+		int status = 200;
+		byte[] response;
+		try {
+			response = responder.respond(path, body).getBytes(StandardCharsets.UTF_8);
+		} catch (Exception e) {
+			status = 500;
+			response = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+		}
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+		try {
+			exchange.sendResponseHeaders(status, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		} catch (IOException e) {
+			// The client gave up waiting, e.g. on its socket time out
+		} finally {
+			exchange.close();
+		}
+	}
+}
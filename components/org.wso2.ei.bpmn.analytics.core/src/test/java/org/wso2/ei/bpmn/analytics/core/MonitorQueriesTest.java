@@ -0,0 +1,343 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * The expected queries are the ones the monitors sent before they were built by AggregateQuerySpec, with two
+ * changes: the space before AND in the date vs task instance count query, and the order and limit of the search
+ * queries which are sent to DAS.
+ */
+public class MonitorQueriesTest extends TestCase {
+
+	private static final String RANGED = "{\"startTime\":1000,\"endTime\":2000,\"processDefKey\":\"proc:1:1\"," +
+	                                     "\"processId\":\"proc:1:1\",\"processKey\":\"proc\",\"taskId\":\"task1\"," +
+	                                     "\"userId\":\"admin\",\"order\":\"top\",\"count\":5,\"limit\":3," +
+	                                     "\"aggregateByMonth\":false,\"processIdList\":[\"a:1\",\"b:1\"]," +
+	                                     "\"taskIdList\":[\"t1\",\"t2\"]}";
+	private static final String UNRANGED = "{\"startTime\":0,\"endTime\":0,\"processDefKey\":\"proc:1:1\"," +
+	                                       "\"processId\":\"proc:1:1\",\"processKey\":\"proc\",\"taskId\":\"task1\"," +
+	                                       "\"userId\":\"admin\",\"order\":\"bottom\",\"count\":5,\"limit\":3," +
+	                                       "\"aggregateByMonth\":true,\"processIdList\":[],\"taskIdList\":[]}";
+
+	private DASServerStub das;
+	private int checkedRequests;
+
+	@Override
+	protected void setUp() throws Exception {
+		das = new DASServerStub();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		das.stop();
+	}
+
+	public void testProcessLevelQueries() throws Exception {
+		ProcessLevelMonitor monitor = new ProcessLevelMonitor();
+		monitor.getAvgExecuteTimeVsProcessId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getAvgExecuteTimeVsProcessId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getAvgExecuteTimeVsProcessVersion(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processVer\"," +
+		            "\"query\":\"processKeyName:\\\"'proc'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getAvgExecuteTimeVsProcessVersion(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processVer\"," +
+		            "\"query\":\"processKeyName:\\\"'proc'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getDateVsProcessInstanceCount(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"finishTime\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000]" +
+		            " AND (processDefinitionId:\\\"'a:1'\\\" OR processDefinitionId:\\\"'b:1'\\\")\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getDateVsProcessInstanceCount(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"month\"," +
+		            "\"query\":\"finishedTime : [0 TO 0]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getExecutionTimeVsProcessInstanceId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\" AND finishedTime : [1000 TO 2000]\"," +
+		            "\"start\":0,\"count\":3,\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"ASC\"}]}");
+		monitor.getExecutionTimeVsProcessInstanceId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\",\"start\":0,\"count\":3," +
+		            "\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"DESC\"}]}");
+		monitor.getProcessIdList();
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getProcessInstanceCountVsProcessId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getProcessInstanceCountVsProcessId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getProcessInstanceCountVsProcessVersion(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processVer\"," +
+		            "\"query\":\"processKeyName:\\\"'proc'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getProcessInstanceCountVsProcessVersion(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processVer\"," +
+		            "\"query\":\"processKeyName:\\\"'proc'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getProcessKeyList();
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processKey\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"processInstanceCount\"}]}");
+		monitor.getTotalCompletedTasksVsUserIdForProcess(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\" AND finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"completedTotalTasks\"}]}");
+		monitor.getTotalCompletedTasksVsUserIdForProcess(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"completedTotalTasks\"}]}");
+		monitor.getTotalTimeVsUserIdForProcess(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+		monitor.getTotalTimeVsUserIdForProcess(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+	}
+
+	public void testTaskLevelQueries() throws Exception {
+		TaskLevelMonitor monitor = new TaskLevelMonitor();
+		monitor.getAvgExecuteTimeVsTaskId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getAvgExecuteTimeVsTaskId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getAvgWaitingTimeVsUserId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"taskDefinitionKey:\\\"'task1'\\\" AND processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgWaitingTime\"}]}");
+		monitor.getAvgWaitingTimeVsUserId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"taskDefinitionKey:\\\"'task1'\\\" AND processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgWaitingTime\"}]}");
+		monitor.getDateVsTaskInstanceCount(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"finishTime\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000] AND processDefinitionId:\\\"'proc:1:1'\\\"" +
+		            " AND (taskDefinitionKey:\\\"'t1'\\\" OR taskDefinitionKey:\\\"'t2'\\\")\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getDateVsTaskInstanceCount(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"finishTime\"," +
+		            "\"query\":\"finishedTime : [0 TO 0] AND processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getExecutionTimeVsTaskInstanceId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"query\":\"taskDefinitionKey:\\\"'task1'\\\"" +
+		            " AND processDefinitionId:\\\"'proc:1:1'\\\" AND finishedTime : [1000 TO 2000]\"," +
+		            "\"start\":0,\"count\":3,\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"ASC\"}]}");
+		monitor.getExecutionTimeVsTaskInstanceId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"query\":\"taskDefinitionKey:\\\"'task1'\\\"" +
+		            " AND processDefinitionId:\\\"'proc:1:1'\\\"\",\"start\":0,\"count\":3," +
+		            "\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"DESC\"}]}");
+		monitor.getProcessRelatedTaskList(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getProcessRelatedTaskList(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getTaskInstanceCountVsTaskId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getTaskInstanceCountVsTaskId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getTaskInstanceCountVsUserId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"taskDefinitionKey:\\\"'task1'\\\" AND processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getTaskInstanceCountVsUserId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"taskDefinitionKey:\\\"'task1'\\\" AND processDefinitionId:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getTaskList();
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+	}
+
+	public void testUserLevelQueries() throws Exception {
+		UserLevelMonitor monitor = new UserLevelMonitor();
+		monitor.getTotalCompletedTasksVsUserId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"completedTotalTasks\"}]}");
+		monitor.getTotalCompletedTasksVsUserId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"completedTotalTasks\"}]}");
+		monitor.getTotalInvolvedInstanceCountVsProcessId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"totalInstanceCount\"}]}");
+		monitor.getTotalInvolvedInstanceCountVsProcessId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"totalInstanceCount\"}]}");
+		monitor.getTotalInvolvedTimeVsProcessId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+		monitor.getTotalInvolvedTimeVsProcessId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+		monitor.getTotalInvolvedTimeVsUserId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+		monitor.getTotalInvolvedTimeVsUserId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"SUM\"," +
+		            "\"alias\":\"totalInvolvedTime\"}]}");
+		monitor.getUserLevelAvgExecuteTimeVsTaskId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND processDefKey:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getUserLevelAvgExecuteTimeVsTaskId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND processDefKey:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		            "\"alias\":\"avgExecutionTime\"}]}");
+		monitor.getUserLevelTaskInstanceCountVsTaskId(RANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND processDefKey:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getUserLevelTaskInstanceCountVsTaskId(UNRANGED);
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"taskDefId\"," +
+		            "\"query\":\"assignee:\\\"'admin'\\\" AND processDefKey:\\\"'proc:1:1'\\\"\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"taskInstanceCount\"}]}");
+		monitor.getUserList();
+		assertQuery(BPMNAnalyticsCoreConstants.ANALYTICS_AGGREGATE,
+		            "{\"tableName\":\"USER_INVOLVE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		            "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		            "\"alias\":\"completedTotalTasks\"}]}");
+	}
+
+	/**
+	 * The monitor sent one request since the last check, with the given body
+	 */
+	private void assertQuery(String path, String body) {
+		List<DASServerStub.Request> requests = das.getRequests();
+		assertEquals(checkedRequests + 1, requests.size());
+		DASServerStub.Request request = requests.get(checkedRequests++);
+		assertEquals(path, request.path);
+		// Gson escapes the quotes around the values of the Lucene query
+		assertEquals(body, request.body.replace("\\u0027", "'"));
+	}
+}
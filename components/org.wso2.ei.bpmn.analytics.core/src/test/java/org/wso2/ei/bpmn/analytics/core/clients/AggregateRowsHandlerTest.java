@@ -0,0 +1,106 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import junit.framework.TestCase;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class AggregateRowsHandlerTest extends TestCase {
+
+	public void testReadsKeysAndValues() throws Exception {
+		AggregateRows rows = read(AggregateRowsHandler.doubleValues("assignUser", "avgTime"),
+		                          "[{\"values\":{\"assignUser\":[\"admin\"],\"avgTime\":10.5}}," +
+		                          "{\"id\":\"1\",\"values\":{\"avgTime\":\"3\",\"assignUser\":\"kermit\"}}]");
+		assertEquals(2, rows.size());
+		assertEquals("admin", rows.getKey(0));
+		assertEquals(10.5, rows.getValue(0), 0);
+		assertEquals("kermit", rows.getKey(1));
+		assertEquals(3, rows.getValue(1), 0);
+
+		rows = read(AggregateRowsHandler.integerValues("assignUser", "count"),
+		            "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":10.9}}]");
+		assertEquals(10, rows.getValue(0), 0);
+	}
+
+	public void testEmptyArray() throws Exception {
+		assertEquals(0, read(AggregateRowsHandler.keys("assignUser"), "[]").size());
+		assertEquals(0, read(AggregateRowsHandler.keys("assignUser"), " [ ] ").size());
+	}
+
+	public void testSkipsNestedValues() throws Exception {
+		AggregateRows rows = read(AggregateRowsHandler.integerValues("assignUser", "count"),
+		                          "[{\"meta\":{\"a\":[1,{\"b\":2}]},\"values\":{\"other\":{\"assignUser\":\"x\"}," +
+		                          "\"assignUser\":[\"admin\",[\"nested\"],{\"c\":1}],\"tags\":[[1],[2]]," +
+		                          "\"count\":4}}]");
+		assertEquals(1, rows.size());
+		assertEquals("admin", rows.getKey(0));
+		assertEquals(4, rows.getValue(0), 0);
+	}
+
+	public void testNonUtf8Charset() throws Exception {
+		AggregateRowsHandler handler = AggregateRowsHandler.keys("assignUser");
+		byte[] body = "[{\"values\":{\"assignUser\":[\"m\u00fcller\"]}}]".getBytes(StandardCharsets.ISO_8859_1);
+		AggregateRows rows = handler.handleResponse(new ByteArrayInputStream(body), "ISO-8859-1");
+		assertEquals("m\u00fcller", rows.getKey(0));
+	}
+
+	public void testMissingValues() throws Exception {
+		assertFails(AggregateRowsHandler.keys("assignUser"), "[{\"id\":\"1\"}]");
+		assertFails(AggregateRowsHandler.keys("assignUser"), "[{\"values\":[\"admin\"]}]");
+		assertFails(AggregateRowsHandler.integerValues("assignUser", "count"),
+		            "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":1}},{\"values\":{\"count\":1}}]");
+		assertFails(AggregateRowsHandler.integerValues("assignUser", "count"),
+		            "[{\"values\":{\"assignUser\":[\"admin\"]}}]");
+		assertFails(AggregateRowsHandler.integerValues("assignUser", "count"),
+		            "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":\"many\"}}]");
+		assertFails(AggregateRowsHandler.integerValues("assignUser", "count"),
+		            "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":{\"value\":1}}}]");
+	}
+
+	public void testMalformedJson() throws Exception {
+		AggregateRowsHandler handler = AggregateRowsHandler.integerValues("assignUser", "count");
+		assertFails(handler, "");
+		assertFails(handler, "{\"values\":{}}");
+		assertFails(handler, "[1, 2]");
+		assertFails(handler, "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":1}}");
+		// Truncated after the first record, no partial rows are returned
+		assertFails(handler, "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":1}},{\"values\":{\"assi");
+		assertFails(handler, "[{\"values\":{\"assignUser\":[\"admin\"],\"count\":1}} garbage]");
+	}
+
+	private static AggregateRows read(AggregateRowsHandler handler, String body) throws IOException {
+		return handler.handleResponse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "UTF-8");
+	}
+
+	/**
+	 * The monitors catch the IOException and log the error, a malformed response never gives rows
+	 */
+	private static void assertFails(AggregateRowsHandler handler, String body) throws IOException {
+		try {
+			read(handler, body);
+			fail("No error for " + body);
+		} catch (JsonParseException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import junit.framework.TestCase;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.DASServerStub;
+
+import java.util.List;
+
+public class BPMNAnalyticsCoreRestClientTest extends TestCase {
+
+	@Override
+	protected void tearDown() {
+		BPMNAnalyticsCoreRestClient.shutdown();
+	}
+
+	public void testDefaultPool() throws Exception {
+		BPMNAnalyticsCoreRestClient.init(null);
+
+		HttpConnectionManagerParams params = BPMNAnalyticsCoreRestClient.getConnectionManager().getParams();
+		assertEquals(BPMNAnalyticsCoreConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST,
+		             params.getDefaultMaxConnectionsPerHost());
+		assertEquals(BPMNAnalyticsCoreConstants.DEFAULT_MAX_TOTAL_CONNECTIONS, params.getMaxTotalConnections());
+		assertEquals(BPMNAnalyticsCoreConstants.DEFAULT_CONNECTION_TIMEOUT, params.getConnectionTimeout());
+		assertEquals(BPMNAnalyticsCoreConstants.DEFAULT_SOCKET_TIMEOUT, params.getSoTimeout());
+		assertTrue(params.isStaleCheckingEnabled());
+	}
+
+	public void testConfiguredPool() throws Exception {
+		DASServerStub das = new DASServerStub("<HttpClient>" +
+		                                      "<MaxConnectionsPerHost>4</MaxConnectionsPerHost>" +
+		                                      "<MaxTotalConnections>8</MaxTotalConnections>" +
+		                                      "<ConnectionTimeout>2000</ConnectionTimeout>" +
+		                                      "<SocketTimeout>3000</SocketTimeout>" +
+		                                      "<IdleConnectionTimeout>5000</IdleConnectionTimeout>" +
+		                                      "</HttpClient>", "");
+		try {
+			HttpConnectionManagerParams params = BPMNAnalyticsCoreRestClient.getConnectionManager().getParams();
+			assertEquals(4, params.getDefaultMaxConnectionsPerHost());
+			assertEquals(8, params.getMaxTotalConnections());
+			assertEquals(2000, params.getConnectionTimeout());
+			assertEquals(3000, params.getSoTimeout());
+		} finally {
+			das.stop();
+		}
+	}
+
+	public void testIdleConnectionThread() throws Exception {
+		BPMNAnalyticsCoreRestClient.init(null);
+		IdleConnectionTimeoutThread first = BPMNAnalyticsCoreRestClient.getIdleConnectionTimeoutThread();
+		assertTrue(first.isAlive());
+		// Does not keep the server from stopping
+		assertTrue(first.isDaemon());
+		assertEquals("BPMNAnalyticsCoreIdleConnectionTimeout", first.getName());
+
+		// A second init replaces the pool and the thread of the first one
+		MultiThreadedHttpConnectionManager firstManager = BPMNAnalyticsCoreRestClient.getConnectionManager();
+		BPMNAnalyticsCoreRestClient.init(null);
+		IdleConnectionTimeoutThread second = BPMNAnalyticsCoreRestClient.getIdleConnectionTimeoutThread();
+		assertNotSame(first, second);
+		assertNotSame(firstManager, BPMNAnalyticsCoreRestClient.getConnectionManager());
+		first.join(10000);
+		assertFalse(first.isAlive());
+		assertTrue(second.isAlive());
+
+		BPMNAnalyticsCoreRestClient.shutdown();
+		second.join(10000);
+		assertFalse(second.isAlive());
+		assertNull(BPMNAnalyticsCoreRestClient.getIdleConnectionTimeoutThread());
+		assertNull(BPMNAnalyticsCoreRestClient.getConnectionManager());
+	}
+
+	public void testConnectionsAreReused() throws Exception {
+		DASServerStub das = new DASServerStub();
+		try {
+			String url = das.getServerUrl() + "/analytics/search";
+			for (int i = 0; i < 5; i++) {
+				assertEquals("[]", BPMNAnalyticsCoreRestClient.post(url, "{}"));
+			}
+			// The handler does not read the body, the connection still goes back to the pool
+			das.setResponder((path, body) -> "[{\"values\":{\"count\":1}}]");
+			BPMNAnalyticsCoreRestClient.post(url, "{}", (responseBody, charset) -> null);
+			BPMNAnalyticsCoreRestClient.post(url, "{}");
+
+			List<DASServerStub.Request> requests = das.getRequests();
+			assertEquals(7, requests.size());
+			for (DASServerStub.Request request : requests) {
+				assertEquals(requests.get(0).remotePort, request.remotePort);
+			}
+		} finally {
+			das.stop();
+		}
+	}
+
+	public void testInitializedOnFirstCall() throws Exception {
+		DASServerStub das = new DASServerStub();
+		try {
+			BPMNAnalyticsCoreRestClient.shutdown();
+			assertNull(BPMNAnalyticsCoreRestClient.getConnectionManager());
+
+			// Called before the component got activated
+			assertEquals("[]", BPMNAnalyticsCoreRestClient.post(das.getServerUrl() + "/analytics/search", "{}"));
+			assertNotNull(BPMNAnalyticsCoreRestClient.getConnectionManager());
+			assertTrue(BPMNAnalyticsCoreRestClient.getIdleConnectionTimeoutThread().isAlive());
+		} finally {
+			das.stop();
+		}
+	}
+}
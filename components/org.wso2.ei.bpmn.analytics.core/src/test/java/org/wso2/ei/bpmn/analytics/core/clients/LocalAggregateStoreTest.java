@@ -0,0 +1,476 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.DASServerStub;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateQuerySpec;
+import org.wso2.ei.bpmn.analytics.core.models.AggregateRows;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LocalAggregateStoreTest extends TestCase {
+
+	private static final ZoneId ZONE = ZoneId.of("UTC");
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+	private static final long REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+	private static final Pattern RANGE = Pattern.compile("(\\w+) : \\[(-?\\d+) TO (-?\\d+)\\]");
+	private static final Pattern EQUALS = Pattern.compile("(\\w+):\"'(.*)'\"");
+
+	private DASServerStub das;
+	private final List<UsageRecord> records = new CopyOnWriteArrayList<>();
+	private long now;
+	private long today;
+
+	@Override
+	protected void setUp() throws Exception {
+		das = new DASServerStub();
+		das.setResponder(this::respond);
+		now = System.currentTimeMillis();
+		today = Instant.ofEpochMilli(now).atZone(ZONE).toLocalDate().toEpochDay();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		das.stop();
+	}
+
+	public void testLoadsEachRecordOnce() throws Exception {
+		// Five records finished in the same millisecond do not fit in a page, they are read by offset
+		long time = startOfDay(today - 1) + HOUR;
+		long[] finishedTimes = { time, time + 1, time + 1, time + 1, time + 1, time + 1, time + 2, time + 3,
+		                         time + 3, time + 4 };
+		for (long finishedTime : finishedTimes) {
+			process(finishedTime, 10, "p1");
+		}
+		LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, 3, 10, ZONE);
+		store.update(now);
+
+		assertTrue(store.isLoaded());
+		assertEquals(now, store.getLoadedUpTo());
+		assertEquals(finishedTimes.length, count(store, today - 1, today - 1), 0);
+		assertEquals(0, count(store, today, today), 0);
+		assertTrue(hasSearch(time + 1, time + 1, 3, false));
+		for (DASServerStub.Request request : das.getRequests()) {
+			// The sorted pages start from the last finished time of the previous page, never from an offset
+			JSONObject search = new JSONObject(request.body);
+			assertTrue(search.has("sortBy") ? search.getInt("start") == 0 : search.getString("query")
+					.equals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + " : [" + (time + 1) + " TO " +
+					        (time + 1) + "]"));
+		}
+
+		// The next load starts after the last finished time loaded, at the cursor
+		process(now + 1, 10, "p1");
+		process(now + 2, 10, "p2");
+		int requestCount = das.getRequests().size();
+		store.update(now + HOUR);
+		assertEquals(now + HOUR, store.getLoadedUpTo());
+		JSONObject search = new JSONObject(das.getRequests().get(requestCount).body);
+		assertEquals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + " : [" + (now + 1) + " TO " + (now + HOUR) +
+		             "]", search.getString("query"));
+		assertEquals(finishedTimes.length + 2, count(store, today - 1, toDay(now + HOUR)), 0);
+	}
+
+	public void testKeepsTheLastMaxDays() throws Exception {
+		process(startOfDay(today - 5), 1, "p1");
+		process(startOfDay(today - 2), 1, "p1");
+		process(startOfDay(today - 1) + HOUR, 1, "p2");
+		process(startOfDay(today), 1, "p2");
+		LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, 10, 3, ZONE);
+		store.update(now);
+
+		// The first load starts at the first day kept
+		JSONObject search = new JSONObject(das.getRequests().get(0).body);
+		assertEquals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + " : [" + startOfDay(today - 2) + " TO " + now +
+		             "]", search.getString("query"));
+		assertEquals(3, count(store, today - 2, today), 0);
+		assertEquals(1, count(store, today - 1, today - 1), 0);
+		assertEquals(3, store.getBucketCount());
+		assertNull(store.query(countSpec(today - 3, today), true));
+
+		// Two days later the first two days are dropped
+		store.update(startOfDay(today + 2) + HOUR);
+		assertEquals(1, store.getBucketCount());
+		assertNull(store.query(countSpec(today - 1, today + 2), true));
+		assertEquals(1, count(store, today, today + 2), 0);
+	}
+
+	public void testAnswersOnlyWholeDays() throws Exception {
+		process(startOfDay(today - 1) + HOUR, 1, "p1");
+		LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, 10, 10, ZONE);
+		assertNull(store.query(countSpec(today - 1, today - 1), true));
+		store.update(now);
+
+		long from = startOfDay(today - 1);
+		long to = startOfDay(today) - 1;
+		assertNotNull(store.query(countSpec(today - 1, today - 1), true));
+		assertNull(store.query(processCount().whereFinishedBetween(from + 1, to), true));
+		assertNull(store.query(processCount().whereFinishedBetween(from, to - 1), true));
+		assertNull(store.query(processCount().whereFinishedBetween(from, to + 1), true));
+		assertNull(store.query(processCount(), true));
+		assertNull(store.query(AggregateQuerySpec.search(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+		                                                  BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+		                                                  BPMNAnalyticsCoreConstants.DURATION)
+		                                          .whereFinishedBetween(from, to), false));
+
+		// The days start at the midnights of the time zone of the store
+		LocalAggregateStore shifted = new LocalAggregateStore(REFRESH_INTERVAL, 0, 10, 10, ZoneId.of("+05:30"));
+		shifted.update(now);
+		assertNull(shifted.query(countSpec(today - 1, today - 1), true));
+		assertEquals(1, store.getLocalQueryCount());
+		assertEquals(6, store.getDASQueryCount());
+	}
+
+	public void testLoadsAgainAfterAFailedUpdate() throws Exception {
+		process(startOfDay(today - 1) + HOUR, 1, "p1");
+		process(startOfDay(today - 1) + 2 * HOUR, 1, "p2");
+		task(startOfDay(today - 1) + HOUR, 1, "t1", "p1");
+		das.setResponder((path, body) -> {
+			if (body.contains(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE)) {
+				throw new IllegalStateException("DAS error");
+			}
+			return respond(path, body);
+		});
+		LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, 10, 10, ZONE);
+		assertUpdateFails(store, now);
+		assertFalse(store.isLoaded());
+		assertEquals(0, store.getBucketCount());
+		assertNull(store.query(countSpec(today - 1, today - 1), true));
+
+		// Nothing of the failed load was kept, so each record is counted once
+		das.setResponder(this::respond);
+		store.update(now);
+		assertEquals(2, count(store, today - 1, today - 1), 0);
+		assertEquals(3, store.getBucketCount());
+
+		process(now + 1, 1, "p1");
+		das.setResponder((path, body) -> {
+			throw new IllegalStateException("DAS error");
+		});
+		assertUpdateFails(store, now + HOUR);
+		assertEquals(now, store.getLoadedUpTo());
+		das.setResponder(this::respond);
+		store.update(now + HOUR);
+		assertEquals(now + HOUR, store.getLoadedUpTo());
+		assertEquals(3, count(store, today - 1, toDay(now + HOUR)), 0);
+	}
+
+	public void testStaleAggregatesAreNotUsed() throws Exception {
+		process(startOfDay(today - 1) + HOUR, 1, "p1");
+		LocalAggregateStore store = new LocalAggregateStore(100, 0, 10, 10, ZONE);
+		store.update();
+		assertNotNull(store.query(countSpec(today - 1, today - 1), true));
+
+		// No load for more than two refresh intervals, the records finished since are missing
+		Thread.sleep(300);
+		assertTrue(store.getLag() > 200);
+		assertNull(store.query(countSpec(today - 1, today - 1), true));
+
+		store.update();
+		assertNotNull(store.query(countSpec(today - 1, today - 1), true));
+	}
+
+	public void testSkipsRecordsWithoutFinishedTime() throws Exception {
+		long time = startOfDay(today - 1) + HOUR;
+		for (int i = 0; i < 5; i++) {
+			process(time + i, 1, "p1");
+		}
+		// DAS returns the records without a finished time first
+		process(-1, 1, "p1");
+		process(-1, 1, "p2");
+
+		// A page of 2 holds only the invalid records, a page of 3 one valid record with them
+		for (int pageSize = 2; pageSize <= 4; pageSize++) {
+			LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, pageSize, 10, ZONE);
+			store.update(now);
+			assertEquals(5, count(store, today - 1, today - 1), 0);
+			assertTrue(store.getSkippedRecordCount() >= 2);
+		}
+	}
+
+	public void testSameResultAsDAS() throws Exception {
+		String[] processes = { "p1", "p2", "p3" };
+		String[] tasks = { "t1", "t2", "t3", "t4" };
+		String[] users = { "admin", "kermit", "gonzo" };
+		for (int i = 0; i < 60; i++) {
+			long finishedTime = startOfDay(today - i % 4) + i * 60000L;
+			String processId = processes[i % 3];
+			process(finishedTime, 100 + i * 7 % 13, processId);
+			task(finishedTime, 10 + i * 5 % 11, tasks[i % 4], processId);
+			involve(finishedTime, users[i % 3], processId, tasks[i % 4]);
+		}
+		LocalAggregateStore store = new LocalAggregateStore(REFRESH_INTERVAL, 0, 7, 10, ZONE);
+		store.update(now);
+		assertNull(LocalAggregateStore.getInstance());
+
+		long from = startOfDay(today - 2);
+		long to = startOfDay(today + 1) - 1;
+		assertSameResult(store, countSpec(today - 3, today));
+		assertSameResult(store, AggregateQuerySpec.avg(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+		                                               BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+		                                               BPMNAnalyticsCoreConstants.DURATION, "avgExecutionTime")
+		                                          .whereFinishedBetween(from, to));
+		assertSameResult(store, AggregateQuerySpec.sum(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE,
+		                                               BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY,
+		                                               BPMNAnalyticsCoreConstants.DURATION, "totalExecutionTime")
+		                                          .whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                                       "p1:1")
+		                                          .whereFinishedBetween(from, to));
+		assertSameResult(store, AggregateQuerySpec.avg(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE,
+		                                               BPMNAnalyticsCoreConstants.ASSIGN_USER,
+		                                               BPMNAnalyticsCoreConstants.DURATION, "avgExecutionTime")
+		                                          .whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY,
+		                                                      Arrays.asList("t1", "t2"))
+		                                          .whereFinishedBetween(from, to)
+		                                          .orderBy(BPMNAnalyticsCoreConstants.BOTTOM, 2));
+		assertSameResult(store, AggregateQuerySpec.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE,
+		                                                 BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                                 "processInstanceCount")
+		                                          .whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, "kermit")
+		                                          .whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+		                                                      Arrays.asList("p1:1", "p2:1"))
+		                                          .whereFinishedBetween(from, to)
+		                                          .orderBy(BPMNAnalyticsCoreConstants.TOP, 1));
+	}
+
+	private void assertSameResult(LocalAggregateStore store, AggregateQuerySpec spec) throws Exception {
+		AggregateRows local = store.query(spec, spec.isIntegerValues());
+		assertNotNull(local);
+		AggregateRows remote = AggregateQueryExecutor.execute(spec);
+		assertTrue(remote.size() > 0);
+		assertEquals(remote.size(), local.size());
+		Map<String, Double> remoteValues = new LinkedHashMap<>();
+		for (int i = 0; i < remote.size(); i++) {
+			remoteValues.put(remote.getKey(i), remote.getValue(i));
+		}
+		for (int i = 0; i < local.size(); i++) {
+			if (spec.getOrder() != null) {
+				assertEquals(remote.getKey(i), local.getKey(i));
+			}
+			assertNotNull(remoteValues.get(local.getKey(i)));
+			assertEquals(remoteValues.get(local.getKey(i)), local.getValue(i), 1e-9);
+		}
+	}
+
+	private static void assertUpdateFails(LocalAggregateStore store, long time) throws Exception {
+		try {
+			store.update(time);
+			fail("The update must fail while DAS fails");
+		} catch (RuntimeException e) {
+			// DAS responded with status 500
+		}
+	}
+
+	private double count(LocalAggregateStore store, long fromDay, long toDay) {
+		AggregateRows rows = store.query(countSpec(fromDay, toDay), true);
+		assertNotNull(rows);
+		double count = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			count += rows.getValue(i);
+		}
+		return count;
+	}
+
+	private AggregateQuerySpec countSpec(long fromDay, long toDay) {
+		return processCount().whereFinishedBetween(startOfDay(fromDay), startOfDay(toDay + 1) - 1);
+	}
+
+	private static AggregateQuerySpec processCount() {
+		return AggregateQuerySpec.count(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE,
+		                                BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, "processInstanceCount");
+	}
+
+	private boolean hasSearch(long from, long to, int start, boolean sorted) throws Exception {
+		for (DASServerStub.Request request : das.getRequests()) {
+			JSONObject search = new JSONObject(request.body);
+			if (search.getString("query").equals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME + " : [" + from +
+			                                     " TO " + to + "]") &&
+			    search.getInt("start") == start && search.has("sortBy") == sorted) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private long toDay(long time) {
+		return Instant.ofEpochMilli(time).atZone(ZONE).toLocalDate().toEpochDay();
+	}
+
+	private static long startOfDay(long day) {
+		return LocalDate.ofEpochDay(day).atStartOfDay(ZONE).toInstant().toEpochMilli();
+	}
+
+	private void process(long finishedTime, double duration, String processId) {
+		records.add(new UsageRecord(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, finishedTime, duration,
+		                            BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, processId,
+		                            BPMNAnalyticsCoreConstants.PROCESS_VERSION, "1",
+		                            BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId + ":1"));
+	}
+
+	private void task(long finishedTime, double duration, String taskId, String processId) {
+		records.add(new UsageRecord(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, finishedTime, duration,
+		                            BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY, taskId,
+		                            BPMNAnalyticsCoreConstants.ASSIGN_USER, "user-" + taskId,
+		                            BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId + ":1"));
+	}
+
+	private void involve(long finishedTime, String user, String processId, String taskId) {
+		records.add(new UsageRecord(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE, finishedTime, Double.NaN,
+		                            BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, user,
+		                            BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY, processId,
+		                            BPMNAnalyticsCoreConstants.TASK_DEFINITION_KEY, taskId,
+		                            BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, processId + ":1"));
+	}
+
+	/**
+	 * Answers the search and the aggregate api of DAS from the records of the test
+	 */
+	private String respond(String path, String body) throws Exception {
+		JSONObject request = new JSONObject(body);
+		List<UsageRecord> selected = new ArrayList<>();
+		for (UsageRecord record : records) {
+			if (record.table.equals(request.getString("tableName")) &&
+			    record.matches(request.optString("query", ""))) {
+				selected.add(record);
+			}
+		}
+		JSONArray response = new JSONArray();
+		if (BPMNAnalyticsCoreConstants.ANALYTICS_SEARCH.equals(path)) {
+			if (request.has("sortBy")) {
+				JSONObject sortBy = request.getJSONArray("sortBy").getJSONObject(0);
+				assertEquals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, sortBy.getString("field"));
+				assertEquals(BPMNAnalyticsCoreConstants.SORT_ASC, sortBy.getString("sortType"));
+				// Stable, the records without a finished time come first
+				selected.sort(Comparator.comparingLong(record -> record.finishedTime));
+			}
+			int start = request.getInt("start");
+			int end = Math.min(selected.size(), start + request.getInt("count"));
+			for (int i = start; i < end; i++) {
+				response.put(new JSONObject().put(BPMNAnalyticsCoreConstants.VALUES, selected.get(i).values));
+			}
+			return response.toString();
+		}
+
+		String groupByField = request.getString("groupByField");
+		JSONObject aggregateField = request.getJSONArray("aggregateFields").getJSONObject(0);
+		String aggregate = aggregateField.getString("aggregate");
+		Map<String, List<Double>> groups = new LinkedHashMap<>();
+		for (UsageRecord record : selected) {
+			String key = record.values.getString(groupByField);
+			List<Double> durations = groups.get(key);
+			if (durations == null) {
+				durations = new ArrayList<>();
+				groups.put(key, durations);
+			}
+			durations.add(record.duration);
+		}
+		for (Map.Entry<String, List<Double>> group : groups.entrySet()) {
+			List<Double> durations = group.getValue();
+			double value;
+			if (BPMNAnalyticsCoreConstants.COUNT.equals(aggregate)) {
+				value = durations.size();
+			} else {
+				assertEquals(BPMNAnalyticsCoreConstants.DURATION, aggregateField.getString("fieldName"));
+				double sum = 0;
+				for (double duration : durations) {
+					sum += duration;
+				}
+				value = BPMNAnalyticsCoreConstants.SUM.equals(aggregate) ? sum : sum / durations.size();
+			}
+			JSONObject values = new JSONObject();
+			values.put(groupByField, new JSONArray().put(group.getKey()));
+			values.put(aggregateField.getString("alias"), value);
+			response.put(new JSONObject().put(BPMNAnalyticsCoreConstants.VALUES, values));
+		}
+		return response.toString();
+	}
+
+	/**
+	 * A record of a usage summary table, a negative finished time is sent as a value which is not a number
+	 */
+	private static class UsageRecord {
+		private final String table;
+		private final long finishedTime;
+		private final double duration;
+		private final JSONObject values = new JSONObject();
+
+		UsageRecord(String table, long finishedTime, double duration, String... columns) {
+			this.table = table;
+			this.finishedTime = finishedTime;
+			this.duration = duration;
+			try {
+				for (int i = 0; i < columns.length; i += 2) {
+					values.put(columns[i], columns[i + 1]);
+				}
+				values.put(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, finishedTime < 0 ? "n/a" : finishedTime);
+				if (!Double.isNaN(duration)) {
+					values.put(BPMNAnalyticsCoreConstants.DURATION, duration);
+				}
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Filters joined with AND, each an equality, a group of equalities joined with OR or a range. The records
+		 * without a finished time are in every range, as an index which can not parse them may return them.
+		 */
+		boolean matches(String query) throws Exception {
+			if (query.isEmpty()) {
+				return true;
+			}
+			for (String filter : query.split(" AND ")) {
+				Matcher range = RANGE.matcher(filter);
+				if (range.matches()) {
+					assertEquals(BPMNAnalyticsCoreConstants.COLUMN_FINISHED_TIME, range.group(1));
+					if (finishedTime >= 0 && (finishedTime < Long.parseLong(range.group(2)) ||
+					                          finishedTime > Long.parseLong(range.group(3)))) {
+						return false;
+					}
+					continue;
+				}
+				boolean matched = false;
+				for (String equality : filter.replaceAll("^\\(|\\)$", "").split(" OR ")) {
+					Matcher equals = EQUALS.matcher(equality);
+					assertTrue(equality, equals.matches());
+					matched |= values.has(equals.group(1)) && values.getString(equals.group(1)).equals(equals.group(2));
+				}
+				if (!matched) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
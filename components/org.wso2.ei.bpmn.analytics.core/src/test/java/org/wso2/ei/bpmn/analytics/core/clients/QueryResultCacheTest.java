@@ -0,0 +1,143 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.clients;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryResultCacheTest extends TestCase {
+
+	public void testConcurrentLoadsShareOneCall() throws Exception {
+		final QueryResultCache<String> cache = new QueryResultCache<>(60000, 10);
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final QueryResultCache.QueryLoader<String> loader = () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			return "rows";
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> cache.get("query", loader));
+			assertTrue(loading.await(10, TimeUnit.SECONDS));
+			Future<String> second = executor.submit(() -> cache.get("query", loader));
+
+			// The second call waits for the call in flight
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (cache.getCoalescedCount() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(1, cache.getCoalescedCount());
+			release.countDown();
+
+			assertEquals("rows", first.get(10, TimeUnit.SECONDS));
+			assertEquals("rows", second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, loads.get());
+			assertEquals(1, cache.getMissCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testFailedLoadIsRetried() throws Exception {
+		QueryResultCache<String> cache = new QueryResultCache<>(60000, 10);
+		final AtomicInteger loads = new AtomicInteger();
+		QueryResultCache.QueryLoader<String> loader = () -> {
+			if (loads.incrementAndGet() == 1) {
+				throw new IOException("DAS is down");
+			}
+			return "rows";
+		};
+
+		try {
+			cache.get("query", loader);
+			fail("The failure of the loader must be thrown");
+		} catch (IOException e) {
+			assertEquals("DAS is down", e.getMessage());
+		}
+		assertEquals(0, cache.size());
+
+		// The failure is not cached, the next call loads again and its result is cached
+		assertEquals("rows", cache.get("query", loader));
+		assertEquals("rows", cache.get("query", loader));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testNullResultIsNotCached() throws Exception {
+		QueryResultCache<String> cache = new QueryResultCache<>(60000, 10);
+		final AtomicInteger loads = new AtomicInteger();
+		QueryResultCache.QueryLoader<String> loader = () -> {
+			loads.incrementAndGet();
+			return null;
+		};
+
+		assertNull(cache.get("query", loader));
+		assertNull(cache.get("query", loader));
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	public void testExpiredResultIsLoadedAgain() throws Exception {
+		final AtomicInteger loads = new AtomicInteger();
+		QueryResultCache.QueryLoader<String> loader = () -> "rows-" + loads.incrementAndGet();
+
+		// Results expire as soon as they are loaded
+		QueryResultCache<String> expiring = new QueryResultCache<>(0, 10);
+		assertEquals("rows-1", expiring.get("query", loader));
+		assertEquals("rows-2", expiring.get("query", loader));
+
+		QueryResultCache<String> cache = new QueryResultCache<>(60000, 10);
+		assertEquals("rows-3", cache.get("query", loader));
+		assertEquals("rows-3", cache.get("query", loader));
+		assertEquals(3, loads.get());
+	}
+
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		QueryResultCache<String> cache = new QueryResultCache<>(60000, 2);
+		final AtomicInteger loads = new AtomicInteger();
+		QueryResultCache.QueryLoader<String> loader = () -> "rows-" + loads.incrementAndGet();
+
+		assertEquals("rows-1", cache.get("a", loader));
+		assertEquals("rows-2", cache.get("b", loader));
+		// a is used after b, so b is evicted by c
+		assertEquals("rows-1", cache.get("a", loader));
+		assertEquals("rows-3", cache.get("c", loader));
+		assertEquals(2, cache.size());
+
+		assertEquals("rows-1", cache.get("a", loader));
+		assertEquals("rows-3", cache.get("c", loader));
+		assertEquals("rows-4", cache.get("b", loader));
+		assertEquals(2, cache.size());
+		assertEquals(4, loads.get());
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.models;
+
+import junit.framework.TestCase;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.utils.BPMNAnalyticsCoreUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AggregateQuerySpecTest extends TestCase {
+
+	public void testFiltersAreJoinedWithAnd() {
+		AggregateQuerySpec spec = AggregateQuerySpec
+				.count(BPMNAnalyticsCoreConstants.TASK_USAGE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+				       BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS)
+				.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID, "proc:1:1")
+				.whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_TASK_DEFINITION_KEY, Arrays.asList("t1", "t2"))
+				.whereFinishedBetween(1000, 2000);
+		assertEquals("processDefinitionId:\"'proc:1:1'\" AND (taskDefinitionKey:\"'t1'\" OR " +
+		             "taskDefinitionKey:\"'t2'\") AND finishedTime : [1000 TO 2000]", spec.getQuery());
+		assertEquals("{\"tableName\":\"TASK_USAGE_SUMMARY_DATA\",\"groupByField\":\"assignUser\"," +
+		             "\"query\":\"" + spec.getQuery().replace("\"", "\\\"").replace("'", "\\u0027") + "\"," +
+		             "\"aggregateFields\":[{\"fieldName\":\"*\",\"aggregate\":\"COUNT\"," +
+		             "\"alias\":\"completedTotalTasks\"}]}",
+		             BPMNAnalyticsCoreUtils.getJSONString(spec.toAggregateQuery()));
+		assertTrue(spec.isRanged());
+		assertTrue(spec.isIntegerValues());
+	}
+
+	public void testEmptyFiltersAreNotAdded() {
+		AggregateQuerySpec spec = AggregateQuerySpec
+				.avg(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, BPMNAnalyticsCoreConstants.PROCESS_DEFINITION_KEY,
+				     BPMNAnalyticsCoreConstants.DURATION, BPMNAnalyticsCoreConstants.AVG_EXECUTION_TIME)
+				.whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_PROCESS_DEFINITION_ID,
+				            Collections.<String>emptyList())
+				.whereFinishedBetweenIfSet(0, 2000)
+				.whereFinishedBetweenIfSet(1000, 0);
+		assertNull(spec.getQuery());
+		assertFalse(spec.isRanged());
+		assertTrue(spec.getValueFilters().isEmpty());
+		assertFalse(spec.isIntegerValues());
+		assertEquals("{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"groupByField\":\"processDefKey\"," +
+		             "\"aggregateFields\":[{\"fieldName\":\"duration\",\"aggregate\":\"AVG\"," +
+		             "\"alias\":\"avgExecutionTime\"}]}",
+		             BPMNAnalyticsCoreUtils.getJSONString(spec.toAggregateQuery()));
+	}
+
+	public void testFiltersOfTheSameColumnKeepTheCommonValues() {
+		AggregateQuerySpec spec = AggregateQuerySpec
+				.count(BPMNAnalyticsCoreConstants.USER_INVOLVE_TABLE, BPMNAnalyticsCoreConstants.ASSIGN_USER,
+				       BPMNAnalyticsCoreConstants.COMPLETED_TOTAL_TASKS)
+				.whereEquals(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, "admin")
+				.whereAnyOf(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE, Arrays.asList("admin", "kermit"))
+				.whereFinishedBetween(1000, 3000)
+				.whereFinishedBetween(2000, 4000);
+		assertEquals(Collections.singletonMap(BPMNAnalyticsCoreConstants.COLUMN_ASSIGNEE,
+		                                      Collections.singletonList("admin")), spec.getValueFilters());
+		assertEquals(2000, spec.getFrom());
+		assertEquals(3000, spec.getTo());
+	}
+
+	public void testSearchQueryIsSortedByTheOrder() {
+		AggregateQuerySpec spec = AggregateQuerySpec
+				.search(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE, BPMNAnalyticsCoreConstants.PROCESS_INSTANCE_ID,
+				        BPMNAnalyticsCoreConstants.DURATION)
+				.whereFinishedBetween(1000, 2000);
+		assertEquals("{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		             "\"start\":0,\"count\":" + BPMNAnalyticsCoreConstants.MAX_COUNT + "}",
+		             BPMNAnalyticsCoreUtils.getJSONString(spec.toSearchQuery()));
+
+		// The top entries are the smallest values
+		spec.orderBy(BPMNAnalyticsCoreConstants.TOP, 10);
+		assertEquals("{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		             "\"start\":0,\"count\":10,\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"ASC\"}]}",
+		             BPMNAnalyticsCoreUtils.getJSONString(spec.toSearchQuery()));
+		spec.orderBy(BPMNAnalyticsCoreConstants.BOTTOM, 10);
+		assertEquals("{\"tableName\":\"PROCESS_USAGE_SUMMARY_DATA\",\"query\":\"finishedTime : [1000 TO 2000]\"," +
+		             "\"start\":0,\"count\":10,\"sortBy\":[{\"field\":\"duration\",\"sortType\":\"DESC\"}]}",
+		             BPMNAnalyticsCoreUtils.getJSONString(spec.toSearchQuery()));
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.services;
+
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+import org.wso2.ei.bpmn.analytics.core.DASServerStub;
+
+import java.util.concurrent.TimeUnit;
+
+public class BatchQueryRunnerTest extends TestCase {
+
+    private static final String PROCESS_QUERY =
+            "{\"query\":\"avg_time_vs_process_id\"," +
+            "\"filters\":{\"startTime\":0,\"endTime\":0,\"order\":\"top\",\"count\":10}}";
+    private static final String TASK_QUERY =
+            "{\"query\":\"avg_time_vs_task_id\",\"filters\":{\"processId\":\"p1\",\"order\":\"top\",\"count\":10}}";
+
+    private DASServerStub das;
+
+    @Override
+    protected void setUp() throws Exception {
+        das = new DASServerStub();
+        BatchQueryRunner.init(null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BatchQueryRunner.shutdown();
+        das.stop();
+    }
+
+    public void testResultsOfTheQueries() throws Exception {
+        das.setResponder((path, body) -> body.contains(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE) ?
+                "[{\"values\":{\"processDefKey\":[\"p1\"],\"avgExecutionTime\":10.5}}," +
+                "{\"values\":{\"processDefKey\":[\"p2\"],\"avgExecutionTime\":4}}]" :
+                "[]");
+
+        JSONObject response = execute("{\"queries\":{\"processes\":" + PROCESS_QUERY + ",\"tasks\":" + TASK_QUERY +
+                                      "}}");
+        assertTrue(response.getBoolean(BPMNAnalyticsCoreConstants.BATCH_COMPLETE));
+        JSONObject processes = getResult(response, "processes");
+        assertEquals(BPMNAnalyticsCoreConstants.BATCH_STATUS_OK,
+                     processes.getString(BPMNAnalyticsCoreConstants.BATCH_STATUS));
+        JSONArray rows = processes.getJSONArray(BPMNAnalyticsCoreConstants.BATCH_RESULT);
+        assertEquals(2, rows.length());
+        assertEquals("p1", rows.getJSONObject(0).getString("processDefKey"));
+        assertEquals(10.5, rows.getJSONObject(0).getDouble("avgExecutionTime"), 0);
+        assertEquals("p2", rows.getJSONObject(1).getString("processDefKey"));
+
+        // No rows is an empty array, not an empty string
+        JSONObject tasks = getResult(response, "tasks");
+        assertEquals(BPMNAnalyticsCoreConstants.BATCH_STATUS_OK,
+                     tasks.getString(BPMNAnalyticsCoreConstants.BATCH_STATUS));
+        assertEquals(0, tasks.getJSONArray(BPMNAnalyticsCoreConstants.BATCH_RESULT).length());
+    }
+
+    public void testDASFailure() throws Exception {
+        das.setResponder((path, body) -> {
+            if (body.contains(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE)) {
+                throw new IllegalStateException("DAS error");
+            }
+            return "[{\"values\":{\"taskDefId\":[\"t1\"],\"avgExecutionTime\":1}}]";
+        });
+        JSONObject response = execute("{\"queries\":{\"processes\":" + PROCESS_QUERY + ",\"tasks\":" + TASK_QUERY +
+                                      "}}");
+        assertFalse(response.getBoolean(BPMNAnalyticsCoreConstants.BATCH_COMPLETE));
+        assertStatus(response, "processes", BPMNAnalyticsCoreConstants.BATCH_STATUS_ERROR);
+        assertStatus(response, "tasks", BPMNAnalyticsCoreConstants.BATCH_STATUS_OK);
+
+        // A response which cannot be read fails the query too, instead of returning no rows
+        das.setResponder((path, body) -> "[{\"values\":");
+        response = execute("{\"queries\":{\"processes\":" + PROCESS_QUERY + "}}");
+        assertFalse(response.getBoolean(BPMNAnalyticsCoreConstants.BATCH_COMPLETE));
+        assertStatus(response, "processes", BPMNAnalyticsCoreConstants.BATCH_STATUS_ERROR);
+    }
+
+    public void testDeadlineExpiry() throws Exception {
+        das.setResponder((path, body) -> {
+            if (body.contains(BPMNAnalyticsCoreConstants.PROCESS_USAGE_TABLE)) {
+                Thread.sleep(10000);
+            }
+            return "[]";
+        });
+        long startTime = System.nanoTime();
+        JSONObject response = execute("{\"timeout\":5000,\"queries\":{\"processes\":" +
+                                      PROCESS_QUERY.replace("{\"query\"", "{\"timeout\":200,\"query\"") +
+                                      ",\"tasks\":" + TASK_QUERY + "}}");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        assertFalse(response.getBoolean(BPMNAnalyticsCoreConstants.BATCH_COMPLETE));
+        assertStatus(response, "processes", BPMNAnalyticsCoreConstants.BATCH_STATUS_TIMEOUT);
+        assertStatus(response, "tasks", BPMNAnalyticsCoreConstants.BATCH_STATUS_OK);
+    }
+
+    public void testSocketTimeoutIsReportedAsTimeout() throws Exception {
+        // Without the executor the query runs in the calling thread, its DAS call fails on the socket time out
+        BatchQueryRunner.shutdown();
+        das.setResponder((path, body) -> {
+            Thread.sleep(10000);
+            return "[]";
+        });
+        long startTime = System.nanoTime();
+        JSONObject response = execute("{\"timeout\":200,\"queries\":{\"processes\":" + PROCESS_QUERY + "}}");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        assertFalse(response.getBoolean(BPMNAnalyticsCoreConstants.BATCH_COMPLETE));
+        assertStatus(response, "processes", BPMNAnalyticsCoreConstants.BATCH_STATUS_TIMEOUT);
+    }
+
+    private static JSONObject execute(String batch) throws Exception {
+        return new JSONObject(BatchQueryRunner.execute(batch));
+    }
+
+    private static JSONObject getResult(JSONObject response, String name) throws Exception {
+        return response.getJSONObject(BPMNAnalyticsCoreConstants.BATCH_RESULTS).getJSONObject(name);
+    }
+
+    private static void assertStatus(JSONObject response, String name, String status) throws Exception {
+        assertEquals(status, getResult(response, name).getString(BPMNAnalyticsCoreConstants.BATCH_STATUS));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *     Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *     WSO2 Inc. licenses this file to you under the Apache License,
+ *     Version 2.0 (the "License"); you may not use this file except
+ *     in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing,
+ *    software distributed under the License is distributed on an
+ *    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *    KIND, either express or implied.  See the License for the
+ *    specific language governing permissions and limitations
+ *    under the License.
+ */
+package org.wso2.ei.bpmn.analytics.core.utils;
+
+import junit.framework.TestCase;
+import org.wso2.ei.bpmn.analytics.core.BPMNAnalyticsCoreConstants;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TopKSelectorTest extends TestCase {
+
+    public void testTopAndBottom() {
+        List<Map.Entry<String, Double>> rows = rows("a", 5, "b", 1, "c", 9, "d", 3, "e", 7);
+
+        // The top rows are the smallest values, both orders are returned in descending order
+        assertSelected(select(BPMNAnalyticsCoreConstants.TOP, 2, rows), "d", 3, "b", 1);
+        assertSelected(select(BPMNAnalyticsCoreConstants.BOTTOM, 2, rows), "c", 9, "e", 7);
+        assertSelected(select("Bottom", 1, rows), "c", 9);
+    }
+
+    public void testLimitNotLessThanRowCount() {
+        List<Map.Entry<String, Double>> rows = rows("a", 5, "b", 1, "c", 9);
+
+        assertSelected(select(BPMNAnalyticsCoreConstants.TOP, 3, rows), "c", 9, "a", 5, "b", 1);
+        assertSelected(select(BPMNAnalyticsCoreConstants.TOP, 10, rows), "c", 9, "a", 5, "b", 1);
+        assertSelected(select(BPMNAnalyticsCoreConstants.BOTTOM, 10, rows), "c", 9, "a", 5, "b", 1);
+    }
+
+    public void testNoRowsSelected() {
+        List<Map.Entry<String, Double>> rows = rows("a", 5, "b", 1);
+
+        assertEquals(0, select(BPMNAnalyticsCoreConstants.TOP, 0, rows).size());
+        assertEquals(0, select(BPMNAnalyticsCoreConstants.BOTTOM, 0, rows).size());
+        assertEquals(0, select(BPMNAnalyticsCoreConstants.BOTTOM, -1, rows).size());
+        assertEquals(0, select(BPMNAnalyticsCoreConstants.TOP, 5, new ArrayList<>()).size());
+        assertNull(BPMNAnalyticsCoreUtils.getSelector("middle", 5));
+    }
+
+    public void testTies() {
+        List<Map.Entry<String, Double>> rows = rows("a", 2, "b", 2, "c", 1, "d", 2, "e", 3);
+
+        // Any two of the rows valued 2 may be selected, they are all ranked the same by the full sort
+        TopKSelector selector = select(BPMNAnalyticsCoreConstants.BOTTOM, 3, rows);
+        assertEquals(fullSort(BPMNAnalyticsCoreConstants.BOTTOM, 3, rows), values(selector));
+        assertEquals("e", selector.getKey(0));
+        assertKeysMatchValues(selector, rows);
+
+        selector = select(BPMNAnalyticsCoreConstants.TOP, 2, rows);
+        assertEquals(fullSort(BPMNAnalyticsCoreConstants.TOP, 2, rows), values(selector));
+        assertEquals("c", selector.getKey(1));
+        assertKeysMatchValues(selector, rows);
+    }
+
+    public void testMatchesFullSort() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            List<Map.Entry<String, Double>> rows = new ArrayList<>();
+            int rowCount = random.nextInt(40);
+            for (int j = 0; j < rowCount; j++) {
+                // A small range of values, so there are ties
+                rows.add(new AbstractMap.SimpleEntry<>("k" + j, (double) random.nextInt(20)));
+            }
+            int limit = random.nextInt(45) - 2;
+            String order = random.nextBoolean() ? BPMNAnalyticsCoreConstants.TOP : BPMNAnalyticsCoreConstants.BOTTOM;
+
+            TopKSelector selector = select(order, limit, rows);
+            assertEquals(order + " " + limit + " of " + rows, fullSort(order, limit, rows), values(selector));
+            assertKeysMatchValues(selector, rows);
+        }
+    }
+
+    /**
+     * Values selected by the code replaced by TopKSelector: sort all the rows in descending order, then take the
+     * last count rows for the top and the first count rows for the bottom.
+     */
+    private static List<Double> fullSort(String order, int count, List<Map.Entry<String, Double>> rows) {
+        List<Map.Entry<String, Double>> sorted = new ArrayList<>(rows);
+        Collections.sort(sorted, (first, second) -> first.getValue().compareTo(second.getValue()));
+        Collections.reverse(sorted);
+        if (count > sorted.size()) {
+            count = sorted.size();
+        }
+        List<Double> values = new ArrayList<>();
+        if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.TOP)) {
+            for (int i = sorted.size() - count; i < sorted.size(); i++) {
+                values.add(sorted.get(i).getValue());
+            }
+        } else if (order.equalsIgnoreCase(BPMNAnalyticsCoreConstants.BOTTOM)) {
+            for (int i = 0; i < count; i++) {
+                values.add(sorted.get(i).getValue());
+            }
+        }
+        return values;
+    }
+
+    private static TopKSelector select(String order, int count, List<Map.Entry<String, Double>> rows) {
+        TopKSelector selector = BPMNAnalyticsCoreUtils.getSelector(order, count);
+        for (Map.Entry<String, Double> row : rows) {
+            selector.offer(row.getKey(), row.getValue());
+        }
+        selector.sortDescending();
+        return selector;
+    }
+
+    private static List<Double> values(TopKSelector selector) {
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < selector.size(); i++) {
+            values.add(selector.getValue(i));
+        }
+        return values;
+    }
+
+    /**
+     * Every selected row is one of the rows, selected once
+     */
+    private static void assertKeysMatchValues(TopKSelector selector, List<Map.Entry<String, Double>> rows) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < selector.size(); i++) {
+            assertTrue(keys.add(selector.getKey(i)));
+            boolean found = false;
+            for (Map.Entry<String, Double> row : rows) {
+                found |= row.getKey().equals(selector.getKey(i)) && row.getValue() == selector.getValue(i);
+            }
+            assertTrue(selector.getKey(i), found);
+        }
+    }
+
+    private static void assertSelected(TopKSelector selector, Object... expected) {
+        assertEquals(expected.length / 2, selector.size());
+        for (int i = 0; i < selector.size(); i++) {
+            assertEquals(expected[2 * i], selector.getKey(i));
+            assertEquals(((Number) expected[2 * i + 1]).doubleValue(), selector.getValue(i), 0);
+        }
+    }
+
+    private static List<Map.Entry<String, Double>> rows(Object... keysAndValues) {
+        List<Map.Entry<String, Double>> rows = new ArrayList<>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            rows.add(new AbstractMap.SimpleEntry<>((String) keysAndValues[i],
+                    ((Number) keysAndValues[i + 1]).doubleValue()));
+        }
+        return rows;
+    }
+}